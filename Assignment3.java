@@ -1,6 +1,9 @@
 package assignment3;
 
+import java.util.Arrays;
+
 import assignment3.simpleAccount.controller.Controller;
+import assignment3.simpleAccount.engine.TransactionReplay;
 
 
 /** 
@@ -12,11 +15,18 @@ import assignment3.simpleAccount.controller.Controller;
 public class Assignment3 {
 
 	/** 
-	*Creates an instance of the controller class which begins the program.
+	*Creates an instance of the controller class which begins the program. When started with
+	*"--replay accountFile transactionFile [outputFile]" a transaction file is instead replayed without any views.
 	*@param args Arguments to be passed in to the main method.
+	*@throws Exception If a replay could not read or write its files.
 	*/
-	public static void main(String[] args) 
+	public static void main(String[] args) throws Exception
 	{
+		if (args.length > 0 && args[0].equals("--replay"))
+		{
+			TransactionReplay.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 	
 		//Note that the following warning can be ignored.
 		//An anonymous class could have been used, but was not necessary.
@@ -0,0 +1,133 @@
+package assignment3.simpleAccount.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * Times the per-account operations of Account: depositFunds(), withdrawFunds(), generateString() and toString(). Each
+ * call goes to the next of the accounts of a store in a random order, so as the store grows past the caches the numbers
+ * show the cost of reaching an account as well as of the operation itself. MoneyBenchmark times the same deposit and
+ * withdraw on a single account.
+ *
+ * @author dTorrente
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBenchmark {
+
+	@Param({"1000", "100000", "1000000", "10000000"})
+	private int size;
+
+	private AccountStore store;
+	private long[] funds;
+	private Account[] accounts;
+	private int next;
+
+	/**
+	* Creates the accounts and the random order to visit them in.
+	* @throws AccountDataException Never, as the generated IDs are unique.
+	*/
+	@Setup(Level.Trial)
+	public void createAccounts() throws AccountDataException
+	{
+		store = AccountFileGenerator.populate(new AccountStore(), size, 1);
+		funds = store.copyCents();
+		accounts = new Account[size];
+		Random random = new Random(3);
+		for (int slot = 0; slot < size; slot++)
+		{
+			int other = random.nextInt(slot + 1);
+			accounts[slot] = accounts[other];
+			accounts[other] = store.view(slot);
+		}
+	}
+
+	/**
+	* Restores the generated funds before each iteration, so the withdrawals of one iteration do not carry into the next.
+	*/
+	@Setup(Level.Iteration)
+	public void restoreFunds()
+	{
+		for (int slot = 0; slot < size; slot++)
+			store.setCents(slot, funds[slot]);
+	}
+
+	/**
+	* Get the next account to work on.
+	* @return The account.
+	*/
+	private Account nextAccount()
+	{
+		Account account = accounts[next];
+		next = next + 1 == accounts.length ? 0 : next + 1;
+		return account;
+	}
+
+	/**
+	* Deposits a cent.
+	* @return The account, so that the work is not optimised away.
+	* @throws AccountDataException Never, as the funds stay far below Account.MAX_FUNDS.
+	*/
+	@Benchmark
+	public Account depositFunds() throws AccountDataException
+	{
+		Account account = nextAccount();
+		account.depositFunds(1);
+		return account;
+	}
+
+	/**
+	* Withdraws a cent, in USD.
+	* @return The account, so that the work is not optimised away.
+	* @throws AccountDataException Never, as no account is withdrawn from more than its funds within an iteration.
+	*/
+	@Benchmark
+	public Account withdrawFunds() throws AccountDataException
+	{
+		Account account = nextAccount();
+		account.withdrawFunds(1, Money.RATE_SCALE);
+		return account;
+	}
+
+	/**
+	* Formats an account as it is written to an account file.
+	* @return The line.
+	*/
+	@Benchmark
+	public String generateString()
+	{
+		return nextAccount().generateString();
+	}
+
+	/**
+	* Formats an account as it is shown in the account list.
+	* @return The text.
+	*/
+	@Benchmark
+	public String toStringForList()
+	{
+		return nextAccount().toString();
+	}
+}
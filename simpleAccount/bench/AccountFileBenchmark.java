@@ -0,0 +1,121 @@
+package assignment3.simpleAccount.bench;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import assignment3.simpleAccount.io.AccountFileParser;
+import assignment3.simpleAccount.io.AccountFileWriter;
+import assignment3.simpleAccount.io.ParallelAccountLoader;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountOrder;
+
+/**
+ * Times loading and saving account files of generated accounts, along the paths Controller.loadAccounts() and
+ * Controller.saveAccounts() take: ParallelAccountLoader reading into a new store followed by AccountOrder.sortedSlots(),
+ * and AccountFileWriter writing the store in account ID order. The single threaded AccountFileParser is timed on its
+ * own as well, as it is the work each thread of the loader does.
+ * <p>
+ * The files are written to the temporary directory, which can be moved with -Djava.io.tmpdir. At the larger sizes
+ * the numbers depend as much on the disk and page cache as on the code.
+ *
+ * @author dTorrente
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountFileBenchmark {
+
+	@Param({"1000", "100000", "1000000", "10000000"})
+	private int size;
+
+	private File input;
+	private File output;
+	private AccountStore store;
+	private int[] order;
+
+	/**
+	* Generates the account file to load and the store to save.
+	* @throws AccountDataException Never, as the generated IDs are unique.
+	* @throws IOException If the file could not be written.
+	*/
+	@Setup(Level.Trial)
+	public void createFiles() throws AccountDataException, IOException
+	{
+		input = File.createTempFile("AccountFileBenchmark", ".txt");
+		output = File.createTempFile("AccountFileBenchmark", ".out");
+		AccountFileGenerator.generate(input, size, 1);
+		store = AccountFileGenerator.populate(new AccountStore(), size, 1);
+		order = AccountOrder.sortedSlots(store);
+	}
+
+	/**
+	* Deletes the files.
+	*/
+	@TearDown(Level.Trial)
+	public void deleteFiles()
+	{
+		input.delete();
+		output.delete();
+	}
+
+	/**
+	* Loads the file as the controller does.
+	* @return The order of the loaded accounts.
+	*/
+	@Benchmark
+	public int[] load() throws AccountDataException, IOException, InterruptedException
+	{
+		AccountStore loaded = new ParallelAccountLoader().load(input, new AccountStore());
+		return AccountOrder.sortedSlots(loaded);
+	}
+
+	/**
+	* Parses the file on one thread.
+	* @return The accounts read.
+	*/
+	@Benchmark
+	public AccountStore parse() throws AccountDataException, IOException
+	{
+		InputStream in = new FileInputStream(input);
+		try
+		{
+			return new AccountFileParser(in).parseInto(new AccountStore());
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	* Saves the accounts as the controller does.
+	* @return The length of the file written.
+	*/
+	@Benchmark
+	public long save() throws IOException
+	{
+		AccountFileWriter.write(output, store, order);
+		return output.length();
+	}
+}
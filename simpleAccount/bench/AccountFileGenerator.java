@@ -0,0 +1,86 @@
+package assignment3.simpleAccount.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import assignment3.simpleAccount.io.AccountFileWriter;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ * Creates synthetic accounts for the benchmarks, either in an AccountStore or as an account file. The same count and
+ * seed always give the same accounts. Names are drawn from a pool of common names, and account IDs are unique, spread
+ * over the whole int range and in no particular order, as they would be in a file built up by hand. Funds are between
+ * 100,000.00 and 10,000,000.00, so that a benchmark withdrawing a cent at a time does not run an account dry.
+ * <p>
+ * Usage: AccountFileGenerator file [accounts] [seed].
+ *
+ * @author dTorrente
+ */
+public class AccountFileGenerator {
+
+	private static final String[] FIRST_NAMES = {"James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael",
+		"Linda", "William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica"};
+	private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+		"Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas"};
+	private static final long MINIMUM_FUNDS = 10000000;
+	private static final long MAXIMUM_FUNDS = 1000000000;
+	//odd, so multiplying by it maps distinct ints to distinct ints
+	private static final int ID_MULTIPLIER = 0x9E3779B1;
+
+	/**
+	* Writes an account file.
+	* @param args The file to write, the number of accounts, defaulting to one million, and the seed, defaulting to 1.
+	*/
+	public static void main(String[] args) throws AccountDataException, IOException
+	{
+		if (args.length < 1)
+		{
+			System.err.println("Usage: AccountFileGenerator file [accounts] [seed]");
+			System.exit(2);
+		}
+		File file = new File(args[0]);
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+		long start = System.nanoTime();
+		generate(file, count, seed);
+		System.out.println("Wrote " + count + " accounts, " + file.length() + " bytes, in "
+			+ (System.nanoTime() - start) / 1000000 + " ms.");
+	}
+
+	/**
+	* Add synthetic accounts to a store.
+	* @param store The store, which should not yet hold any account.
+	* @param count The number of accounts to add.
+	* @param seed The seed of the names, IDs and funds.
+	* @return The store.
+	* @throws AccountDataException If the store already held an account with one of the IDs.
+	*/
+	public static AccountStore populate(AccountStore store, int count, long seed) throws AccountDataException
+	{
+		Random random = new Random(seed);
+		int offset = random.nextInt();
+		store.ensureCapacity(store.size() + count);
+		for (int index = 0; index < count; index++)
+		{
+			store.add(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+				(index + offset) * ID_MULTIPLIER, MINIMUM_FUNDS + (long) (random.nextDouble() * (MAXIMUM_FUNDS - MINIMUM_FUNDS)));
+		}
+		return store;
+	}
+
+	/**
+	* Write an account file of synthetic accounts, in the order they were generated.
+	* @param file The file to write.
+	* @param count The number of accounts to write.
+	* @param seed The seed of the names, IDs and funds.
+	* @throws AccountDataException Never, as the IDs are unique.
+	* @throws IOException If the file could not be written.
+	*/
+	public static void generate(File file, int count, long seed) throws AccountDataException, IOException
+	{
+		AccountFileWriter.write(file, populate(new AccountStore(), count, seed));
+	}
+}
@@ -0,0 +1,112 @@
+package assignment3.simpleAccount.bench;
+
+import java.util.Random;
+import java.util.Vector;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ * Compares the heap used by a list of Account objects, as held by the controller before AccountStore existed, against
+ * the same accounts held in an AccountStore. Names are drawn from a pool of common names and copied for every account,
+ * just as the file parser creates a new String for every name it reads.
+ * <p>
+ * Usage: AccountFootprint [accounts]. Run with a heap large enough for the old model, for example -Xmx4g.
+ *
+ * @author dTorrente
+ */
+public class AccountFootprint {
+
+	private static final String[] FIRST_NAMES = {"James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael",
+		"Linda", "William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica"};
+	private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+		"Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas"};
+
+	/**
+	* Runs the comparison.
+	* @param args The number of accounts to create. Defaults to one million.
+	*/
+	public static void main(String[] args) throws AccountDataException
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+		long before = usedHeap();
+		Vector<Account> objects = buildObjects(count);
+		long objectBytes = usedHeap() - before;
+		System.out.println("Vector<Account>: " + objects.size() + " accounts, " + objectBytes / count + " bytes per account");
+		objects = null;
+
+		before = usedHeap();
+		AccountStore store = buildStore(count);
+		long storeBytes = usedHeap() - before;
+		System.out.println("AccountStore:    " + store.size() + " accounts, " + storeBytes / count + " bytes per account");
+		System.out.println("AccountStore uses " + (100 * storeBytes / objectBytes) + "% of the heap of Vector<Account>");
+	}
+
+	/**
+	* Builds accounts the way the controller held them before AccountStore.
+	* @param count The number of accounts to build.
+	* @return The accounts.
+	*/
+	private static Vector<Account> buildObjects(int count)
+	{
+		Random random = new Random(42);
+		Vector<Account> accounts = new Vector<Account>();
+		for (int iterator = 0; iterator < count; iterator++)
+		{
+			accounts.add(new Account(copy(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]),
+				copy(LAST_NAMES[random.nextInt(LAST_NAMES.length)]), iterator + 1, random.nextInt(1000000)));
+		}
+		return accounts;
+	}
+
+	/**
+	* Builds the same accounts in a store.
+	* @param count The number of accounts to build.
+	* @return The store.
+	*/
+	private static AccountStore buildStore(int count) throws AccountDataException
+	{
+		Random random = new Random(42);
+		AccountStore store = new AccountStore();
+		for (int iterator = 0; iterator < count; iterator++)
+		{
+			store.add(copy(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]),
+				copy(LAST_NAMES[random.nextInt(LAST_NAMES.length)]), iterator + 1, random.nextInt(1000000));
+		}
+		return store;
+	}
+
+	/**
+	* Makes a new copy of a string, as the parser would when reading it from a file.
+	* @param value The string to copy.
+	* @return A new string equal to the value.
+	*/
+	private static String copy(String value)
+	{
+		return new String(value.toCharArray());
+	}
+
+	/**
+	* Measures the heap in use after asking for garbage collection.
+	* @return The bytes of heap in use.
+	*/
+	private static long usedHeap()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int iterator = 0; iterator < 4; iterator++)
+		{
+			System.gc();
+			try
+			{
+				Thread.sleep(100);
+			}
+			catch (InterruptedException iException)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
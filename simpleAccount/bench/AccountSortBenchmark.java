@@ -0,0 +1,146 @@
+package assignment3.simpleAccount.bench;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountComparator;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountOrder;
+
+/**
+ * Compares ways of sorting a shuffled list of accounts by ID: AccountComparator through Collections.sort(), IDs packed
+ * with positions into longs and sorted with Arrays.parallelSort(), and the radix sort of AccountOrder. The accounts are
+ * views of an AccountStore, as they are when a file is loaded, and IDs are spread over the whole int range. The radix
+ * sort is what Controller.organizeAccounts() does with an unsorted list, below AccountOrder.PARALLEL_SORT_THRESHOLD or
+ * on a single processor.
+ * <p>
+ * radixOrder and parallelOrder sort only the ID column, the two ways AccountOrder.sortedOrder() chooses between, to
+ * show where its parallel path pays. Run them with -jvmArgsAppend -XX:ActiveProcessorCount=N to compare processor counts.
+ *
+ * @author dTorrente
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountSortBenchmark {
+
+	@Param({"1000", "100000", "1000000", "10000000"})
+	private int size;
+
+	private Account[] shuffled;
+	private int[] accountIDs;
+	private Vector<Account> accounts;
+
+	/**
+	* Creates the accounts in a random order.
+	* @throws AccountDataException Never, as the IDs are unique.
+	*/
+	@Setup(Level.Trial)
+	public void createAccounts() throws AccountDataException
+	{
+		Random random = new Random(7);
+		AccountStore store = new AccountStore();
+		while (store.size() < size)
+		{
+			int accountID = random.nextInt();
+			if (store.find(accountID) < 0)
+				store.add("Bench", "Mark", accountID, 0);
+		}
+		shuffled = store.views().toArray(new Account[size]);
+		accountIDs = new int[size];
+		for (int index = 0; index < size; index++)
+			accountIDs[index] = shuffled[index].getAccountID();
+	}
+
+	/**
+	* Restores the shuffled order before each sort.
+	*/
+	@Setup(Level.Invocation)
+	public void shuffle()
+	{
+		accounts = new Vector<Account>(Arrays.asList(shuffled));
+	}
+
+	/**
+	* Sorts with AccountComparator.
+	* @return The sorted list.
+	*/
+	@Benchmark
+	public Vector<Account> comparator()
+	{
+		Collections.sort(accounts, new AccountComparator());
+		return accounts;
+	}
+
+	/**
+	* Sorts IDs packed with their positions into longs, then rebuilds the list.
+	* @return The sorted list.
+	*/
+	@Benchmark
+	public Vector<Account> packedParallelSort()
+	{
+		int count = accounts.size();
+		long[] keys = new long[count];
+		for (int index = 0; index < count; index++)
+			keys[index] = (long) accounts.get(index).getAccountID() << 32 | index;
+		Arrays.parallelSort(keys);
+		Account[] sorted = new Account[count];
+		for (int index = 0; index < count; index++)
+			sorted[index] = accounts.get((int) keys[index]);
+		for (int index = 0; index < count; index++)
+			accounts.set(index, sorted[index]);
+		return accounts;
+	}
+
+	/**
+	* Sorts with AccountOrder, which radix sorts the ID column.
+	* @return The sorted list.
+	*/
+	@Benchmark
+	public Vector<Account> radix()
+	{
+		AccountOrder.sort(accounts);
+		return accounts;
+	}
+
+	/**
+	* Radix sorts the ID column.
+	* @return The positions in sorted order.
+	*/
+	@Benchmark
+	public int[] radixOrder()
+	{
+		return AccountOrder.radixSortedOrder(accountIDs, size);
+	}
+
+	/**
+	* Sorts the ID column packed into longs with Arrays.parallelSort().
+	* @return The positions in sorted order.
+	*/
+	@Benchmark
+	public int[] parallelOrder()
+	{
+		return AccountOrder.parallelSortedOrder(accountIDs, size);
+	}
+}
@@ -0,0 +1,105 @@
+package assignment3.simpleAccount.bench;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * Compares the long cents held by Account against BigDecimal on the deposit and withdraw path, and on a currency
+ * conversion. Run with "-prof gc" to see that the cents path allocates nothing.
+ *
+ * @author dTorrente
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+	private Account account;
+	private long amount;
+	private long rate;
+
+	private BigDecimal balance;
+	private BigDecimal bigAmount;
+	private BigDecimal bigRate;
+
+	/**
+	* Creates a balance of one million dollars and an amount of 12.34 in both representations.
+	*/
+	@Setup
+	public void setUp()
+	{
+		account = new Account("Bench", "Mark", 1, 100000000L);
+		amount = 1234;
+		rate = Money.parseRate("6.91");
+
+		balance = new BigDecimal("1000000.00");
+		bigAmount = new BigDecimal("12.34");
+		bigRate = new BigDecimal("6.91");
+	}
+
+	/**
+	* Deposits then withdraws an amount held in cents.
+	* @return The balance, so that the work is not optimised away.
+	* @throws AccountDataException Never, as the balance is always sufficient.
+	*/
+	@Benchmark
+	public long depositWithdrawCents() throws AccountDataException
+	{
+		account.depositFunds(amount);
+		account.withdrawFunds(amount, Money.RATE_SCALE, true);
+		return account.getFunds();
+	}
+
+	/**
+	* Deposits then withdraws an amount held as a BigDecimal, with the same insufficient funds check.
+	* @return The balance, so that the work is not optimised away.
+	*/
+	@Benchmark
+	public BigDecimal depositWithdrawBigDecimal()
+	{
+		balance = balance.add(bigAmount);
+		if (bigAmount.compareTo(balance) > 0)
+			throw new IllegalStateException("Insufficient funds");
+		balance = balance.subtract(bigAmount);
+		return balance;
+	}
+
+	/**
+	* Converts an amount held in cents to another currency.
+	* @return The converted amount.
+	*/
+	@Benchmark
+	public long convertCents()
+	{
+		return Money.toForeign(amount, rate);
+	}
+
+	/**
+	* Converts an amount held as a BigDecimal to another currency.
+	* @return The converted amount.
+	*/
+	@Benchmark
+	public BigDecimal convertBigDecimal()
+	{
+		return bigAmount.multiply(bigRate).setScale(2, RoundingMode.HALF_UP);
+	}
+}
@@ -0,0 +1,130 @@
+package assignment3.simpleAccount.bench;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import assignment3.simpleAccount.util.MoneyFormat;
+
+/**
+ * Compares writing an amount with two decimal places through DecimalFormat, as the edit views and the insufficient
+ * funds message used to, against MoneyFormat. Each call writes the next of a set of random balances. Run with
+ * "-prof gc" to see that appending to a builder which is reused allocates nothing.
+ *
+ * @author dTorrente
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyFormatBenchmark {
+
+	private static final int AMOUNTS = 1024;
+
+	private long[] amounts;
+	private int next;
+	private DecimalFormat decimalFormat;
+	private StringBuilder builder;
+	private char[] buffer;
+
+	/**
+	* Creates balances between -10,000.00 and 10,000,000.00, and the format and buffers which are reused.
+	*/
+	@Setup
+	public void setUp()
+	{
+		Random random = new Random(25);
+		amounts = new long[AMOUNTS];
+		for (int index = 0; index < AMOUNTS; index++)
+			amounts[index] = random.nextInt(1001000000) - 1000000;
+		decimalFormat = newDecimalFormat();
+		builder = new StringBuilder(MoneyFormat.MAX_LENGTH);
+		buffer = new char[MoneyFormat.MAX_LENGTH];
+	}
+
+	/**
+	* Formats through a DecimalFormat created for the call, as the insufficient funds message did.
+	* @return The amount as a string.
+	*/
+	@Benchmark
+	public String decimalFormatPerCall()
+	{
+		return newDecimalFormat().format(nextAmount() / 100.0);
+	}
+
+	/**
+	* Formats through one DecimalFormat kept by the caller, as each edit view did.
+	* @return The amount as a string.
+	*/
+	@Benchmark
+	public String decimalFormatShared()
+	{
+		return decimalFormat.format(nextAmount() / 100.0);
+	}
+
+	/**
+	* Formats as a new string.
+	* @return The amount as a string.
+	*/
+	@Benchmark
+	public String moneyFormatString()
+	{
+		return MoneyFormat.DISPLAY.format(nextAmount());
+	}
+
+	/**
+	* Appends to a builder which is reused, as an edit view does.
+	* @return The builder.
+	*/
+	@Benchmark
+	public StringBuilder moneyFormatBuilder()
+	{
+		builder.setLength(0);
+		return MoneyFormat.DISPLAY.append(builder, nextAmount());
+	}
+
+	/**
+	* Writes into a char array which is reused.
+	* @return The index after the amount, with the array left for the next call.
+	*/
+	@Benchmark
+	public int moneyFormatBuffer()
+	{
+		return MoneyFormat.DISPLAY.format(nextAmount(), buffer, 0);
+	}
+
+	/**
+	* Get the next balance to write.
+	* @return The balance in cents.
+	*/
+	private long nextAmount()
+	{
+		next = (next + 1) & (AMOUNTS - 1);
+		return amounts[next];
+	}
+
+	/**
+	* Create a format the way the edit views and the insufficient funds message did.
+	* @return The format.
+	*/
+	private static DecimalFormat newDecimalFormat()
+	{
+		DecimalFormat format = new DecimalFormat("#.00");
+		format.setRoundingMode(RoundingMode.HALF_UP);
+		return format;
+	}
+}
@@ -0,0 +1,101 @@
+package assignment3.simpleAccount.bench;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import assignment3.simpleAccount.engine.ReplaySummary;
+import assignment3.simpleAccount.engine.TransactionEngine;
+import assignment3.simpleAccount.engine.TransactionReplay;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * Replays one transaction file against the same synthetic accounts on an increasing number of workers, and reports
+ * the throughput of the whole replay and of the part which runs in parallel. The file is held in memory, so reading
+ * it is not measured against the disk. Each worker count is run several times on a fresh copy of the accounts, and
+ * the fastest run is reported.
+ * <p>
+ * Reading the file and splitting it between the workers runs on one thread, so the speed-up of the whole replay is
+ * bounded by the share of the time spent on it, which is printed as the serial fraction.
+ * <p>
+ * Usage: ReplayScaling [accounts] [transactions] [max workers] [runs].
+ *
+ * @author dTorrente
+ */
+public class ReplayScaling {
+
+	/**
+	* Runs the benchmark.
+	* @param args The number of accounts, defaulting to 1,000,000, the number of transactions, defaulting to 5,000,000,
+	* the largest number of workers, defaulting to twice the available processors, and the runs of each worker count,
+	* defaulting to 5.
+	*/
+	public static void main(String[] args) throws Exception
+	{
+		int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int transactions = args.length > 1 ? Integer.parseInt(args[1]) : 5000000;
+		int maxWorkers = args.length > 2 ? Integer.parseInt(args[2]) : 2 * Runtime.getRuntime().availableProcessors();
+		int runs = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+		AccountStore original = AccountFileGenerator.populate(new AccountStore(), accounts, 1);
+		byte[] file = transactionFile(original, transactions);
+		System.out.println(accounts + " accounts, " + transactions + " transactions (" + file.length / 1000000
+			+ " MB), " + Runtime.getRuntime().availableProcessors() + " processors.");
+		System.out.println("workers  total ms  apply ms  total tx/s  apply tx/s  speed-up  serial fraction");
+
+		double baseline = 0;
+		for (int workers = 1; workers <= maxWorkers; workers *= 2)
+		{
+			ReplaySummary fastest = null;
+			for (int run = 0; run < runs; run++)
+			{
+				AccountStore store = copy(original);
+				ReplaySummary summary = new TransactionReplay(new TransactionEngine(store), workers)
+					.replay(new ByteArrayInputStream(file));
+				if (fastest == null || summary.getElapsedNanos() < fastest.getElapsedNanos())
+					fastest = summary;
+			}
+			if (baseline == 0)
+				baseline = fastest.getApplyNanos();
+			long serialNanos = fastest.getElapsedNanos() - fastest.getApplyNanos();
+			System.out.printf("%7d  %8d  %8d  %10.0f  %10.0f  %8.2f  %15.2f%n", workers,
+				fastest.getElapsedNanos() / 1000000, fastest.getApplyNanos() / 1000000,
+				transactions * 1e9 / fastest.getElapsedNanos(), transactions * 1e9 / fastest.getApplyNanos(),
+				baseline / fastest.getApplyNanos(), (double) serialNanos / fastest.getElapsedNanos());
+		}
+	}
+
+	/**
+	* Write a transaction file of random deposits and withdrawals against the accounts of a store.
+	* @param store The store holding the accounts.
+	* @param transactions The number of transactions to write.
+	* @return The file.
+	*/
+	private static byte[] transactionFile(AccountStore store, int transactions)
+	{
+		Random random = new Random(8);
+		StringBuilder file = new StringBuilder(transactions * 24);
+		for (int line = 0; line < transactions; line++)
+		{
+			file.append(store.getAccountID(random.nextInt(store.size())))
+				.append(random.nextBoolean() ? " deposit " : " withdraw ")
+				.append(Money.toString(random.nextInt(100000))).append('\n');
+		}
+		return file.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	* Copy the accounts of a store, so each run starts from the same funds.
+	* @param original The store to copy.
+	* @return The copy.
+	*/
+	private static AccountStore copy(AccountStore original) throws Exception
+	{
+		AccountStore store = new AccountStore();
+		store.ensureCapacity(original.size());
+		for (int slot = 0; slot < original.size(); slot++)
+			store.add(original.getFirstName(slot), original.getLastName(slot), original.getAccountID(slot), original.getCents(slot));
+		return store;
+	}
+}
@@ -0,0 +1,84 @@
+package assignment3.simpleAccount.bench;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.Vector;
+
+import assignment3.simpleAccount.io.AccountFileWriter;
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ * Compares saving accounts the way Controller.saveAccounts() used to, through PrintWriter.println() of
+ * Account.generateString() into a FileWriter, against AccountFileWriter. Each way is run several times and the best
+ * run is reported, to keep the page cache from favouring whichever runs second.
+ * <p>
+ * Usage: SaveThroughput [accounts] [directory].
+ *
+ * @author dTorrente
+ */
+public class SaveThroughput {
+
+	private static final String[] FIRST_NAMES = {"James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda"};
+	private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis"};
+	private static final int RUNS = 5;
+
+	/**
+	* Runs the comparison.
+	* @param args The number of accounts, defaulting to one million, and the directory to write to, defaulting to the
+	* temporary directory.
+	*/
+	public static void main(String[] args) throws AccountDataException, IOException
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File directory = new File(args.length > 1 ? args[1] : System.getProperty("java.io.tmpdir"));
+		File file = new File(directory, "SaveThroughput.txt");
+
+		AccountStore store = new AccountStore();
+		Random random = new Random(42);
+		for (int account = 1; account <= count; account++)
+		{
+			store.add(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+				account, random.nextInt(100000000));
+		}
+		Vector<Account> accounts = store.views();
+
+		long printWriter = Long.MAX_VALUE;
+		long accountFileWriter = Long.MAX_VALUE;
+		for (int run = 0; run < RUNS; run++)
+		{
+			long start = System.nanoTime();
+			PrintWriter pWriter = new PrintWriter(new FileWriter(file));
+			for (int iterator = 0; iterator < accounts.size(); iterator++)
+				pWriter.println(accounts.get(iterator).generateString());
+			pWriter.close();
+			printWriter = Math.min(printWriter, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			AccountFileWriter.write(file, accounts);
+			accountFileWriter = Math.min(accountFileWriter, System.nanoTime() - start);
+		}
+
+		long bytes = file.length();
+		file.delete();
+		report("PrintWriter", count, bytes, printWriter);
+		report("AccountFileWriter", count, bytes, accountFileWriter);
+	}
+
+	/**
+	* Prints the throughput of one way of saving.
+	* @param name The way of saving.
+	* @param count The number of accounts saved.
+	* @param bytes The size of the file.
+	* @param nanos The time the best run took.
+	*/
+	private static void report(String name, int count, long bytes, long nanos)
+	{
+		System.out.printf("%-18s %6d ms  %10.0f accounts/s  %7.1f MB/s%n", name, nanos / 1000000,
+			count / (nanos / 1e9), bytes / (nanos / 1e9) / (1024 * 1024));
+	}
+}
@@ -0,0 +1,232 @@
+package assignment3.simpleAccount.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import assignment3.simpleAccount.engine.TransactionEngine;
+import assignment3.simpleAccount.engine.TransactionJournal;
+import assignment3.simpleAccount.model.AccountSnapshot;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ * Moves funds between random accounts from many threads and checks that no money is created or lost. Each thread
+ * transfers through TransactionEngine.transfer(), which withdraws and then deposits without a lock on either account,
+ * while an auditor repeatedly totals every balance under runExclusively(). Every total must equal the starting total.
+ * <p>
+ * For comparison the same load is run with a transfer which locks both accounts in ascending account ID order and
+ * then moves the funds, the usual deadlock-free alternative, and through an engine with a TransactionJournal attached,
+ * which orders each transfer against others on the same accounts and claims it a journal sequence number, to measure
+ * what journaling costs under contention.
+ * <p>
+ * Usage: TransferContention [accounts] [threads] [seconds]. Few accounts means heavy contention on each of them.
+ *
+ * @author dTorrente
+ */
+public class TransferContention {
+
+	private static final long STARTING_FUNDS = 100000;
+
+	/**
+	* Runs the benchmark.
+	* @param args The number of accounts, defaulting to 1000, the number of transferring threads, defaulting to 8, and
+	* the seconds to run each way for, defaulting to 5.
+	*/
+	public static void main(String[] args) throws Exception
+	{
+		int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		long seconds = args.length > 2 ? Long.parseLong(args[2]) : 5;
+
+		boolean conserved = run("engine (two-phase, lock-free)", accounts, threads, seconds, false, false);
+		conserved &= run("engine with journal", accounts, threads, seconds, false, true);
+		conserved &= run("ordered locks", accounts, threads, seconds, true, false);
+		if (!conserved)
+		{
+			System.out.println("FAILED: funds were not conserved.");
+			System.exit(1);
+		}
+	}
+
+	/**
+	* Run one way of transferring.
+	* @param name The name of the way, to report.
+	* @param accounts The number of accounts.
+	* @param threads The number of transferring threads.
+	* @param seconds The seconds to run for.
+	* @param orderedLocks Whether to transfer under locks taken in ascending account ID order rather than through the engine.
+	* @param journaled Whether to journal the engine's transfers to a temporary file.
+	* @return True if every total the auditor took equalled the starting total.
+	*/
+	private static boolean run(String name, final int accounts, int threads, long seconds, final boolean orderedLocks,
+		boolean journaled) throws AccountDataException, InterruptedException, IOException
+	{
+		final AccountStore store = new AccountStore();
+		for (int account = 0; account < accounts; account++)
+			store.add("First", "Last", account, STARTING_FUNDS);
+		final long total = STARTING_FUNDS * accounts;
+		final TransactionEngine engine = new TransactionEngine(store);
+		File snapshot = null;
+		TransactionJournal journal = null;
+		if (journaled)
+		{
+			snapshot = File.createTempFile("contention", AccountSnapshot.FILE_EXTENSION);
+			journal = TransactionJournal.create(engine, snapshot);
+		}
+		final Object[] locks = new Object[accounts];
+		for (int account = 0; account < accounts; account++)
+			locks[account] = new Object();
+		//the ordered locks do not exclude the auditor, so transfers share this lock and the auditor takes it exclusively
+		final ReentrantReadWriteLock auditLock = new ReentrantReadWriteLock();
+
+		final AtomicBoolean stop = new AtomicBoolean();
+		final AtomicLong applied = new AtomicLong();
+		final AtomicLong rejected = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		for (int index = 0; index < threads; index++)
+		{
+			workers[index] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					long done = 0;
+					long refused = 0;
+					try
+					{
+						start.await();
+					}
+					catch (InterruptedException iException)
+					{
+						return;
+					}
+					while (!stop.get())
+					{
+						int from = random.nextInt(accounts);
+						int to = random.nextInt(accounts);
+						long amount = random.nextLong(STARTING_FUNDS / 10);
+						if (orderedLocks ? lockedTransfer(store, locks, auditLock, from, to, amount) : engineTransfer(engine, from, to, amount))
+							done++;
+						else
+							refused++;
+					}
+					applied.addAndGet(done);
+					rejected.addAndGet(refused);
+				}
+			});
+			workers[index].start();
+		}
+
+		final long[] sum = new long[1];
+		long audits = 0;
+		boolean conserved = true;
+		long begin = System.nanoTime();
+		start.countDown();
+		while (System.nanoTime() - begin < seconds * 1000000000L)
+		{
+			Runnable audit = new Runnable()
+			{
+				public void run()
+				{
+					sum[0] = 0;
+					for (int slot = 0; slot < store.size(); slot++)
+						sum[0] += store.getCents(slot);
+				}
+			};
+			if (orderedLocks)
+			{
+				auditLock.writeLock().lock();
+				try
+				{
+					audit.run();
+				}
+				finally
+				{
+					auditLock.writeLock().unlock();
+				}
+			}
+			else
+			{
+				engine.runExclusively(audit);
+			}
+			conserved &= sum[0] == total;
+			audits++;
+			Thread.sleep(10);
+		}
+		stop.set(true);
+		for (Thread worker : workers)
+			worker.join();
+		long elapsed = System.nanoTime() - begin;
+		if (journal != null)
+		{
+			journal.close();
+			snapshot.delete();
+			TransactionJournal.journalFileFor(snapshot).delete();
+		}
+
+		long finalSum = 0;
+		for (int slot = 0; slot < store.size(); slot++)
+			finalSum += store.getCents(slot);
+		conserved &= finalSum == total;
+		System.out.println(name + ": " + (applied.get() * 1000000000L / elapsed) + " transfers/s, " + rejected.get()
+			+ " rejected, " + audits + " audits, funds " + (conserved ? "conserved" : "NOT conserved"));
+		return conserved;
+	}
+
+	/**
+	* Transfer through the engine.
+	* @return True if the transfer was applied.
+	*/
+	private static boolean engineTransfer(TransactionEngine engine, int from, int to, long amount)
+	{
+		try
+		{
+			engine.transfer(from, to, amount);
+			return true;
+		}
+		catch (AccountDataException adException)
+		{
+			return false;
+		}
+	}
+
+	/**
+	* Transfer under a lock on each account, taken in ascending account ID order so two transfers can never each hold
+	* the lock the other needs.
+	* @return True if the transfer was applied.
+	*/
+	private static boolean lockedTransfer(AccountStore store, Object[] locks, ReentrantReadWriteLock auditLock, int from,
+		int to, long amount)
+	{
+		if (from == to)
+			return false;
+		auditLock.readLock().lock();
+		try
+		{
+			synchronized (locks[Math.min(from, to)])
+			{
+				synchronized (locks[Math.max(from, to)])
+				{
+					int fromSlot = store.find(from);
+					int toSlot = store.find(to);
+					long available = store.getCents(fromSlot);
+					if (available < amount)
+						return false;
+					store.setCents(fromSlot, available - amount);
+					store.setCents(toSlot, store.getCents(toSlot) + amount);
+					return true;
+				}
+			}
+		}
+		finally
+		{
+			auditLock.readLock().unlock();
+		}
+	}
+}
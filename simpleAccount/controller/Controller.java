@@ -1,20 +1,43 @@
 package assignment3.simpleAccount.controller;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.Collections;
-import java.util.InputMismatchException;
-import java.util.Scanner;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+import assignment3.simpleAccount.engine.TransactionEngine;
+import assignment3.simpleAccount.engine.TransactionJournal;
+import assignment3.simpleAccount.io.AccountFileWriter;
+import assignment3.simpleAccount.io.FileProgress;
+import assignment3.simpleAccount.io.FileRateProvider;
+import assignment3.simpleAccount.io.ParallelAccountLoader;
+import assignment3.simpleAccount.metrics.Metrics;
+import assignment3.simpleAccount.metrics.MetricsLog;
+import assignment3.simpleAccount.metrics.OperationTimer;
 import assignment3.simpleAccount.model.Account;
-import assignment3.simpleAccount.util.AccountComparator;
+import assignment3.simpleAccount.model.AccountSnapshot;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.model.CurrencyRates;
 import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountFormatException;
+import assignment3.simpleAccount.util.AccountOrder;
+import assignment3.simpleAccount.util.InsufficientFundsException;
+import assignment3.simpleAccount.util.Money;
 import assignment3.simpleAccount.view.EditView;
 import assignment3.simpleAccount.view.MainView;
+import assignment3.simpleAccount.view.SwingUpdateCoalescer;
 
 /** 
  * A class which controls the main functionality of the program. This class is the controller in an MVC model. It 
@@ -24,66 +47,280 @@ import assignment3.simpleAccount.view.MainView;
  */
 public class Controller {
 	
-	private Vector<Account> account;
+	//how often the progress of a load or save is shown, in milliseconds
+	private static final int PROGRESS_INTERVAL = 100;
+	//the file exchange rates are read from, unless a CurrencyRateProvider is registered, and how often, in milliseconds
+	private static final String RATES_FILE = "rates.txt";
+	private static final long RATES_INTERVAL = 60000;
+	//the file the operation counts and latencies are appended to, and how often, in milliseconds
+	private static final String METRICS_FILE = "metrics.log";
+	private static final long METRICS_INTERVAL = 60000;
+	//unexpected failures of a load or save are logged here, as the user is only shown a general message
+	private static final Logger LOGGER = Logger.getLogger(Controller.class.getName());
+	
+	private AccountStore accountStore;
+	private TransactionEngine transactionEngine;
+	private TransactionJournal journal;
+	private CurrencyRates currencyRates;
+	private MetricsLog metricsLog;
+	//the slots of the account store in order of account ID, which is the order accounts are listed and saved in
+	private int[] accountOrder;
 	private MainView mainView;
 	private Vector<EditView> editView;
+	//the load or save running in the background, if any, and its progress. Only used on the event dispatch thread
+	private SwingWorker<?, ?> fileTask;
+	private FileProgress fileProgress;
+	private Timer progressTimer;
+	
+	/**
+	* Shows the funds of every editView again, in the new exchange rates. Requested through SwingUpdateCoalescer whenever
+	* the rates change, so it runs on the event dispatch thread.
+	*/
+	private final Runnable ratesUpdate = new Runnable()
+	{
+		public void run()
+		{
+			for (EditView view : editView)
+				view.fundsChanged();
+		}
+	};
+	
+	/**
+	* Tells the user the journal could not be written. Requested through SwingUpdateCoalescer by the journal's flushing
+	* thread, which finds the failure after the transaction has already returned, so it runs on the event dispatch thread.
+	*/
+	private final Runnable journalFailed = new Runnable()
+	{
+		public void run()
+		{
+			mainView.displayNotification("There was an error writing the journal. Please save your accounts to a new file.");
+		}
+	};
+	
+	/**
+	* Listens to the journal the accounts are kept in for a failure to write it.
+	*/
+	private final Runnable journalFailureListener = new Runnable()
+	{
+		public void run()
+		{
+			SwingUpdateCoalescer.request(journalFailed);
+		}
+	};
 	
 	/**
-	* Default constructor for the controller.  
+	* Default constructor for the controller. From here on the exchange rates are refreshed, and the operation timers in
+	* Metrics are shown through JMX and appended to METRICS_FILE, in the background.
 	*/
 	public Controller()
 	{	
+		currencyRates = new CurrencyRates(CurrencyRates.findProvider(new FileRateProvider(new File(RATES_FILE))));
+		currencyRates.addChangeListener(new Runnable()
+		{
+			public void run()
+			{
+				SwingUpdateCoalescer.request(ratesUpdate);
+			}
+		});
+		currencyRates.start(RATES_INTERVAL);
+		
+		Metrics.register();
+		metricsLog = new MetricsLog(new File(METRICS_FILE));
+		metricsLog.start(METRICS_INTERVAL);
+		
 		mainView = new MainView(this);
-		account = new Vector<Account>();
+		accountStore = new AccountStore();
+		transactionEngine = new TransactionEngine(accountStore);
+		accountOrder = new int[0];
 		editView = new Vector<EditView>();
 	}
 	
 	/**
-	* Loads accounts from a data file.
+	* Loads accounts from a data file. The file may be either a text account file or a binary snapshot, which is mapped
+	* rather than read, and a large text file is parsed on several threads. The journal of a snapshot is opened as well,
+	* and any transactions it holds which were not yet in the snapshot are applied again.
+	* <p>
+	* The file is read and the journal recovered by a LoadTask off the event dispatch thread, with its progress shown in
+	* the main view. The accounts already loaded stay as they are until the whole file has been read and recovered, and
+	* are only then replaced, in one step. If the file or journal can not be read or the load is cancelled they are left
+	* loaded.
 	* 
 	* @param accountFile The account file to load data from. 
 	* 
 	*/
 	private void loadAccounts(File accountFile)
 	{
-		Vector<Account> accounts = new Vector<Account>();
+		FileProgress progress = new FileProgress(accountFile.length());
+		startFileTask(new LoadTask(accountFile, progress), "Loading", progress);
+	}
+	
+	/**
+	* Replaces the loaded accounts with those read by a LoadTask. Called on the event dispatch thread once the whole file
+	* has been read and its journal, if any, recovered, so nothing here reads a file.
+	* 
+	* @param store The store holding the accounts read.
+	* @param order The slots of the store in order of account ID.
+	* @param loadedJournal The journal of the snapshot the accounts were read from, already recovered, or null if they
+	* were read from a text file.
+	* 
+	*/
+	private void accountsLoaded(final AccountStore store, int[] order, final TransactionJournal loadedJournal)
+	{
 		clearAccounts();
-		Scanner input = null;
 		try
 		{
-			input = new Scanner (accountFile);
-			
-			while (input.hasNext())
-			{
-				accounts.add(new Account(confirmedName(input.next()), confirmedName(input.next()), input.nextInt(), input.nextFloat(), this.mainView));
-			}
-			
-			if (organizeAccounts(accounts) || (accounts.size() == 0))
+			this.accountStore = store;
+			transactionEngine.runExclusively(new Runnable()
 			{
-				throw new Exception();
-			}
+				public void run()
+				{
+					//no transaction reaches the new accounts before the journal listens to them
+					transactionEngine.setAccountStore(store);
+					if (loadedJournal != null)
+						loadedJournal.moveTo(transactionEngine);
+				}
+			});
+			journal = loadedJournal;
+			if (journal != null)
+				journal.addFailureListener(journalFailureListener);
+			this.accountOrder = order;
+			mainView.accountsReplaced(store, order);
 			
-			this.account = accounts;
+			if (journal != null && journal.getRecovered() > 0)
+				mainView.displayNotification("Recovered " + journal.getRecovered() + " transactions made since the accounts were last saved.");
 		}
-		catch (FileNotFoundException fnfException)
+		catch (RuntimeException rException)
 		{
-			mainView.displayNotification("File not found. Please check the file.");
+			if (journal == null && loadedJournal != null)
+				closeQuietly(loadedJournal);
+			reportLoadError(rException);
 			resetModelAndView();
 		}
-		catch (InputMismatchException imException)
+	}
+	
+	/**
+	* Closes a journal which is not going to be used, such as one recovered by a load which then failed.
+	* 
+	* @param unused The journal to close.
+	* 
+	*/
+	private static void closeQuietly(TransactionJournal unused)
+	{
+		try
 		{
-			mainView.displayNotification("Account file is not properly formatted. Make sure the ID contains only numbers and that the user name contains only letters.");
-			resetModelAndView();
+			unused.close();
 		}
-		catch (Exception exception)
+		catch (IOException ioException)
 		{
-			mainView.displayNotification("Account file has errors. Check for duplicates");
-			resetModelAndView();
+			//nothing was journaled since it was opened, so nothing is lost
 		}
-		finally
+	}
+	
+	/**
+	* Tells the user why an account file could not be loaded. Any other failure, such as a bug, is logged and shown as a
+	* general error, as this runs on the event dispatch thread.
+	* 
+	* @param exception The reason the file could not be loaded.
+	* 
+	*/
+	private void reportLoadError(Throwable exception)
+	{
+		if (exception instanceof FileNotFoundException || exception instanceof NoSuchFileException)
+			mainView.displayNotification("File not found. Please check the file.");
+		else if (exception instanceof AccountFormatException)
+			mainView.displayNotification("Account file is not properly formatted. " + exception.getMessage() + ". Make sure the ID contains only numbers and that the user name contains only letters.");
+		else if (exception instanceof InterruptedIOException || exception instanceof InterruptedException)
+			mainView.displayNotification("Loading was cancelled. The accounts loaded before are unchanged.");
+		else if (exception instanceof IOException)
+			mainView.displayNotification("There was an error reading this file. Please try again.");
+		else if (exception instanceof AccountDataException)
+			mainView.displayNotification("Account file has errors. " + exception.getMessage());
+		else
+		{
+			//not a problem with the file, so the cause is logged for a bug report rather than shown
+			LOGGER.log(Level.SEVERE, "Loading the account file failed", exception);
+			mainView.displayNotification("An unexpected error stopped the file from loading. The accounts loaded before are unchanged.");
+		}
+	}
+	
+	/**
+	* Runs a load or save on a background thread, showing its progress in the main view until it is done. Only one
+	* runs at a time.
+	* 
+	* @param task The load or save to run.
+	* @param action What the task does, to show with its progress.
+	* @param progress The progress of the task, which the task adds to as it goes.
+	* 
+	*/
+	private void startFileTask(SwingWorker<?, ?> task, final String action, final FileProgress progress)
+	{
+		fileTask = task;
+		fileProgress = progress;
+		progressTimer = new Timer(PROGRESS_INTERVAL, new ActionListener()
 		{
-			input.close();
+			public void actionPerformed(ActionEvent event)
+			{
+				mainView.showProgress(action, progress.getBytes(), progress.getTotalBytes(), progress.getRecords());
+			}
+		});
+		mainView.showProgress(action, 0, progress.getTotalBytes(), 0);
+		progressTimer.start();
+		task.execute();
+	}
+	
+	/**
+	* Stops showing the progress of the load or save which has just finished.
+	*/
+	private void finishFileTask()
+	{
+		progressTimer.stop();
+		progressTimer = null;
+		fileTask = null;
+		fileProgress = null;
+		mainView.hideProgress();
+	}
+	
+	/**
+	* Checks whether a load or save is still running, and if so tells the user to wait for it.
+	* 
+	* @return True if a load or save is running.
+	* 
+	*/
+	private boolean fileTaskRunning()
+	{
+		if (fileTask == null)
+			return false;
+		mainView.displayNotification("Please wait for the current file to finish, or cancel it.");
+		return true;
+	}
+	
+	/**
+	* Cancels the load or save which is running, if any. The task stops the next time it reads or writes, and the
+	* accounts and files are left as they were before it started.
+	*/
+	public void cancelFileTask()
+	{
+		if (fileProgress != null)
+			fileProgress.cancel();
+	}
+	
+	/**
+	* Stops journaling transactions. Waits until every transaction already applied has been written to the journal, so
+	* nothing is lost.
+	*/
+	private void closeJournal()
+	{
+		if (journal == null)
+			return;
+		try
+		{
+			journal.close();
 		}
+		catch (IOException ioException)
+		{
+			mainView.displayNotification("There was an error writing the journal. Please save your accounts to a new file.");
+		}
+		journal = null;
 	}
 	
 	/**
@@ -99,123 +336,159 @@ public class Controller {
 	}
 	
 	/**
-	* Sorts a list of accounts based on the account ID.
+	* Sorts a list of accounts based on the account ID. Duplicate account IDs are rejected by the account store as each
+	* account is added, so they are not checked for here. A list which is already sorted, such as one loaded from a file
+	* this program saved, is only checked and not sorted again.
 	*
 	* @param accounts The list of accounts to sort.
-	* @return If a duplicate account ID was found. This can later be used to prevent duplicate accounts. 
 	*/
-	public boolean organizeAccounts(Vector<Account> accounts)
+	public void organizeAccounts(Vector<Account> accounts)
 	{
-		Collections.sort(accounts, new AccountComparator());
-		for(int iterator = 0; iterator < accounts.size() - 1; iterator++ )
-		{
-			if (accounts.elementAt(iterator).getAccountID() == accounts.elementAt(iterator + 1).getAccountID())
-				return true;
-		}
-		return false;
+		AccountOrder.sort(accounts);
 	}
 	
 	/**
-	* Checks if a string contains only letters by checking each letter one at a time..
-	* 
-	* @param name The string to check for letters only.
-	* @return If all of the characters were letters. 
-	* 
+	* Finds the order of the accounts of a store by account ID. No account objects are created, and a store loaded from
+	* a file this program saved is only checked and not sorted again.
+	*
+	* @param store The store holding the accounts.
+	* @return The slots of the accounts in order of account ID.
 	*/
-	private boolean isAlpha(String name) 
+	public int[] organizeAccounts(AccountStore store)
 	{
-	    char[] chars = name.toCharArray();
-
-	    for (char c : chars) {
-	        if(!Character.isLetter(c)) {
-	            return false;
-	        }
-	    }
-	    return true;
+		return AccountOrder.sortedSlots(store);
 	}
 	
 	/**
-	* Confirms if a name contains only the allowed characters.
-	* 
-	* @param name The name to confirm.
-	* @return The original name passed in if the name was confirmed to not contain illegal characters.
-	* @throws InputMismatchException If the name contains illegal characters.
+	* Get the engine which applies transactions to the loaded accounts. Other clients, such as batch jobs, may submit
+	* transactions through it as well.
+	*
+	* @return The transaction engine.
 	*/
-	private String confirmedName(String name) throws InputMismatchException
+	public TransactionEngine getTransactionEngine()
 	{
-		if (!isAlpha(name))
-			throw new InputMismatchException();
-		return name;
+		return transactionEngine;
 	}
 	
 	/**
-	* Saves the current accounts to a file.
+	* Get the exchange rates the editViews convert funds with. The rates are refreshed in the background.
+	*
+	* @return The exchange rates.
+	*/
+	public CurrencyRates getCurrencyRates()
+	{
+		return currencyRates;
+	}
+	
+	/**
+	* Finds a loaded account by its ID.
+	*
+	* @param accountID The ID of the account to find.
+	* @return The account, or null if no loaded account has the ID.
+	*/
+	public Account findAccount(int accountID)
+	{
+		int slot = accountStore.find(accountID);
+		if (slot < 0)
+			return null;
+		return accountStore.view(slot);
+	}
+	
+	/**
+	* Saves the current accounts to a file. A file name ending in AccountSnapshot.FILE_EXTENSION is saved as a binary
+	* snapshot, and any other as a text account file.
+	* <p>
+	* Saving to a snapshot makes it the file the accounts are kept in. Every later transaction is written to its journal
+	* as it is made, and saving to the same snapshot again only takes a checkpoint.
+	* <p>
+	* The file is written by a SaveTask off the event dispatch thread, with its progress shown in the main view.
 	* 
 	* @param file The file to save the accounts to.
-	* @param account The list of accounts to save to a file.
+	* @param exitWhenDone Whether to exit the program once the file has been saved, or has failed to save.
 	* 
 	*/
-	private void saveAccounts(File file, Vector<Account> account)
+	private void saveAccounts(File file, boolean exitWhenDone)
 	{	
-		//FileWriter is wrapper with a print writer to catch IO Exceptions
-		//PrintWriter is used to facilitate ease of formatting.
-		FileWriter fWriter = null;
-		PrintWriter pWriter = null;
-		
-		try
-		{
-			fWriter = new FileWriter(file);
-			pWriter = new PrintWriter(fWriter);
-			
-			for(int iterator = 0; iterator < account.size(); iterator++)
-			{
-				pWriter.println(account.get(iterator).generateString());
-			}
-			
-			fWriter.close();
-		}
-		catch (FileNotFoundException fnfException)
-		{
+		FileProgress progress = new FileProgress(file.getName().endsWith(AccountSnapshot.FILE_EXTENSION) ? 0 : estimateTextSize());
+		startFileTask(new SaveTask(file, progress, exitWhenDone), "Saving", progress);
+	}
+	
+	/**
+	* Estimates the size of the text account file of the loaded accounts, from the first accounts, for showing progress.
+	* 
+	* @return The estimated size in bytes.
+	* 
+	*/
+	private long estimateTextSize()
+	{
+		int sample = Math.min(accountOrder.length, 1000);
+		if (sample == 0)
+			return 0;
+		long bytes = 0;
+		for (int index = 0; index < sample; index++)
+			bytes += accountStore.view(accountOrder[index]).generateString().length() + System.lineSeparator().length();
+		return bytes * accountOrder.length / sample;
+	}
+	
+	/**
+	* Tells the user why the accounts could not be saved. Any other failure is logged and shown as a general error.
+	* 
+	* @param exception The reason the accounts could not be saved.
+	* 
+	*/
+	private void reportSaveError(Throwable exception)
+	{
+		if (exception instanceof NoSuchFileException)
 			mainView.displayNotification("File not found. Please check the file.");
-		}
-		catch (SecurityException sException)
-		{
+		else if (exception instanceof AccessDeniedException || exception instanceof SecurityException)
 			mainView.displayNotification("You do not have permission to write this file.");
-		}
-		catch (IOException ioException)
-		{
+		else if (exception instanceof InterruptedIOException || exception instanceof InterruptedException)
+			mainView.displayNotification("Saving was cancelled. The file is unchanged.");
+		else if (exception instanceof IOException)
 			mainView.displayNotification("There was an error writing this file. Please try again.");
-		}
-		finally
+		else
 		{
-			pWriter.close();
-		}		
+			LOGGER.log(Level.SEVERE, "Saving the accounts failed", exception);
+			mainView.displayNotification("An unexpected error stopped the file from being saved. Please try again.");
+		}
 	}
 	
 	/**
-	* Handles operations declared by editViews.
+	* Handles operations declared by editViews. Deposits and withdrawals are passed to the transaction engine. While the
+	* accounts are kept in a snapshot, the amount entered is only cleared once the transaction has been forced to the
+	* journal, which is waited for off the event dispatch thread by a SyncTask.
 	* 
 	* @param action The name of the button which called the action.
-	* @param editValue The value to edit an account by. Parsed to a float within this method.
+	* @param editValue The value to edit an account by, in the currency of the editView. Parsed to exact cents within this method.
 	* @param editView The specific editView which the action was called from. 
 	* 
 	*/
 	public void editViewOperations(String action, String editValue, EditView editView)
 	{
+		long fundMultiplier = Money.RATE_SCALE;
+		OperationTimer timer = null;
+		long started = 0;
+		boolean succeeded = false;
+		boolean syncing = false;
 		try
 		{
-			float editV = Float.parseFloat(editValue);
-			editV = editV / editView.getFundMultiplier();
+			int accountID = editView.getListenTarget().getAccountID();
+			//read once, so the amount and any error message use the same rate even if the rates are refreshed meanwhile
+			fundMultiplier = editView.getFundMultiplier();
 			if(action.equals("Deposit"))
 			{
-				editView.getListenTarget().depositFunds(editV);
-				//editView.getListenTarget().notifyEditView();
+				timer = Metrics.EDIT_DEPOSIT;
+				started = timer.start();
+				transactionEngine.deposit(accountID, Money.toUsd(Money.parse(editValue.trim()), fundMultiplier));
+				succeeded = true;
 			}
 			
 			else if(action.equals("Withdraw"))
 			{
-				editView.getListenTarget().withdrawFunds(editV, editView.getFundMultiplier());
-				//editView.getListenTarget().notifyEditView();
+				timer = Metrics.EDIT_WITHDRAW;
+				started = timer.start();
+				transactionEngine.withdraw(accountID, Money.toUsd(Money.parse(editValue.trim()), fundMultiplier));
+				succeeded = true;
 			}
 			else if(action.equals("Dismiss"))
 			{
@@ -223,6 +496,16 @@ public class Controller {
 				editView.getListenTarget().removeEditModelListener(editView);
 				removeView(editView);
 			}
+			
+			if(succeeded && journal != null)
+			{
+				new SyncTask(journal, timer, started, editView).execute();
+				syncing = true;
+			}
+		}
+		catch (InsufficientFundsException ifException)
+		{
+			mainView.displayNotification(ifException.getMessage(fundMultiplier));
 		}
 		catch (AccountDataException adException)
 		{
@@ -232,9 +515,22 @@ public class Controller {
 		{
 			mainView.displayNotification("Please enter a valid number.");
 		}
+		catch (ArithmeticException aException)
+		{
+			mainView.displayNotification("Please enter a smaller amount.");
+		}
+		catch (UncheckedIOException uioException)
+		{
+			mainView.displayNotification("The change was made but could not be written to the journal. Please save your accounts to a new file.");
+		}
 		finally
 		{
-			if(editView != null)
+			//a SyncTask finishes the operation once the transaction is durable
+			if(timer != null && !syncing)
+			{
+				timer.stop(started, succeeded);
+			}
+			if(editView != null && !syncing)
 			{
 				editView.resetEditAmountDisplay();
 			}
@@ -252,13 +548,15 @@ public class Controller {
 	*/
 	public void mainViewButtonOperations(String action, Account activeAccount)
 	{	
-			if(activeAccount.getAccountID() == 0)
+			//the placeholder shown before a file is loaded is not in the store, so it is not found
+			Account account = findAccount(activeAccount.getAccountID());
+			if(account == null)
 			{
 				mainView.displayNotification("Please load an active account file before attempting to adjust funds.");
 			}
 			else
 			{
-				this.editView.addElement(new EditView(activeAccount, this, action));
+				this.editView.addElement(new EditView(account, this, action));
 			}
 	}
 	
@@ -297,14 +595,13 @@ public class Controller {
 			removeView(editView.firstElement());
 		}
 		
-		//remove all listeners to the mainModel
-		for(int iterator = 0; iterator < account.size(); iterator++)
-		{
-			account.elementAt(iterator).removeMainModelListener();
-		}
+		mainView.notifyOfRemoval();
+		closeJournal();
 		
 		//clear all accounts
-		account.clear();
+		accountOrder = new int[0];
+		accountStore = new AccountStore();
+		transactionEngine.setAccountStore(accountStore);
 	}
 	
 	/**
@@ -317,11 +614,15 @@ public class Controller {
 	public void mainViewMenuOperations(String action)
 	{
 		File file = null;
+		if(fileTaskRunning())
+		{
+			return;
+		}
 		if(action.equals("Save Account File"))
 		{
 			file = mainView.selectFile(action);
 			if(file != null)
-			saveAccounts(file, account);
+			saveAccounts(file, false);
 			
 		}
 		else if(action.equals("Load Account File"))
@@ -333,13 +634,268 @@ public class Controller {
 					loadAccounts(file);
 			}
 		}
+		else if(action.equals("Exit Program") && journal != null)
+		{
+			//every change is already in the journal, so there is nothing to save
+			closeJournal();
+			System.exit(0);
+		}
 		else if(action.equals("Exit Program"))
 		{
 			mainView.displayNotification("Please make sure to save before exiting. If you choose not to, you will lose any updates you have made.");
 			file = mainView.selectFile(action);
 			if(file != null)
-			saveAccounts(file, account);
-			System.exit(0);
+				saveAccounts(file, true);
+			else
+				System.exit(0);
+		}
+	}
+	
+	/**
+	* Inner class used to read an account file, and recover the journal of a snapshot, on a background thread. Nothing the
+	* event dispatch thread uses is touched until the whole file has been read, so the accounts already loaded can still
+	* be used while it runs.
+	*/
+	private class LoadTask extends SwingWorker<AccountStore, Void>
+	{
+		private final File accountFile;
+		private final FileProgress progress;
+		private int[] order;
+		private TransactionJournal loadedJournal;
+		
+		/**
+		* Constructor for the task.
+		* @param accountFile The account file to load.
+		* @param progress The progress of the load, which is also used to cancel it.
+		*/
+		public LoadTask(File accountFile, FileProgress progress)
+		{
+			this.accountFile = accountFile;
+			this.progress = progress;
+		}
+		
+		/**
+		* Read the accounts and find their order, and recover the journal of a snapshot. Runs on a background thread. If
+		* anything fails, the snapshot and journal are closed again.
+		* @return The store holding the accounts read.
+		*/
+		protected AccountStore doInBackground() throws Exception
+		{
+			long started = Metrics.FILE_LOAD.start();
+			boolean succeeded = false;
+			AccountSnapshot snapshot = null;
+			try
+			{
+				AccountStore store;
+				if (AccountSnapshot.isSnapshot(accountFile))
+				{
+					snapshot = AccountSnapshot.open(accountFile);
+					store = snapshot.getStore();
+					progress.add(accountFile.length(), store.size());
+				}
+				else
+				{
+					store = new AccountStore();
+					new ParallelAccountLoader().load(accountFile, store, progress);
+				}
+				
+				if (store.size() == 0)
+					throw new AccountDataException("The file does not contain any accounts.");
+				
+				progress.checkCancelled();
+				//the main view is notified once for the whole file rather than once per account
+				order = organizeAccounts(store);
+				//the journal is recovered into the new accounts through an engine of its own, and is handed to the
+				//controller's engine once the accounts replace those loaded
+				if (snapshot != null)
+					loadedJournal = TransactionJournal.open(new TransactionEngine(store), accountFile, snapshot.getSequence());
+				succeeded = true;
+				return store;
+			}
+			finally
+			{
+				if (!succeeded && snapshot != null)
+					snapshot.close();
+				Metrics.FILE_LOAD.stop(started, succeeded);
+			}
+		}
+		
+		/**
+		* Replace the loaded accounts with those read, or tell the user why they could not be read. Runs on the event
+		* dispatch thread.
+		*/
+		protected void done()
+		{
+			finishFileTask();
+			try
+			{
+				accountsLoaded(get(), order, loadedJournal);
+			}
+			catch (ExecutionException eException)
+			{
+				reportLoadError(eException.getCause());
+			}
+			catch (InterruptedException iException)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	* Inner class used to write the accounts to a file on a background thread. The accounts can still be used while it
+	* runs. A text file is written as the accounts are when each is reached, while a snapshot is taken as a checkpoint, in
+	* which the accounts are all as they were at one moment.
+	*/
+	private class SaveTask extends SwingWorker<TransactionJournal, Void>
+	{
+		private final File file;
+		private final FileProgress progress;
+		private final boolean exitWhenDone;
+		private final TransactionJournal currentJournal;
+		private final AccountStore store;
+		private final int[] order;
+		
+		/**
+		* Constructor for the task. The accounts to save are taken when it is created.
+		* @param file The file to save the accounts to.
+		* @param progress The progress of the save, which is also used to cancel it.
+		* @param exitWhenDone Whether to exit the program once the save is done.
+		*/
+		public SaveTask(File file, FileProgress progress, boolean exitWhenDone)
+		{
+			this.file = file;
+			this.progress = progress;
+			this.exitWhenDone = exitWhenDone;
+			this.currentJournal = journal;
+			this.store = accountStore;
+			this.order = accountOrder;
+		}
+		
+		/**
+		* Write the file. Runs on a background thread.
+		* @return The journal the accounts are now kept in, or null if a text file was written.
+		*/
+		protected TransactionJournal doInBackground() throws Exception
+		{
+			long started = Metrics.FILE_SAVE.start();
+			boolean succeeded = false;
+			try
+			{
+				progress.checkCancelled();
+				TransactionJournal saved;
+				if (!file.getName().endsWith(AccountSnapshot.FILE_EXTENSION))
+				{
+					//the file is written beside the original and renamed over it, so a failed or cancelled save leaves the original intact
+					AccountFileWriter.write(file, store, order, progress);
+					saved = null;
+				}
+				else if (currentJournal != null && currentJournal.getSnapshotFile().getAbsoluteFile().equals(file.getAbsoluteFile()))
+				{
+					currentJournal.compact();
+					saved = currentJournal;
+				}
+				else
+				{
+					saved = TransactionJournal.create(transactionEngine, file);
+				}
+				succeeded = true;
+				return saved;
+			}
+			finally
+			{
+				Metrics.FILE_SAVE.stop(started, succeeded);
+			}
+		}
+		
+		/**
+		* Keep the accounts in the snapshot just written, or tell the user why the file could not be written. Runs on the
+		* event dispatch thread.
+		*/
+		protected void done()
+		{
+			finishFileTask();
+			try
+			{
+				TransactionJournal saved = get();
+				if (saved != null && saved != journal)
+				{
+					closeJournal();
+					journal = saved;
+					journal.addFailureListener(journalFailureListener);
+				}
+			}
+			catch (ExecutionException eException)
+			{
+				reportSaveError(eException.getCause());
+			}
+			catch (InterruptedException iException)
+			{
+				Thread.currentThread().interrupt();
+			}
+			if (exitWhenDone)
+				System.exit(0);
+		}
+	}
+	
+	/**
+	* Inner class used to wait for a transaction made in an edit view to be forced to the journal, on a background
+	* thread, before the edit view clears the amount entered. A transaction is applied and shown in the funds straight
+	* away, but until the amount is cleared it could still be lost should the program crash.
+	*/
+	private class SyncTask extends SwingWorker<Void, Void>
+	{
+		private final TransactionJournal syncJournal;
+		private final OperationTimer timer;
+		private final long started;
+		private final EditView view;
+		
+		/**
+		* Constructor for the task, once the transaction has been applied.
+		* @param syncJournal The journal the transaction was written to.
+		* @param timer The timer of the operation.
+		* @param started The value returned by the timer when the operation started.
+		* @param view The edit view the transaction was made in.
+		*/
+		public SyncTask(TransactionJournal syncJournal, OperationTimer timer, long started, EditView view)
+		{
+			this.syncJournal = syncJournal;
+			this.timer = timer;
+			this.started = started;
+			this.view = view;
+		}
+		
+		/**
+		* Wait for the journal to be forced. Runs on a background thread.
+		* @return Nothing.
+		*/
+		protected Void doInBackground() throws IOException
+		{
+			syncJournal.sync();
+			return null;
+		}
+		
+		/**
+		* Finish the operation, or tell the user the transaction could not be journaled. Runs on the event dispatch thread.
+		*/
+		protected void done()
+		{
+			boolean durable = false;
+			try
+			{
+				get();
+				durable = true;
+			}
+			catch (ExecutionException eException)
+			{
+				//the journal's failure listener tells the user
+			}
+			catch (InterruptedException iException)
+			{
+				Thread.currentThread().interrupt();
+			}
+			timer.stop(started, durable);
+			view.resetEditAmountDisplay();
 		}
 	}
 	
@@ -0,0 +1,467 @@
+package assignment3.simpleAccount.engine;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.model.RateTable;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * Totals, histograms and the largest accounts of every loaded account, in each currency of a RateTable. The report is
+ * worked out in parallel over ranges of slots, and the parts are merged with exact integer arithmetic: each balance is
+ * converted to the nearest cent of a currency exactly as EditView shows it, and the cents are summed in a long which
+ * spills into a BigInteger rather than overflow. Integer sums do not depend on the order they are added in, so the
+ * report is the same however many threads work it out.
+ * <p>
+ * Only the summary is held. The balance of each account is converted again as it is written by BalanceReportWriter, so
+ * nothing is held per account beyond the balances themselves.
+ *
+ * @author dTorrente
+ */
+public class BalanceReport {
+
+	/**
+	* The number of histogram buckets. Bucket 0 counts negative balances, bucket 1 zero balances, and bucket b counts
+	* balances of at least 10^(b-2) cents and less than 10^(b-1), the last bucket taking everything larger.
+	*/
+	public static final int BUCKETS = 21;
+
+	//the smallest range of slots split between threads
+	private static final int SPLIT_THRESHOLD = 1 << 15;
+	private static final BigDecimal RATE_SCALE = BigDecimal.valueOf(Money.RATE_SCALE);
+	private static final long[] POWERS_OF_TEN = new long[19];
+
+	static
+	{
+		POWERS_OF_TEN[0] = 1;
+		for (int power = 1; power < POWERS_OF_TEN.length; power++)
+			POWERS_OF_TEN[power] = POWERS_OF_TEN[power - 1] * 10;
+	}
+
+	private final AccountStore store;
+	private final long[] cents;
+	private final int size;
+	private final RateTable rates;
+	private final String[] codes;
+	private final long[] rateValues;
+	private final BigInteger[] totals;
+	private final long[][] histograms;
+	private final int[] topSlots;
+
+	/**
+	* Constructor for a report which has been worked out.
+	*/
+	private BalanceReport(AccountStore store, long[] cents, int size, RateTable rates, String[] codes, long[] rateValues,
+		Part result)
+	{
+		this.store = store;
+		this.cents = cents;
+		this.size = size;
+		this.rates = rates;
+		this.codes = codes;
+		this.rateValues = rateValues;
+		this.totals = new BigInteger[codes.length];
+		for (int currency = 0; currency < codes.length; currency++)
+			totals[currency] = result.spills[currency].add(BigInteger.valueOf(result.sums[currency]));
+		this.histograms = result.histograms;
+		this.topSlots = result.sortedTop();
+	}
+
+	/**
+	* Report on the accounts of an engine. The balances are copied while no transaction is being applied, so the report
+	* is of one moment however busy the engine is. The report is then worked out without holding up the engine.
+	* @param engine The engine whose accounts are reported on.
+	* @param rates The currencies to report in.
+	* @param topCount The number of largest accounts to list.
+	* @return The report.
+	*/
+	public static BalanceReport of(TransactionEngine engine, RateTable rates, int topCount)
+	{
+		final AccountStore store = engine.getAccountStore();
+		final long[][] copy = new long[1][];
+		engine.runExclusively(new Runnable()
+		{
+			public void run()
+			{
+				copy[0] = store.copyCents();
+			}
+		});
+		return compute(store, copy[0], rates, topCount, ForkJoinPool.commonPool());
+	}
+
+	/**
+	* Report on the balances of a store.
+	* @param store The store holding the accounts.
+	* @param cents The balance of each slot of the store in USD cents, such as from AccountStore.copyCents(). Only the
+	* slots it covers are reported on.
+	* @param rates The currencies to report in.
+	* @param topCount The number of largest accounts to list.
+	* @param pool The pool to work out the report in.
+	* @return The report.
+	*/
+	public static BalanceReport compute(AccountStore store, long[] cents, RateTable rates, int topCount, ForkJoinPool pool)
+	{
+		String[] codes = rates.getCodes();
+		long[] rateValues = new long[codes.length];
+		for (int currency = 0; currency < codes.length; currency++)
+			rateValues[currency] = rates.getRate(codes[currency]);
+		Part result = pool.invoke(new Part(store, cents, rateValues, Math.max(topCount, 0), 0, cents.length));
+		return new BalanceReport(store, cents, cents.length, rates, codes, rateValues, result);
+	}
+
+	/**
+	* Convert a balance to a currency exactly, however large. Rounded half up, the same as Money.toForeign().
+	* @param cents The balance in USD cents.
+	* @param rate The rate of the currency, scaled by Money.RATE_SCALE.
+	* @return The balance in cents of the currency.
+	*/
+	public static BigInteger convertExact(long cents, long rate)
+	{
+		return BigDecimal.valueOf(cents).multiply(BigDecimal.valueOf(rate)).divide(RATE_SCALE, 0, RoundingMode.HALF_UP)
+			.toBigIntegerExact();
+	}
+
+	/**
+	* Find the histogram bucket of an amount.
+	* @param amount The amount in cents.
+	* @return The bucket.
+	*/
+	static int bucket(long amount)
+	{
+		if (amount <= 0)
+			return amount < 0 ? 0 : 1;
+		int digits = 1;
+		while (digits < POWERS_OF_TEN.length && amount >= POWERS_OF_TEN[digits])
+			digits++;
+		return Math.min(digits + 1, BUCKETS - 1);
+	}
+
+	/**
+	* Get the smallest amount counted by a histogram bucket.
+	* @param bucket The bucket, from 2 to BUCKETS - 1.
+	* @return The amount in cents.
+	*/
+	public static long bucketFloor(int bucket)
+	{
+		return POWERS_OF_TEN[bucket - 2];
+	}
+
+	/**
+	* Get the store the report is on.
+	* @return The store.
+	*/
+	public AccountStore getStore()
+	{
+		return store;
+	}
+
+	/**
+	* Get the number of accounts reported on.
+	* @return The number of accounts.
+	*/
+	public int getAccountCount()
+	{
+		return size;
+	}
+
+	/**
+	* Get the balance of an account as it was when the report was taken.
+	* @param slot The slot of the account.
+	* @return The balance in USD cents.
+	*/
+	public long getCents(int slot)
+	{
+		return cents[slot];
+	}
+
+	/**
+	* Get the rates the report was worked out with.
+	* @return The rate table.
+	*/
+	public RateTable getRates()
+	{
+		return rates;
+	}
+
+	/**
+	* Get the currencies reported in.
+	* @return The currency codes, starting with USD.
+	*/
+	public String[] getCurrencies()
+	{
+		return codes.clone();
+	}
+
+	/**
+	* Get the rate of a currency reported in.
+	* @param currency The index of the currency in getCurrencies().
+	* @return The rate, scaled by Money.RATE_SCALE.
+	*/
+	public long getRate(int currency)
+	{
+		return rateValues[currency];
+	}
+
+	/**
+	* Get the total of every balance in a currency. Each balance is converted to the nearest cent before it is added.
+	* @param currency The index of the currency in getCurrencies().
+	* @return The total in cents of the currency.
+	*/
+	public BigInteger getTotal(int currency)
+	{
+		return totals[currency];
+	}
+
+	/**
+	* Get the number of balances in each histogram bucket for a currency.
+	* @param currency The index of the currency in getCurrencies().
+	* @return The count of each bucket. See BUCKETS.
+	*/
+	public long[] getHistogram(int currency)
+	{
+		return histograms[currency].clone();
+	}
+
+	/**
+	* Get the largest accounts, largest first. Accounts with the same balance are listed by account ID. Every rate is
+	* greater than zero, so the order is the same in every currency.
+	* @return The slots of the largest accounts.
+	*/
+	public int[] getTopSlots()
+	{
+		return topSlots.clone();
+	}
+
+	/**
+	* Write the balance of an account in a currency, such as "12.50", as Money.toString() does.
+	* @param slot The slot of the account.
+	* @param currency The index of the currency in getCurrencies().
+	* @return The balance in the currency.
+	*/
+	public String formatBalance(int slot, int currency)
+	{
+		try
+		{
+			return Money.toString(Money.toForeign(cents[slot], rateValues[currency]));
+		}
+		catch (ArithmeticException aException)
+		{
+			return formatCents(convertExact(cents[slot], rateValues[currency]));
+		}
+	}
+
+	/**
+	* Write an amount of any size with exactly two decimal places, as Money.toString() does.
+	* @param amount The amount in cents.
+	* @return The amount as a string.
+	*/
+	public static String formatCents(BigInteger amount)
+	{
+		return new BigDecimal(amount, 2).toPlainString();
+	}
+
+	/**
+	* Part of the report, worked out over a range of slots. A range larger than SPLIT_THRESHOLD is split in two and the
+	* halves merged.
+	*/
+	private static class Part extends RecursiveTask<Part>
+	{
+		private static final long serialVersionUID = 2877930464132871053L;
+
+		private final AccountStore store;
+		private final long[] cents;
+		private final long[] rateValues;
+		private final int topCount;
+		private final int start;
+		private final int end;
+
+		private long[] sums;
+		private BigInteger[] spills;
+		private long[][] histograms;
+		//a heap of the largest accounts found, with the smallest of them first
+		private int[] top;
+		private int topSize;
+
+		/**
+		* Constructor for a part.
+		*/
+		Part(AccountStore store, long[] cents, long[] rateValues, int topCount, int start, int end)
+		{
+			this.store = store;
+			this.cents = cents;
+			this.rateValues = rateValues;
+			this.topCount = topCount;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		* Work out the part.
+		* @return This part.
+		*/
+		protected Part compute()
+		{
+			if (end - start > SPLIT_THRESHOLD)
+			{
+				int middle = (start + end) >>> 1;
+				Part left = new Part(store, cents, rateValues, topCount, start, middle);
+				Part right = new Part(store, cents, rateValues, topCount, middle, end);
+				left.fork();
+				Part rightResult = right.compute();
+				Part result = left.join();
+				result.merge(rightResult);
+				return result;
+			}
+
+			int currencies = rateValues.length;
+			sums = new long[currencies];
+			spills = new BigInteger[currencies];
+			Arrays.fill(spills, BigInteger.ZERO);
+			histograms = new long[currencies][BUCKETS];
+			top = new int[topCount];
+			for (int slot = start; slot < end; slot++)
+			{
+				long balance = cents[slot];
+				for (int currency = 0; currency < currencies; currency++)
+				{
+					long amount;
+					try
+					{
+						amount = Money.toForeign(balance, rateValues[currency]);
+					}
+					catch (ArithmeticException aException)
+					{
+						BigInteger exact = convertExact(balance, rateValues[currency]);
+						spills[currency] = spills[currency].add(exact);
+						histograms[currency][exact.signum() < 0 ? 0 : BUCKETS - 1]++;
+						continue;
+					}
+					add(currency, amount);
+					histograms[currency][bucket(amount)]++;
+				}
+				offer(slot);
+			}
+			return this;
+		}
+
+		/**
+		* Add an amount to the sum of a currency, spilling the sum into a BigInteger before it would overflow.
+		* @param currency The currency.
+		* @param amount The amount in cents.
+		*/
+		private void add(int currency, long amount)
+		{
+			long sum = sums[currency];
+			long result = sum + amount;
+			if (((sum ^ result) & (amount ^ result)) < 0)
+			{
+				spills[currency] = spills[currency].add(BigInteger.valueOf(sum));
+				result = amount;
+			}
+			sums[currency] = result;
+		}
+
+		/**
+		* Merge another part into this one.
+		* @param other The other part.
+		*/
+		private void merge(Part other)
+		{
+			for (int currency = 0; currency < sums.length; currency++)
+			{
+				spills[currency] = spills[currency].add(other.spills[currency]);
+				add(currency, other.sums[currency]);
+				for (int bucket = 0; bucket < BUCKETS; bucket++)
+					histograms[currency][bucket] += other.histograms[currency][bucket];
+			}
+			for (int index = 0; index < other.topSize; index++)
+				offer(other.top[index]);
+		}
+
+		/**
+		* Check whether one account comes before another in the list of the largest accounts.
+		* @param slot The slot of one account.
+		* @param other The slot of the other account.
+		* @return True if the first account has the larger balance, or the same balance and the smaller account ID.
+		*/
+		private boolean before(int slot, int other)
+		{
+			if (cents[slot] != cents[other])
+				return cents[slot] > cents[other];
+			return store.getAccountID(slot) < store.getAccountID(other);
+		}
+
+		/**
+		* Keep an account if it is among the largest found so far.
+		* @param slot The slot of the account.
+		*/
+		private void offer(int slot)
+		{
+			if (topSize < topCount)
+			{
+				int index = topSize++;
+				//sift up
+				while (index > 0 && before(top[(index - 1) >> 1], slot))
+				{
+					top[index] = top[(index - 1) >> 1];
+					index = (index - 1) >> 1;
+				}
+				top[index] = slot;
+				return;
+			}
+			if (topCount == 0 || !before(slot, top[0]))
+				return;
+			//replace the smallest and sift down
+			int index = 0;
+			while (true)
+			{
+				int child = 2 * index + 1;
+				if (child >= topSize)
+					break;
+				if (child + 1 < topSize && before(top[child], top[child + 1]))
+					child++;
+				if (!before(slot, top[child]))
+					break;
+				top[index] = top[child];
+				index = child;
+			}
+			top[index] = slot;
+		}
+
+		/**
+		* List the largest accounts found, largest first.
+		* @return Their slots.
+		*/
+		private int[] sortedTop()
+		{
+			int[] sorted = new int[topSize];
+			int size = topSize;
+			for (int position = size - 1; position >= 0; position--)
+			{
+				sorted[position] = top[0];
+				int last = top[--topSize];
+				int index = 0;
+				while (true)
+				{
+					int child = 2 * index + 1;
+					if (child >= topSize)
+						break;
+					if (child + 1 < topSize && before(top[child], top[child + 1]))
+						child++;
+					if (!before(last, top[child]))
+						break;
+					top[index] = top[child];
+					index = child;
+				}
+				if (topSize > 0)
+					top[index] = last;
+			}
+			return sorted;
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package assignment3.simpleAccount.engine;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.Money;
+
+/** 
+ * The result of replaying a transaction file: how many transactions were applied and which were rejected, in the
+ * order they appear in the file.
+ * 
+ * @author dTorrente
+ */
+public class ReplaySummary {
+	
+	private final long applied;
+	private final List<Rejection> rejected;
+	private final long elapsedNanos;
+	private final long applyNanos;
+	private final int workers;
+	
+	/**
+	* Constructor for a summary.
+	* @param applied The number of transactions applied.
+	* @param rejected The transactions rejected, sorted by line.
+	* @param elapsedNanos How long the replay took.
+	* @param applyNanos How long the workers took to apply the transactions.
+	* @param workers The number of worker threads used.
+	*/
+	ReplaySummary(long applied, List<Rejection> rejected, long elapsedNanos, long applyNanos, int workers)
+	{
+		this.applied = applied;
+		this.rejected = Collections.unmodifiableList(rejected);
+		this.elapsedNanos = elapsedNanos;
+		this.applyNanos = applyNanos;
+		this.workers = workers;
+	}
+	
+	/** 
+	* Get the number of transactions applied.
+	* @return The number of transactions applied.
+	*/
+	public long getApplied()
+	{
+		return applied;
+	}
+	
+	/** 
+	* Get the transactions that were rejected.
+	* @return The rejected transactions, sorted by line.
+	*/
+	public List<Rejection> getRejected()
+	{
+		return rejected;
+	}
+	
+	/** 
+	* Get how long the replay took, including reading the file.
+	* @return The time taken in nanoseconds.
+	*/
+	public long getElapsedNanos()
+	{
+		return elapsedNanos;
+	}
+	
+	/** 
+	* Get how long the workers took to apply the transactions, once the file had been read and split between them.
+	* This is the part of the replay which runs in parallel.
+	* @return The time taken in nanoseconds.
+	*/
+	public long getApplyNanos()
+	{
+		return applyNanos;
+	}
+	
+	/** 
+	* Get the number of worker threads used.
+	* @return The number of workers.
+	*/
+	public int getWorkers()
+	{
+		return workers;
+	}
+	
+	/** 
+	* Print the summary followed by one line per rejected transaction.
+	* @param output Where to print the summary.
+	*/
+	public void print(PrintStream output)
+	{
+		long total = applied + rejected.size();
+		long millis = elapsedNanos / 1000000;
+		output.println("Replayed " + total + " transactions on " + workers + " threads in " + millis + " ms ("
+			+ applyNanos / 1000000 + " ms applying): " + applied + " applied, " + rejected.size() + " rejected.");
+		for (Rejection rejection : rejected)
+			output.println(rejection);
+	}
+	
+	/** 
+	* A transaction which could not be applied, such as a withdrawal with insufficient funds.
+	*/
+	public static class Rejection implements Comparable<Rejection>
+	{
+		private final int line;
+		private final int accountID;
+		private final TransactionType type;
+		private final long amount;
+		private final AccountDataException reason;
+		
+		/**
+		* Constructor for a rejection.
+		* @param line The line of the transaction file.
+		* @param accountID The account of the transaction.
+		* @param type The kind of transaction.
+		* @param amount The amount in USD cents.
+		* @param reason Why the transaction was rejected.
+		*/
+		Rejection(int line, int accountID, TransactionType type, long amount, AccountDataException reason)
+		{
+			this.line = line;
+			this.accountID = accountID;
+			this.type = type;
+			this.amount = amount;
+			this.reason = reason;
+		}
+		
+		/** 
+		* Get the line of the transaction file.
+		* @return The line of the transaction file.
+		*/
+		public int getLine()
+		{
+			return line;
+		}
+		
+		/** 
+		* Get the account of the transaction.
+		* @return The account ID.
+		*/
+		public int getAccountID()
+		{
+			return accountID;
+		}
+		
+		/** 
+		* Get the kind of transaction.
+		* @return The kind of transaction.
+		*/
+		public TransactionType getType()
+		{
+			return type;
+		}
+		
+		/** 
+		* Get the amount of the transaction.
+		* @return The amount in USD cents.
+		*/
+		public long getAmount()
+		{
+			return amount;
+		}
+		
+		/** 
+		* Get why the transaction was rejected. The message of the exception is only built when asked for.
+		* @return The reason.
+		*/
+		public AccountDataException getReason()
+		{
+			return reason;
+		}
+		
+		/** 
+		* Orders rejections by line.
+		* @param other The rejection to compare to.
+		* @return The comparison of the lines.
+		*/
+		public int compareTo(Rejection other)
+		{
+			return Integer.compare(line, other.line);
+		}
+		
+		@Override
+		/** 
+		* Describe the rejection, for example "Line 4: WITHDRAW 12 10.00 rejected. Insufficient funds: ...".
+		* @return A description of the rejection.
+		*/
+		public String toString()
+		{
+			return "Line " + line + ": " + type + " " + accountID + " " + Money.toString(amount) + " rejected. " + reason.getMessage();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package assignment3.simpleAccount.engine;
+
+import assignment3.simpleAccount.util.Money;
+
+/** 
+ * A single command for the transaction engine. Accounts are identified by their account ID and amounts are in USD
+ * cents. Transactions can not be changed once created.
+ * 
+ * @author dTorrente
+ */
+public final class Transaction {
+	
+	private final TransactionType type;
+	private final int accountID;
+	private final int targetAccountID;
+	private final long amount;
+	
+	/**
+	* Constructor for a transaction. Use the static factory methods to create one.
+	* @param type The kind of transaction.
+	* @param accountID The account to deposit to, withdraw from, or transfer from.
+	* @param targetAccountID The account to transfer to. Equal to accountID for deposits and withdrawals.
+	* @param amount The amount in USD cents.
+	*/
+	private Transaction(TransactionType type, int accountID, int targetAccountID, long amount)
+	{
+		this.type = type;
+		this.accountID = accountID;
+		this.targetAccountID = targetAccountID;
+		this.amount = amount;
+	}
+	
+	/**
+	* Creates a deposit.
+	* @param accountID The account to deposit to.
+	* @param amount The amount in USD cents.
+	* @return The transaction.
+	*/
+	public static Transaction deposit(int accountID, long amount)
+	{
+		return new Transaction(TransactionType.DEPOSIT, accountID, accountID, amount);
+	}
+	
+	/**
+	* Creates a withdrawal.
+	* @param accountID The account to withdraw from.
+	* @param amount The amount in USD cents.
+	* @return The transaction.
+	*/
+	public static Transaction withdraw(int accountID, long amount)
+	{
+		return new Transaction(TransactionType.WITHDRAW, accountID, accountID, amount);
+	}
+	
+	/**
+	* Creates a transfer.
+	* @param fromAccountID The account to take the funds from.
+	* @param toAccountID The account to give the funds to.
+	* @param amount The amount in USD cents.
+	* @return The transaction.
+	*/
+	public static Transaction transfer(int fromAccountID, int toAccountID, long amount)
+	{
+		return new Transaction(TransactionType.TRANSFER, fromAccountID, toAccountID, amount);
+	}
+	
+	/** 
+	* Get the kind of transaction.
+	* @return The kind of transaction.
+	*/
+	public TransactionType getType()
+	{
+		return type;
+	}
+	
+	/** 
+	* Get the account deposited to, withdrawn from, or transferred from.
+	* @return The account ID.
+	*/
+	public int getAccountID()
+	{
+		return accountID;
+	}
+	
+	/** 
+	* Get the account transferred to. For deposits and withdrawals this is the same as getAccountID().
+	* @return The account ID.
+	*/
+	public int getTargetAccountID()
+	{
+		return targetAccountID;
+	}
+	
+	/** 
+	* Get the amount of the transaction.
+	* @return The amount in USD cents.
+	*/
+	public long getAmount()
+	{
+		return amount;
+	}
+	
+	@Override
+	/** 
+	* Describe the transaction, for example "TRANSFER 12 -> 15 10.00".
+	* @return A description of the transaction.
+	*/
+	public String toString()
+	{
+		if (type == TransactionType.TRANSFER)
+			return type + " " + accountID + " -> " + targetAccountID + " " + Money.toString(amount);
+		return type + " " + accountID + " " + Money.toString(amount);
+	}
+}
@@ -0,0 +1,386 @@
+package assignment3.simpleAccount.engine;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.Money;
+
+/** 
+ * Applies deposits, withdrawals and transfers to the accounts of an account store by account ID. The engine has no
+ * dependency on any view, so it can be driven equally by the controller or by a batch job. Transactions may be
+ * submitted from any thread. Each change to a balance is atomic, as described in Account.
+ * <p>
+ * No lock is shared between transactions. While it is applied, a transaction only counts itself in a cell of its
+ * own, one of several spread over separate cache lines and chosen by thread, which is all runExclusively() needs to
+ * wait for every transaction in flight to finish. runExclusively() parks until the last of them counts itself out.
+ * <p>
+ * Edit views listening to an account are still notified by the account itself. Other interested parties, such as a
+ * journal, can register a TransactionListener. While any listener is registered, each transaction is applied and
+ * passed to the listeners under the ordering locks of the accounts it touches, one of ORDER_STRIPES locks chosen by
+ * account ID. Transactions which share an account are therefore told to the listeners in the order they changed it,
+ * while transactions on other accounts carry on at the same time. Listeners are added and removed through
+ * runExclusively(), so a listener sees every transaction applied after it was added and none from before.
+ * 
+ * @author dTorrente
+ */
+public class TransactionEngine {
+	
+	//the counts of transactions in flight sit CELL_SPACING longs apart, 128 bytes, so no two share a cache line
+	private static final int CELL_SPACING = 16;
+	private static final int CELLS = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+	//the number of ordering locks, a power of two. Two accounts share one only by chance
+	private static final int ORDER_STRIPES = 256;
+	
+	private volatile AccountStore accountStore;
+	private final CopyOnWriteArrayList<TransactionListener> listeners;
+	private final AtomicLongArray inFlight;
+	private volatile boolean exclusive;
+	//the thread running an exclusive action, woken by the last transaction to count itself out
+	private volatile Thread exclusiveWaiter;
+	private final ReentrantLock exclusiveLock;
+	private final ReentrantLock[] orderLocks;
+	
+	/**
+	* Constructor for an engine working on a store.
+	* @param accountStore The store holding the accounts to change.
+	*/
+	public TransactionEngine(AccountStore accountStore)
+	{
+		this.accountStore = accountStore;
+		this.listeners = new CopyOnWriteArrayList<TransactionListener>();
+		this.inFlight = new AtomicLongArray(CELLS * CELL_SPACING);
+		this.exclusiveLock = new ReentrantLock();
+		this.orderLocks = new ReentrantLock[ORDER_STRIPES];
+		for (int stripe = 0; stripe < ORDER_STRIPES; stripe++)
+			orderLocks[stripe] = new ReentrantLock();
+	}
+	
+	/**
+	* Set the store the engine works on. Used when a new account file is loaded.
+	* @param accountStore The store holding the accounts to change.
+	*/
+	public void setAccountStore(AccountStore accountStore)
+	{
+		this.accountStore = accountStore;
+	}
+	
+	/**
+	* Get the store the engine works on.
+	* @return The store holding the accounts.
+	*/
+	public AccountStore getAccountStore()
+	{
+		return accountStore;
+	}
+	
+	/**
+	* Add a listener to be told of every transaction applied from now on. Waits for the transactions in flight to finish.
+	* @param listener The listener to add.
+	*/
+	public void addTransactionListener(final TransactionListener listener)
+	{
+		runExclusively(new Runnable()
+		{
+			public void run()
+			{
+				listeners.add(listener);
+			}
+		});
+	}
+	
+	/**
+	* Remove a listener added through addTransactionListener(). Waits for the transactions in flight to finish, so the
+	* listener is not called again once this returns.
+	* @param listener The listener to remove.
+	*/
+	public void removeTransactionListener(final TransactionListener listener)
+	{
+		runExclusively(new Runnable()
+		{
+			public void run()
+			{
+				listeners.remove(listener);
+			}
+		});
+	}
+	
+	/**
+	* Check if any listener is registered. A batch which applies transactions without the engine, such as a replay, must
+	* go through it instead when there is one, so that no listener misses a transaction.
+	* @return True if at least one listener is registered.
+	*/
+	public boolean hasTransactionListeners()
+	{
+		return !listeners.isEmpty();
+	}
+	
+	/**
+	* Deposit funds into an account.
+	* @param accountID The account to deposit to.
+	* @param amount The amount in USD cents.
+	* @throws AccountDataException If the account does not exist or the amount is not valid.
+	*/
+	public void deposit(int accountID, long amount) throws AccountDataException
+	{
+		apply(Transaction.deposit(accountID, amount));
+	}
+	
+	/**
+	* Withdraw funds from an account.
+	* @param accountID The account to withdraw from.
+	* @param amount The amount in USD cents.
+	* @throws AccountDataException If the account does not exist, the amount is not valid, or the funds are insufficient.
+	*/
+	public void withdraw(int accountID, long amount) throws AccountDataException
+	{
+		apply(Transaction.withdraw(accountID, amount));
+	}
+	
+	/**
+	* Transfer funds from one account to another.
+	* @param fromAccountID The account to take the funds from.
+	* @param toAccountID The account to give the funds to.
+	* @param amount The amount in USD cents.
+	* @throws AccountDataException If either account does not exist, the amount is not valid, or the funds are insufficient.
+	*/
+	public void transfer(int fromAccountID, int toAccountID, long amount) throws AccountDataException
+	{
+		apply(Transaction.transfer(fromAccountID, toAccountID, amount));
+	}
+	
+	/**
+	* Apply a transaction and tell every listener whether it was applied or rejected.
+	* @param transaction The transaction to apply.
+	* @throws AccountDataException If the transaction was rejected. No account was changed.
+	*/
+	public void apply(Transaction transaction) throws AccountDataException
+	{
+		int cell = enterShared();
+		try
+		{
+			//listeners only change while no transaction is in flight, so this holds until the transaction is done
+			if (listeners.isEmpty())
+			{
+				applyAndNotify(transaction);
+			}
+			else
+			{
+				applyInOrder(transaction);
+			}
+		}
+		finally
+		{
+			exitShared(cell);
+		}
+	}
+	
+	/**
+	* Run an action while no transaction is being applied. Transactions submitted meanwhile wait until it returns. Used
+	* to capture the funds of every account at a known point, such as for a journal checkpoint. May be called again from
+	* within the action.
+	* @param action The action to run. It must not submit transactions itself.
+	*/
+	public void runExclusively(Runnable action)
+	{
+		exclusiveLock.lock();
+		try
+		{
+			if (exclusiveLock.getHoldCount() > 1)
+			{
+				action.run();
+				return;
+			}
+			
+			exclusiveWaiter = Thread.currentThread();
+			exclusive = true;
+			try
+			{
+				//a transaction counts itself in before it checks for an exclusive action, and this checks the counts
+				//after announcing one, so either the transaction waits or it is counted here. Likewise a transaction
+				//counts itself out before it checks for an exclusive action to wake, so this is woken or sees it gone
+				for (int cell = 0; cell < inFlight.length(); cell += CELL_SPACING)
+				{
+					while (inFlight.get(cell) != 0)
+						LockSupport.park(this);
+				}
+				action.run();
+			}
+			finally
+			{
+				exclusive = false;
+				exclusiveWaiter = null;
+			}
+		}
+		finally
+		{
+			exclusiveLock.unlock();
+		}
+	}
+	
+	/**
+	* Count the calling thread in as applying transactions, waiting first for any exclusive action to finish. A batch
+	* which changes the store without the engine, such as a replay, stays counted in throughout so that
+	* runExclusively() waits for the batch to finish. It must not submit transactions to the engine meanwhile.
+	* @return The cell the thread was counted in, to give to exitShared().
+	*/
+	int enterShared()
+	{
+		//by ID rather than identity hash, which takes a slow path once the thread has been waited on or locked
+		int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+		int cell = ((hash ^ (hash >>> 16)) & (CELLS - 1)) * CELL_SPACING;
+		while (true)
+		{
+			inFlight.getAndIncrement(cell);
+			if (!exclusive)
+				return cell;
+			//backing out may leave the cell empty, which the exclusive action must be woken to see
+			exitShared(cell);
+			//the exclusive action holds this lock until it is done
+			exclusiveLock.lock();
+			exclusiveLock.unlock();
+		}
+	}
+	
+	/**
+	* Count the calling thread out again after enterShared().
+	* @param cell The cell returned by enterShared().
+	*/
+	void exitShared(int cell)
+	{
+		inFlight.getAndDecrement(cell);
+		if (exclusive)
+			LockSupport.unpark(exclusiveWaiter);
+	}
+	
+	/**
+	* Apply a transaction and tell every listener, holding the ordering lock of each account it touches. Two locks are
+	* always taken lower first, so two transfers never each hold the lock the other needs.
+	* @param transaction The transaction to apply.
+	* @throws AccountDataException If the transaction was rejected. No account was changed.
+	*/
+	private void applyInOrder(Transaction transaction) throws AccountDataException
+	{
+		int first = orderStripe(transaction.getAccountID());
+		int second = transaction.getType() == TransactionType.TRANSFER ? orderStripe(transaction.getTargetAccountID()) : first;
+		ReentrantLock lower = orderLocks[Math.min(first, second)];
+		ReentrantLock upper = orderLocks[Math.max(first, second)];
+		lower.lock();
+		try
+		{
+			if (upper != lower)
+				upper.lock();
+			try
+			{
+				applyAndNotify(transaction);
+			}
+			finally
+			{
+				if (upper != lower)
+					upper.unlock();
+			}
+		}
+		finally
+		{
+			lower.unlock();
+		}
+	}
+	
+	/**
+	* Get the ordering lock of an account. Uses the same mix as AccountIdIndex, so neighbouring IDs spread over the locks.
+	* @param accountID The ID of the account.
+	* @return The index of the lock in orderLocks.
+	*/
+	private static int orderStripe(int accountID)
+	{
+		int mixed = accountID * 0x9E3779B9;
+		return (mixed ^ (mixed >>> 16)) & (ORDER_STRIPES - 1);
+	}
+	
+	/**
+	* Apply a transaction and tell every listener whether it was applied or rejected.
+	* @param transaction The transaction to apply.
+	* @throws AccountDataException If the transaction was rejected. No account was changed.
+	*/
+	private void applyAndNotify(Transaction transaction) throws AccountDataException
+	{
+		try
+		{
+			AccountStore store = accountStore;
+			Account account = find(store, transaction.getAccountID());
+			switch (transaction.getType())
+			{
+				case DEPOSIT:
+					account.depositFunds(transaction.getAmount());
+					break;
+				case WITHDRAW:
+					account.withdrawFunds(transaction.getAmount(), Money.RATE_SCALE);
+					break;
+				case TRANSFER:
+					transfer(account, find(store, transaction.getTargetAccountID()), transaction.getAmount());
+					break;
+			}
+		}
+		catch (AccountDataException adException)
+		{
+			for (TransactionListener listener : listeners)
+				listener.transactionRejected(transaction, adException);
+			throw adException;
+		}
+		
+		for (TransactionListener listener : listeners)
+			listener.transactionApplied(transaction);
+	}
+	
+	/**
+	* Move funds between two accounts in two phases, without taking a lock on either. The funds are withdrawn first, so
+	* the check for sufficient funds is atomic and money is never spent before it has been taken. Should the deposit then
+	* be rejected, the withdrawal is given back with Account.restoreFunds(), which can not fail, so the funds are never
+	* lost in flight.
+	* <p>
+	* The transfer is counted in flight throughout, so runExclusively() never sees the funds withdrawn but not yet
+	* deposited, and a checkpoint or report always finds the total of every balance unchanged by transfers.
+	* @param from The account to take the funds from.
+	* @param to The account to give the funds to.
+	* @param amount The amount in USD cents.
+	* @throws AccountDataException If the amount is not valid, the funds are insufficient, or the deposit would take the
+	* funds of the other account above Account.MAX_FUNDS.
+	*/
+	private void transfer(Account from, Account to, long amount) throws AccountDataException
+	{
+		if (from.getAccountID() == to.getAccountID())
+			throw new AccountDataException("Please choose two different accounts to transfer between.");
+		
+		from.withdrawFunds(amount, Money.RATE_SCALE);
+		boolean deposited = false;
+		try
+		{
+			to.depositFunds(amount);
+			deposited = true;
+		}
+		finally
+		{
+			if (!deposited)
+				from.restoreFunds(amount);
+		}
+	}
+	
+	/**
+	* Find an account in a store.
+	* @param store The store to search.
+	* @param accountID The ID of the account.
+	* @return A view of the account.
+	* @throws AccountDataException If no account has the ID.
+	*/
+	private static Account find(AccountStore store, int accountID) throws AccountDataException
+	{
+		int slot = store.find(accountID);
+		if (slot < 0)
+			throw new AccountDataException("Account ID " + accountID + " does not exist.");
+		return store.view(slot);
+	}
+}
@@ -0,0 +1,897 @@
+package assignment3.simpleAccount.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+import assignment3.simpleAccount.model.AccountSnapshot;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ * An append-only journal of every transaction applied to the accounts of a snapshot. The journal is kept next to the
+ * snapshot, in a file named after it with FILE_EXTENSION added. Once a transaction has been journaled it survives a
+ * crash: when the snapshot is next opened, every journaled transaction newer than the snapshot is applied to it again.
+ * Saving therefore costs nothing beyond the journal itself, however many accounts there are.
+ * <p>
+ * Transactions are journaled as a listener of the transaction engine, which tells the journal of the transactions on
+ * each account in the order they changed it. A transaction claims the next sequence number with one atomic increment
+ * while the engine still holds its accounts, so sequence numbers follow the order in which each account was changed,
+ * and replaying the journal in sequence order reproduces every balance. The record is then copied into the slot of a
+ * ring the sequence number selects, so transactions on different accounts are journaled at the same time without
+ * sharing a lock, and the thread which applied the transaction, often the event dispatch thread, does not wait for the
+ * disk. Only when the ring is full, because the disk has fallen RING_SIZE records behind, does a transaction wait.
+ * <p>
+ * Records are written by a single flushing thread, in sequence order, up to the first slot whose record has not been
+ * copied in yet. Every record which arrives while one batch is being forced is written and forced together in the next
+ * batch, so many transactions share the cost of each force. A transaction is therefore durable within about two forces
+ * of being applied. A caller which must know before it reports success calls
+ * sync(): the controller does so off the event dispatch thread before an edit view clears the amount entered. A crash
+ * in between loses the transactions applied since the last force, at most the two batches in flight, although the
+ * funds shown had already changed; none of them had been acknowledged. Should a write fail, the failure listeners are
+ * told straight away.
+ * <p>
+ * Once the journal grows past its compaction size, a checkpoint writes a new snapshot of the accounts and removes every
+ * record the snapshot includes from the journal. The snapshot holds the sequence number of the last transaction it
+ * includes, so a crash at any point of a checkpoint loses nothing and applies nothing twice.
+ * <p>
+ * Every record is RECORD_SIZE bytes holding the sequence number, amount, accounts and type of the transaction followed
+ * by a CRC32C checksum. A record cut short by a crash fails its checksum and is dropped along with anything after it.
+ *
+ * @author dTorrente
+ */
+public class TransactionJournal implements TransactionListener {
+
+	/** The extension added to the name of a snapshot to name its journal. */
+	public static final String FILE_EXTENSION = ".journal";
+
+	/** The journal size in bytes at which a checkpoint is taken, unless another size is given. */
+	public static final long DEFAULT_COMPACTION_SIZE = 16L * 1024 * 1024;
+
+	private static final int MAGIC = 0x4E4A4341; //"ACJN" when read as little endian bytes
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+	private static final int RECORD_SIZE = 32;
+	private static final int CHECKED_SIZE = RECORD_SIZE - 4;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	//records waiting to be written, a power of two
+	private static final int RING_SIZE = 16 * 1024;
+
+	private volatile TransactionEngine engine;
+	private final AccountStore store;
+	private final File snapshotFile;
+	private final File journalFile;
+	private final long compactionSize;
+	private final long recovered;
+
+	//the record of each sequence number goes in the slot of the ring it selects, which is published by setting the
+	//sequence number in the slot of published. A slot is free again once the flushing thread has copied its record out
+	private final ByteBuffer ring;
+	private final AtomicLongArray published;
+	private final AtomicLong lastSequence;
+	private volatile long copiedSequence;
+	private volatile boolean flusherParked;
+	private volatile IOException failure;
+	private volatile boolean closed;
+
+	//guards the waits for a force or for room in the ring, and starting a checkpoint
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition recordsForced = lock.newCondition();
+	private final Condition roomFreed = lock.newCondition();
+	private long forcedSequence;
+	private boolean compacting;
+
+	//guards the channel, which is replaced by each checkpoint
+	private final Object channelLock = new Object();
+	private FileChannel channel;
+
+	private final Object compactionLock = new Object();
+	private final Thread flusher;
+	private final CopyOnWriteArrayList<Runnable> failureListeners = new CopyOnWriteArrayList<Runnable>();
+
+	/**
+	* Constructor for a journal whose file is open and recovered.
+	* @param engine The engine whose transactions are journaled.
+	* @param snapshotFile The snapshot the journal belongs to.
+	* @param channel The journal file, positioned after its last record.
+	* @param lastSequence The sequence number of the last transaction in the snapshot or journal.
+	* @param recovered The number of transactions applied again while recovering.
+	* @param compactionSize The journal size in bytes at which a checkpoint is taken.
+	*/
+	private TransactionJournal(TransactionEngine engine, File snapshotFile, FileChannel channel, long lastSequence,
+		long recovered, long compactionSize)
+	{
+		this.engine = engine;
+		this.store = engine.getAccountStore();
+		this.snapshotFile = snapshotFile;
+		this.journalFile = journalFileFor(snapshotFile);
+		this.channel = channel;
+		this.lastSequence = new AtomicLong(lastSequence);
+		this.copiedSequence = lastSequence;
+		this.forcedSequence = lastSequence;
+		this.recovered = recovered;
+		this.compactionSize = compactionSize;
+		this.ring = ByteBuffer.allocate(RING_SIZE * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		this.published = new AtomicLongArray(RING_SIZE);
+
+		flusher = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				flushRecords();
+			}
+		}, "Transaction journal");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	* Open the journal of a snapshot and recover from it. Every journaled transaction newer than the snapshot is
+	* applied to the engine's store, which must be the store opened from the snapshot. The journal then listens to the
+	* engine. A journal is created if the snapshot has none.
+	* @param engine The engine whose transactions are journaled.
+	* @param snapshotFile The snapshot the journal belongs to.
+	* @param snapshotSequence The sequence number the snapshot is up to date with.
+	* @return The open journal.
+	* @throws IOException If the journal could not be read or written.
+	* @throws AccountDataException If the file is not a journal, or a journaled transaction can not be applied.
+	*/
+	public static TransactionJournal open(TransactionEngine engine, File snapshotFile, long snapshotSequence)
+		throws IOException, AccountDataException
+	{
+		return open(engine, snapshotFile, snapshotSequence, DEFAULT_COMPACTION_SIZE);
+	}
+
+	/**
+	* Open the journal of a snapshot and recover from it, as open(TransactionEngine, File, long).
+	* @param engine The engine whose transactions are journaled.
+	* @param snapshotFile The snapshot the journal belongs to.
+	* @param snapshotSequence The sequence number the snapshot is up to date with.
+	* @param compactionSize The journal size in bytes at which a checkpoint is taken.
+	* @return The open journal.
+	* @throws IOException If the journal could not be read or written.
+	* @throws AccountDataException If the file is not a journal, or a journaled transaction can not be applied.
+	*/
+	public static TransactionJournal open(TransactionEngine engine, File snapshotFile, long snapshotSequence,
+		long compactionSize) throws IOException, AccountDataException
+	{
+		File journalFile = journalFileFor(snapshotFile);
+		FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+			StandardOpenOption.WRITE);
+		boolean opened = false;
+		try
+		{
+			long[] recovery = recover(channel, journalFile, engine.getAccountStore(), snapshotSequence);
+			TransactionJournal journal = new TransactionJournal(engine, snapshotFile, channel,
+				Math.max(snapshotSequence, recovery[0]), recovery[1], compactionSize);
+			engine.addTransactionListener(journal);
+			opened = true;
+			return journal;
+		}
+		finally
+		{
+			if (!opened)
+				channel.close();
+		}
+	}
+
+	/**
+	* Make a snapshot of the engine's store the start of a new journal. The new journal is written beside any journal
+	* the file had before, and only replaces it once the snapshot has been written, so a failure or crash part way leaves
+	* the old snapshot and journal as they were. The journal then listens to the engine.
+	* <p>
+	* Sequence numbers carry on from the old journal. Should a crash come after the snapshot is written but before the
+	* new journal replaces the old one, every record of the old journal is then older than the snapshot, and none of
+	* them is applied to it again.
+	* @param engine The engine whose transactions are journaled.
+	* @param snapshotFile The snapshot to write.
+	* @return The open journal.
+	* @throws IOException If the snapshot or journal could not be written.
+	*/
+	public static TransactionJournal create(TransactionEngine engine, File snapshotFile) throws IOException
+	{
+		Path target = journalFileFor(snapshotFile).toPath();
+		Path temporary = target.resolveSibling(target.getFileName() + ".new");
+		long lastSequence = lastSequence(target.toFile());
+		FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+			StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		TransactionJournal journal = null;
+		boolean created = false;
+		try
+		{
+			writeHeader(channel);
+			channel.force(false);
+			journal = new TransactionJournal(engine, snapshotFile, channel, lastSequence, 0, DEFAULT_COMPACTION_SIZE);
+			//a checkpoint started by the flushing thread waits until the new journal is in place
+			synchronized (journal.compactionLock)
+			{
+				Checkpoint checkpoint = journal.new Checkpoint(true);
+				engine.runExclusively(checkpoint);
+				AccountSnapshot.write(journal.store, checkpoint.cents, checkpoint.sequence, snapshotFile);
+				//the channel follows the file, so records already written to it are in the journal once it is moved
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			created = true;
+			return journal;
+		}
+		finally
+		{
+			if (!created)
+			{
+				if (journal != null)
+					closeAfterFailure(journal);
+				else
+					channel.close();
+				Files.deleteIfExists(temporary);
+			}
+		}
+	}
+
+	/**
+	* Get the file of the journal of a snapshot.
+	* @param snapshotFile The snapshot.
+	* @return The journal file.
+	*/
+	public static File journalFileFor(File snapshotFile)
+	{
+		return new File(snapshotFile.getPath() + FILE_EXTENSION);
+	}
+
+	/**
+	* Journal the transactions of another engine instead, such as when a journal recovered off the event dispatch thread
+	* is handed to the engine the accounts are used through. The journal stops listening to its engine and listens to
+	* the other one.
+	* @param target The engine whose transactions are journaled from now on. Its store must be the journal's store.
+	*/
+	public void moveTo(TransactionEngine target)
+	{
+		if (target.getAccountStore() != store)
+			throw new IllegalArgumentException("The engine does not work on the accounts of " + snapshotFile);
+		synchronized (compactionLock)
+		{
+			engine.removeTransactionListener(this);
+			engine = target;
+			target.addTransactionListener(this);
+		}
+	}
+
+	/**
+	* Get the snapshot the journal belongs to.
+	* @return The snapshot file.
+	*/
+	public File getSnapshotFile()
+	{
+		return snapshotFile;
+	}
+
+	/**
+	* Get the number of transactions applied again when the journal was opened.
+	* @return The number of recovered transactions.
+	*/
+	public long getRecovered()
+	{
+		return recovered;
+	}
+
+	/**
+	* Get the sequence number of the last transaction journaled.
+	* @return The sequence number.
+	*/
+	public long getLastSequence()
+	{
+		return lastSequence.get();
+	}
+
+	/**
+	* Journal an applied transaction. The record is handed to the flushing thread, and this returns without waiting for
+	* it to be forced to disk. Call sync() before reporting that the transaction is durable.
+	* @param transaction The transaction.
+	* @throws UncheckedIOException If an earlier write of the journal failed. The transaction has been applied but will
+	* be lost if the program stops before the accounts are saved.
+	*/
+	public void transactionApplied(Transaction transaction)
+	{
+		if (failure != null)
+			throw new UncheckedIOException("The journal of " + snapshotFile + " could not be written", failure);
+		if (closed)
+			throw new IllegalStateException("The journal of " + snapshotFile + " is closed");
+
+		long sequence = lastSequence.incrementAndGet();
+		if (sequence - copiedSequence > RING_SIZE)
+			awaitRoom(sequence);
+		int slot = (int) sequence & (RING_SIZE - 1);
+		int start = slot * RECORD_SIZE;
+		ring.putLong(start, sequence);
+		ring.putLong(start + 8, transaction.getAmount());
+		ring.putInt(start + 16, transaction.getAccountID());
+		ring.putInt(start + 20, transaction.getTargetAccountID());
+		ring.putInt(start + 24, transaction.getType().ordinal());
+		//the flushing thread reads the record only once it sees the sequence number published
+		published.set(slot, sequence);
+		if (flusherParked)
+			LockSupport.unpark(flusher);
+	}
+
+	/**
+	* Wait until every transaction journaled so far has been forced to disk. Must not be called on the event dispatch
+	* thread.
+	* @throws IOException If the journal could not be written. The transactions not yet forced will be lost if the
+	* program stops before the accounts are saved.
+	*/
+	public void sync() throws IOException
+	{
+		long sequence = lastSequence.get();
+		lock.lock();
+		try
+		{
+			while (forcedSequence < sequence && failure == null)
+				recordsForced.awaitUninterruptibly();
+			if (failure != null)
+				throw failure;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	* Add a listener to be told if the journal could not be written. It is run on the flushing thread, so a listener
+	* which updates Swing components must pass the update to the event dispatch thread.
+	* @param listener The listener to add.
+	*/
+	public void addFailureListener(Runnable listener)
+	{
+		failureListeners.add(listener);
+	}
+
+	/**
+	* Remove a listener added with addFailureListener().
+	* @param listener The listener to remove.
+	*/
+	public void removeFailureListener(Runnable listener)
+	{
+		failureListeners.remove(listener);
+	}
+
+	/**
+	* Rejected transactions changed nothing, so they are not journaled.
+	* @param transaction The transaction.
+	* @param reason Why the transaction was rejected.
+	*/
+	public void transactionRejected(Transaction transaction, AccountDataException reason)
+	{
+	}
+
+	/**
+	* Take a checkpoint. A new snapshot including every journaled transaction is written and the journal is emptied of
+	* the transactions it includes. Transactions wait only while the funds of every account are copied.
+	* @throws IOException If the snapshot or journal could not be written. Nothing is lost.
+	*/
+	public void compact() throws IOException
+	{
+		synchronized (compactionLock)
+		{
+			if (closed)
+				return;
+			Checkpoint checkpoint = new Checkpoint(false);
+			engine.runExclusively(checkpoint);
+			AccountSnapshot.write(store, checkpoint.cents, checkpoint.sequence, snapshotFile);
+			truncateThrough(checkpoint.sequence);
+		}
+	}
+
+	/**
+	* Stop journaling and close the journal. Waits until every transaction already applied has been forced to disk, so
+	* nothing needs saving.
+	* @throws IOException If an earlier write of the journal failed, or the journal could not be closed.
+	*/
+	public void close() throws IOException
+	{
+		//once no longer listening, every record claimed has been published
+		engine.removeTransactionListener(this);
+		closed = true;
+		LockSupport.unpark(flusher);
+
+		boolean interrupted = false;
+		while (flusher.isAlive())
+		{
+			try
+			{
+				flusher.join();
+			}
+			catch (InterruptedException iException)
+			{
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+
+		synchronized (compactionLock)
+		{
+			synchronized (channelLock)
+			{
+				channel.close();
+			}
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	/**
+	* Copies the funds of every account at the point of the last journaled transaction. Run through
+	* TransactionEngine.runExclusively(), so no transaction is part way through being applied or journaled.
+	*/
+	private class Checkpoint implements Runnable
+	{
+		private final boolean startJournaling;
+		private long[] cents;
+		private long sequence;
+
+		/**
+		* Constructor for a checkpoint.
+		* @param startJournaling If the journal should also start listening to the engine.
+		*/
+		private Checkpoint(boolean startJournaling)
+		{
+			this.startJournaling = startJournaling;
+		}
+
+		public void run()
+		{
+			cents = store.copyCents();
+			sequence = getLastSequence();
+			if (startJournaling)
+				engine.addTransactionListener(TransactionJournal.this);
+		}
+	}
+
+	/**
+	* Close a journal which could not be created. Nothing was journaled which is not also in memory, so an error closing
+	* it is not reported over the error which stopped it being created.
+	* @param journal The journal to close.
+	*/
+	private static void closeAfterFailure(TransactionJournal journal)
+	{
+		try
+		{
+			journal.close();
+		}
+		catch (IOException ioException)
+		{
+			//the error which stopped the journal being created is the one reported
+		}
+	}
+
+	/**
+	* Find the sequence number of the last intact record of a journal, without changing the journal.
+	* @param journalFile The journal file.
+	* @return The sequence number, or 0 if the file does not exist, holds no records or is not a journal.
+	* @throws IOException If the journal could not be read.
+	*/
+	private static long lastSequence(File journalFile) throws IOException
+	{
+		if (!journalFile.exists())
+			return 0;
+		FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.READ);
+		try
+		{
+			return recover(channel, journalFile, null, 0)[0];
+		}
+		catch (AccountDataException adException)
+		{
+			//a file which is not a journal holds no records to be applied to the snapshot
+			return 0;
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	/**
+	* Wait for the flushing thread to copy out the record whose slot a sequence number needs.
+	* @param sequence The sequence number.
+	* @throws UncheckedIOException If the journal could not be written, so the slot will never be free.
+	*/
+	private void awaitRoom(long sequence)
+	{
+		lock.lock();
+		try
+		{
+			while (sequence - copiedSequence > RING_SIZE && failure == null)
+				roomFreed.awaitUninterruptibly();
+			if (failure != null)
+				throw new UncheckedIOException("The journal of " + snapshotFile + " could not be written", failure);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	* The body of the flushing thread. Waits for records, then writes and forces every record published in sequence
+	* order at once, until the journal is closed and every record has been written.
+	*/
+	private void flushRecords()
+	{
+		ByteBuffer batch = ByteBuffer.allocate(RING_SIZE * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		CRC32C checksum = new CRC32C();
+		long copied = copiedSequence;
+		while (true)
+		{
+			//copy out every record published after the last one copied, up to the first which is not published yet
+			batch.clear();
+			long through = copied;
+			int slot = (int) (through + 1) & (RING_SIZE - 1);
+			while (published.get(slot) == through + 1)
+			{
+				int start = batch.position();
+				System.arraycopy(ring.array(), slot * RECORD_SIZE, batch.array(), start, CHECKED_SIZE);
+				checksum.reset();
+				checksum.update(batch.array(), start, CHECKED_SIZE);
+				batch.position(start + CHECKED_SIZE);
+				batch.putInt((int) checksum.getValue());
+				through++;
+				slot = (int) (through + 1) & (RING_SIZE - 1);
+			}
+
+			if (through == copied)
+			{
+				if (closed && lastSequence.get() == copied)
+					return;
+				//a record published after this is set unparks the thread, and one published before it is seen here
+				flusherParked = true;
+				if (published.get(slot) != through + 1 && !closed)
+					LockSupport.park(this);
+				flusherParked = false;
+				continue;
+			}
+
+			copied = through;
+			lock.lock();
+			try
+			{
+				copiedSequence = through;
+				roomFreed.signalAll();
+			}
+			finally
+			{
+				lock.unlock();
+			}
+
+			IOException error = null;
+			long size = 0;
+			try
+			{
+				size = write(batch);
+			}
+			catch (IOException ioException)
+			{
+				error = ioException;
+			}
+
+			lock.lock();
+			try
+			{
+				if (error != null)
+					failure = error;
+				else
+					forcedSequence = through;
+				recordsForced.signalAll();
+				roomFreed.signalAll();
+				if (error == null && size >= compactionSize && !compacting && !closed)
+				{
+					compacting = true;
+					startCompaction();
+				}
+			}
+			finally
+			{
+				lock.unlock();
+			}
+			if (error != null)
+			{
+				for (Runnable listener : failureListeners)
+					listener.run();
+				return;
+			}
+		}
+	}
+
+	/**
+	* Write a batch of records to the end of the journal and force it to disk.
+	* @param batch The records, from the start of the buffer to its position.
+	* @return The size of the journal after writing.
+	* @throws IOException If the journal could not be written.
+	*/
+	private long write(ByteBuffer batch) throws IOException
+	{
+		synchronized (channelLock)
+		{
+			batch.flip();
+			while (batch.hasRemaining())
+				channel.write(batch);
+			channel.force(false);
+			return channel.size();
+		}
+	}
+
+	/**
+	* Take a checkpoint on a thread of its own, so that the flushing thread keeps forcing records meanwhile.
+	*/
+	private void startCompaction()
+	{
+		Thread compaction = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					compact();
+				}
+				catch (IOException ioException)
+				{
+					//the journal still holds every transaction, so the checkpoint is simply tried again later
+				}
+				finally
+				{
+					lock.lock();
+					try
+					{
+						compacting = false;
+					}
+					finally
+					{
+						lock.unlock();
+					}
+				}
+			}
+		}, "Transaction journal checkpoint");
+		compaction.setDaemon(true);
+		compaction.start();
+	}
+
+	/**
+	* Remove every record up to a sequence number from the journal. The records after it are copied to a new journal
+	* which then replaces the old one, so a crash part way leaves the old journal in place.
+	* @param sequence The sequence number of the last record to remove.
+	* @throws IOException If the journal could not be written.
+	*/
+	private void truncateThrough(long sequence) throws IOException
+	{
+		synchronized (channelLock)
+		{
+			//records are fixed width and in sequence order, so the first one to keep can be found by binary search
+			long size = channel.size();
+			long low = 0;
+			long high = (size - HEADER_SIZE) / RECORD_SIZE;
+			ByteBuffer recordSequence = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+			while (low < high)
+			{
+				long middle = (low + high) >>> 1;
+				recordSequence.clear();
+				readFully(channel, recordSequence, HEADER_SIZE + middle * RECORD_SIZE);
+				if (recordSequence.getLong(0) <= sequence)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			long keepFrom = HEADER_SIZE + low * RECORD_SIZE;
+
+			Path target = journalFile.toPath();
+			Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+			FileChannel compacted = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			boolean replaced = false;
+			try
+			{
+				writeHeader(compacted);
+				for (long position = keepFrom; position < size; )
+					position += channel.transferTo(position, size - position, compacted);
+				compacted.force(false);
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				replaced = true;
+			}
+			finally
+			{
+				if (!replaced)
+				{
+					compacted.close();
+					Files.deleteIfExists(temporary);
+				}
+			}
+
+			//the new channel now refers to the journal file, and later records are appended to it
+			channel.close();
+			channel = compacted;
+		}
+	}
+
+	/**
+	* Read a journal, applying every intact record newer than the snapshot to the store, and remove any damaged records
+	* from its end. An empty file is given a header.
+	* @param channel The journal file.
+	* @param journalFile The journal file, for error messages.
+	* @param store The store opened from the snapshot, or null to only find the last record, leaving the file as it is.
+	* @param snapshotSequence The sequence number the snapshot is up to date with.
+	* @return The sequence number of the last intact record, or 0 if there is none, followed by the number of records
+	* applied.
+	* @throws IOException If the journal could not be read or written.
+	* @throws AccountDataException If the file is not a journal, or a record can not be applied.
+	*/
+	private static long[] recover(FileChannel channel, File journalFile, AccountStore store, long snapshotSequence)
+		throws IOException, AccountDataException
+	{
+		long size = channel.size();
+		if (size < HEADER_SIZE && store == null)
+			return new long[] {0, 0};
+		if (size < HEADER_SIZE)
+		{
+			//a journal cut short before its header was written holds no records
+			channel.truncate(0);
+			writeHeader(channel);
+			channel.force(false);
+			return new long[] {0, 0};
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.limit(HEADER_SIZE);
+		readFully(channel, buffer, 0);
+		if (buffer.getInt(0) != MAGIC)
+			throw new AccountDataException(journalFile.getName() + " is not a transaction journal.");
+		if (buffer.getInt(4) != VERSION)
+			throw new AccountDataException("Transaction journal version " + buffer.getInt(4) + " is not supported.");
+
+		CRC32C checksum = new CRC32C();
+		TransactionType[] types = TransactionType.values();
+		long lastSequence = 0;
+		long applied = 0;
+		long position = HEADER_SIZE;
+		boolean intact = true;
+		while (intact && position + RECORD_SIZE <= size)
+		{
+			buffer.clear();
+			buffer.limit((int) Math.min(BUFFER_SIZE, (size - position) / RECORD_SIZE * RECORD_SIZE));
+			readFully(channel, buffer, position);
+
+			for (int start = 0; intact && start < buffer.limit(); start += RECORD_SIZE)
+			{
+				checksum.reset();
+				checksum.update(buffer.array(), start, CHECKED_SIZE);
+				long sequence = buffer.getLong(start);
+				int type = buffer.getInt(start + 24);
+				if ((int) checksum.getValue() != buffer.getInt(start + CHECKED_SIZE) || sequence <= lastSequence
+					|| type < 0 || type >= types.length)
+				{
+					intact = false;
+				}
+				else
+				{
+					if (store != null && sequence > snapshotSequence)
+					{
+						replay(store, sequence, types[type], buffer.getInt(start + 16), buffer.getInt(start + 20),
+							buffer.getLong(start + 8));
+						applied++;
+					}
+					lastSequence = sequence;
+					position += RECORD_SIZE;
+				}
+			}
+		}
+
+		if (store == null)
+			return new long[] {lastSequence, 0};
+		if (position < size)
+		{
+			channel.truncate(position);
+			channel.force(false);
+		}
+		channel.position(position);
+		return new long[] {lastSequence, applied};
+	}
+
+	/**
+	* Apply a journaled transaction to a store again, by the same rules as when it was first applied. Records are in the
+	* order the transactions changed the accounts, so every one of them must be accepted again.
+	* @param store The store to change.
+	* @param sequence The sequence number of the transaction, for error messages.
+	* @param type The kind of transaction.
+	* @param accountID The account deposited to, withdrawn from, or transferred from.
+	* @param targetAccountID The account transferred to.
+	* @param amount The amount in USD cents.
+	* @throws AccountDataException If an account is not in the store, or the transaction is rejected, in which case the
+	* journal does not belong to the snapshot.
+	*/
+	private static void replay(AccountStore store, long sequence, TransactionType type, int accountID, int targetAccountID,
+		long amount) throws AccountDataException
+	{
+		int slot = find(store, accountID);
+		try
+		{
+			switch (type)
+			{
+				case DEPOSIT:
+					store.depositCents(slot, amount);
+					break;
+				case WITHDRAW:
+					store.withdrawCents(slot, amount);
+					break;
+				case TRANSFER:
+					int targetSlot = find(store, targetAccountID);
+					store.withdrawCents(slot, amount);
+					store.depositCents(targetSlot, amount);
+					break;
+			}
+		}
+		catch (AccountDataException adException)
+		{
+			throw new AccountDataException("Journaled transaction " + sequence + " does not match the snapshot: "
+				+ adException.getMessage());
+		}
+	}
+
+	/**
+	* Find the slot of an account a journaled transaction refers to.
+	* @param store The store holding the account.
+	* @param accountID The ID of the account.
+	* @return The slot of the account.
+	* @throws AccountDataException If the account is not in the store.
+	*/
+	private static int find(AccountStore store, int accountID) throws AccountDataException
+	{
+		int slot = store.find(accountID);
+		if (slot < 0)
+			throw new AccountDataException("The journal refers to account ID " + accountID + ", which is not in the snapshot.");
+		return slot;
+	}
+
+	/**
+	* Write the journal header at the start of a file.
+	* @param channel The journal file.
+	* @throws IOException If the header could not be written.
+	*/
+	private static void writeHeader(FileChannel channel) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION).putLong(0);
+		header.flip();
+		channel.position(0);
+		while (header.hasRemaining())
+			channel.write(header);
+	}
+
+	/**
+	* Fill a buffer from a position of a file.
+	* @param channel The file to read.
+	* @param buffer The buffer to fill up to its limit.
+	* @param position The position of the file to read from.
+	* @throws IOException If the file could not be read or ends first.
+	*/
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			int read = channel.read(buffer, position);
+			if (read < 0)
+				throw new IOException("Unexpected end of journal");
+			position += read;
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package assignment3.simpleAccount.engine;
+
+import assignment3.simpleAccount.util.AccountDataException;
+
+/** 
+ * Listens to every transaction the transaction engine applies or rejects. Listeners are called on the thread which
+ * submitted the transaction, after the account has been changed. They are called under the engine's ordering locks
+ * of the accounts the transaction touches, so transactions sharing an account are passed on one at a time in the order
+ * they changed it. Transactions on other accounts may be passed on at the same time from other threads, so listeners
+ * must be thread-safe, must return quickly and must not wait for anything slow, such as a disk.
+ * 
+ * @author dTorrente
+ */
+public interface TransactionListener {
+	
+	/**
+	* Called after a transaction has been applied.
+	* @param transaction The transaction.
+	*/
+	void transactionApplied(Transaction transaction);
+	
+	/**
+	* Called when a transaction was rejected. No account was changed.
+	* @param transaction The transaction.
+	* @param reason Why the transaction was rejected.
+	*/
+	void transactionRejected(Transaction transaction, AccountDataException reason);
+}
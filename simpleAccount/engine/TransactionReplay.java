@@ -0,0 +1,351 @@
+package assignment3.simpleAccount.engine;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import assignment3.simpleAccount.io.AccountFileWriter;
+import assignment3.simpleAccount.io.ParallelAccountLoader;
+import assignment3.simpleAccount.io.TransactionFileParser;
+import assignment3.simpleAccount.io.TransactionRecordHandler;
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ * Applies a daily transaction file to the loaded accounts. The whole file is read and checked first, so a badly
+ * formatted file changes nothing. Each account ID is then looked up once, and the transactions are split between
+ * worker threads by slot so that every account is only ever touched by one thread. Each worker applies its share in
+ * file order, so the transactions of any one account are applied in the order they appear in the file.
+ * <p>
+ * Slots are handed out in blocks of SLOTS_PER_BLOCK, so the funds each worker changes lie in cache lines of its own.
+ * A worker changes the funds of a slot straight through AccountStore.depositCents() and withdrawCents(): no lock is
+ * taken, no object is created and no listener is called for a transaction which is applied. The batch is counted in
+ * flight by the engine once, as a single transaction would be, so a checkpoint or report taken meanwhile waits for the
+ * replay to finish. Only rejected transactions, such as withdrawals with insufficient funds, create anything, and they
+ * are collected into the summary. Once the batch is done, every account with an edit view open is told its funds
+ * changed, once however many of its transactions were in the batch.
+ * <p>
+ * When the engine has listeners, such as a journal, every transaction is instead applied through the engine, so the
+ * listeners are told of each one in the order it was applied, under the engine's ordering locks. The workers still
+ * keep the order of each account. Listeners are only added or removed while no transaction is in flight, so a
+ * listener added while a batch is applied straight to the store waits for the batch to finish, and sees none of it.
+ * The listeners are checked again each time a batch is counted in, so every batch applied after one was added goes
+ * through the engine.
+ *
+ * @author dTorrente
+ */
+public class TransactionReplay {
+
+	private static final int INITIAL_CAPACITY = 1024;
+	/** The number of consecutive slots given to the same worker: 512 bytes of funds, several whole cache lines. */
+	public static final int SLOTS_PER_BLOCK = 64;
+
+	private final TransactionEngine engine;
+	private final int workers;
+
+	/**
+	* Constructor for a replay using one worker per available processor.
+	* @param engine The engine to apply the transactions through.
+	*/
+	public TransactionReplay(TransactionEngine engine)
+	{
+		this(engine, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	* Constructor for a replay.
+	* @param engine The engine to apply the transactions through.
+	* @param workers The number of worker threads to use.
+	*/
+	public TransactionReplay(TransactionEngine engine, int workers)
+	{
+		if (workers < 1)
+			throw new IllegalArgumentException("At least one worker is required: " + workers);
+		this.engine = engine;
+		this.workers = workers;
+	}
+
+	/**
+	* Read a transaction file and apply every transaction in it.
+	* @param transactions The transaction file.
+	* @return The summary of the replay.
+	* @throws IOException If the file could not be read.
+	* @throws AccountDataException If the file is not properly formatted. No transaction was applied.
+	* @throws InterruptedException If the thread was interrupted while waiting for the workers.
+	*/
+	public ReplaySummary replay(InputStream transactions) throws IOException, AccountDataException, InterruptedException
+	{
+		long start = System.nanoTime();
+		final Batch batch = new Batch();
+		new TransactionFileParser(transactions).parse(batch);
+
+		//each account ID is looked up once, here, and the workers only ever see slots
+		final AccountStore store = engine.getAccountStore();
+		final int[] slots = new int[batch.size];
+		//a stable counting sort of the transactions by worker keeps each account's transactions in file order
+		final int[] firstOfWorker = new int[workers + 1];
+		int[] workerOf = new int[batch.size];
+		for (int index = 0; index < batch.size; index++)
+		{
+			slots[index] = store.find(batch.accountIDs[index]);
+			workerOf[index] = workerFor(slots[index], batch.accountIDs[index]);
+			firstOfWorker[workerOf[index] + 1]++;
+		}
+		for (int worker = 0; worker < workers; worker++)
+			firstOfWorker[worker + 1] += firstOfWorker[worker];
+
+		final int[] order = new int[batch.size];
+		int[] next = Arrays.copyOf(firstOfWorker, workers);
+		for (int index = 0; index < batch.size; index++)
+			order[next[workerOf[index]]++] = index;
+
+		long applyStart = System.nanoTime();
+		List<ReplaySummary.Rejection> rejected;
+		//the store is changed while counted in flight by the engine, once for the whole batch, so that a checkpoint or
+		//report waits for the replay rather than seeing part of it. Adding a listener waits in the same way, so the
+		//listeners checked here stay the same until the batch is done
+		int cell = engine.enterShared();
+		boolean throughEngine;
+		try
+		{
+			throughEngine = engine.hasTransactionListeners();
+			rejected = throughEngine ? null : runWorkers(false, store, batch, slots, order, firstOfWorker);
+		}
+		finally
+		{
+			engine.exitShared(cell);
+		}
+		//the engine counts each transaction in itself, and tells the edit views through the accounts
+		if (throughEngine)
+			rejected = runWorkers(true, store, batch, slots, order, firstOfWorker);
+		else
+			notifyEditViews(store);
+		long end = System.nanoTime();
+
+		Collections.sort(rejected);
+		return new ReplaySummary(batch.size - rejected.size(), rejected, end - start, end - applyStart, workers);
+	}
+
+	/**
+	* Apply every transaction on the worker threads and wait for them to finish.
+	* @param throughEngine Whether to apply the transactions through the engine rather than straight to the store.
+	* @param store The store holding the accounts.
+	* @param batch Every transaction in the file.
+	* @param slots The slot of the account of each transaction, or -1 if no account has its ID.
+	* @param order The indexes of the transactions, grouped by worker.
+	* @param firstOfWorker The first position within order of each worker, followed by the end of the last worker's.
+	* @return The transactions rejected, in no particular order.
+	* @throws InterruptedException If the thread was interrupted while waiting for the workers.
+	*/
+	private List<ReplaySummary.Rejection> runWorkers(final boolean throughEngine, final AccountStore store,
+		final Batch batch, final int[] slots, final int[] order, int[] firstOfWorker) throws InterruptedException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try
+		{
+			List<Future<List<ReplaySummary.Rejection>>> results = new ArrayList<Future<List<ReplaySummary.Rejection>>>();
+			for (int worker = 0; worker < workers; worker++)
+			{
+				final int from = firstOfWorker[worker];
+				final int to = firstOfWorker[worker + 1];
+				results.add(executor.submit(new Callable<List<ReplaySummary.Rejection>>()
+				{
+					public List<ReplaySummary.Rejection> call()
+					{
+						if (throughEngine)
+							return applyThroughEngine(batch, order, from, to);
+						return apply(store, batch, slots, order, from, to);
+					}
+				}));
+			}
+
+			List<ReplaySummary.Rejection> rejected = new ArrayList<ReplaySummary.Rejection>();
+			for (Future<List<ReplaySummary.Rejection>> result : results)
+				rejected.addAll(result.get());
+			return rejected;
+		}
+		catch (ExecutionException eException)
+		{
+			throw new IllegalStateException("A replay worker failed", eException.getCause());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	* Apply one worker's share of the transactions straight to the funds of the store.
+	* @param store The store holding the accounts.
+	* @param batch Every transaction in the file.
+	* @param slots The slot of the account of each transaction, or -1 if no account has its ID.
+	* @param order The indexes of the transactions, grouped by worker.
+	* @param from The first position within order belonging to this worker.
+	* @param to The position after the last one belonging to this worker.
+	* @return The transactions this worker rejected.
+	*/
+	private static List<ReplaySummary.Rejection> apply(AccountStore store, Batch batch, int[] slots, int[] order, int from, int to)
+	{
+		List<ReplaySummary.Rejection> rejected = new ArrayList<ReplaySummary.Rejection>();
+		for (int position = from; position < to; position++)
+		{
+			int index = order[position];
+			int slot = slots[index];
+			long amount = batch.amounts[index];
+			try
+			{
+				if (slot < 0)
+					throw new AccountDataException("Account ID " + batch.accountIDs[index] + " does not exist.");
+				if (batch.types[index] == TransactionType.DEPOSIT)
+					store.depositCents(slot, amount);
+				else
+					store.withdrawCents(slot, amount);
+			}
+			catch (AccountDataException adException)
+			{
+				rejected.add(new ReplaySummary.Rejection(batch.lines[index], batch.accountIDs[index], batch.types[index],
+					amount, adException));
+			}
+		}
+		return rejected;
+	}
+
+	/**
+	* Apply one worker's share of the transactions through the engine, so that its listeners are told of each one.
+	* @param batch Every transaction in the file.
+	* @param order The indexes of the transactions, grouped by worker.
+	* @param from The first position within order belonging to this worker.
+	* @param to The position after the last one belonging to this worker.
+	* @return The transactions this worker rejected.
+	*/
+	private List<ReplaySummary.Rejection> applyThroughEngine(Batch batch, int[] order, int from, int to)
+	{
+		List<ReplaySummary.Rejection> rejected = new ArrayList<ReplaySummary.Rejection>();
+		for (int position = from; position < to; position++)
+		{
+			int index = order[position];
+			int accountID = batch.accountIDs[index];
+			long amount = batch.amounts[index];
+			TransactionType type = batch.types[index];
+			try
+			{
+				if (type == TransactionType.DEPOSIT)
+					engine.deposit(accountID, amount);
+				else
+					engine.withdraw(accountID, amount);
+			}
+			catch (AccountDataException adException)
+			{
+				rejected.add(new ReplaySummary.Rejection(batch.lines[index], accountID, type, amount, adException));
+			}
+		}
+		return rejected;
+	}
+
+	/**
+	* Tell the edit views of every account which has any that its funds may have changed. The funds were changed
+	* straight through the store, which the views of the accounts do not see. An edit view only marks its display as
+	* needing an update, so telling one whose account was not in the batch only repaints the same funds.
+	* @param store The store holding the accounts.
+	*/
+	private static void notifyEditViews(AccountStore store)
+	{
+		for (Account view : store.pinnedViews())
+			view.notifyEditView();
+	}
+
+	/**
+	* Choose the worker for an account. Consecutive slots are given to the same worker a block at a time, and the blocks
+	* are dealt out in turn so that each worker gets its share of every part of the store.
+	* @param slot The slot of the account, or -1 if no account has the ID.
+	* @param accountID The account ID, which spreads transactions for accounts which do not exist.
+	* @return The worker which applies every transaction of the account.
+	*/
+	private int workerFor(int slot, int accountID)
+	{
+		if (slot < 0)
+			return Math.floorMod(accountID, workers);
+		return (slot / SLOTS_PER_BLOCK) % workers;
+	}
+
+	/**
+	* Every transaction of a file, held in primitive columns.
+	*/
+	private static class Batch implements TransactionRecordHandler
+	{
+		private int size;
+		private int[] lines = new int[INITIAL_CAPACITY];
+		private int[] accountIDs = new int[INITIAL_CAPACITY];
+		private long[] amounts = new long[INITIAL_CAPACITY];
+		private TransactionType[] types = new TransactionType[INITIAL_CAPACITY];
+
+		/**
+		* Add a transaction read from the file.
+		* @param line The line of the file.
+		* @param accountID The account of the transaction.
+		* @param type The kind of transaction.
+		* @param amount The amount in USD cents.
+		*/
+		public void transactionRecord(int line, int accountID, TransactionType type, long amount)
+		{
+			if (size == lines.length)
+			{
+				int capacity = size * 2;
+				lines = Arrays.copyOf(lines, capacity);
+				accountIDs = Arrays.copyOf(accountIDs, capacity);
+				amounts = Arrays.copyOf(amounts, capacity);
+				types = Arrays.copyOf(types, capacity);
+			}
+			lines[size] = line;
+			accountIDs[size] = accountID;
+			amounts[size] = amount;
+			types[size] = type;
+			size++;
+		}
+	}
+
+	/**
+	* Replays a transaction file against an account file without starting the views.
+	* <p>
+	* Usage: TransactionReplay accountFile transactionFile [outputFile]. The summary is printed to standard output. When an
+	* output file is given the updated accounts are written to it.
+	* @param args The account file, the transaction file and optionally the output file.
+	* @throws Exception If a file could not be read or written, or is not properly formatted.
+	*/
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length < 2)
+		{
+			System.err.println("Usage: TransactionReplay accountFile transactionFile [outputFile]");
+			System.exit(2);
+		}
+
+		AccountStore store = new ParallelAccountLoader().load(new File(args[0]), new AccountStore());
+
+		ReplaySummary summary;
+		InputStream transactions = new FileInputStream(args[1]);
+		try
+		{
+			summary = new TransactionReplay(new TransactionEngine(store)).replay(transactions);
+		}
+		finally
+		{
+			transactions.close();
+		}
+		summary.print(System.out);
+
+		if (args.length > 2)
+			AccountFileWriter.write(new File(args[2]), store);
+	}
+}
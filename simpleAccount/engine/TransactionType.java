@@ -0,0 +1,18 @@
+package assignment3.simpleAccount.engine;
+
+/** 
+ * The kinds of transaction the transaction engine can apply.
+ * 
+ * @author dTorrente
+ */
+public enum TransactionType {
+	
+	/** Adds funds to an account. */
+	DEPOSIT,
+	
+	/** Removes funds from an account, provided enough funds are available. */
+	WITHDRAW,
+	
+	/** Moves funds from one account to another, provided the first account has enough funds available. */
+	TRANSFER
+}
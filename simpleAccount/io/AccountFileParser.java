@@ -0,0 +1,90 @@
+package assignment3.simpleAccount.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountFormatException;
+
+/**
+ * A streaming parser for account files. Each line of an account file holds one account in the form
+ * "firstName lastName accountID funds", which is the form written by Account.generateString(). The file is read
+ * through a fixed size byte buffer and every field is decoded in place. No regular expressions are used and the
+ * account ID and funds never pass through an intermediate String. Blank lines are ignored.
+ * <p>
+ * Columns reported in errors count bytes from the start of the line, beginning at 1.
+ *
+ * @author dTorrente
+ */
+public class AccountFileParser extends FieldReader {
+
+	/**
+	* Constructor for a parser. The parser does its own buffering so the stream does not need to be buffered.
+	* @param input The stream to read accounts from. It is not closed by the parser.
+	*/
+	public AccountFileParser(InputStream input)
+	{
+		super(input);
+	}
+
+	/**
+	* Reads every account from the stream and passes each one to the handler.
+	* @param handler The handler to receive each account.
+	* @return The number of accounts read.
+	* @throws IOException If the stream could not be read.
+	* @throws AccountFormatException If a line is not properly formatted. The exception holds the line and column of the problem.
+	* @throws AccountDataException If the handler rejected an account. The message is prefixed with the line of the account.
+	*/
+	public int parse(AccountRecordHandler handler) throws IOException, AccountDataException
+	{
+		int records = 0;
+
+		while (nextRecord())
+		{
+			String firstName = readName("first name");
+			requireField("last name");
+			String lastName = readName("last name");
+			requireField("account ID");
+			int accountID = readInt("account ID");
+			requireField("funds");
+			long funds = readCents("funds");
+			endRecord("funds");
+
+			try
+			{
+				handler.accountRecord(firstName, lastName, accountID, funds);
+			}
+			catch (AccountFormatException afException)
+			{
+				throw afException;
+			}
+			catch (AccountDataException adException)
+			{
+				throw new AccountDataException("Line " + line + ": " + adException.getMessage());
+			}
+			records++;
+		}
+		return records;
+	}
+
+	/**
+	* Reads every account from the stream into a store.
+	* @param store The store to add the accounts to.
+	* @return The store.
+	* @throws IOException If the stream could not be read.
+	* @throws AccountFormatException If a line is not properly formatted.
+	* @throws AccountDataException If an account ID is used twice. The message is prefixed with the line of the account.
+	*/
+	public AccountStore parseInto(final AccountStore store) throws IOException, AccountDataException
+	{
+		parse(new AccountRecordHandler()
+		{
+			public void accountRecord(String firstName, String lastName, int accountID, long funds) throws AccountDataException
+			{
+				store.add(firstName, lastName, accountID, funds);
+			}
+		});
+		return store;
+	}
+}
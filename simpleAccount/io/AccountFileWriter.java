@@ -0,0 +1,341 @@
+package assignment3.simpleAccount.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import assignment3.simpleAccount.metrics.AccountSaveEvent;
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+
+/**
+ * Writes text account files in the form read by AccountFileParser, one account per line as
+ * "firstName lastName accountID funds". Each account is encoded straight into a reusable byte buffer, so no String is
+ * built for a line and numbers are written digit by digit. The buffer is written through a FileChannel.
+ * <p>
+ * Accounts are written to a temporary file next to the target. Only commit() moves it into place, in a single atomic
+ * rename, so the original file is left untouched if writing fails part way, or is cancelled through a FileProgress.
+ * Each file is recorded as an AccountSaveEvent when Java Flight Recorder is running.
+ *
+ * @author dTorrente
+ */
+public class AccountFileWriter implements Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+	//the longest line apart from the names: two spaces, an int, a long of cents and the line separator
+	private static final int MAX_NUMBERS_LENGTH = 2 + 11 + 22 + 8;
+
+	private final Path target;
+	private final Path temporary;
+	private final FileChannel channel;
+	private final byte[] buffer;
+	private final ByteBuffer wrapped;
+	private final FileProgress progress;
+	private final AccountSaveEvent event;
+	private int position;
+	private int unreportedRecords;
+	private long records;
+	private long bytes;
+	private boolean committed;
+	private boolean recorded;
+
+	/**
+	* Constructor for a writer. The temporary file is created straight away.
+	* @param file The account file to write.
+	* @throws IOException If the temporary file could not be created.
+	*/
+	public AccountFileWriter(File file) throws IOException
+	{
+		this(file, new FileProgress(0));
+	}
+
+	/**
+	* Constructor for a writer which reports its progress. The temporary file is created straight away.
+	* @param file The account file to write.
+	* @param progress The progress to add the bytes and accounts written to. Cancelling it makes the next write throw an
+	* InterruptedIOException.
+	* @throws IOException If the temporary file could not be created.
+	*/
+	public AccountFileWriter(File file, FileProgress progress) throws IOException
+	{
+		this.event = new AccountSaveEvent();
+		event.begin();
+		this.progress = progress;
+		this.target = file.toPath().toAbsolutePath();
+		this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+		this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING);
+		this.buffer = new byte[BUFFER_SIZE];
+		this.wrapped = ByteBuffer.wrap(buffer);
+	}
+
+	/**
+	* Write every account of a list, in list order.
+	* @param file The account file to write.
+	* @param accounts The accounts to write.
+	* @throws IOException If the file could not be written. The original file is unchanged.
+	*/
+	public static void write(File file, List<Account> accounts) throws IOException
+	{
+		AccountFileWriter writer = new AccountFileWriter(file);
+		try
+		{
+			for (int index = 0; index < accounts.size(); index++)
+			{
+				Account account = accounts.get(index);
+				writer.writeAccount(account.getFirstName(), account.getLastName(), account.getAccountID(), account.getFunds());
+			}
+			writer.commit();
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+
+	/**
+	* Write every account of a store, in slot order. No account objects are created.
+	* @param file The account file to write.
+	* @param store The accounts to write.
+	* @throws IOException If the file could not be written. The original file is unchanged.
+	*/
+	public static void write(File file, AccountStore store) throws IOException
+	{
+		AccountFileWriter writer = new AccountFileWriter(file);
+		try
+		{
+			for (int slot = 0; slot < store.size(); slot++)
+				writer.writeAccount(store.getFirstName(slot), store.getLastName(slot), store.getAccountID(slot), store.getCents(slot));
+			writer.commit();
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+
+	/**
+	* Write every account of a store in a given order. No account objects are created.
+	* @param file The account file to write.
+	* @param store The accounts to write.
+	* @param slots The slots of the accounts to write, in the order to write them.
+	* @throws IOException If the file could not be written. The original file is unchanged.
+	*/
+	public static void write(File file, AccountStore store, int[] slots) throws IOException
+	{
+		write(file, store, slots, new FileProgress(0));
+	}
+
+	/**
+	* Write every account of a store in a given order, reporting progress as it goes.
+	* @param file The account file to write.
+	* @param store The accounts to write.
+	* @param slots The slots of the accounts to write, in the order to write them.
+	* @param progress The progress to add the bytes and accounts written to. Cancelling it stops the write.
+	* @throws IOException If the file could not be written. The original file is unchanged.
+	* @throws java.io.InterruptedIOException If the progress was cancelled. The original file is unchanged.
+	*/
+	public static void write(File file, AccountStore store, int[] slots, FileProgress progress) throws IOException
+	{
+		AccountFileWriter writer = new AccountFileWriter(file, progress);
+		try
+		{
+			for (int slot : slots)
+				writer.writeAccount(store.getFirstName(slot), store.getLastName(slot), store.getAccountID(slot), store.getCents(slot));
+			writer.commit();
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+
+	/**
+	* Write one account as a line of the file.
+	* @param firstName The first name of the account holder.
+	* @param lastName The last name of the account holder.
+	* @param accountID The account ID.
+	* @param funds The funds in cents.
+	* @throws IOException If the file could not be written.
+	*/
+	public void writeAccount(String firstName, String lastName, int accountID, long funds) throws IOException
+	{
+		writeName(firstName);
+		put((byte) ' ');
+		writeName(lastName);
+		if (BUFFER_SIZE - position < MAX_NUMBERS_LENGTH)
+			flush();
+		buffer[position++] = ' ';
+		position = putLong(accountID, position);
+		buffer[position++] = ' ';
+		writeCents(funds);
+		for (byte next : LINE_SEPARATOR)
+			buffer[position++] = next;
+		unreportedRecords++;
+	}
+
+	/**
+	* Write every buffered account, force the file to disk and move it into place over the target.
+	* @throws IOException If the file could not be written or moved. The original file is unchanged.
+	*/
+	public void commit() throws IOException
+	{
+		flush();
+		channel.force(false);
+		channel.close();
+		Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		committed = true;
+		recordEvent();
+	}
+
+	/**
+	* Close the writer. If commit() was not called the temporary file is deleted and the target is left as it was.
+	* @throws IOException If the temporary file could not be deleted.
+	*/
+	public void close() throws IOException
+	{
+		if (committed)
+			return;
+		try
+		{
+			channel.close();
+			Files.deleteIfExists(temporary);
+		}
+		finally
+		{
+			recordEvent();
+		}
+	}
+
+	/**
+	* Record the file written, or not, to Java Flight Recorder, when the writer is first committed or closed.
+	*/
+	private void recordEvent()
+	{
+		if (recorded)
+			return;
+		recorded = true;
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.path = target.toString();
+			event.bytes = bytes;
+			event.records = records;
+			event.committed = committed;
+			event.commit();
+		}
+	}
+
+	/**
+	* Write a name. ASCII names are copied a byte at a time and any other name is encoded as UTF-8.
+	* @param name The name to write.
+	* @throws IOException If the file could not be written.
+	*/
+	private void writeName(String name) throws IOException
+	{
+		int length = name.length();
+		for (int index = 0; index < length; index++)
+		{
+			if (name.charAt(index) >= 0x80)
+			{
+				putAll(name.getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+		}
+		for (int index = 0; index < length; index++)
+			put((byte) name.charAt(index));
+	}
+
+	/**
+	* Write an amount of cents with exactly two decimal places, as Money.toString() does.
+	* @param funds The amount in cents.
+	*/
+	private void writeCents(long funds)
+	{
+		if (funds < 0)
+			buffer[position++] = '-';
+		//Long.MIN_VALUE has no positive counterpart, so the magnitude is divided as an unsigned value
+		long magnitude = funds < 0 ? -funds : funds;
+		long whole = Long.divideUnsigned(magnitude, 100);
+		int fraction = (int) Long.remainderUnsigned(magnitude, 100);
+		position = putLong(whole, position);
+		buffer[position++] = '.';
+		buffer[position++] = (byte) ('0' + fraction / 10);
+		buffer[position++] = (byte) ('0' + fraction % 10);
+	}
+
+	/**
+	* Write the decimal digits of a number into the buffer.
+	* @param value The number to write.
+	* @param at The position of the buffer to write at. There must be room for 20 bytes.
+	* @return The position after the last digit.
+	*/
+	private int putLong(long value, int at)
+	{
+		if (value < 0)
+		{
+			buffer[at++] = '-';
+			value = -value;
+		}
+		int digits = 1;
+		for (long rest = value / 10; rest != 0; rest /= 10)
+			digits++;
+		int end = at + digits;
+		for (int index = end - 1; index >= at; index--)
+		{
+			buffer[index] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		return end;
+	}
+
+	/**
+	* Write a single byte, flushing first if the buffer is full.
+	* @param value The byte to write.
+	* @throws IOException If the file could not be written.
+	*/
+	private void put(byte value) throws IOException
+	{
+		if (position == BUFFER_SIZE)
+			flush();
+		buffer[position++] = value;
+	}
+
+	/**
+	* Write bytes, flushing as the buffer fills.
+	* @param bytes The bytes to write.
+	* @throws IOException If the file could not be written.
+	*/
+	private void putAll(byte[] bytes) throws IOException
+	{
+		for (byte next : bytes)
+			put(next);
+	}
+
+	/**
+	* Write the buffer to the file.
+	* @throws IOException If the file could not be written.
+	*/
+	private void flush() throws IOException
+	{
+		progress.checkCancelled();
+		wrapped.clear();
+		wrapped.limit(position);
+		while (wrapped.hasRemaining())
+			channel.write(wrapped);
+		bytes += position;
+		records += unreportedRecords;
+		progress.add(position, unreportedRecords);
+		position = 0;
+		unreportedRecords = 0;
+	}
+}
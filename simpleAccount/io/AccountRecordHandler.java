@@ -0,0 +1,23 @@
+package assignment3.simpleAccount.io;
+
+import assignment3.simpleAccount.util.AccountDataException;
+
+/** 
+ * Receives each account read by an AccountFileParser. The parser calls the handler once per account in the
+ * order the accounts appear in the file.
+ * 
+ * @author dTorrente
+ */
+public interface AccountRecordHandler {
+	
+	/**
+	* Called for every properly formatted account within a file.
+	* @param firstName The first name of the account holder.
+	* @param lastName The last name of the account holder.
+	* @param accountID The unique ID of an account.
+	* @param funds The current amount of funds in the account in cents. Stored in USD.
+	* @throws AccountDataException If the account can not be accepted. This stops the parse.
+	*/
+	void accountRecord(String firstName, String lastName, int accountID, long funds) throws AccountDataException;
+
+}
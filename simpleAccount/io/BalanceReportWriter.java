@@ -0,0 +1,303 @@
+package assignment3.simpleAccount.io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ForkJoinPool;
+
+import assignment3.simpleAccount.engine.BalanceReport;
+import assignment3.simpleAccount.model.AccountSnapshot;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.model.CurrencyRates;
+import assignment3.simpleAccount.model.RateTable;
+import assignment3.simpleAccount.util.AccountOrder;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * Writes a BalanceReport as CSV or JSON. The summary holds the totals, histograms and largest accounts in every
+ * currency, and the balances list every account in every currency. The balances are streamed: each line is converted
+ * and written as it is reached, so a report on millions of accounts is never built in memory.
+ * <p>
+ * In CSV the summary and the balances are separate tables and so separate files. In JSON they may share one document.
+ * Amounts are written with exactly two decimal places, as in account files.
+ *
+ * @author dTorrente
+ */
+public class BalanceReportWriter {
+
+	private final BalanceReport report;
+	private final String[] currencies;
+
+	/**
+	* Constructor for the writer.
+	* @param report The report to write.
+	*/
+	public BalanceReportWriter(BalanceReport report)
+	{
+		this.report = report;
+		this.currencies = report.getCurrencies();
+	}
+
+	/**
+	* Write the summary as CSV, one row per total, histogram bucket and large account, with the columns
+	* section,currency,rank,accountID,from,count,amount. A column which does not apply to a row is left empty.
+	* @param out Where to write the summary.
+	* @throws IOException If the summary could not be written.
+	*/
+	public void writeSummaryCsv(Writer out) throws IOException
+	{
+		AccountStore store = report.getStore();
+		int[] top = report.getTopSlots();
+		out.write("section,currency,rank,accountID,from,count,amount\n");
+		for (int currency = 0; currency < currencies.length; currency++)
+		{
+			String code = currencies[currency];
+			out.write("total," + code + ",,,," + report.getAccountCount() + "," + BalanceReport.formatCents(report.getTotal(currency)) + "\n");
+			long[] histogram = report.getHistogram(currency);
+			for (int bucket = 0; bucket < histogram.length; bucket++)
+				out.write("histogram," + code + ",,," + bucketLabel(bucket) + "," + histogram[bucket] + ",\n");
+			for (int rank = 0; rank < top.length; rank++)
+				out.write("top," + code + "," + (rank + 1) + "," + store.getAccountID(top[rank]) + ",,," + report.formatBalance(top[rank], currency) + "\n");
+		}
+		out.flush();
+	}
+
+	/**
+	* Write the balance of every account as CSV, with the columns accountID,firstName,lastName and then one column per
+	* currency.
+	* @param out Where to write the balances.
+	* @param order The slots of the accounts, in the order to write them.
+	* @throws IOException If the balances could not be written.
+	*/
+	public void writeBalancesCsv(Writer out, int[] order) throws IOException
+	{
+		AccountStore store = report.getStore();
+		StringBuilder line = new StringBuilder(128);
+		line.append("accountID,firstName,lastName");
+		for (String code : currencies)
+			line.append(',').append(code);
+		out.write(line.append('\n').toString());
+
+		for (int slot : order)
+		{
+			line.setLength(0);
+			line.append(store.getAccountID(slot)).append(',');
+			appendCsv(line, store.getFirstName(slot)).append(',');
+			appendCsv(line, store.getLastName(slot));
+			for (int currency = 0; currency < currencies.length; currency++)
+				line.append(',').append(report.formatBalance(slot, currency));
+			out.write(line.append('\n').toString());
+		}
+		out.flush();
+	}
+
+	/**
+	* Write the report as one JSON document. The balances are written last, as they are by far the largest part.
+	* @param out Where to write the report.
+	* @param order The slots of the accounts whose balances are listed, in the order to list them, or null to leave the
+	* balances out.
+	* @throws IOException If the report could not be written.
+	*/
+	public void writeJson(Writer out, int[] order) throws IOException
+	{
+		AccountStore store = report.getStore();
+		int[] top = report.getTopSlots();
+		out.write("{\"rateVersion\":" + report.getRates().getVersion() + ",\"accounts\":" + report.getAccountCount() + ",\"currencies\":[");
+		for (int currency = 0; currency < currencies.length; currency++)
+		{
+			if (currency > 0)
+				out.write(',');
+			out.write("{\"code\":" + quote(currencies[currency]) + ",\"rate\":" + formatRate(report.getRate(currency))
+				+ ",\"total\":" + BalanceReport.formatCents(report.getTotal(currency)) + ",\"histogram\":[");
+			long[] histogram = report.getHistogram(currency);
+			for (int bucket = 0; bucket < histogram.length; bucket++)
+				out.write((bucket > 0 ? "," : "") + "{\"from\":" + quote(bucketLabel(bucket)) + ",\"count\":" + histogram[bucket] + "}");
+			out.write("],\"top\":[");
+			for (int rank = 0; rank < top.length; rank++)
+				out.write((rank > 0 ? "," : "") + "{\"accountID\":" + store.getAccountID(top[rank]) + ",\"amount\":"
+					+ report.formatBalance(top[rank], currency) + "}");
+			out.write("]}");
+		}
+		out.write(']');
+
+		if (order != null)
+		{
+			out.write(",\"balances\":[");
+			StringBuilder line = new StringBuilder(128);
+			boolean first = true;
+			for (int slot : order)
+			{
+				line.setLength(0);
+				line.append(first ? "\n" : ",\n").append("{\"accountID\":").append(store.getAccountID(slot))
+					.append(",\"firstName\":").append(quote(store.getFirstName(slot)))
+					.append(",\"lastName\":").append(quote(store.getLastName(slot)));
+				for (int currency = 0; currency < currencies.length; currency++)
+					line.append(",\"").append(currencies[currency]).append("\":").append(report.formatBalance(slot, currency));
+				out.write(line.append('}').toString());
+				first = false;
+			}
+			out.write("]");
+		}
+		out.write("}\n");
+		out.flush();
+	}
+
+	/**
+	* Describe the smallest balance counted by a histogram bucket.
+	* @param bucket The bucket.
+	* @return "negative", "0.00", or the smallest amount of the bucket.
+	*/
+	private static String bucketLabel(int bucket)
+	{
+		if (bucket == 0)
+			return "negative";
+		if (bucket == 1)
+			return "0.00";
+		return Money.toString(BalanceReport.bucketFloor(bucket));
+	}
+
+	/**
+	* Write a rate with four decimal places, such as "0.9400".
+	* @param rate The rate, scaled by Money.RATE_SCALE.
+	* @return The rate as a string.
+	*/
+	private static String formatRate(long rate)
+	{
+		return BigDecimal.valueOf(rate, 4).toPlainString();
+	}
+
+	/**
+	* Append a field to a CSV line, quoting it if it holds a comma, quote or line break.
+	* @param line The line.
+	* @param field The field.
+	* @return The line.
+	*/
+	private static StringBuilder appendCsv(StringBuilder line, String field)
+	{
+		boolean plain = true;
+		for (int index = 0; index < field.length() && plain; index++)
+		{
+			char next = field.charAt(index);
+			plain = next != ',' && next != '"' && next != '\n' && next != '\r';
+		}
+		if (plain)
+			return line.append(field);
+		return line.append('"').append(field.replace("\"", "\"\"")).append('"');
+	}
+
+	/**
+	* Write a string as a JSON string.
+	* @param text The string.
+	* @return The quoted and escaped string.
+	*/
+	private static String quote(String text)
+	{
+		StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+		for (int index = 0; index < text.length(); index++)
+		{
+			char next = text.charAt(index);
+			if (next == '"' || next == '\\')
+				quoted.append('\\').append(next);
+			else if (next < 0x20)
+				quoted.append(String.format("\\u%04x", (int) next));
+			else
+				quoted.append(next);
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	* Write to a file through a temporary file beside it, which is renamed over the file once it is complete, as
+	* AccountFileWriter does.
+	* @param file The file to write.
+	* @param json Whether to write JSON, including the balances.
+	* @param balances Whether to write the balances rather than the summary. Ignored for JSON.
+	* @param order The slots of the accounts in the order to write them.
+	* @throws IOException If the file could not be written.
+	*/
+	private void writeFile(File file, boolean json, boolean balances, int[] order) throws IOException
+	{
+		Path target = file.toPath().toAbsolutePath();
+		Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+		boolean committed = false;
+		Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(temporary), StandardCharsets.UTF_8), 1 << 16);
+		try
+		{
+			if (json)
+				writeJson(out, order);
+			else if (balances)
+				writeBalancesCsv(out, order);
+			else
+				writeSummaryCsv(out);
+			out.close();
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			committed = true;
+		}
+		finally
+		{
+			if (!committed)
+			{
+				out.close();
+				Files.deleteIfExists(temporary);
+			}
+		}
+	}
+
+	/**
+	* Writes a balance report of an account file or snapshot, in the currencies of the default rates or of a rates file.
+	* A report file ending in .json holds the whole report; otherwise the summary is written as CSV, and the balances
+	* as CSV to the balances file if one is given.
+	* <p>
+	* Usage: BalanceReportWriter accountFile reportFile [balancesFile] [topCount] [ratesFile].
+	* @param args The account file, the report file and optionally the balances file, the number of largest accounts and
+	* the rates file.
+	* @throws Exception If a file could not be read or written, or is not properly formatted.
+	*/
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length < 2)
+		{
+			System.err.println("Usage: BalanceReportWriter accountFile reportFile [balancesFile] [topCount] [ratesFile]");
+			System.exit(2);
+		}
+
+		File input = new File(args[0]);
+		long start = System.nanoTime();
+		AccountStore store;
+		if (AccountSnapshot.isSnapshot(input))
+			store = AccountSnapshot.open(input).getStore();
+		else
+			store = new ParallelAccountLoader().load(input, new AccountStore());
+		int topCount = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+		RateTable rates = CurrencyRates.DEFAULT_RATES;
+		if (args.length > 4)
+		{
+			CurrencyRates fileRates = new CurrencyRates(new FileRateProvider(new File(args[4])));
+			fileRates.refresh();
+			rates = fileRates.getTable();
+		}
+
+		BalanceReport report = BalanceReport.compute(store, store.copyCents(), rates, topCount, ForkJoinPool.commonPool());
+		BalanceReportWriter writer = new BalanceReportWriter(report);
+		int[] order = AccountOrder.sortedSlots(store);
+		File output = new File(args[1]);
+		if (output.getName().endsWith(".json"))
+		{
+			writer.writeFile(output, true, true, order);
+		}
+		else
+		{
+			writer.writeFile(output, false, false, order);
+			if (args.length > 2)
+				writer.writeFile(new File(args[2]), false, true, order);
+		}
+		System.out.println("Reported on " + store.size() + " accounts in " + (System.nanoTime() - start) / 1000000 + " ms.");
+	}
+}
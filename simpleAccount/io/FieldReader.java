@@ -0,0 +1,445 @@
+package assignment3.simpleAccount.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.util.AccountFormatException;
+
+/**
+ * The common part of the parsers for the text files used by the program. Each line of such a file holds one record
+ * made of fields separated by spaces or tabs. The file is read through a fixed size byte buffer and every field is
+ * decoded in place, so no regular expressions are used and numbers never pass through an intermediate String.
+ * <p>
+ * Subclasses read the fields of a record and then call endRecord(). Columns reported in errors count bytes from the
+ * start of the line, beginning at 1.
+ *
+ * @author dTorrente
+ */
+abstract class FieldReader {
+
+	/** Returned by peek() once the stream has ended. */
+	protected static final int EOF = -1;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_MANTISSA_DIGITS = 18;
+	private static final long[] POWERS_OF_TEN = {
+		1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L,
+		100000000000L, 1000000000000L, 10000000000000L, 100000000000000L, 1000000000000000L, 10000000000000000L,
+		100000000000000000L, 1000000000000000000L
+	};
+
+	private final InputStream input;
+	private final byte[] buffer;
+	private int position;
+	private int limit;
+
+	private byte[] nameBuffer;
+
+	/** The line being read. The first line is 1. */
+	protected int line;
+
+	/** The column of the next byte. The first column is 1. */
+	protected int column;
+
+	/**
+	* Constructor for a reader. The reader does its own buffering so the stream does not need to be buffered.
+	* @param input The stream to read. It is not closed by the reader.
+	*/
+	protected FieldReader(InputStream input)
+	{
+		this.input = input;
+		this.buffer = new byte[BUFFER_SIZE];
+		this.nameBuffer = new byte[32];
+		this.line = 1;
+		this.column = 1;
+	}
+
+	/**
+	* Get the line being read. While a record handler is called this is the line of the record, and once the stream has
+	* ended it is one more than the number of line breaks read.
+	* @return The line being read. The first line is 1.
+	*/
+	public final int getLine()
+	{
+		return line;
+	}
+
+	/**
+	* Moves to the first field of the next record, skipping blank lines.
+	* @return If there is another record. False means the stream has ended.
+	* @throws IOException If the stream could not be read.
+	*/
+	protected final boolean nextRecord() throws IOException
+	{
+		int next = skipSpaces();
+		while (next == '\n')
+		{
+			advance();
+			line++;
+			column = 1;
+			next = skipSpaces();
+		}
+		return next != EOF;
+	}
+
+	/**
+	* Confirms that nothing but spaces follow the last field of a record.
+	* @param lastField The name of the last field of a record. Used in the error message.
+	* @throws IOException If the stream could not be read.
+	* @throws AccountFormatException If anything else is found on the line.
+	*/
+	protected final void endRecord(String lastField) throws IOException, AccountFormatException
+	{
+		int next = skipSpaces();
+		if (next != EOF && next != '\n')
+			throw error("unexpected data after the " + lastField + ". Each record must be on its own line");
+	}
+
+	/**
+	* Look at the next byte without consuming it. The buffer is refilled when it is empty.
+	* @return The next byte as an unsigned value, or EOF if the stream has ended.
+	* @throws IOException If the stream could not be read.
+	*/
+	protected final int peek() throws IOException
+	{
+		if (position == limit)
+		{
+			position = 0;
+			limit = input.read(buffer, 0, buffer.length);
+			if (limit <= 0)
+			{
+				limit = 0;
+				return EOF;
+			}
+		}
+		return buffer[position] & 0xFF;
+	}
+
+	/**
+	* Consume the byte last returned by peek().
+	*/
+	protected final void advance()
+	{
+		position++;
+		column++;
+	}
+
+	/**
+	* Skips spaces, tabs and carriage returns.
+	* @return The first byte which is not a space, or EOF.
+	* @throws IOException If the stream could not be read.
+	*/
+	protected final int skipSpaces() throws IOException
+	{
+		int next = peek();
+		while (next == ' ' || next == '\t' || next == '\r' || next == '\f')
+		{
+			advance();
+			next = peek();
+		}
+		return next;
+	}
+
+	/**
+	* Checks if a byte ends a field.
+	* @param value The byte to check.
+	* @return If the byte is whitespace or the end of the stream.
+	*/
+	protected static boolean isDelimiter(int value)
+	{
+		return value == ' ' || value == '\t' || value == '\r' || value == '\f' || value == '\n' || value == EOF;
+	}
+
+	/**
+	* Moves to the start of the next field on the current line.
+	* @param field The name of the field expected next. Used in the error message.
+	* @throws IOException If the stream could not be read.
+	* @throws AccountFormatException If the line ends before the field.
+	*/
+	protected final void requireField(String field) throws IOException, AccountFormatException
+	{
+		int next = skipSpaces();
+		if (next == EOF || next == '\n')
+			throw error("missing " + field);
+	}
+
+	/**
+	* Reads a name and confirms it contains only letters. ASCII names are checked byte by byte. Names containing
+	* other characters are decoded as UTF-8 and checked with Character.isLetter().
+	* @param field The name of the field being read. Used in the error message.
+	* @return The name.
+	* @throws IOException If the stream could not be read.
+	* @throws AccountFormatException If the name contains anything other than letters.
+	*/
+	protected final String readName(String field) throws IOException, AccountFormatException
+	{
+		int startColumn = column;
+		int length = 0;
+		boolean ascii = true;
+		int next = peek();
+
+		while (!isDelimiter(next))
+		{
+			if (next < 0x80)
+			{
+				int lower = next | 0x20;
+				if (lower < 'a' || lower > 'z')
+					throw error(field + " must contain only letters");
+			}
+			else
+			{
+				ascii = false;
+			}
+
+			if (length == nameBuffer.length)
+			{
+				byte[] larger = new byte[length * 2];
+				System.arraycopy(nameBuffer, 0, larger, 0, length);
+				nameBuffer = larger;
+			}
+			nameBuffer[length++] = (byte) next;
+			advance();
+			next = peek();
+		}
+
+		if (ascii)
+			return new String(nameBuffer, 0, length, StandardCharsets.US_ASCII);
+
+		String name = new String(nameBuffer, 0, length, StandardCharsets.UTF_8);
+		for (int index = 0; index < name.length(); )
+		{
+			int codePoint = name.codePointAt(index);
+			if (!Character.isLetter(codePoint))
+				throw new AccountFormatException(field + " must contain only letters", line, startColumn);
+			index += Character.charCount(codePoint);
+		}
+		return name;
+	}
+
+	/**
+	* Reads a word which must be one of a fixed set of keywords. Letter case is ignored. The word is matched in place
+	* without creating a String.
+	* @param field The name of the field being read. Used in the error message.
+	* @param keywords The allowed keywords, in lower case ASCII.
+	* @return The index of the keyword read.
+	* @throws IOException If the stream could not be read.
+	* @throws AccountFormatException If the word is not one of the keywords.
+	*/
+	protected final int readKeyword(String field, String[] keywords) throws IOException, AccountFormatException
+	{
+		int startColumn = column;
+		int length = 0;
+		int next = peek();
+
+		while (!isDelimiter(next))
+		{
+			if (length < nameBuffer.length)
+				nameBuffer[length] = (byte) (next >= 'A' && next <= 'Z' ? next | 0x20 : next);
+			length++;
+			advance();
+			next = peek();
+		}
+
+		for (int keyword = 0; keyword < keywords.length; keyword++)
+		{
+			String candidate = keywords[keyword];
+			boolean matches = candidate.length() == length;
+			for (int index = 0; matches && index < length; index++)
+				matches = nameBuffer[index] == candidate.charAt(index);
+			if (matches)
+				return keyword;
+		}
+		throw new AccountFormatException(field + " must be one of " + String.join(", ", keywords), line, startColumn);
+	}
+
+	/**
+	* Reads a whole number such as an account ID. An optional sign may precede the digits.
+	* @param field The name of the field being read. Used in the error message.
+	* @return The number.
+	* @throws IOException If the stream could not be read.
+	* @throws AccountFormatException If the field is not a whole number or does not fit in an int.
+	*/
+	protected final int readInt(String field) throws IOException, AccountFormatException
+	{
+		int startColumn = column;
+		boolean negative = false;
+		int next = peek();
+
+		if (next == '-' || next == '+')
+		{
+			negative = next == '-';
+			advance();
+			next = peek();
+		}
+		if (next < '0' || next > '9')
+			throw error(field + " must contain only numbers");
+
+		long limitValue = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+		long value = 0;
+		while (next >= '0' && next <= '9')
+		{
+			value = value * 10 + (next - '0');
+			if (value > limitValue)
+				throw new AccountFormatException(field + " is too large", line, startColumn);
+			advance();
+			next = peek();
+		}
+		if (!isDelimiter(next))
+			throw error(field + " must contain only numbers");
+
+		return (int) (negative ? -value : value);
+	}
+
+	/**
+	* Reads an amount of money. Both plain decimals and the scientific notation written by Float.toString() in older
+	* account files are accepted. The amount is converted straight to cents, rounding half up, and may be no larger than
+	* Account.MAX_FUNDS either way.
+	* @param field The name of the field being read. Used in the error message.
+	* @return The amount in cents.
+	* @throws IOException If the stream could not be read.
+	* @throws AccountFormatException If the field is not a number or is larger than Account.MAX_FUNDS.
+	*/
+	protected final long readCents(String field) throws IOException, AccountFormatException
+	{
+		int startColumn = column;
+		boolean negative = false;
+		long mantissa = 0;
+		int mantissaDigits = 0;
+		int exponent = 0;
+		boolean anyDigits = false;
+		int next = peek();
+
+		if (next == '-' || next == '+')
+		{
+			negative = next == '-';
+			advance();
+			next = peek();
+		}
+
+		while (next >= '0' && next <= '9')
+		{
+			anyDigits = true;
+			if (mantissaDigits < MAX_MANTISSA_DIGITS)
+			{
+				mantissa = mantissa * 10 + (next - '0');
+				if (mantissa != 0)
+					mantissaDigits++;
+			}
+			else
+			{
+				exponent++;
+			}
+			advance();
+			next = peek();
+		}
+
+		if (next == '.')
+		{
+			advance();
+			next = peek();
+			while (next >= '0' && next <= '9')
+			{
+				anyDigits = true;
+				if (mantissaDigits < MAX_MANTISSA_DIGITS)
+				{
+					mantissa = mantissa * 10 + (next - '0');
+					exponent--;
+					if (mantissa != 0)
+						mantissaDigits++;
+				}
+				advance();
+				next = peek();
+			}
+		}
+
+		if (!anyDigits)
+			throw error(field + " must be a number");
+
+		if (next == 'e' || next == 'E')
+		{
+			advance();
+			exponent += readExponent(field);
+			next = peek();
+		}
+		if (!isDelimiter(next))
+			throw error(field + " must be a number");
+
+		//move the decimal point so that the mantissa counts cents
+		int shift = exponent + 2;
+		long cents;
+		if (shift >= 0)
+		{
+			cents = mantissa;
+			try
+			{
+				for (int power = 0; power < shift && cents != 0; power++)
+					cents = Math.multiplyExact(cents, 10);
+			}
+			catch (ArithmeticException aException)
+			{
+				throw new AccountFormatException(field + " is too large", line, startColumn);
+			}
+		}
+		else if (-shift < POWERS_OF_TEN.length)
+		{
+			long divisor = POWERS_OF_TEN[-shift];
+			cents = mantissa / divisor;
+			if ((mantissa % divisor) * 2 >= divisor)
+				cents++;
+		}
+		else
+		{
+			//the mantissa has at most 18 digits, so it is less than half a cent
+			cents = 0;
+		}
+		if (cents > Account.MAX_FUNDS)
+			throw new AccountFormatException(field + " is too large", line, startColumn);
+
+		return negative ? -cents : cents;
+	}
+
+	/**
+	* Reads the exponent of a number in scientific notation. The 'e' must already be consumed.
+	* @param field The name of the field being read. Used in the error message.
+	* @return The exponent.
+	* @throws IOException If the stream could not be read.
+	* @throws AccountFormatException If the exponent has no digits.
+	*/
+	private int readExponent(String field) throws IOException, AccountFormatException
+	{
+		boolean negative = false;
+		int value = 0;
+		int next = peek();
+
+		if (next == '-' || next == '+')
+		{
+			negative = next == '-';
+			advance();
+			next = peek();
+		}
+		if (next < '0' || next > '9')
+			throw error(field + " must be a number");
+
+		while (next >= '0' && next <= '9')
+		{
+			//anything this large is already out of range for a long
+			if (value < 1000)
+				value = value * 10 + (next - '0');
+			advance();
+			next = peek();
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	* Creates an exception for a problem at the current position.
+	* @param problem A description of the problem.
+	* @return The exception to throw.
+	*/
+	protected final AccountFormatException error(String problem)
+	{
+		return new AccountFormatException(problem, line, column);
+	}
+}
@@ -0,0 +1,100 @@
+package assignment3.simpleAccount.io;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The progress of reading or writing an account file, and the means to cancel it. The reader or writer adds the bytes
+ * and records it has handled as it goes, from as many threads as it uses, while another thread, such as the event
+ * dispatch thread, reads the totals to show them.
+ * <p>
+ * Cancelling only sets a flag. The reader or writer sees it the next time it reads or writes a buffer and stops by
+ * throwing an InterruptedIOException.
+ *
+ * @author dTorrente
+ */
+public class FileProgress {
+
+	private final long totalBytes;
+	private final AtomicLong bytes;
+	private final AtomicLong records;
+	private volatile boolean cancelled;
+
+	/**
+	* Constructor for the progress of a file.
+	* @param totalBytes The size the file is expected to have when done, or zero if it is not known.
+	*/
+	public FileProgress(long totalBytes)
+	{
+		this.totalBytes = totalBytes;
+		this.bytes = new AtomicLong();
+		this.records = new AtomicLong();
+	}
+
+	/**
+	* Add to the bytes and records handled so far.
+	* @param bytesHandled The bytes read or written since the last call.
+	* @param recordsHandled The records read or written since the last call.
+	*/
+	public void add(long bytesHandled, long recordsHandled)
+	{
+		if (bytesHandled != 0)
+			bytes.addAndGet(bytesHandled);
+		if (recordsHandled != 0)
+			records.addAndGet(recordsHandled);
+	}
+
+	/**
+	* Get the size the file is expected to have when done.
+	* @return The size in bytes, or zero if it is not known.
+	*/
+	public long getTotalBytes()
+	{
+		return totalBytes;
+	}
+
+	/**
+	* Get the bytes read or written so far.
+	* @return The number of bytes.
+	*/
+	public long getBytes()
+	{
+		return bytes.get();
+	}
+
+	/**
+	* Get the records read or written so far.
+	* @return The number of records.
+	*/
+	public long getRecords()
+	{
+		return records.get();
+	}
+
+	/**
+	* Ask the reader or writer to stop. May be called from any thread.
+	*/
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	/**
+	* Check whether the reader or writer has been asked to stop.
+	* @return True if cancel() has been called.
+	*/
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	* Stop if cancel() has been called.
+	* @throws InterruptedIOException If cancel() has been called.
+	*/
+	public void checkCancelled() throws InterruptedIOException
+	{
+		if (cancelled)
+			throw new InterruptedIOException("The file operation was cancelled");
+	}
+}
@@ -0,0 +1,96 @@
+package assignment3.simpleAccount.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import assignment3.simpleAccount.model.CurrencyRateProvider;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * Reads exchange rates from a local file, one currency per line as its code and the number of units per USD, such as
+ * "EUR 0.94" or "EUR=0.94". Lines starting with # are comments. The file may be edited while the program runs and the
+ * new rates are picked up at the next refresh.
+ * <p>
+ * The rates read are kept with the time the file was last modified and its size, and the file is only read again once
+ * either changes. A missing file gives no rates, so the rates already in use are kept.
+ *
+ * @author dTorrente
+ */
+public class FileRateProvider implements CurrencyRateProvider {
+
+	private final File file;
+	private long readModified;
+	private long readLength;
+	private Map<String, Long> readRates;
+
+	/**
+	* Constructor for the provider.
+	* @param file The file of rates.
+	*/
+	public FileRateProvider(File file)
+	{
+		this.file = file;
+		this.readRates = Collections.emptyMap();
+	}
+
+	/**
+	* Get the file of rates.
+	* @return The file.
+	*/
+	public File getFile()
+	{
+		return file;
+	}
+
+	/**
+	* Read the rates from the file, unless it has not changed since it was last read.
+	* @return The rates, scaled by Money.RATE_SCALE and keyed by currency code.
+	* @throws IOException If the file could not be read or holds a rate which is not a number greater than zero.
+	*/
+	public synchronized Map<String, Long> fetchRates() throws IOException
+	{
+		if (!file.isFile())
+			return Collections.emptyMap();
+		long modified = file.lastModified();
+		long length = file.length();
+		if (modified == readModified && length == readLength)
+			return readRates;
+
+		Properties properties = new Properties();
+		Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+		try
+		{
+			properties.load(reader);
+		}
+		finally
+		{
+			reader.close();
+		}
+
+		Map<String, Long> rates = new LinkedHashMap<String, Long>();
+		for (String code : properties.stringPropertyNames())
+		{
+			String rate = properties.getProperty(code).trim();
+			try
+			{
+				rates.put(code.trim().toUpperCase(Locale.ROOT), Money.parseRate(rate));
+			}
+			catch (NumberFormatException nfException)
+			{
+				throw new IOException("The rate of " + code + " in " + file + " is not valid: " + nfException.getMessage());
+			}
+		}
+		readRates = Collections.unmodifiableMap(rates);
+		readModified = modified;
+		readLength = length;
+		return readRates;
+	}
+}
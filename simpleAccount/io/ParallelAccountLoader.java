@@ -0,0 +1,414 @@
+package assignment3.simpleAccount.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import assignment3.simpleAccount.metrics.AccountLoadEvent;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountFormatException;
+
+/**
+ * Loads a large account file on several threads. The file is split into chunks which each start at the beginning of
+ * a line, and each chunk is parsed by AccountFileParser on a ForkJoinPool into primitive columns of its own, with its
+ * own dictionary of names. The chunks are then appended to the store in file order, which is where duplicate account
+ * IDs are found.
+ * <p>
+ * Errors are reported exactly as the sequential parser reports them. Each chunk counts its own lines, and once every
+ * chunk before it is known the line of an error is moved to its line within the whole file. When several chunks hold
+ * errors, the first in the file is reported.
+ * <p>
+ * Files too small to make two chunks are parsed sequentially. Larger files are split even when the pool has a single
+ * thread, as appending whole chunks to the store costs less than adding their accounts one at a time.
+ * <p>
+ * The bytes and accounts read may be followed through a FileProgress, which can also cancel the load. Each load is
+ * recorded as an AccountLoadEvent when Java Flight Recorder is running.
+ *
+ * @author dTorrente
+ */
+public class ParallelAccountLoader {
+
+	/** The smallest chunk in bytes a file is split into, unless another size is given. */
+	public static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+
+	private static final int CHUNKS_PER_THREAD = 4;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int RECORDS_PER_REPORT = 4096;
+
+	private final ForkJoinPool pool;
+	private final long minimumChunkSize;
+
+	/**
+	* Constructor for a loader using the common ForkJoinPool.
+	*/
+	public ParallelAccountLoader()
+	{
+		this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	* Constructor for a loader using a given pool.
+	* @param pool The pool to parse chunks on.
+	* @param minimumChunkSize The smallest chunk in bytes a file is split into. Smaller chunks spread a file over more
+	* threads but each chunk keeps its own dictionary of names.
+	*/
+	public ParallelAccountLoader(ForkJoinPool pool, long minimumChunkSize)
+	{
+		if (minimumChunkSize < 1)
+			throw new IllegalArgumentException("The chunk size must be at least one byte: " + minimumChunkSize);
+		this.pool = pool;
+		this.minimumChunkSize = minimumChunkSize;
+	}
+
+	/**
+	* Reads every account in a file into a store.
+	* @param file The account file to read.
+	* @param store The store to add the accounts to.
+	* @return The store.
+	* @throws IOException If the file could not be read.
+	* @throws AccountFormatException If a line is not properly formatted. The line is that within the whole file.
+	* @throws AccountDataException If an account ID is used twice. The message is prefixed with the line of the account.
+	* @throws InterruptedException If the thread was interrupted while waiting for the chunks to be parsed.
+	*/
+	public AccountStore load(File file, AccountStore store) throws IOException, AccountDataException, InterruptedException
+	{
+		return load(file, store, new FileProgress(file.length()));
+	}
+
+	/**
+	* Reads every account in a file into a store, reporting progress as it goes.
+	* @param file The account file to read.
+	* @param store The store to add the accounts to.
+	* @param progress The progress to add the bytes and accounts read to. Cancelling it stops the load.
+	* @return The store.
+	* @throws IOException If the file could not be read.
+	* @throws java.io.InterruptedIOException If the progress was cancelled. Accounts may already have been added to the store.
+	* @throws AccountFormatException If a line is not properly formatted. The line is that within the whole file.
+	* @throws AccountDataException If an account ID is used twice. The message is prefixed with the line of the account.
+	* @throws InterruptedException If the thread was interrupted while waiting for the chunks to be parsed.
+	*/
+	public AccountStore load(File file, final AccountStore store, final FileProgress progress)
+		throws IOException, AccountDataException, InterruptedException
+	{
+		AccountLoadEvent event = new AccountLoadEvent();
+		event.begin();
+		int before = store.size();
+		int chunks = 1;
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try
+		{
+			if (channel.size() < 2 * minimumChunkSize)
+			{
+				InputStream input = new ChunkInputStream(channel, 0, channel.size(), progress);
+				new AccountFileParser(input).parse(new AccountRecordHandler()
+				{
+					private int unreported;
+
+					public void accountRecord(String firstName, String lastName, int accountID, long funds) throws AccountDataException
+					{
+						store.add(firstName, lastName, accountID, funds);
+						if (++unreported == RECORDS_PER_REPORT)
+						{
+							progress.add(0, unreported);
+							unreported = 0;
+						}
+					}
+				});
+				progress.add(0, (store.size() - before) % RECORDS_PER_REPORT);
+				return store;
+			}
+
+			long[] bounds = split(channel, pool.getParallelism() * CHUNKS_PER_THREAD);
+			chunks = bounds.length - 1;
+			List<Callable<Chunk>> tasks = new ArrayList<Callable<Chunk>>();
+			for (int chunk = 0; chunk + 1 < bounds.length; chunk++)
+				tasks.add(new Chunk(channel, bounds[chunk], bounds[chunk + 1], progress));
+			List<Future<Chunk>> results = pool.invokeAll(tasks);
+
+			int total = 0;
+			for (Future<Chunk> result : results)
+				total += get(result).size;
+			store.ensureCapacity(store.size() + total);
+
+			//merge in file order so that the first error in the file is the one reported
+			int linesBefore = 0;
+			for (Future<Chunk> result : results)
+			{
+				//the accounts of a chunk with a format error all come before the error, so they are checked first
+				progress.checkCancelled();
+				Chunk chunk = get(result);
+				int added = store.addAll(chunk.size, chunk.accountIDs, chunk.cents, chunk.firstNames, chunk.lastNames, chunk.names());
+				if (added < chunk.size)
+					throw new AccountDataException("Line " + (linesBefore + chunk.lines[added]) + ": Account ID "
+						+ chunk.accountIDs[added] + " is already in use.");
+				if (chunk.error != null)
+					throw new AccountFormatException(chunk.error.getProblem(), linesBefore + chunk.error.getLine(), chunk.error.getColumn());
+				linesBefore += chunk.lineBreaks;
+			}
+			return store;
+		}
+		finally
+		{
+			channel.close();
+			event.end();
+			if (event.shouldCommit())
+			{
+				event.path = file.getPath();
+				event.bytes = file.length();
+				event.records = store.size() - before;
+				event.chunks = chunks;
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	* Splits a file into chunks which each begin at the start of a line.
+	* @param channel The file to split.
+	* @param chunks The number of chunks wanted. Fewer are made for small files.
+	* @return The position each chunk starts at, followed by the end of the file.
+	* @throws IOException If the file could not be read.
+	*/
+	private long[] split(FileChannel channel, int chunks) throws IOException
+	{
+		long size = channel.size();
+		long chunkSize = Math.max(minimumChunkSize, (size + chunks - 1) / chunks);
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		long[] bounds = new long[(int) ((size + chunkSize - 1) / chunkSize) + 1];
+		int count = 1;
+
+		long start = 0;
+		while (start + chunkSize < size)
+		{
+			//move the end of the chunk forward to just after the next line break
+			long end = start + chunkSize;
+			boolean found = false;
+			while (!found && end < size)
+			{
+				buffer.clear();
+				int read = channel.read(buffer, end);
+				for (int index = 0; index < read && !found; index++)
+				{
+					if (buffer.get(index) == '\n')
+					{
+						end += index + 1;
+						found = true;
+					}
+				}
+				if (!found)
+					end += Math.max(read, 0);
+			}
+			if (end >= size)
+				break;
+			bounds[count++] = end;
+			start = end;
+		}
+		bounds[count++] = size;
+		return Arrays.copyOf(bounds, count);
+	}
+
+	/**
+	* Get the chunk parsed by a task, unwrapping anything the task threw.
+	* @param result The result of the task.
+	* @return The parsed chunk.
+	* @throws IOException If the chunk could not be read.
+	* @throws InterruptedException If the thread was interrupted.
+	*/
+	private static Chunk get(Future<Chunk> result) throws IOException, InterruptedException
+	{
+		try
+		{
+			return result.get();
+		}
+		catch (ExecutionException eException)
+		{
+			//the pool wraps a checked exception of the task in RuntimeExceptions, so the chain is searched for it
+			for (Throwable cause = eException.getCause(); cause != null; cause = cause.getCause())
+				if (cause instanceof IOException)
+					throw (IOException) cause;
+			throw new IllegalStateException("Parsing a chunk of the account file failed", eException.getCause());
+		}
+	}
+
+	/**
+	* One chunk of an account file, parsed into primitive columns. A format error is kept rather than thrown, as its
+	* line can only be placed once the chunks before it are parsed.
+	*/
+	private static class Chunk implements Callable<Chunk>, AccountRecordHandler
+	{
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+		private final FileProgress progress;
+		private AccountFileParser parser;
+
+		private int size;
+		private int[] lines = new int[INITIAL_CAPACITY];
+		private int[] accountIDs = new int[INITIAL_CAPACITY];
+		private long[] cents = new long[INITIAL_CAPACITY];
+		private int[] firstNames = new int[INITIAL_CAPACITY];
+		private int[] lastNames = new int[INITIAL_CAPACITY];
+		private HashMap<String, Integer> nameCodes = new HashMap<String, Integer>();
+		private int lineBreaks;
+		private AccountFormatException error;
+
+		/**
+		* Constructor for a chunk.
+		* @param channel The account file.
+		* @param start The position of the start of the chunk.
+		* @param end The position after the end of the chunk.
+		* @param progress The progress to add the bytes and accounts read to.
+		*/
+		private Chunk(FileChannel channel, long start, long end, FileProgress progress)
+		{
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+			this.progress = progress;
+		}
+
+		/**
+		* Parse the chunk.
+		* @return This chunk.
+		* @throws IOException If the chunk could not be read.
+		*/
+		public Chunk call() throws IOException
+		{
+			parser = new AccountFileParser(new ChunkInputStream(channel, start, end, progress));
+			try
+			{
+				parser.parse(this);
+				lineBreaks = parser.getLine() - 1;
+			}
+			catch (AccountFormatException afException)
+			{
+				error = afException;
+			}
+			catch (AccountDataException adException)
+			{
+				//accountRecord() never rejects an account
+				throw new IllegalStateException(adException);
+			}
+			parser = null;
+			progress.add(0, size % RECORDS_PER_REPORT);
+			return this;
+		}
+
+		/**
+		* Add an account read from the chunk.
+		* @param firstName The first name of the account holder.
+		* @param lastName The last name of the account holder.
+		* @param accountID The account ID.
+		* @param funds The funds in cents.
+		*/
+		public void accountRecord(String firstName, String lastName, int accountID, long funds)
+		{
+			if (size == accountIDs.length)
+			{
+				int capacity = size * 2;
+				lines = Arrays.copyOf(lines, capacity);
+				accountIDs = Arrays.copyOf(accountIDs, capacity);
+				cents = Arrays.copyOf(cents, capacity);
+				firstNames = Arrays.copyOf(firstNames, capacity);
+				lastNames = Arrays.copyOf(lastNames, capacity);
+			}
+			lines[size] = parser.getLine();
+			accountIDs[size] = accountID;
+			cents[size] = funds;
+			firstNames[size] = encodeName(firstName);
+			lastNames[size] = encodeName(lastName);
+			size++;
+			if (size % RECORDS_PER_REPORT == 0)
+				progress.add(0, RECORDS_PER_REPORT);
+		}
+
+		/**
+		* Looks up the code of a name within this chunk, adding it if it is new.
+		* @param name The name.
+		* @return The code of the name.
+		*/
+		private int encodeName(String name)
+		{
+			Integer code = nameCodes.get(name);
+			if (code == null)
+			{
+				code = nameCodes.size();
+				nameCodes.put(name, code);
+			}
+			return code;
+		}
+
+		/**
+		* Get the names of this chunk, indexed by their code.
+		* @return The names.
+		*/
+		private String[] names()
+		{
+			String[] names = new String[nameCodes.size()];
+			for (Map.Entry<String, Integer> entry : nameCodes.entrySet())
+				names[entry.getValue()] = entry.getKey();
+			return names;
+		}
+	}
+
+	/**
+	* A stream over a range of a file. Reads are positional, so many of these may read the same channel at once. Every
+	* read adds to the progress of the load, and stops it if it has been cancelled.
+	*/
+	private static class ChunkInputStream extends InputStream
+	{
+		private final FileChannel channel;
+		private long position;
+		private final long end;
+		private final FileProgress progress;
+
+		/**
+		* Constructor for a stream.
+		* @param channel The file to read.
+		* @param start The position of the first byte to read.
+		* @param end The position after the last byte to read.
+		* @param progress The progress to add the bytes read to.
+		*/
+		private ChunkInputStream(FileChannel channel, long start, long end, FileProgress progress)
+		{
+			this.channel = channel;
+			this.position = start;
+			this.end = end;
+			this.progress = progress;
+		}
+
+		public int read() throws IOException
+		{
+			byte[] single = new byte[1];
+			return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+		}
+
+		public int read(byte[] bytes, int offset, int length) throws IOException
+		{
+			progress.checkCancelled();
+			if (position >= end)
+				return -1;
+			int wanted = (int) Math.min(length, end - position);
+			int read = channel.read(ByteBuffer.wrap(bytes, offset, wanted), position);
+			if (read > 0)
+			{
+				position += read;
+				progress.add(read, 0);
+			}
+			return read;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package assignment3.simpleAccount.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import assignment3.simpleAccount.model.AccountSnapshot;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ * Converts between text account files and binary snapshots. Text files are the format for importing and exporting
+ * accounts, while snapshots open instantly however many accounts they hold.
+ *
+ * @author dTorrente
+ */
+public class SnapshotConverter {
+
+	/**
+	* SnapshotConverter is a collection of static methods and is not to be created.
+	*/
+	private SnapshotConverter()
+	{
+	}
+
+	/**
+	* Convert a text account file to a snapshot.
+	* @param text The text account file to read.
+	* @param snapshot The snapshot to write.
+	* @return The number of accounts converted.
+	* @throws IOException If a file could not be read or written.
+	* @throws AccountDataException If the text file is not properly formatted or uses an account ID twice.
+	*/
+	public static int toSnapshot(File text, File snapshot) throws IOException, AccountDataException
+	{
+		AccountStore store = new AccountStore();
+		try
+		{
+			new ParallelAccountLoader().load(text, store);
+		}
+		catch (InterruptedException iException)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Converting " + text + " was interrupted");
+		}
+		AccountSnapshot.write(store, 0, snapshot);
+		return store.size();
+	}
+
+	/**
+	* Convert a snapshot to a text account file. Accounts are written in the order they are held in the snapshot.
+	* @param snapshot The snapshot to read.
+	* @param text The text account file to write.
+	* @return The number of accounts converted.
+	* @throws IOException If a file could not be read or written.
+	* @throws AccountDataException If the snapshot is not valid.
+	*/
+	public static int toText(File snapshot, File text) throws IOException, AccountDataException
+	{
+		AccountStore store = AccountSnapshot.open(snapshot).getStore();
+		AccountFileWriter.write(text, store);
+		return store.size();
+	}
+
+	/**
+	* Converts a file in either direction. A snapshot is converted to text, and anything else is read as a text account
+	* file and converted to a snapshot.
+	* <p>
+	* Usage: SnapshotConverter inputFile outputFile.
+	* @param args The input file and the output file.
+	* @throws Exception If a file could not be read or written, or is not properly formatted.
+	*/
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length != 2)
+		{
+			System.err.println("Usage: SnapshotConverter inputFile outputFile");
+			System.exit(2);
+		}
+
+		File input = new File(args[0]);
+		File output = new File(args[1]);
+		long start = System.nanoTime();
+		int accounts;
+		if (AccountSnapshot.isSnapshot(input))
+			accounts = toText(input, output);
+		else
+			accounts = toSnapshot(input, output);
+		System.out.println("Converted " + accounts + " accounts in " + (System.nanoTime() - start) / 1000000 + " ms.");
+	}
+}
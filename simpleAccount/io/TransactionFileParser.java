@@ -0,0 +1,57 @@
+package assignment3.simpleAccount.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import assignment3.simpleAccount.engine.TransactionType;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountFormatException;
+
+/**
+ * A streaming parser for daily transaction files. Each line holds one transaction in the form "accountID operation
+ * amount", where the operation is either deposit or withdraw, in any letter case, and the amount is in USD. Blank
+ * lines are ignored.
+ *
+ * @author dTorrente
+ */
+public class TransactionFileParser extends FieldReader {
+
+	private static final String[] OPERATIONS = {"deposit", "withdraw"};
+	private static final TransactionType[] TYPES = {TransactionType.DEPOSIT, TransactionType.WITHDRAW};
+
+	/**
+	* Constructor for a parser. The parser does its own buffering so the stream does not need to be buffered.
+	* @param input The stream to read transactions from. It is not closed by the parser.
+	*/
+	public TransactionFileParser(InputStream input)
+	{
+		super(input);
+	}
+
+	/**
+	* Reads every transaction from the stream and passes each one to the handler.
+	* @param handler The handler to receive each transaction.
+	* @return The number of transactions read.
+	* @throws IOException If the stream could not be read.
+	* @throws AccountFormatException If a line is not properly formatted. The exception holds the line and column of the problem.
+	* @throws AccountDataException If the handler rejected a transaction.
+	*/
+	public int parse(TransactionRecordHandler handler) throws IOException, AccountDataException
+	{
+		int records = 0;
+
+		while (nextRecord())
+		{
+			int accountID = readInt("account ID");
+			requireField("operation");
+			TransactionType type = TYPES[readKeyword("operation", OPERATIONS)];
+			requireField("amount");
+			long amount = readCents("amount");
+			endRecord("amount");
+
+			handler.transactionRecord(line, accountID, type, amount);
+			records++;
+		}
+		return records;
+	}
+}
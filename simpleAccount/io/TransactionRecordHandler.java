@@ -0,0 +1,24 @@
+package assignment3.simpleAccount.io;
+
+import assignment3.simpleAccount.engine.TransactionType;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/** 
+ * Receives each transaction read by a TransactionFileParser. The parser calls the handler once per transaction in the
+ * order the transactions appear in the file.
+ * 
+ * @author dTorrente
+ */
+public interface TransactionRecordHandler {
+	
+	/**
+	* Called for every properly formatted transaction within a file.
+	* @param line The line of the file the transaction was read from.
+	* @param accountID The account the transaction applies to.
+	* @param type The kind of transaction. Only deposits and withdrawals appear in transaction files.
+	* @param amount The amount of the transaction in USD cents.
+	* @throws AccountDataException If the transaction can not be accepted. This stops the parse.
+	*/
+	void transactionRecord(int line, int accountID, TransactionType type, long amount) throws AccountDataException;
+
+}
@@ -0,0 +1,28 @@
+package assignment3.simpleAccount.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for the main view updating its list of accounts: the comboBox model and the search
+ * index. Runs on the event dispatch thread, so a long one is a hitch the user sees.
+ *
+ * @author dTorrente
+ */
+@Name(FlightRecordingSummary.EVENT_PREFIX + "AccountListUpdate")
+@Label("Account List Update")
+@Category({"Simple Account", "View"})
+@Description("The main view replacing, adding to or clearing its list of accounts")
+public class AccountListEvent extends Event {
+
+	@Label("Change")
+	@Description("replace, insert or clear")
+	public String change;
+
+	@Label("Accounts")
+	@Description("The accounts in the list after the change")
+	public long accounts;
+}
@@ -0,0 +1,36 @@
+package assignment3.simpleAccount.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for reading a text account file with ParallelAccountLoader, from opening the file to the
+ * last account being added to the store. A load which fails is recorded too, with the accounts read before it failed.
+ *
+ * @author dTorrente
+ */
+@Name(FlightRecordingSummary.EVENT_PREFIX + "AccountLoad")
+@Label("Account File Load")
+@Category({"Simple Account", "Files"})
+@Description("Reading a text account file into an account store")
+public class AccountLoadEvent extends Event {
+
+	@Label("Path")
+	public String path;
+
+	@Label("Bytes")
+	@DataAmount
+	public long bytes;
+
+	@Label("Records")
+	@Description("The accounts added to the store")
+	public long records;
+
+	@Label("Chunks")
+	@Description("The chunks the file was split into to be parsed in parallel, or 1 if it was parsed on one thread")
+	public int chunks;
+}
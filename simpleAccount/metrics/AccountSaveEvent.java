@@ -0,0 +1,36 @@
+package assignment3.simpleAccount.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for writing a text account file with AccountFileWriter, from creating the temporary file
+ * to moving it into place, or to deleting it if the write failed or was cancelled.
+ *
+ * @author dTorrente
+ */
+@Name(FlightRecordingSummary.EVENT_PREFIX + "AccountSave")
+@Label("Account File Save")
+@Category({"Simple Account", "Files"})
+@Description("Writing a text account file")
+public class AccountSaveEvent extends Event {
+
+	@Label("Path")
+	public String path;
+
+	@Label("Bytes")
+	@DataAmount
+	public long bytes;
+
+	@Label("Records")
+	@Description("The accounts written")
+	public long records;
+
+	@Label("Committed")
+	@Description("Whether the file was moved into place. False if the write failed or was cancelled")
+	public boolean committed;
+}
@@ -0,0 +1,30 @@
+package assignment3.simpleAccount.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for an account telling its edit views that its funds changed. Only recorded for an
+ * account with an edit view open. It is recorded on every deposit and withdrawal to such an account, so no stack trace
+ * is taken.
+ *
+ * @author dTorrente
+ */
+@Name(FlightRecordingSummary.EVENT_PREFIX + "EditViewNotify")
+@Label("Edit View Notify")
+@Category({"Simple Account", "View"})
+@Description("An account notifying the edit views open on it")
+@StackTrace(false)
+public class EditViewNotifyEvent extends Event {
+
+	@Label("Account ID")
+	public int accountID;
+
+	@Label("Listeners")
+	@Description("The edit views notified")
+	public long listeners;
+}
@@ -0,0 +1,262 @@
+package assignment3.simpleAccount.metrics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarises the events of this program in a Java Flight Recorder recording, one line per phase: how many times it
+ * ran, its total, mean, median, 99th percentile and longest durations, and the records, bytes, listeners and accounts
+ * it handled. Every other event in the recording is skipped.
+ * <p>
+ * To record, start the program with -XX:StartFlightRecording=filename=simpleAccount.jfr, or start a recording in a
+ * running program with "jcmd pid JFR.start". The recording is written when the program exits, or by "jcmd pid JFR.dump".
+ * <p>
+ * Usage: FlightRecordingSummary recording.jfr.
+ *
+ * @author dTorrente
+ */
+public class FlightRecordingSummary {
+
+	/** The prefix of the names of the events of this program. */
+	public static final String EVENT_PREFIX = "assignment3.simpleAccount.";
+	/** The fields which are added up over every event of a phase, where the event has them. */
+	public static final String[] TOTALLED_FIELDS = {"records", "bytes", "listeners", "accounts"};
+
+	private final Map<String, Phase> phases;
+
+	/**
+	* Constructor for an empty summary.
+	*/
+	private FlightRecordingSummary()
+	{
+		phases = new LinkedHashMap<String, Phase>();
+	}
+
+	/**
+	* Read the events of this program from a recording.
+	* @param recording The recording.
+	* @return The summary.
+	* @throws IOException If the recording could not be read.
+	*/
+	public static FlightRecordingSummary read(Path recording) throws IOException
+	{
+		FlightRecordingSummary summary = new FlightRecordingSummary();
+		RecordingFile file = new RecordingFile(recording);
+		try
+		{
+			while (file.hasMoreEvents())
+			{
+				RecordedEvent event = file.readEvent();
+				String name = event.getEventType().getName();
+				if (!name.startsWith(EVENT_PREFIX))
+					continue;
+				Phase phase = summary.phases.get(name);
+				if (phase == null)
+				{
+					phase = new Phase(name.substring(EVENT_PREFIX.length()), event.getEventType().getLabel());
+					summary.phases.put(name, phase);
+				}
+				phase.add(event);
+			}
+		}
+		finally
+		{
+			file.close();
+		}
+		return summary;
+	}
+
+	/**
+	* Get the phases found, longest in total first.
+	* @return The phases.
+	*/
+	public List<Phase> getPhases()
+	{
+		List<Phase> sorted = new ArrayList<Phase>(phases.values());
+		Collections.sort(sorted, new Comparator<Phase>()
+		{
+			public int compare(Phase left, Phase right)
+			{
+				return Long.compare(right.getTotalNanos(), left.getTotalNanos());
+			}
+		});
+		return sorted;
+	}
+
+	/**
+	* Get a phase.
+	* @param name The name of its event without EVENT_PREFIX, such as "AccountLoad".
+	* @return The phase, or null if the recording has no such event.
+	*/
+	public Phase getPhase(String name)
+	{
+		return phases.get(EVENT_PREFIX + name);
+	}
+
+	/**
+	* Write the summary as a table, with durations in milliseconds.
+	* @param out Where to write the table.
+	*/
+	public void print(PrintStream out)
+	{
+		out.println(String.format(Locale.ROOT, "%-22s %8s %11s %10s %10s %10s %10s  %s", "phase", "count", "total ms",
+			"mean ms", "p50 ms", "p99 ms", "max ms", "totals"));
+		for (Phase phase : getPhases())
+		{
+			LatencyHistogram.Snapshot durations = phase.getDurations();
+			StringBuilder totals = new StringBuilder();
+			for (String field : TOTALLED_FIELDS)
+			{
+				if (phase.hasTotal(field))
+					totals.append(field).append('=').append(phase.getTotal(field)).append(' ');
+			}
+			out.println(String.format(Locale.ROOT, "%-22s %8d %11.3f %10.3f %10.3f %10.3f %10.3f  %s", phase.getLabel(),
+				durations.getCount(), phase.getTotalNanos() / 1e6, durations.getMean() / 1e6,
+				durations.getValueAtPercentile(50) / 1e6, durations.getValueAtPercentile(99) / 1e6,
+				durations.getMax() / 1e6, totals.toString().trim()));
+		}
+	}
+
+	/**
+	* Prints the summary of a recording.
+	* @param args The recording.
+	* @throws IOException If the recording could not be read.
+	*/
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 1)
+		{
+			System.err.println("Usage: FlightRecordingSummary recording.jfr");
+			System.exit(2);
+		}
+		FlightRecordingSummary summary = read(Paths.get(args[0]));
+		if (summary.phases.isEmpty())
+			System.out.println("The recording holds no events of this program.");
+		else
+			summary.print(System.out);
+	}
+
+	/**
+	* The events of one kind in a recording.
+	*/
+	public static class Phase {
+
+		private final String name;
+		private final String label;
+		private final LatencyHistogram durations;
+		private final long[] totals;
+		private final boolean[] present;
+		private long totalNanos;
+
+		/**
+		* Constructor for a phase with no events yet.
+		* @param name The name of the event without EVENT_PREFIX.
+		* @param label The label of the event.
+		*/
+		private Phase(String name, String label)
+		{
+			this.name = name;
+			this.label = label == null ? name : label;
+			this.durations = new LatencyHistogram();
+			this.totals = new long[TOTALLED_FIELDS.length];
+			this.present = new boolean[TOTALLED_FIELDS.length];
+		}
+
+		/**
+		* Add an event.
+		* @param event The event.
+		*/
+		private void add(RecordedEvent event)
+		{
+			long nanos = event.getDuration().toNanos();
+			durations.record(nanos);
+			totalNanos += nanos;
+			for (int field = 0; field < TOTALLED_FIELDS.length; field++)
+			{
+				if (event.hasField(TOTALLED_FIELDS[field]))
+				{
+					totals[field] += event.getLong(TOTALLED_FIELDS[field]);
+					present[field] = true;
+				}
+			}
+		}
+
+		/**
+		* Get the name of the event.
+		* @return The name without EVENT_PREFIX, such as "AccountLoad".
+		*/
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		* Get the label of the event.
+		* @return The label, such as "Account File Load".
+		*/
+		public String getLabel()
+		{
+			return label;
+		}
+
+		/**
+		* Get the durations of the events.
+		* @return The durations in nanoseconds.
+		*/
+		public LatencyHistogram.Snapshot getDurations()
+		{
+			return durations.snapshot();
+		}
+
+		/**
+		* Get the time spent in the phase.
+		* @return The sum of the durations of the events in nanoseconds.
+		*/
+		public long getTotalNanos()
+		{
+			return totalNanos;
+		}
+
+		/**
+		* Check whether the events have a field which is added up.
+		* @param field One of TOTALLED_FIELDS.
+		* @return True if the events have the field.
+		*/
+		public boolean hasTotal(String field)
+		{
+			for (int index = 0; index < TOTALLED_FIELDS.length; index++)
+			{
+				if (TOTALLED_FIELDS[index].equals(field))
+					return present[index];
+			}
+			return false;
+		}
+
+		/**
+		* Get the sum of a field over every event.
+		* @param field One of TOTALLED_FIELDS.
+		* @return The sum, or 0 if the events do not have the field.
+		*/
+		public long getTotal(String field)
+		{
+			for (int index = 0; index < TOTALLED_FIELDS.length; index++)
+			{
+				if (TOTALLED_FIELDS[index].equals(field))
+					return totals[index];
+			}
+			return 0;
+		}
+	}
+}
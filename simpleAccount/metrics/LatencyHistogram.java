@@ -0,0 +1,178 @@
+package assignment3.simpleAccount.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * A histogram of latencies in nanoseconds, with buckets laid out as in an HDR histogram: values below 64 have a bucket
+ * each, and every power of two above that is split into 32 equal buckets. Any value is therefore held to within about
+ * 3% of itself, over the whole range, in a fixed number of buckets. Values of MAX_VALUE and above, around 18 minutes,
+ * share the last bucket.
+ * <p>
+ * Each bucket is a LongAdder, so recording is a single uncontended add on a cell of the recording thread and threads
+ * recording at once do not contend on a shared counter. Reading adds up the cells, so a snapshot taken while values
+ * are being recorded may count some of them in the buckets but not yet in the total, or the other way round.
+ *
+ * @author dTorrente
+ */
+public class LatencyHistogram {
+
+	/** The largest value held exactly to within the precision of its bucket: 2^40 nanoseconds. */
+	public static final long MAX_VALUE = (1L << 40) - 1;
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+	private static final LongBinaryOperator MAXIMUM = new LongBinaryOperator()
+	{
+		public long applyAsLong(long left, long right)
+		{
+			return Math.max(left, right);
+		}
+	};
+
+	private final LongAdder[] counts;
+	private final LongAdder total;
+	private final LongAccumulator max;
+
+	/**
+	* Constructor for an empty histogram.
+	*/
+	public LatencyHistogram()
+	{
+		counts = new LongAdder[BUCKETS];
+		for (int bucket = 0; bucket < BUCKETS; bucket++)
+			counts[bucket] = new LongAdder();
+		total = new LongAdder();
+		max = new LongAccumulator(MAXIMUM, 0);
+	}
+
+	/**
+	* Find the bucket of a value.
+	* @param value The value, which must not be negative.
+	* @return The bucket.
+	*/
+	private static int index(long value)
+	{
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+	}
+
+	/**
+	* Find the largest value a bucket holds.
+	* @param bucket The bucket.
+	* @return The largest value which is recorded in the bucket.
+	*/
+	static long highestValue(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+		long subBucket = (bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	* Record a latency.
+	* @param nanos The latency in nanoseconds. A negative latency, which a clock adjustment could give, is recorded as 0.
+	*/
+	public void record(long nanos)
+	{
+		long value = Math.max(nanos, 0);
+		counts[index(Math.min(value, MAX_VALUE))].increment();
+		total.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	* Take a copy of the histogram as it is now.
+	* @return The copy.
+	*/
+	public Snapshot snapshot()
+	{
+		long[] copy = new long[BUCKETS];
+		for (int bucket = 0; bucket < BUCKETS; bucket++)
+			copy[bucket] = counts[bucket].sum();
+		return new Snapshot(copy, total.sum(), max.get());
+	}
+
+	/**
+	* A copy of a histogram at one moment, which is not changed by later recording.
+	*/
+	public static class Snapshot {
+
+		private final long[] counts;
+		private final long count;
+		private final long total;
+		private final long max;
+
+		/**
+		* Constructor for the snapshot.
+		* @param counts The count of each bucket.
+		* @param total The sum of every value recorded.
+		* @param max The largest value recorded.
+		*/
+		private Snapshot(long[] counts, long total, long max)
+		{
+			long count = 0;
+			for (long bucketCount : counts)
+				count += bucketCount;
+			this.counts = counts;
+			this.count = count;
+			this.total = total;
+			this.max = max;
+		}
+
+		/**
+		* Get the number of values recorded.
+		* @return The number of values.
+		*/
+		public long getCount()
+		{
+			return count;
+		}
+
+		/**
+		* Get the mean of the values recorded.
+		* @return The mean in nanoseconds, or 0 if nothing was recorded.
+		*/
+		public double getMean()
+		{
+			return count == 0 ? 0 : (double) total / count;
+		}
+
+		/**
+		* Get the largest value recorded.
+		* @return The largest value in nanoseconds, or 0 if nothing was recorded.
+		*/
+		public long getMax()
+		{
+			return max;
+		}
+
+		/**
+		* Get the value which a given percentage of the values recorded are at or below. As in an HDR histogram, the
+		* largest value of the bucket holding it is given, so the true value is at most about 3% smaller.
+		* @param percentile The percentage, from 0 to 100.
+		* @return The value in nanoseconds, or 0 if nothing was recorded.
+		*/
+		public long getValueAtPercentile(double percentile)
+		{
+			if (count == 0)
+				return 0;
+			long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+			long seen = 0;
+			for (int bucket = 0; bucket < counts.length; bucket++)
+			{
+				seen += counts[bucket];
+				if (seen >= rank)
+					return Math.min(highestValue(bucket), max);
+			}
+			return max;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package assignment3.simpleAccount.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The timers of the operations the program counts and times. Account deposits and withdrawals are the hot path, so
+ * every one is counted but only one call in ACCOUNT_SAMPLE_PERIOD is timed; the operations started by the user are
+ * timed every time.
+ * <p>
+ * Counting a deposit exactly takes an atomic add besides the one which changes the funds. AccountBenchmark shows the
+ * count and the sampling adding about 15 ns to a deposit whose account is in the cache, and roughly doubling one
+ * which is not. Run it with -Dsimpleaccount.metrics=false to compare against no metrics at all.
+ * <p>
+ * The timers are shown through JMX once register() has been called, and are written to a local file by MetricsLog.
+ *
+ * @author dTorrente
+ */
+public class Metrics {
+
+	/** The domain the timers are registered under in JMX. */
+	public static final String DOMAIN = "assignment3.simpleAccount";
+	/** One account deposit or withdrawal in this many is timed, on average. */
+	public static final int ACCOUNT_SAMPLE_PERIOD = 1024;
+
+	/** Account.depositFunds(), from any caller. */
+	public static final OperationTimer ACCOUNT_DEPOSIT = new OperationTimer("account.deposit", ACCOUNT_SAMPLE_PERIOD);
+	/** Account.withdrawFunds(), from any caller. A withdrawal refused for insufficient funds is a failure. */
+	public static final OperationTimer ACCOUNT_WITHDRAW = new OperationTimer("account.withdraw", ACCOUNT_SAMPLE_PERIOD);
+	/** A deposit made in an edit view, from reading the amount to the transaction being journaled. */
+	public static final OperationTimer EDIT_DEPOSIT = new OperationTimer("edit.deposit", 1);
+	/** A withdrawal made in an edit view, from reading the amount to the transaction being journaled. */
+	public static final OperationTimer EDIT_WITHDRAW = new OperationTimer("edit.withdraw", 1);
+	/** Reading an account file or snapshot and ordering its accounts. A cancelled load is a failure. */
+	public static final OperationTimer FILE_LOAD = new OperationTimer("file.load", 1);
+	/** Writing an account file or snapshot. A cancelled save is a failure. */
+	public static final OperationTimer FILE_SAVE = new OperationTimer("file.save", 1);
+
+	private static final OperationTimer[] TIMERS = {ACCOUNT_DEPOSIT, ACCOUNT_WITHDRAW, EDIT_DEPOSIT, EDIT_WITHDRAW, FILE_LOAD, FILE_SAVE};
+
+	/**
+	* Metrics is a collection of static timers and is not to be created.
+	*/
+	private Metrics()
+	{
+	}
+
+	/**
+	* Get every timer.
+	* @return The timers, in the order they are reported in.
+	*/
+	public static OperationTimer[] getTimers()
+	{
+		return TIMERS.clone();
+	}
+
+	/**
+	* Register every timer with the platform MBean server, as DOMAIN:type=Operation,name=the name of the timer. A timer
+	* which is already registered is left as it is, so this may be called more than once.
+	* @throws IllegalStateException If a timer could not be registered.
+	*/
+	public static synchronized void register()
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try
+		{
+			for (OperationTimer timer : TIMERS)
+			{
+				ObjectName name = objectName(timer);
+				if (!server.isRegistered(name))
+					server.registerMBean(timer, name);
+			}
+		}
+		catch (JMException jmException)
+		{
+			throw new IllegalStateException("The metrics could not be registered with JMX", jmException);
+		}
+	}
+
+	/**
+	* Get the name a timer is registered under.
+	* @param timer The timer.
+	* @return The name.
+	* @throws JMException If the name of the timer can not be used in an object name.
+	*/
+	public static ObjectName objectName(OperationTimer timer) throws JMException
+	{
+		return new ObjectName(DOMAIN + ":type=Operation,name=" + timer.getName());
+	}
+}
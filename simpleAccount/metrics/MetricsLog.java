@@ -0,0 +1,151 @@
+package assignment3.simpleAccount.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends the counts and latencies of every timer to a local file at a fixed rate, one line per timer which has been
+ * called, such as:
+ * <pre>
+ * 2026-10-18T09:30:00Z account.deposit calls=1200 (+200, 3.3/s) failures=0 timed=19 mean=0.052us p50=0.047us p90=0.063us p99=0.319us p99.9=0.319us max=0.319us
+ * </pre>
+ * Counts and latencies are totals since the program started; the figures in brackets are the calls since the last
+ * line was written. The file is opened only while it is written to, so it may be moved or deleted at any time.
+ *
+ * @author dTorrente
+ */
+public class MetricsLog {
+
+	private final File file;
+	private final OperationTimer[] timers;
+	//only used by write(), which is synchronized
+	private final long[] lastCounts;
+	private long lastWritten;
+	private ScheduledExecutorService logThread;
+
+	/**
+	* Constructor for a log of every timer in Metrics.
+	* @param file The file to append to. It is created if it does not exist.
+	*/
+	public MetricsLog(File file)
+	{
+		this.file = file;
+		this.timers = Metrics.getTimers();
+		this.lastCounts = new long[timers.length];
+		this.lastWritten = System.nanoTime();
+	}
+
+	/**
+	* Append a line for every timer which has been called since the program started.
+	* @throws IOException If the file could not be written.
+	*/
+	public synchronized void write() throws IOException
+	{
+		long now = System.nanoTime();
+		double seconds = Math.max(now - lastWritten, 1) / 1e9;
+		String time = Instant.now().toString();
+		StringBuilder lines = new StringBuilder();
+		long[] counts = new long[timers.length];
+		for (int timer = 0; timer < timers.length; timer++)
+		{
+			long count = timers[timer].getCount();
+			counts[timer] = count;
+			if (count == 0)
+				continue;
+			LatencyHistogram.Snapshot latencies = timers[timer].snapshot();
+			long added = count - lastCounts[timer];
+			lines.append(time).append(' ').append(timers[timer].getName())
+				.append(" calls=").append(count)
+				.append(" (+").append(added).append(", ").append(String.format(Locale.ROOT, "%.1f", added / seconds)).append("/s)")
+				.append(" failures=").append(timers[timer].getFailures())
+				.append(" timed=").append(latencies.getCount())
+				.append(" mean=").append(micros(latencies.getMean()))
+				.append(" p50=").append(micros(latencies.getValueAtPercentile(50)))
+				.append(" p90=").append(micros(latencies.getValueAtPercentile(90)))
+				.append(" p99=").append(micros(latencies.getValueAtPercentile(99)))
+				.append(" p99.9=").append(micros(latencies.getValueAtPercentile(99.9)))
+				.append(" max=").append(micros(latencies.getMax()))
+				.append('\n');
+		}
+
+		if (lines.length() > 0)
+		{
+			Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND);
+			try
+			{
+				out.write(lines.toString());
+			}
+			finally
+			{
+				out.close();
+			}
+		}
+		//only once written, so the calls of an interval which could not be written are counted in the next
+		System.arraycopy(counts, 0, lastCounts, 0, counts.length);
+		lastWritten = now;
+	}
+
+	/**
+	* Write a latency in microseconds.
+	* @param nanos The latency in nanoseconds.
+	* @return The latency, such as "12.500us".
+	*/
+	private static String micros(double nanos)
+	{
+		return String.format(Locale.ROOT, "%.3fus", nanos / 1000);
+	}
+
+	/**
+	* Start writing to the file in the background at a fixed rate. Nothing is written straight away.
+	* @param periodMillis The time between writes, in milliseconds.
+	*/
+	public synchronized void start(long periodMillis)
+	{
+		if (logThread != null)
+			return;
+		logThread = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+		{
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "metrics-log");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		logThread.scheduleAtFixedRate(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					write();
+				}
+				catch (IOException ioException)
+				{
+					//the file may be unwritable for a while; the totals are kept and written next time
+				}
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	* Stop writing to the file.
+	*/
+	public synchronized void stop()
+	{
+		if (logThread != null)
+			logThread.shutdownNow();
+		logThread = null;
+	}
+}
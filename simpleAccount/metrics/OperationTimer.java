@@ -0,0 +1,156 @@
+package assignment3.simpleAccount.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts an operation and records how long it takes. Every call is counted exactly, but only one call in every sample
+ * period is timed: reading the clock twice and recording the latency cost more than a deposit itself, so the account
+ * operations are sampled, while slower operations such as a load are timed every time.
+ * <p>
+ * Calls and failures are counted in LongAdders, which spread threads that would contend over cells of their own, so
+ * counting never makes one thread wait on another. Which calls are timed is drawn from ThreadLocalRandom, whose seed is
+ * held by the thread itself, so a call which is not timed costs one increment and one draw, and the timer keeps no
+ * state for each thread.
+ * <p>
+ * An operation is timed with:
+ * <pre>
+ * long started = timer.start();
+ * boolean succeeded = false;
+ * try
+ * {
+ *     ...
+ *     succeeded = true;
+ * }
+ * finally
+ * {
+ *     timer.stop(started, succeeded);
+ * }
+ * </pre>
+ * Timing can be turned off for the whole program with -Dsimpleaccount.metrics=false, which leaves the calls to the
+ * timers with nothing to do.
+ *
+ * @author dTorrente
+ */
+public class OperationTimer implements OperationTimerMBean {
+
+	/** Whether operations are counted and timed. Set from the system property simpleaccount.metrics, default true. */
+	public static final boolean ENABLED = !"false".equals(System.getProperty("simpleaccount.metrics"));
+
+	//returned by start() when the call is not timed; System.nanoTime() can be any value, but never this one in practice
+	private static final long NOT_TIMED = Long.MIN_VALUE;
+
+	private final String name;
+	private final int sampleMask;
+	private final LongAdder calls;
+	private final LongAdder failures;
+	private final LatencyHistogram latencies;
+
+	/**
+	* Constructor for a timer.
+	* @param name The name of the operation, such as "account.deposit".
+	* @param samplePeriod One call in this many is timed, on average. Must be a power of two.
+	*/
+	public OperationTimer(String name, int samplePeriod)
+	{
+		if (samplePeriod <= 0 || Integer.bitCount(samplePeriod) != 1)
+			throw new IllegalArgumentException("The sample period must be a power of two: " + samplePeriod);
+		this.name = name;
+		this.sampleMask = samplePeriod - 1;
+		this.calls = new LongAdder();
+		this.failures = new LongAdder();
+		this.latencies = new LatencyHistogram();
+	}
+
+	/**
+	* Get the name of the operation.
+	* @return The name.
+	*/
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	* Mark the start of a call, counting it.
+	* @return The value to pass to stop() when the call ends.
+	*/
+	public long start()
+	{
+		if (!ENABLED)
+			return NOT_TIMED;
+		calls.increment();
+		if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0)
+			return NOT_TIMED;
+		return System.nanoTime();
+	}
+
+	/**
+	* Mark the end of a call, recording its latency if it was timed.
+	* @param started The value returned by start().
+	* @param succeeded Whether the call succeeded. A call which failed is counted as a failure, and timed like any other.
+	*/
+	public void stop(long started, boolean succeeded)
+	{
+		if (!ENABLED)
+			return;
+		if (!succeeded)
+			failures.increment();
+		if (started != NOT_TIMED)
+			latencies.record(System.nanoTime() - started);
+	}
+
+	/**
+	* Take a copy of the latencies recorded so far.
+	* @return The copy.
+	*/
+	public LatencyHistogram.Snapshot snapshot()
+	{
+		return latencies.snapshot();
+	}
+
+	public long getCount()
+	{
+		return calls.sum();
+	}
+
+	public long getFailures()
+	{
+		return failures.sum();
+	}
+
+	public long getTimedCount()
+	{
+		return latencies.snapshot().getCount();
+	}
+
+	public double getMeanMicros()
+	{
+		return latencies.snapshot().getMean() / 1000;
+	}
+
+	public double getMedianMicros()
+	{
+		return latencies.snapshot().getValueAtPercentile(50) / 1000.0;
+	}
+
+	public double getPercentile90Micros()
+	{
+		return latencies.snapshot().getValueAtPercentile(90) / 1000.0;
+	}
+
+	public double getPercentile99Micros()
+	{
+		return latencies.snapshot().getValueAtPercentile(99) / 1000.0;
+	}
+
+	public double getPercentile999Micros()
+	{
+		return latencies.snapshot().getValueAtPercentile(99.9) / 1000.0;
+	}
+
+	public double getMaxMicros()
+	{
+		return latencies.snapshot().getMax() / 1000.0;
+	}
+}
@@ -0,0 +1,65 @@
+package assignment3.simpleAccount.metrics;
+
+/**
+ * The attributes of an OperationTimer shown through JMX, for example in JConsole under assignment3.simpleAccount.
+ * Counts and latencies are totals since the program started. Latencies are in microseconds and cover only the calls
+ * which were timed.
+ *
+ * @author dTorrente
+ */
+public interface OperationTimerMBean {
+
+	/**
+	* Get the number of calls.
+	* @return The number of calls, including those which failed.
+	*/
+	long getCount();
+
+	/**
+	* Get the number of calls which failed.
+	* @return The number of failed calls.
+	*/
+	long getFailures();
+
+	/**
+	* Get the number of calls which were timed.
+	* @return The number of timed calls.
+	*/
+	long getTimedCount();
+
+	/**
+	* Get the mean latency.
+	* @return The mean latency in microseconds.
+	*/
+	double getMeanMicros();
+
+	/**
+	* Get the median latency.
+	* @return The latency half of the timed calls took at most, in microseconds.
+	*/
+	double getMedianMicros();
+
+	/**
+	* Get the 90th percentile latency.
+	* @return The latency 90% of the timed calls took at most, in microseconds.
+	*/
+	double getPercentile90Micros();
+
+	/**
+	* Get the 99th percentile latency.
+	* @return The latency 99% of the timed calls took at most, in microseconds.
+	*/
+	double getPercentile99Micros();
+
+	/**
+	* Get the 99.9th percentile latency.
+	* @return The latency 99.9% of the timed calls took at most, in microseconds.
+	*/
+	double getPercentile999Micros();
+
+	/**
+	* Get the largest latency.
+	* @return The longest a timed call took, in microseconds.
+	*/
+	double getMaxMicros();
+}
@@ -1,31 +1,66 @@
 package assignment3.simpleAccount.model;
 
-import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import assignment3.simpleAccount.metrics.EditViewNotifyEvent;
+import assignment3.simpleAccount.metrics.Metrics;
 import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.InsufficientFundsException;
+import assignment3.simpleAccount.util.Money;
 import assignment3.simpleAccount.view.EditView;
 import assignment3.simpleAccount.view.MainView;
 
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 /** 
  * A class which defines accounts for the bank as a model. Note that the account ID value of 0 specifies a special case
  * in which no accounts have been loaded. It is not to be used as an actual account value. This class
  * is the model in MVC.
+ * <p>
+ * Funds are held as a whole number of USD cents so that no amount is ever rounded. See Money for the conversions.
+ * Deposits and withdrawals may be made from any thread. Each one is applied with a single compare and set of the
+ * funds, so no change is lost and concurrent withdrawals can never overdraw the account.
+ * <p>
+ * Every deposit and withdrawal is counted in Metrics, and a sample of them is timed.
+ * <p>
+ * An account either holds its own data or is a lightweight view of a slot within an AccountStore. A view holds
+ * no data of its own; every get and set reads and writes through to the store.
  * 
  * @author dTorrente
  */
 public class Account {
 
+	/**
+	* The most funds a deposit may take an account to, in cents. Half the range of a long is kept free above it so that
+	* a withdrawal can always be given back with restoreFunds(), however the funds have changed meanwhile.
+	*/
+	public static final long MAX_FUNDS = Long.MAX_VALUE / 2;
+
+	private static final VarHandle FUNDS;
+	static
+	{
+		try
+		{
+			FUNDS = MethodHandles.lookup().findVarHandle(Account.class, "funds", long.class);
+		}
+		catch (ReflectiveOperationException roException)
+		{
+			throw new ExceptionInInitializerError(roException);
+		}
+	}
+	
 	private String firstName;
 	private String lastName;
 	private int accountID;
-	private float funds;
-	private DecimalFormat decimalFormat;
+	private long funds;
+	
+	private AccountStore store;
+	private int slot;
 	
 	private MainView mainMenuListener;
-	private ArrayList<EditView> editMenuListener;
+	//read by whichever thread changes the funds, so it is copied on write rather than locked
+	private volatile CopyOnWriteArrayList<EditView> editMenuListener;
 	
 	/**
 	* Default constructor for an account. This is a special case constructor which is used only when the account menu
@@ -39,12 +74,8 @@ public class Account {
 		this.firstName = "No accounts";
 		this.lastName = "loaded. Please load an account file.";
 		this.accountID = 0;
-		this.funds = 0.0f;
+		this.funds = 0;
 		this.mainMenuListener = mainView;	
-		
-		decimalFormat = new DecimalFormat("#.00");
-		decimalFormat.setRoundingMode(RoundingMode.HALF_UP);
-
 	}
 	
 	/**
@@ -52,42 +83,47 @@ public class Account {
 	* @param firstName The first name of the account holder.
 	* @param lastName The last name of the account holder.
 	* @param accountID The unique ID of an account.
-	* @param funds The current amount of funds in the account. Stored in USD.  
+	* @param funds The current amount of funds in the account in cents. Stored in USD.  
 	* @param mainView The main view which listens to all accounts. Notices changes made to the account list in particular.
 	*/
-	public Account (String firstName, String lastName, int accountID, float funds, MainView mainView)
+	public Account (String firstName, String lastName, int accountID, long funds, MainView mainView)
 	{
 		this.firstName = firstName;
 		this.lastName = lastName;
 		this.accountID = accountID;
 		this.funds = funds;
-		this.editMenuListener = new ArrayList<EditView>();
-		
-		decimalFormat = new DecimalFormat("#.00");
-		decimalFormat.setRoundingMode(RoundingMode.HALF_UP);
 		
 		addMainModelListener(mainView);
 		notifyMainView();
 	}
 	
 	/**
-	* Constructor for an account. This constructor is to be used when a JUnit test is to be ran. Additional integration features are 
-	* removed from this method that are typically ran in the original constructor.
+	* Constructor for an account. This constructor is to be used when a JUnit test is to be ran, or when many accounts are loaded
+	* at once. Additional integration features are removed from this method that are typically ran in the original constructor. In
+	* particular, the main view is not notified, so the caller is responsible for publishing the account.
 	* @param firstName The first name of the account holder.
 	* @param lastName The last name of the account holder.
 	* @param accountID The unique ID of an account.
-	* @param funds The current amount of funds in the account. Stored in USD.  
+	* @param funds The current amount of funds in the account in cents. Stored in USD.  
 	*/
-	public Account (String firstName, String lastName, int accountID, float funds)
+	public Account (String firstName, String lastName, int accountID, long funds)
 	{
 		this.firstName = firstName;
 		this.lastName = lastName;
 		this.accountID = accountID;
 		this.funds = funds;
-		this.editMenuListener = new ArrayList<EditView>();
-		
-		decimalFormat = new DecimalFormat("#.00");
-		decimalFormat.setRoundingMode(RoundingMode.HALF_UP);
+	}
+	
+	/**
+	* Constructor for a view of an account held in an account store. Views are created by the store itself through
+	* AccountStore.view().
+	* @param store The store which holds the data of the account.
+	* @param slot The slot of the account within the store.
+	*/
+	Account (AccountStore store, int slot)
+	{
+		this.store = store;
+		this.slot = slot;
 	}
 	
 	/** 
@@ -96,6 +132,8 @@ public class Account {
 	*/
 	public String getFirstName()
 	{
+		if (store != null)
+			return store.getFirstName(slot);
 		return firstName;
 	}
 	
@@ -105,6 +143,8 @@ public class Account {
 	*/
 	public String getLastName()
 	{
+		if (store != null)
+			return store.getLastName(slot);
 		return lastName;
 	}
 	
@@ -114,16 +154,20 @@ public class Account {
 	*/
 	public int getAccountID()
 	{
+		if (store != null)
+			return store.getAccountID(slot);
 		return accountID;
 	}
 	
 	/** 
 	* Get the current amount of funds in the account.
-	* @return The current amount of funds in the account.
+	* @return The current amount of funds in the account in cents.
 	*/
-	public float getFunds()
+	public long getFunds()
 	{
-		return funds;
+		if (store != null)
+			return store.getCents(slot);
+		return (long) FUNDS.getVolatile(this);
 	}
 	
 	/** 
@@ -132,7 +176,10 @@ public class Account {
 	*/
 	public void setFirstName(String firstName)
 	{
-		this.firstName = firstName;
+		if (store != null)
+			store.setFirstName(slot, firstName);
+		else
+			this.firstName = firstName;
 	}
 	
 	/** 
@@ -141,7 +188,10 @@ public class Account {
 	*/
 	public void setLastName(String lastName)
 	{
-		this.lastName = lastName;
+		if (store != null)
+			store.setLastName(slot, lastName);
+		else
+			this.lastName = lastName;
 	}
 	
 	/** 
@@ -150,68 +200,142 @@ public class Account {
 	*/
 	public void setAccountID(int accountID)
 	{
-		this.accountID = accountID;
+		if (store != null)
+			store.setAccountID(slot, accountID);
+		else
+			this.accountID = accountID;
 	}
 	
 	/** 
 	* Set the funds of the account.
-	* @param funds The value to set for the account funds.
+	* @param funds The value to set for the account funds in cents.
 	*/
-	public void setFunds(float funds)
+	public void setFunds(long funds)
 	{
-		this.funds = funds;
+		if (store != null)
+			store.setCents(slot, funds);
+		else
+			FUNDS.setVolatile(this, funds);
 	}
 
 	/** 
-	* Adjust the current funds in the account.
-	* @param amountToAdjust The amount to adjust the funds by. A negative value reduces funds while a positive one increases funds.
-	* @throws AccountDataException Exception is thrown if the amount is negative.
+	* Adjust the current funds in the account. A deposit may not take the funds above MAX_FUNDS.
+	* @param amountToAdjust The amount in USD cents to increase the funds by.
+	* @throws AccountDataException Exception is thrown if the amount is negative or the balance would become larger than MAX_FUNDS.
 	*/
-	public void depositFunds(float amountToAdjust) throws AccountDataException
+	public void depositFunds(long amountToAdjust) throws AccountDataException
+	{
+		long started = Metrics.ACCOUNT_DEPOSIT.start();
+		boolean succeeded = false;
+		try
+		{
+			if (amountToAdjust < 0)
+				throw new AccountDataException("Please enter in a positive value");
+			
+			long current;
+			long updated;
+			do
+			{
+				current = getFunds();
+				if (current > MAX_FUNDS - amountToAdjust)
+					throw new AccountDataException("The deposit is too large for this account.");
+				updated = current + amountToAdjust;
+			}
+			while (!compareAndSetFunds(current, updated));
+			succeeded = true;
+		}
+		finally
+		{
+			Metrics.ACCOUNT_DEPOSIT.stop(started, succeeded);
+		}
+		
+		notifyEditView();
+	}
+	
+	/** 
+	* Give back funds taken by a withdrawal which has to be reversed, such as the first half of a transfer whose deposit
+	* was rejected. Unlike depositFunds() this is never rejected: deposits stop at MAX_FUNDS, which leaves room above
+	* it for any amount that could have been withdrawn to be returned.
+	* @param amountToAdjust The amount in USD cents withdrawn, to increase the funds by.
+	* @throws IllegalArgumentException Exception is thrown if the amount is negative.
+	*/
+	public void restoreFunds(long amountToAdjust)
 	{
 		if (amountToAdjust < 0)
-			throw new AccountDataException("Please enter in a positive value");
+			throw new IllegalArgumentException("A withdrawal can not be reversed by a negative amount: " + amountToAdjust);
+		
+		long current;
+		do
+		{
+			current = getFunds();
+		}
+		while (!compareAndSetFunds(current, Math.addExact(current, amountToAdjust)));
 		
-		this.funds = this.funds + amountToAdjust;
 		notifyEditView();
 	}
 	
 	/** 
 	* Adjust the current funds in the account.
-	* @param amountToAdjust The amount to adjust the funds by. A negative value reduces funds while a positive one increases funds.
-	* @param fundMultiplier The multiplier to properly display the funds should the user attempt to withdraw more funds than they have available.
+	* @param amountToAdjust The amount in USD cents to reduce the funds by.
+	* @param fundMultiplier The exchange rate, scaled by Money.RATE_SCALE, to properly display the funds should the user attempt to
+	* withdraw more funds than they have available.
 	* @throws AccountDataException Exception is thrown if the amount is negative.
+	* @throws InsufficientFundsException Exception is thrown if the amount is greater than the available funds.
 	*/
-	public void withdrawFunds(float amountToAdjust, float fundMultiplier) throws AccountDataException
+	public void withdrawFunds(long amountToAdjust, long fundMultiplier) throws AccountDataException
 	{
-		float difference = amountToAdjust - this.funds;
-		
-		if (amountToAdjust < 0)
-			throw new AccountDataException("Please enter in a positive value");
-		else if(difference > 0)
-			throw new AccountDataException("Insufficient funds: amount to withdraw is " + decimalFormat.format(difference * fundMultiplier ) + " greater than available funds " + decimalFormat.format(this.funds * fundMultiplier ) + ".");
-		
-		this.funds = this.funds - amountToAdjust;
+		withdrawFunds(amountToAdjust, fundMultiplier, true);
 		notifyEditView();	
 	}
 	
 	/** 
-	* Adjust the current funds in the account. This method is used only for unit testing.
-	* @param amountToAdjust The amount to adjust the funds by. A negative value reduces funds while a positive one increases funds.
-	* @param fundMultiplier The multiplier to properly display the funds should the user attempt to withdraw more funds than they have available.
+	* Adjust the current funds in the account without notifying edit views. This method is used for unit testing and by
+	* withdrawFunds(long, long), which notifies the edit views afterwards.
+	* @param amountToAdjust The amount in USD cents to reduce the funds by.
+	* @param fundMultiplier The exchange rate, scaled by Money.RATE_SCALE, to properly display the funds should the user attempt to
+	* withdraw more funds than they have available.
 	* @param testing A dummy value to identify that this method is being called from a test. 
 	* @throws AccountDataException Exception is thrown if the amount is negative.
+	* @throws InsufficientFundsException Exception is thrown if the amount is greater than the available funds.
 	*/
-	public void withdrawFunds(float amountToAdjust, float fundMultiplier, boolean testing) throws AccountDataException
+	public void withdrawFunds(long amountToAdjust, long fundMultiplier, boolean testing) throws AccountDataException
 	{
-		float difference = amountToAdjust - this.funds;
-		
-		if (amountToAdjust < 0)
-			throw new AccountDataException("Please enter in a positive value");
-		else if(difference > 0)
-			throw new AccountDataException("Insufficient funds: amount to withdraw is " + decimalFormat.format(difference * fundMultiplier ) + " greater than available funds " + decimalFormat.format(this.funds * fundMultiplier ) + ".");
-		
-		this.funds = this.funds - amountToAdjust;
+		long started = Metrics.ACCOUNT_WITHDRAW.start();
+		boolean succeeded = false;
+		try
+		{
+			if (amountToAdjust < 0)
+				throw new AccountDataException("Please enter in a positive value");
+			
+			//the funds are checked and reduced in one compare and set so that two withdrawals can not both pass the check
+			long current;
+			do
+			{
+				current = getFunds();
+				long difference = amountToAdjust - current;
+				if (difference > 0)
+					throw new InsufficientFundsException(difference, current, fundMultiplier);
+			}
+			while (!compareAndSetFunds(current, current - amountToAdjust));
+			succeeded = true;
+		}
+		finally
+		{
+			Metrics.ACCOUNT_WITHDRAW.stop(started, succeeded);
+		}
+	}
+	
+	/** 
+	* Atomically set the funds of the account if they have not changed since they were read.
+	* @param expected The funds in cents the account is expected to hold.
+	* @param funds The value to set for the account funds in cents.
+	* @return If the funds were set. False means another thread changed them first.
+	*/
+	private boolean compareAndSetFunds(long expected, long funds)
+	{
+		if (store != null)
+			return store.compareAndSetCents(slot, expected, funds);
+		return FUNDS.compareAndSet(this, expected, funds);
 	}
 		
 	/** 
@@ -229,13 +353,30 @@ public class Account {
 	
 	/** 
 	* Notify all editViews (views) of an account (model) change. This is used to update all edit view
-	* windows tied to a specific account.
+	* windows tied to a specific account. May be called from any thread. Each edit view only marks its display
+	* as needing an update, and a burst of changes is shown with a single repaint on the event dispatch thread.
+	* The notification is recorded as an EditViewNotifyEvent when Java Flight Recorder is running.
 	*/
 	public void notifyEditView()
 	{
-		for(int iterator = 0; iterator < editMenuListener.size(); iterator++)
+		CopyOnWriteArrayList<EditView> listeners = editMenuListener;
+		if (listeners == null)
+			return;
+		
+		EditViewNotifyEvent event = new EditViewNotifyEvent();
+		event.begin();
+		int notified = 0;
+		for (EditView editView : listeners)
 		{
-			editMenuListener.get(iterator).updateAvabFundDisplay();
+			editView.fundsChanged();
+			notified++;
+		}
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.accountID = getAccountID();
+			event.listeners = notified;
+			event.commit();
 		}
 	}
 	
@@ -258,6 +399,12 @@ public class Account {
 	*/
 	public void addEditModelListener(EditView editView)
 	{
+		if (this.editMenuListener == null)
+		{
+			this.editMenuListener = new CopyOnWriteArrayList<EditView>();
+			if (store != null)
+				store.pin(slot, this);
+		}
 		this.editMenuListener.add(editView);
 	}
 	
@@ -268,7 +415,16 @@ public class Account {
 	*/
 	public void removeEditModelListener(EditView editView)
 	{
+		if (this.editMenuListener == null)
+			return;
+		
 		this.editMenuListener.remove(editView);
+		if (this.editMenuListener.isEmpty())
+		{
+			this.editMenuListener = null;
+			if (store != null)
+				store.unpin(slot);
+		}
 	}
 	
 	/** 
@@ -277,7 +433,8 @@ public class Account {
 	*/
 	public void removeMainModelListener()
 	{
-		mainMenuListener.notifyOfRemoval();
+		if (mainMenuListener != null)
+			mainMenuListener.notifyOfRemoval();
 		mainMenuListener = null;
 	}
 	
@@ -294,12 +451,12 @@ public class Account {
 	
 	/** 
 	* Generates a full string of all information within an account. Primarily used to write to a file when an account is saved out.
-	* @return A string which contains the account number and the name of the account holder as well as the current funds in USD. Note
-	* that the funds returned will not be formatted to two decimal places in order to accommodate for special rates.
+	* @return A string which contains the account number and the name of the account holder as well as the current funds in USD. The
+	* funds are written exactly, to two decimal places.
 	* */
 	public String generateString()
 	{
-		return getFirstName() + " " + getLastName() + " " + getAccountID() + " " + getFunds();
+		return getFirstName() + " " + getLastName() + " " + getAccountID() + " " + Money.toString(getFunds());
 	}
 	
 	/** 
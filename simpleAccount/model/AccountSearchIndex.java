@@ -0,0 +1,494 @@
+package assignment3.simpleAccount.model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+import assignment3.simpleAccount.util.AccountOrder;
+
+/**
+ * A type-ahead index over the accounts of a store, finding accounts by a prefix of the first name, the last name or
+ * the digits of the account ID. A query such as "sm", "ann sm" or "120" is answered without looking at any account
+ * which does not match, so it takes the same time however many accounts are loaded.
+ * <ul>
+ * <li>Names are found through the store's name dictionary. The distinct names are kept sorted, so every name starting
+ * with a prefix is one range of the sorted names, found with a binary search. Each name has a posting list of the
+ * slots whose first or last name it is.</li>
+ * <li>IDs are found through the slots in order of account ID. The IDs starting with some digits, such as 12, 120 to
+ * 129 and 1200 to 1299, are one range of that order for each length of ID, each found with a binary search.</li>
+ * </ul>
+ * The posting lists are built incrementally by update(), which indexes the accounts added to the store since it was
+ * last called and stops early if its thread is interrupted, picking up where it left off next time.
+ * <p>
+ * An index is not thread safe and is meant to be used by a single search thread. Names and IDs are read from the store
+ * without locks; they do not change once the accounts are loaded.
+ *
+ * @author dTorrente
+ */
+public class AccountSearchIndex {
+
+	private static final int UPDATE_BATCH = 65536;
+	private static final int[] EMPTY = new int[0];
+
+	private final AccountStore store;
+	private final int[] order;
+
+	private int indexed;
+	private int[][] postings;
+	private int[] postingSizes;
+
+	private int sortedNameCount;
+	private String[] sortedNames;
+	private int[] sortedCodes;
+	private int[] nameRanks;
+
+	/**
+	* Constructor for an index. Nothing is indexed until update() is called.
+	* @param store The store holding the accounts.
+	* @param order The slots of the store in order of account ID. Accounts added after it was found are still found by
+	* ID, by a scan of the added accounts alone.
+	*/
+	public AccountSearchIndex(AccountStore store, int[] order)
+	{
+		this.store = store;
+		this.order = order;
+		this.postings = new int[0][];
+		this.postingSizes = new int[0];
+		this.sortedNames = new String[0];
+		this.sortedCodes = new int[0];
+		this.nameRanks = new int[0];
+	}
+
+	/**
+	* Index the accounts added to the store since the last update. Stops early if the thread is interrupted.
+	* @return True if every account is indexed, or false if the thread was interrupted first.
+	*/
+	public boolean update()
+	{
+		int size = store.size();
+		while (indexed < size)
+		{
+			if (Thread.currentThread().isInterrupted())
+				return false;
+			growPostings(store.getNameCount());
+			int end = Math.min(size, indexed + UPDATE_BATCH);
+			for (int slot = indexed; slot < end; slot++)
+			{
+				int firstName = store.getFirstNameCode(slot);
+				int lastName = store.getLastNameCode(slot);
+				addPosting(firstName, slot);
+				if (lastName != firstName)
+					addPosting(lastName, slot);
+			}
+			indexed = end;
+		}
+		if (sortedNameCount != store.getNameCount())
+		{
+			growPostings(store.getNameCount());
+			sortNames(store.getNameCount());
+		}
+		return true;
+	}
+
+	/**
+	* Get the number of accounts indexed so far.
+	* @return The number of accounts indexed.
+	*/
+	public int getIndexed()
+	{
+		return indexed;
+	}
+
+	/**
+	* Find accounts matching a query. The query is split into words, and an account matches if every word is the start
+	* of its first name, its last name or its account ID. Names are matched ignoring case. Accounts are only found by
+	* name once update() has indexed them.
+	* <p>
+	* The accounts are found through the word matching the fewest of them, and checked against the other words by
+	* comparing the ranks of their names rather than the names themselves.
+	* @param query The query, such as "ann sm" or "120".
+	* @param limit The most accounts to find.
+	* @return The slots of up to limit matching accounts in order of account ID, or null if the thread was interrupted.
+	*/
+	public int[] search(String query, int limit)
+	{
+		String[] words = query.trim().toLowerCase(Locale.ROOT).split("\\s+");
+		if (words[0].isEmpty() || limit <= 0)
+			return EMPTY;
+
+		int[] lows = new int[words.length];
+		int[] highs = new int[words.length];
+		long[][] idRanges = new long[words.length][];
+		int driver = 0;
+		long fewest = Long.MAX_VALUE;
+		for (int index = 0; index < words.length; index++)
+		{
+			long matches;
+			if (isIDPrefix(words[index]))
+			{
+				idRanges[index] = idRanges(words[index]);
+				matches = countIDs(idRanges[index]);
+			}
+			else
+			{
+				lows[index] = lowerBound(words[index]);
+				highs[index] = lowerBound(words[index] + Character.MAX_VALUE);
+				matches = countPostings(lows[index], highs[index]);
+			}
+			if (matches < fewest)
+			{
+				fewest = matches;
+				driver = index;
+			}
+		}
+		//the word matching the fewest accounts is moved to the front
+		String word = words[0];
+		words[0] = words[driver];
+		words[driver] = word;
+		int rank = lows[0];
+		lows[0] = lows[driver];
+		lows[driver] = rank;
+		rank = highs[0];
+		highs[0] = highs[driver];
+		highs[driver] = rank;
+		long[] ranges = idRanges[0];
+		idRanges[0] = idRanges[driver];
+		idRanges[driver] = ranges;
+
+		int[] found = new int[limit];
+		int count;
+		if (idRanges[0] != null)
+			count = searchIDs(words, lows, highs, idRanges, found);
+		else
+			count = searchNames(words, lows, highs, idRanges, found);
+		if (count < 0)
+			return null;
+
+		int[] accountIDs = new int[count];
+		for (int index = 0; index < count; index++)
+			accountIDs[index] = store.getAccountID(found[index]);
+		int[] byID = AccountOrder.sortedOrder(accountIDs, count);
+		int[] slots = new int[count];
+		for (int index = 0; index < count; index++)
+			slots[index] = found[byID[index]];
+		return slots;
+	}
+
+	/**
+	* Find accounts whose first or last name starts with the first word. Names are visited in sorted order, and an
+	* account whose two names both match is only found through the first of them.
+	* @param words The words of the query.
+	* @param lows The rank of the first name matching each word.
+	* @param highs The rank after the last name matching each word.
+	* @param idRanges The ranges of IDs matching each word, or null for words which are not digits.
+	* @param found The array to put the slots found in. Its length is the most to find.
+	* @return The number of accounts found, or -1 if the thread was interrupted.
+	*/
+	private int searchNames(String[] words, int[] lows, int[] highs, long[][] idRanges, int[] found)
+	{
+		int low = lows[0];
+		int count = 0;
+		for (int rank = low; rank < highs[0] && count < found.length; rank++)
+		{
+			int code = sortedCodes[rank];
+			int[] slots = postings[code];
+			int size = postingSizes[code];
+			for (int index = 0; index < size && count < found.length; index++)
+			{
+				if ((index & 4095) == 0 && Thread.currentThread().isInterrupted())
+					return -1;
+				int slot = slots[index];
+				int other = store.getFirstNameCode(slot);
+				if (other == code)
+					other = store.getLastNameCode(slot);
+				int otherRank = other < sortedNameCount ? nameRanks[other] : Integer.MAX_VALUE;
+				if (otherRank >= low && otherRank < rank)
+					continue;
+				if (matchesRest(slot, words, lows, highs, idRanges))
+					found[count++] = slot;
+			}
+		}
+		return count;
+	}
+
+	/**
+	* Find accounts whose ID starts with the first word. Shorter IDs are found first, so "12" finds 12 before 120.
+	* @param words The words of the query.
+	* @param lows The rank of the first name matching each word.
+	* @param highs The rank after the last name matching each word.
+	* @param idRanges The ranges of IDs matching each word, or null for words which are not digits.
+	* @param found The array to put the slots found in. Its length is the most to find.
+	* @return The number of accounts found, or -1 if the thread was interrupted.
+	*/
+	private int searchIDs(String[] words, int[] lows, int[] highs, long[][] idRanges, int[] found)
+	{
+		long[] ranges = idRanges[0];
+		int count = 0;
+		for (int range = 0; range < ranges.length && count < found.length; range += 2)
+		{
+			long last = ranges[range + 1];
+			for (int index = idLowerBound(ranges[range]); index < order.length && count < found.length; index++)
+			{
+				if ((index & 4095) == 0 && Thread.currentThread().isInterrupted())
+					return -1;
+				int slot = order[index];
+				if (store.getAccountID(slot) > last)
+					break;
+				if (matchesRest(slot, words, lows, highs, idRanges))
+					found[count++] = slot;
+			}
+		}
+
+		for (int slot = order.length; slot < store.size() && count < found.length; slot++)
+		{
+			if (matchesID(store.getAccountID(slot), ranges) && matchesRest(slot, words, lows, highs, idRanges))
+				found[count++] = slot;
+		}
+		return count;
+	}
+
+	/**
+	* Check the words of a query after the first against an account.
+	* @param slot The slot of the account.
+	* @param words The words of the query.
+	* @param lows The rank of the first name matching each word.
+	* @param highs The rank after the last name matching each word.
+	* @param idRanges The ranges of IDs matching each word, or null for words which are not digits.
+	* @return True if every word after the first starts the first name, the last name or the ID of the account.
+	*/
+	private boolean matchesRest(int slot, String[] words, int[] lows, int[] highs, long[][] idRanges)
+	{
+		for (int index = 1; index < words.length; index++)
+		{
+			if (idRanges[index] != null)
+			{
+				if (!matchesID(store.getAccountID(slot), idRanges[index]))
+					return false;
+			}
+			else if (!matchesName(store.getFirstNameCode(slot), words[index], lows[index], highs[index])
+				&& !matchesName(store.getLastNameCode(slot), words[index], lows[index], highs[index]))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	* Check whether a name starts with a word. Names sorted by the last update are checked by rank alone.
+	* @param code The dictionary code of the name.
+	* @param word The word, in lower case.
+	* @param low The rank of the first name starting with the word.
+	* @param high The rank after the last name starting with the word.
+	* @return True if the name starts with the word.
+	*/
+	private boolean matchesName(int code, String word, int low, int high)
+	{
+		if (code < sortedNameCount)
+			return nameRanks[code] >= low && nameRanks[code] < high;
+		return store.getName(code).toLowerCase(Locale.ROOT).startsWith(word);
+	}
+
+	/**
+	* Check whether an ID is in any of a set of ranges.
+	* @param accountID The account ID.
+	* @param ranges The first and last ID of each range.
+	* @return True if the ID is in a range.
+	*/
+	private static boolean matchesID(int accountID, long[] ranges)
+	{
+		for (int range = 0; range < ranges.length; range += 2)
+		{
+			if (accountID >= ranges[range] && accountID <= ranges[range + 1])
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	* Find the ranges of IDs which start with some digits, one range for each length of ID. For example "12" gives 12,
+	* 120 to 129, 1200 to 1299 and so on, and "-12" gives -12, -129 to -120 and so on.
+	* @param word The digits, with an optional minus sign.
+	* @return The first and last ID of each range, shortest IDs first.
+	*/
+	private static long[] idRanges(String word)
+	{
+		boolean negative = word.charAt(0) == '-';
+		String digits = negative ? word.substring(1) : word;
+		//IDs are written without leading zeros, so only "0" itself may start with a zero
+		if (digits.length() > 10 || digits.length() > 1 && digits.charAt(0) == '0' || negative && digits.equals("0"))
+			return new long[0];
+		long prefix = Long.parseLong(digits);
+
+		long[] ranges = new long[22];
+		int count = 0;
+		int extraDigits = prefix == 0 ? 0 : 10 - digits.length();
+		long scale = 1;
+		for (int extra = 0; extra <= extraDigits; extra++, scale *= 10)
+		{
+			long first = prefix * scale;
+			long last = (prefix + 1) * scale - 1;
+			if (negative)
+			{
+				long swap = first;
+				first = -last;
+				last = -swap;
+			}
+			first = Math.max(first, Integer.MIN_VALUE);
+			last = Math.min(last, Integer.MAX_VALUE);
+			if (first > last)
+				break;
+			ranges[count++] = first;
+			ranges[count++] = last;
+		}
+		return Arrays.copyOf(ranges, count);
+	}
+
+	/**
+	* Count the accounts with IDs in a set of ranges.
+	* @param ranges The first and last ID of each range.
+	* @return The number of accounts.
+	*/
+	private long countIDs(long[] ranges)
+	{
+		long count = 0;
+		for (int range = 0; range < ranges.length; range += 2)
+			count += idLowerBound(ranges[range + 1] + 1) - idLowerBound(ranges[range]);
+		return count;
+	}
+
+	/**
+	* Count the entries of the posting lists of a range of names.
+	* @param low The rank of the first name.
+	* @param high The rank after the last name.
+	* @return The number of entries.
+	*/
+	private long countPostings(int low, int high)
+	{
+		long count = 0;
+		for (int rank = low; rank < high; rank++)
+			count += postingSizes[sortedCodes[rank]];
+		return count;
+	}
+
+	/**
+	* Check whether a word is the start of an account ID, being digits with an optional minus sign.
+	* @param word The word.
+	* @return True if the word is made of digits.
+	*/
+	private static boolean isIDPrefix(String word)
+	{
+		int start = word.charAt(0) == '-' ? 1 : 0;
+		if (start == word.length())
+			return false;
+		for (int index = start; index < word.length(); index++)
+		{
+			if (word.charAt(index) < '0' || word.charAt(index) > '9')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	* Find the first sorted name not before a prefix.
+	* @param prefix The prefix, in lower case.
+	* @return The rank of the name.
+	*/
+	private int lowerBound(String prefix)
+	{
+		int low = 0;
+		int high = sortedNameCount;
+		while (low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if (sortedNames[middle].compareTo(prefix) < 0)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	* Find the first position in the order with an account ID not below the given one.
+	* @param accountID The account ID.
+	* @return The position in the order.
+	*/
+	private int idLowerBound(long accountID)
+	{
+		int low = 0;
+		int high = order.length;
+		while (low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if (store.getAccountID(order[middle]) < accountID)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	* Sort the names of the dictionary in lower case, and rank each name code by its place in the sorted names.
+	* @param nameCount The number of names in the dictionary.
+	*/
+	private void sortNames(int nameCount)
+	{
+		String[] lowerNames = new String[nameCount];
+		for (int code = 0; code < nameCount; code++)
+			lowerNames[code] = store.getName(code).toLowerCase(Locale.ROOT);
+
+		//sorting the codes by their names keeps the names and codes in step
+		Integer[] codes = new Integer[nameCount];
+		for (int code = 0; code < nameCount; code++)
+			codes[code] = code;
+		Arrays.sort(codes, new Comparator<Integer>()
+		{
+			public int compare(Integer code1, Integer code2)
+			{
+				return lowerNames[code1].compareTo(lowerNames[code2]);
+			}
+		});
+
+		sortedNames = new String[nameCount];
+		sortedCodes = new int[nameCount];
+		nameRanks = new int[nameCount];
+		for (int rank = 0; rank < nameCount; rank++)
+		{
+			sortedCodes[rank] = codes[rank];
+			sortedNames[rank] = lowerNames[codes[rank]];
+			nameRanks[codes[rank]] = rank;
+		}
+		sortedNameCount = nameCount;
+	}
+
+	/**
+	* Make room for the posting lists of every name in the dictionary.
+	* @param nameCount The number of names in the dictionary.
+	*/
+	private void growPostings(int nameCount)
+	{
+		if (nameCount <= postings.length)
+			return;
+		postings = Arrays.copyOf(postings, nameCount);
+		postingSizes = Arrays.copyOf(postingSizes, nameCount);
+	}
+
+	/**
+	* Add a slot to the posting list of a name.
+	* @param code The dictionary code of the name.
+	* @param slot The slot of the account.
+	*/
+	private void addPosting(int code, int slot)
+	{
+		int[] slots = postings[code];
+		int size = postingSizes[code];
+		if (slots == null)
+			slots = postings[code] = new int[4];
+		else if (size == slots.length)
+			slots = postings[code] = Arrays.copyOf(slots, size * 2);
+		slots[size] = slot;
+		postingSizes[code] = size + 1;
+	}
+}
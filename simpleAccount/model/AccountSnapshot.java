@@ -0,0 +1,366 @@
+package assignment3.simpleAccount.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ * A binary snapshot of an AccountStore. A snapshot holds the columns of the store exactly as they are laid out in
+ * memory, so opening one maps the file rather than reading it. Nothing is parsed or copied when a snapshot is opened
+ * except the account ID column, which is read once to build the index. Pages of the file are only read from disk when
+ * an account on them is first used.
+ * <p>
+ * Every value is little endian and every section starts on an eight byte boundary:
+ * <ul>
+ * <li>A header of HEADER_SIZE bytes holding the magic number, the format version, the journal sequence number the
+ * snapshot is up to date with, the number of accounts, the number of names and the length of the name data.</li>
+ * <li>The funds of every account in cents, eight bytes each.</li>
+ * <li>The account ID of every account, four bytes each.</li>
+ * <li>The dictionary code of the first name and then of the last name of every account, four bytes each.</li>
+ * <li>Every name of the dictionary encoded in UTF-8, one after another.</li>
+ * <li>The offset of every name within the name data, four bytes each, followed by the end of the last name.</li>
+ * </ul>
+ * The text account file remains the format for importing and exporting accounts. SnapshotConverter converts between
+ * the two.
+ *
+ * @author dTorrente
+ */
+public class AccountSnapshot {
+
+	/** The file extension used for snapshots. Saving to a file with this extension writes a snapshot. */
+	public static final String FILE_EXTENSION = ".snapshot";
+
+	/** The size of the header in bytes. */
+	public static final int HEADER_SIZE = 64;
+
+	private static final int MAGIC = 0x54534341; //"ACST" when read as little endian bytes
+	private static final int VERSION = 1;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final AccountStore store;
+	private final long sequence;
+
+	/**
+	* Constructor for an opened snapshot.
+	* @param store The store backed by the snapshot.
+	* @param sequence The journal sequence number the snapshot is up to date with.
+	*/
+	private AccountSnapshot(AccountStore store, long sequence)
+	{
+		this.store = store;
+		this.sequence = sequence;
+	}
+
+	/**
+	* Get the store backed by this snapshot.
+	* @return The store.
+	*/
+	public AccountStore getStore()
+	{
+		return store;
+	}
+
+	/**
+	* Get the journal sequence number the snapshot is up to date with. Transactions journaled after this number have
+	* not been applied to the snapshot.
+	* @return The sequence number, or 0 if the snapshot was not written alongside a journal.
+	*/
+	public long getSequence()
+	{
+		return sequence;
+	}
+
+	/**
+	* Close a snapshot which is not going to be used, such as one whose journal could not be recovered. Its store is
+	* emptied, so nothing refers to the mapped file any more and the file is unmapped once the buffers are collected.
+	* The store must not be in use.
+	*/
+	public void close()
+	{
+		store.unmap();
+	}
+
+	/**
+	* Check if a file is a snapshot rather than a text account file.
+	* @param file The file to check.
+	* @return If the file starts with the snapshot magic number.
+	* @throws IOException If the file could not be read.
+	*/
+	public static boolean isSnapshot(File file) throws IOException
+	{
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try
+		{
+			ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+			while (magic.hasRemaining())
+			{
+				if (channel.read(magic) < 0)
+					return false;
+			}
+			return magic.getInt(0) == MAGIC;
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	/**
+	* Open a snapshot by mapping it into memory. The file is mapped privately, so it must be writable, but changes to the
+	* store are never written back to it. The mapping stays valid after the file is replaced by a newer snapshot.
+	* @param file The snapshot to open.
+	* @return The opened snapshot.
+	* @throws IOException If the file could not be read or mapped.
+	* @throws AccountDataException If the file is not a snapshot, is incomplete, uses an account ID twice, or holds an
+	* account with funds larger than Account.MAX_FUNDS.
+	*/
+	public static AccountSnapshot open(File file) throws IOException, AccountDataException
+	{
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining() && channel.read(header) >= 0)
+			{
+			}
+			if (header.hasRemaining() || header.getInt(0) != MAGIC)
+				throw new AccountDataException(file.getName() + " is not an account snapshot.");
+			if (header.getInt(4) != VERSION)
+				throw new AccountDataException("Account snapshot version " + header.getInt(4) + " is not supported.");
+
+			long sequence = header.getLong(8);
+			int accounts = header.getInt(16);
+			int names = header.getInt(20);
+			long nameDataLength = header.getLong(24);
+			//each section is mapped on its own, so no section may be larger than a buffer can address
+			if (accounts < 0 || accounts > Integer.MAX_VALUE / 8 || names < 0 || names > Integer.MAX_VALUE / 4 - 1
+				|| nameDataLength < 0 || nameDataLength > Integer.MAX_VALUE)
+				throw new AccountDataException("The account snapshot header is corrupt.");
+
+			long centsStart = HEADER_SIZE;
+			long accountIDsStart = centsStart + 8L * accounts;
+			long firstNamesStart = accountIDsStart + align(4L * accounts);
+			long lastNamesStart = firstNamesStart + align(4L * accounts);
+			long nameDataStart = lastNamesStart + align(4L * accounts);
+			long nameOffsetsStart = nameDataStart + align(nameDataLength);
+			long end = nameOffsetsStart + 4L * (names + 1);
+			if (channel.size() < end)
+				throw new AccountDataException("The account snapshot is incomplete.");
+
+			AccountStore store = new AccountStore(accounts,
+				map(channel, centsStart, 8L * accounts),
+				map(channel, accountIDsStart, 4L * accounts),
+				map(channel, firstNamesStart, 4L * accounts),
+				map(channel, lastNamesStart, 4L * accounts),
+				names,
+				map(channel, nameOffsetsStart, 4L * (names + 1)),
+				map(channel, nameDataStart, nameDataLength));
+			return new AccountSnapshot(store, sequence);
+		}
+		finally
+		{
+			//a mapping stays valid after its channel is closed
+			channel.close();
+		}
+	}
+
+	/**
+	* Write a store to a snapshot. The snapshot is written to a temporary file in the same directory which then replaces
+	* the target, so a failed write never leaves a partial snapshot behind, and a store mapped from the target keeps
+	* working.
+	* @param store The store to write.
+	* @param sequence The journal sequence number the store is up to date with, or 0 if there is no journal.
+	* @param file The file to write the snapshot to.
+	* @throws IOException If the snapshot could not be written.
+	*/
+	public static void write(AccountStore store, long sequence, File file) throws IOException
+	{
+		write(store, null, sequence, file);
+	}
+
+	/**
+	* Write a store to a snapshot using funds captured earlier. Used to write a checkpoint while transactions continue
+	* to change the store.
+	* @param store The store to write. Only its account IDs and names are read.
+	* @param cents The funds of every account in slot order, as returned by AccountStore.copyCents().
+	* @param sequence The journal sequence number the funds are up to date with.
+	* @param file The file to write the snapshot to.
+	* @throws IOException If the snapshot could not be written.
+	*/
+	public static void write(AccountStore store, long[] cents, long sequence, File file) throws IOException
+	{
+		if (cents != null && cents.length != store.size())
+			throw new IllegalArgumentException("Funds for " + cents.length + " accounts given for a store of " + store.size());
+
+		Path target = file.toPath().toAbsolutePath();
+		Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+		try
+		{
+			FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+			try
+			{
+				writeSections(store, cents, sequence, channel);
+				channel.force(false);
+			}
+			finally
+			{
+				channel.close();
+			}
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	* Write the sections of a snapshot. The header is written last, once the length of the name data is known.
+	* @param store The store to write.
+	* @param cents The funds of every account, or null to read them from the store.
+	* @param sequence The journal sequence number the store is up to date with.
+	* @param channel The channel to write to, positioned at its start.
+	* @throws IOException If the snapshot could not be written.
+	*/
+	private static void writeSections(AccountStore store, long[] cents, long sequence, FileChannel channel) throws IOException
+	{
+		int accounts = store.size();
+		int names = store.getNameCount();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		channel.position(HEADER_SIZE);
+		for (int slot = 0; slot < accounts; slot++)
+			putLong(channel, buffer, cents == null ? store.getCents(slot) : cents[slot]);
+		for (int slot = 0; slot < accounts; slot++)
+			putInt(channel, buffer, store.getAccountID(slot));
+		pad(channel, buffer);
+		for (int slot = 0; slot < accounts; slot++)
+			putInt(channel, buffer, store.getFirstNameCode(slot));
+		pad(channel, buffer);
+		for (int slot = 0; slot < accounts; slot++)
+			putInt(channel, buffer, store.getLastNameCode(slot));
+		pad(channel, buffer);
+
+		int[] nameOffsets = new int[names + 1];
+		long nameDataLength = 0;
+		for (int code = 0; code < names; code++)
+		{
+			byte[] name = store.getName(code).getBytes(StandardCharsets.UTF_8);
+			for (byte next : name)
+			{
+				if (!buffer.hasRemaining())
+					flush(channel, buffer);
+				buffer.put(next);
+			}
+			nameDataLength += name.length;
+			if (nameDataLength > Integer.MAX_VALUE)
+				throw new IOException("The names of the accounts are too large for a snapshot.");
+			nameOffsets[code + 1] = (int) nameDataLength;
+		}
+		pad(channel, buffer);
+		for (int offset : nameOffsets)
+			putInt(channel, buffer, offset);
+		flush(channel, buffer);
+
+		buffer.clear();
+		buffer.putInt(MAGIC).putInt(VERSION).putLong(sequence).putInt(accounts).putInt(names).putLong(nameDataLength);
+		while (buffer.position() < HEADER_SIZE)
+			buffer.put((byte) 0);
+		buffer.flip();
+		long position = 0;
+		while (buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+
+	/**
+	* Map a section of a snapshot.
+	* @param channel The channel of the snapshot.
+	* @param start The position of the section within the file.
+	* @param length The length of the section in bytes.
+	* @return The section, in little endian order.
+	* @throws IOException If the section could not be mapped.
+	*/
+	private static ByteBuffer map(FileChannel channel, long start, long length) throws IOException
+	{
+		return channel.map(FileChannel.MapMode.PRIVATE, start, length).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	* Round a section length up to the next eight byte boundary.
+	* @param length The length of the section in bytes.
+	* @return The aligned length.
+	*/
+	private static long align(long length)
+	{
+		return (length + 7) & ~7L;
+	}
+
+	/**
+	* Buffer a long, writing the buffer to the channel first if it is full.
+	* @param channel The channel being written.
+	* @param buffer The buffer of bytes not yet written to the channel.
+	* @param value The value to write.
+	* @throws IOException If the channel could not be written.
+	*/
+	private static void putLong(FileChannel channel, ByteBuffer buffer, long value) throws IOException
+	{
+		if (buffer.remaining() < 8)
+			flush(channel, buffer);
+		buffer.putLong(value);
+	}
+
+	/**
+	* Buffer an int, writing the buffer to the channel first if it is full.
+	* @param channel The channel being written.
+	* @param buffer The buffer of bytes not yet written to the channel.
+	* @param value The value to write.
+	* @throws IOException If the channel could not be written.
+	*/
+	private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException
+	{
+		if (buffer.remaining() < 4)
+			flush(channel, buffer);
+		buffer.putInt(value);
+	}
+
+	/**
+	* Write zeros up to the next eight byte boundary of the file.
+	* @param channel The channel being written.
+	* @param buffer The buffer of bytes not yet written to the channel.
+	* @throws IOException If the channel could not be written.
+	*/
+	private static void pad(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		long written = channel.position() + buffer.position();
+		for (long padding = align(written) - written; padding > 0; padding--)
+		{
+			if (!buffer.hasRemaining())
+				flush(channel, buffer);
+			buffer.put((byte) 0);
+		}
+	}
+
+	/**
+	* Write every buffered byte to the channel and empty the buffer.
+	* @param channel The channel being written.
+	* @param buffer The buffer of bytes not yet written to the channel.
+	* @throws IOException If the channel could not be written.
+	*/
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+}
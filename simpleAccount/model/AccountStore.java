@@ -0,0 +1,621 @@
+package assignment3.simpleAccount.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountIdIndex;
+import assignment3.simpleAccount.util.InsufficientFundsException;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * A compact store for a large number of accounts. Rather than one object per account, each field is held in its own
+ * primitive array (a column) and an account is identified by its slot within those arrays. Funds are stored as a whole
+ * number of cents and names are dictionary encoded, so a name shared by many account holders is only stored once.
+ * <p>
+ * Account objects are only created when asked for through view(). Such an account holds no data of its own and reads
+ * and writes straight through to the store. A view which has edit views listening to it is remembered by the store
+ * so that every later request for the same slot returns the same object and the listeners keep being notified.
+ * <p>
+ * The store keeps an index from account ID to slot, so accounts can be found and duplicate IDs rejected without
+ * searching.
+ * <p>
+ * Accounts are added while a file is loaded on a single thread. The store is not safe for adding accounts from
+ * several threads at once. Once loaded, funds may be read and changed from any thread. Every read and write of funds
+ * is volatile. compareAndSetCents() allows a change to be made atomically, and depositCents() and withdrawCents() make
+ * one straight on a slot, without creating an account view.
+ * <p>
+ * A store opened from a snapshot by AccountSnapshot reads its columns straight out of the mapped file rather than
+ * copying them into arrays, and names are only decoded when first asked for. The file is mapped privately, so changes
+ * to funds are made to the mapped pages without being written back to the file. Adding an account to such a store
+ * first copies the columns onto the heap.
+ *
+ * @author dTorrente
+ */
+public class AccountStore {
+
+	private static final int INITIAL_CAPACITY = 16;
+	private static final VarHandle CENTS = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle MAPPED_CENTS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private int size;
+	private int[] accountIDs;
+	private long[] cents;
+	private int[] firstNames;
+	private int[] lastNames;
+	private AccountIdIndex index;
+
+	private String[] names;
+	private int nameCount;
+	private HashMap<String, Integer> nameCodes;
+
+	//set instead of the arrays above while the store is backed by a mapped snapshot
+	private ByteBuffer mappedCents;
+	private ByteBuffer mappedAccountIDs;
+	private ByteBuffer mappedFirstNames;
+	private ByteBuffer mappedLastNames;
+
+	//set while some names of a mapped snapshot have not been decoded yet
+	private ByteBuffer nameOffsets;
+	private ByteBuffer nameData;
+
+	private ConcurrentHashMap<Integer, Account> pinnedViews;
+
+	/**
+	* Default constructor for an empty store.
+	*/
+	public AccountStore()
+	{
+		accountIDs = new int[INITIAL_CAPACITY];
+		cents = new long[INITIAL_CAPACITY];
+		firstNames = new int[INITIAL_CAPACITY];
+		lastNames = new int[INITIAL_CAPACITY];
+		index = new AccountIdIndex();
+		names = new String[INITIAL_CAPACITY];
+		nameCodes = new HashMap<String, Integer>();
+		pinnedViews = new ConcurrentHashMap<Integer, Account>();
+	}
+
+	/**
+	* Constructor for a store backed by the columns of a mapped snapshot. Used by AccountSnapshot. Every buffer except
+	* the funds is read in little endian order, and the funds buffer must be aligned to eight bytes.
+	* @param size The number of accounts.
+	* @param cents The funds column, eight bytes per account.
+	* @param accountIDs The account ID column, four bytes per account.
+	* @param firstNames The first name code column, four bytes per account.
+	* @param lastNames The last name code column, four bytes per account.
+	* @param nameCount The number of names in the dictionary.
+	* @param nameOffsets The offset of every name within nameData, followed by the end of the last name.
+	* @param nameData Every name encoded in UTF-8.
+	* @throws AccountDataException If an account ID is used twice or the funds of an account are larger than
+	* Account.MAX_FUNDS.
+	*/
+	AccountStore(int size, ByteBuffer cents, ByteBuffer accountIDs, ByteBuffer firstNames, ByteBuffer lastNames,
+		int nameCount, ByteBuffer nameOffsets, ByteBuffer nameData) throws AccountDataException
+	{
+		this.size = size;
+		this.mappedCents = cents;
+		this.mappedAccountIDs = accountIDs;
+		this.mappedFirstNames = firstNames;
+		this.mappedLastNames = lastNames;
+		this.names = new String[Math.max(nameCount, INITIAL_CAPACITY)];
+		this.nameCount = nameCount;
+		this.nameOffsets = nameOffsets;
+		this.nameData = nameData;
+		pinnedViews = new ConcurrentHashMap<Integer, Account>();
+
+		//the index is the only structure built up front. The funds are read alongside it only to be checked
+		index = new AccountIdIndex(size);
+		for (int slot = 0; slot < size; slot++)
+		{
+			int accountID = accountIDs.getInt(slot << 2);
+			if (!index.putIfAbsent(accountID, slot))
+				throw new AccountDataException("Account ID " + accountID + " is already in use.");
+			checkFunds(accountID, (long) MAPPED_CENTS.get(cents, slot << 3));
+		}
+	}
+
+	/**
+	* Adds an account to the end of the store.
+	* @param firstName The first name of the account holder.
+	* @param lastName The last name of the account holder.
+	* @param accountID The unique ID of an account.
+	* @param funds The current amount of funds in the account in cents. Stored in USD.
+	* @return The slot the account was stored in.
+	* @throws AccountDataException If an account with the same ID is already in the store, or the funds are larger than
+	* Account.MAX_FUNDS.
+	*/
+	public int add(String firstName, String lastName, int accountID, long funds) throws AccountDataException
+	{
+		checkFunds(accountID, funds);
+		if (!index.putIfAbsent(accountID, size))
+			throw new AccountDataException("Account ID " + accountID + " is already in use.");
+		
+		if (mappedCents != null)
+			copyToHeap(Math.max(size * 2, INITIAL_CAPACITY));
+		else if (size == accountIDs.length)
+		{
+			int capacity = size * 2;
+			accountIDs = Arrays.copyOf(accountIDs, capacity);
+			cents = Arrays.copyOf(cents, capacity);
+			firstNames = Arrays.copyOf(firstNames, capacity);
+			lastNames = Arrays.copyOf(lastNames, capacity);
+		}
+		accountIDs[size] = accountID;
+		cents[size] = funds;
+		firstNames[size] = encodeName(firstName);
+		lastNames[size] = encodeName(lastName);
+		return size++;
+	}
+
+	/**
+	* Adds a block of accounts to the end of the store, such as those read from one part of a file. The names of the
+	* block are given as codes into a dictionary of the block's own, so each distinct name is only looked up once.
+	* Accounts are added in order until one has an account ID which is already in use.
+	* @param count The number of accounts in the block.
+	* @param blockIDs The account ID of each account.
+	* @param blockFunds The funds of each account in cents.
+	* @param blockFirstNames The code of the first name of each account within blockNames.
+	* @param blockLastNames The code of the last name of each account within blockNames.
+	* @param blockNames The names used by the block.
+	* @return The number of accounts added. If less than count, the account at that position has an account ID already
+	* in use, and neither it nor any account after it was added.
+	* @throws AccountDataException If the funds of an account are larger than Account.MAX_FUNDS. The accounts before it
+	* were added.
+	*/
+	public int addAll(int count, int[] blockIDs, long[] blockFunds, int[] blockFirstNames, int[] blockLastNames, String[] blockNames)
+		throws AccountDataException
+	{
+		ensureCapacity(size + count);
+		int[] codes = new int[blockNames.length];
+		for (int code = 0; code < blockNames.length; code++)
+			codes[code] = encodeName(blockNames[code]);
+
+		for (int record = 0; record < count; record++)
+		{
+			checkFunds(blockIDs[record], blockFunds[record]);
+			if (!index.putIfAbsent(blockIDs[record], size))
+				return record;
+			accountIDs[size] = blockIDs[record];
+			cents[size] = blockFunds[record];
+			firstNames[size] = codes[blockFirstNames[record]];
+			lastNames[size] = codes[blockLastNames[record]];
+			size++;
+		}
+		return count;
+	}
+
+	/**
+	* Grow the store so that it can hold a number of accounts without growing again. A store backed by a snapshot is
+	* copied onto the heap.
+	* @param accounts The number of accounts expected.
+	*/
+	public void ensureCapacity(int accounts)
+	{
+		if (mappedCents != null)
+			copyToHeap(Math.max(Math.max(accounts, size), INITIAL_CAPACITY));
+		else if (accounts > accountIDs.length)
+		{
+			accountIDs = Arrays.copyOf(accountIDs, accounts);
+			cents = Arrays.copyOf(cents, accounts);
+			firstNames = Arrays.copyOf(firstNames, accounts);
+			lastNames = Arrays.copyOf(lastNames, accounts);
+		}
+		index.ensureCapacity(accounts);
+	}
+
+	/**
+	* Get the number of accounts in the store.
+	* @return The number of accounts in the store.
+	*/
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	* Find the slot of an account.
+	* @param accountID The ID of the account to find.
+	* @return The slot of the account, or -1 if no account has the ID.
+	*/
+	public int find(int accountID)
+	{
+		return index.get(accountID);
+	}
+
+	/**
+	* Get the number of distinct names in the name dictionary.
+	* @return The number of distinct first and last names.
+	*/
+	public int getNameCount()
+	{
+		return nameCount;
+	}
+
+	/**
+	* Get the unique account ID of an account.
+	* @param slot The slot of the account.
+	* @return The unique account ID of the account.
+	*/
+	public int getAccountID(int slot)
+	{
+		checkSlot(slot);
+		return mappedAccountIDs == null ? accountIDs[slot] : mappedAccountIDs.getInt(slot << 2);
+	}
+
+	/**
+	* Get the first name of an account holder.
+	* @param slot The slot of the account.
+	* @return The first name of the account holder.
+	*/
+	public String getFirstName(int slot)
+	{
+		return getName(getFirstNameCode(slot));
+	}
+
+	/**
+	* Get the last name of an account holder.
+	* @param slot The slot of the account.
+	* @return The last name of the account holder.
+	*/
+	public String getLastName(int slot)
+	{
+		return getName(getLastNameCode(slot));
+	}
+
+	/**
+	* Get the current amount of funds in an account.
+	* @param slot The slot of the account.
+	* @return The current amount of funds in the account in cents.
+	*/
+	public long getCents(int slot)
+	{
+		checkSlot(slot);
+		if (mappedCents != null)
+			return (long) MAPPED_CENTS.getVolatile(mappedCents, slot << 3);
+		return (long) CENTS.getVolatile(cents, slot);
+	}
+
+	/**
+	* Set the account ID of an account.
+	* @param slot The slot of the account.
+	* @param accountID The value to set for the account ID.
+	* @throws IllegalArgumentException If another account already has the ID.
+	*/
+	public void setAccountID(int slot, int accountID)
+	{
+		int current = getAccountID(slot);
+		if (current == accountID)
+			return;
+		if (!index.putIfAbsent(accountID, slot))
+			throw new IllegalArgumentException("Account ID " + accountID + " is already in use.");
+		index.remove(current);
+		if (mappedAccountIDs == null)
+			accountIDs[slot] = accountID;
+		else
+			mappedAccountIDs.putInt(slot << 2, accountID);
+	}
+
+	/**
+	* Set the first name of an account holder.
+	* @param slot The slot of the account.
+	* @param firstName The value to set for the first name of the account holder.
+	*/
+	public void setFirstName(int slot, String firstName)
+	{
+		checkSlot(slot);
+		if (mappedFirstNames == null)
+			firstNames[slot] = encodeName(firstName);
+		else
+			mappedFirstNames.putInt(slot << 2, encodeName(firstName));
+	}
+
+	/**
+	* Set the last name of an account holder.
+	* @param slot The slot of the account.
+	* @param lastName The value to set for the last name of the account holder.
+	*/
+	public void setLastName(int slot, String lastName)
+	{
+		checkSlot(slot);
+		if (mappedLastNames == null)
+			lastNames[slot] = encodeName(lastName);
+		else
+			mappedLastNames.putInt(slot << 2, encodeName(lastName));
+	}
+
+	/**
+	* Set the funds of an account.
+	* @param slot The slot of the account.
+	* @param funds The value to set for the account funds in cents.
+	*/
+	public void setCents(int slot, long funds)
+	{
+		checkSlot(slot);
+		if (mappedCents != null)
+			MAPPED_CENTS.setVolatile(mappedCents, slot << 3, funds);
+		else
+			CENTS.setVolatile(cents, slot, funds);
+	}
+
+	/**
+	* Atomically set the funds of an account if they have not changed since they were read.
+	* @param slot The slot of the account.
+	* @param expected The funds in cents the account is expected to hold.
+	* @param funds The value to set for the account funds in cents.
+	* @return If the funds were set. False means another thread changed them first.
+	*/
+	public boolean compareAndSetCents(int slot, long expected, long funds)
+	{
+		checkSlot(slot);
+		if (mappedCents != null)
+			return MAPPED_CENTS.compareAndSet(mappedCents, slot << 3, expected, funds);
+		return CENTS.compareAndSet(cents, slot, expected, funds);
+	}
+
+	/**
+	* Atomically add funds to an account, with the same rules as Account.depositFunds(). No object is created unless the
+	* deposit is rejected, and no edit view is notified.
+	* @param slot The slot of the account.
+	* @param amount The amount in USD cents to deposit.
+	* @throws AccountDataException If the amount is negative or the funds would become larger than Account.MAX_FUNDS.
+	*/
+	public void depositCents(int slot, long amount) throws AccountDataException
+	{
+		if (amount < 0)
+			throw new AccountDataException("Please enter in a positive value");
+		long current;
+		do
+		{
+			current = getCents(slot);
+			if (current > Account.MAX_FUNDS - amount)
+				throw new AccountDataException("The deposit is too large for this account.");
+		}
+		while (!compareAndSetCents(slot, current, current + amount));
+	}
+
+	/**
+	* Atomically take funds from an account, with the same rules as Account.withdrawFunds(). No object is created unless
+	* the withdrawal is rejected, and no edit view is notified.
+	* @param slot The slot of the account.
+	* @param amount The amount in USD cents to withdraw.
+	* @throws AccountDataException If the amount is negative.
+	* @throws InsufficientFundsException If the amount is greater than the funds.
+	*/
+	public void withdrawCents(int slot, long amount) throws AccountDataException
+	{
+		if (amount < 0)
+			throw new AccountDataException("Please enter in a positive value");
+		long current;
+		do
+		{
+			current = getCents(slot);
+			if (amount > current)
+				throw new InsufficientFundsException(amount - current, current, Money.RATE_SCALE);
+		}
+		while (!compareAndSetCents(slot, current, current - amount));
+	}
+
+	/**
+	* Copies the funds of every account. Each value is read atomically, but the copy as a whole is only consistent if
+	* no funds are changed while it is made.
+	* @return The funds of every account in cents, in slot order.
+	*/
+	public long[] copyCents()
+	{
+		long[] copy = new long[size];
+		for (int slot = 0; slot < size; slot++)
+			copy[slot] = getCents(slot);
+		return copy;
+	}
+
+	/**
+	* Get an account object for a slot. A new lightweight view is created unless one with listeners already exists.
+	* @param slot The slot of the account.
+	* @return An account which reads and writes through to this store.
+	*/
+	public Account view(int slot)
+	{
+		checkSlot(slot);
+		Account pinned = pinnedViews.get(slot);
+		if (pinned != null)
+			return pinned;
+		return new Account(this, slot);
+	}
+
+	/**
+	* Creates a view of every account, in slot order. Used where a list of account objects is still required, such as
+	* the comboBox model.
+	* @return A list of views of every account.
+	*/
+	public Vector<Account> views()
+	{
+		Vector<Account> views = new Vector<Account>(size);
+		for (int slot = 0; slot < size; slot++)
+		{
+			views.add(view(slot));
+		}
+		return views;
+	}
+
+	/**
+	* Get the dictionary code of the first name of an account holder. Used when writing a snapshot.
+	* @param slot The slot of the account.
+	* @return The dictionary code of the first name.
+	*/
+	int getFirstNameCode(int slot)
+	{
+		checkSlot(slot);
+		return mappedFirstNames == null ? firstNames[slot] : mappedFirstNames.getInt(slot << 2);
+	}
+
+	/**
+	* Get the dictionary code of the last name of an account holder. Used when writing a snapshot.
+	* @param slot The slot of the account.
+	* @return The dictionary code of the last name.
+	*/
+	int getLastNameCode(int slot)
+	{
+		checkSlot(slot);
+		return mappedLastNames == null ? lastNames[slot] : mappedLastNames.getInt(slot << 2);
+	}
+
+	/**
+	* Get a name from the dictionary, decoding it from the snapshot the first time it is asked for. Two threads may
+	* decode the same name at once, which is harmless as they produce equal strings.
+	* @param code The dictionary code of the name.
+	* @return The name.
+	*/
+	String getName(int code)
+	{
+		if (code < 0 || code >= nameCount)
+			throw new IllegalStateException("Name code " + code + " is not in a dictionary of " + nameCount + " names");
+		String name = names[code];
+		if (name == null)
+		{
+			int start = nameOffsets.getInt(code << 2);
+			int end = nameOffsets.getInt((code + 1) << 2);
+			byte[] bytes = new byte[end - start];
+			nameData.get(start, bytes);
+			name = new String(bytes, StandardCharsets.UTF_8);
+			names[code] = name;
+		}
+		return name;
+	}
+
+	/**
+	* Get every view with edit views listening to it. Used by changes made straight to the funds of the store, which no
+	* view sees, to tell the edit views afterwards.
+	* @return The views remembered by pin(), in no particular order.
+	*/
+	public Vector<Account> pinnedViews()
+	{
+		return new Vector<Account>(pinnedViews.values());
+	}
+
+	/**
+	* Remember a view so that it is returned by every later call to view(). Called when the first edit view starts
+	* listening to it.
+	* @param slot The slot of the account.
+	* @param view The view to remember.
+	*/
+	void pin(int slot, Account view)
+	{
+		pinnedViews.put(slot, view);
+	}
+
+	/**
+	* Forget a view previously remembered by pin(). Called when the last edit view stops listening to it.
+	* @param slot The slot of the account.
+	*/
+	void unpin(int slot)
+	{
+		pinnedViews.remove(slot);
+	}
+
+	/**
+	* Looks up the dictionary code of a name, adding the name to the dictionary if it is new.
+	* @param name The name to encode.
+	* @return The dictionary code of the name.
+	*/
+	private int encodeName(String name)
+	{
+		if (nameCodes == null)
+		{
+			//the dictionary of a mapped snapshot is only needed once a name is added, so it is built then
+			nameCodes = new HashMap<String, Integer>();
+			for (int existing = 0; existing < nameCount; existing++)
+				nameCodes.put(getName(existing), existing);
+		}
+
+		Integer code = nameCodes.get(name);
+		if (code != null)
+			return code;
+
+		if (nameCount == names.length)
+			names = Arrays.copyOf(names, nameCount * 2);
+		names[nameCount] = name;
+		nameCodes.put(name, nameCount);
+		return nameCount++;
+	}
+
+	/**
+	* Copies the columns of a mapped snapshot into arrays so that accounts can be added. Names are still decoded when
+	* first asked for.
+	* @param capacity The length of the new arrays. Must be at least the number of accounts.
+	*/
+	private void copyToHeap(int capacity)
+	{
+		accountIDs = new int[capacity];
+		cents = new long[capacity];
+		firstNames = new int[capacity];
+		lastNames = new int[capacity];
+		for (int slot = 0; slot < size; slot++)
+		{
+			accountIDs[slot] = mappedAccountIDs.getInt(slot << 2);
+			cents[slot] = (long) MAPPED_CENTS.getVolatile(mappedCents, slot << 3);
+			firstNames[slot] = mappedFirstNames.getInt(slot << 2);
+			lastNames[slot] = mappedLastNames.getInt(slot << 2);
+		}
+		mappedCents = null;
+		mappedAccountIDs = null;
+		mappedFirstNames = null;
+		mappedLastNames = null;
+	}
+
+	/**
+	* Empty the store and drop the mapped snapshot backing it, if any. Used by AccountSnapshot.close().
+	*/
+	void unmap()
+	{
+		size = 0;
+		accountIDs = new int[INITIAL_CAPACITY];
+		cents = new long[INITIAL_CAPACITY];
+		firstNames = new int[INITIAL_CAPACITY];
+		lastNames = new int[INITIAL_CAPACITY];
+		mappedCents = null;
+		mappedAccountIDs = null;
+		mappedFirstNames = null;
+		mappedLastNames = null;
+		names = new String[INITIAL_CAPACITY];
+		nameCount = 0;
+		nameCodes = new HashMap<String, Integer>();
+		nameOffsets = null;
+		nameData = null;
+		index.clear();
+		pinnedViews.clear();
+	}
+
+	/**
+	* Confirms a slot holds an account.
+	* @param slot The slot to check.
+	* @return The slot.
+	* @throws IndexOutOfBoundsException If the slot does not hold an account.
+	*/
+	private int checkSlot(int slot)
+	{
+		if (slot < 0 || slot >= size)
+			throw new IndexOutOfBoundsException("Slot " + slot + " is not in a store of " + size + " accounts");
+		return slot;
+	}
+
+	/**
+	* Confirms the funds of a new account are no larger than Account.MAX_FUNDS, which a transfer relies on when it gives
+	* funds back.
+	* @param accountID The ID of the account. Used in the error message.
+	* @param funds The funds in cents.
+	* @throws AccountDataException If the funds are larger than Account.MAX_FUNDS.
+	*/
+	private static void checkFunds(int accountID, long funds) throws AccountDataException
+	{
+		if (funds > Account.MAX_FUNDS)
+			throw new AccountDataException("The funds of account ID " + accountID + " are too large.");
+	}
+}
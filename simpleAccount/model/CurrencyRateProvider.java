@@ -0,0 +1,24 @@
+package assignment3.simpleAccount.model;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A source of exchange rates, such as a local file or a rate service. CurrencyRates asks its provider for the rates in
+ * the background whenever it refreshes them, and only builds a new RateTable when they have changed.
+ * <p>
+ * Providers are found with java.util.ServiceLoader, so one may be added by listing it in
+ * META-INF/services/assignment3.simpleAccount.model.CurrencyRateProvider.
+ *
+ * @author dTorrente
+ */
+public interface CurrencyRateProvider {
+
+	/**
+	* Fetch the current exchange rates. Called on the thread which refreshes the rates, never on the event dispatch thread,
+	* so it may block on a file or the network.
+	* @return The number of units of each currency per USD, scaled by Money.RATE_SCALE, keyed by currency code such as "EUR".
+	* @throws IOException If the rates could not be fetched. The rates already in use are kept.
+	*/
+	public Map<String, Long> fetchRates() throws IOException;
+}
@@ -0,0 +1,176 @@
+package assignment3.simpleAccount.model;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * The exchange rates in use, refreshed from a CurrencyRateProvider. The current RateTable is held in a volatile field,
+ * so a conversion reads it without a lock, and a refresh builds a whole new table off to the side and publishes it with
+ * a single write. A refresh therefore never blocks the event dispatch thread or a transaction in flight; a conversion
+ * started before the write uses the old rates and one started after uses the new.
+ * <p>
+ * Rates are refreshed on a single daemon thread. A refresh which fails, or which finds the same rates, leaves the
+ * current table in place, and a currency the provider no longer lists keeps its last rate.
+ *
+ * @author dTorrente
+ */
+public class CurrencyRates {
+
+	/** The rates used until the provider has been read: 0.94 Euros and 6.91 Yuan per USD. */
+	public static final RateTable DEFAULT_RATES = new RateTable(0, defaultRates());
+
+	private final CurrencyRateProvider provider;
+	private final List<Runnable> listeners;
+	//held while refreshing, so versions are published in order. Never taken by a conversion
+	private final Object refreshLock = new Object();
+	private volatile RateTable table;
+	private ScheduledExecutorService refreshThread;
+
+	/**
+	* Constructor for the rates. The default rates are used until the first refresh.
+	* @param provider The source of the rates.
+	*/
+	public CurrencyRates(CurrencyRateProvider provider)
+	{
+		this.provider = provider;
+		this.listeners = new CopyOnWriteArrayList<Runnable>();
+		this.table = DEFAULT_RATES;
+	}
+
+	/**
+	* Build the default rates.
+	* @return The default rates, keyed by currency code.
+	*/
+	private static Map<String, Long> defaultRates()
+	{
+		Map<String, Long> rates = new LinkedHashMap<String, Long>();
+		rates.put("EUR", Money.parseRate("0.94"));
+		rates.put("CNY", Money.parseRate("6.91"));
+		return rates;
+	}
+
+	/**
+	* Find the provider to use. A provider registered with java.util.ServiceLoader is preferred over the one given.
+	* @param fallback The provider to use if none is registered.
+	* @return The provider.
+	*/
+	public static CurrencyRateProvider findProvider(CurrencyRateProvider fallback)
+	{
+		Iterator<CurrencyRateProvider> registered = ServiceLoader.load(CurrencyRateProvider.class).iterator();
+		return registered.hasNext() ? registered.next() : fallback;
+	}
+
+	/**
+	* Get the rates in use. Takes no lock, and the table returned never changes, so every rate read from it belongs to
+	* the same version.
+	* @return The current rate table.
+	*/
+	public RateTable getTable()
+	{
+		return table;
+	}
+
+	/**
+	* Add a listener to be told when new rates are published. It is run on the refreshing thread, so a listener which
+	* updates Swing components must pass the update to the event dispatch thread.
+	* @param listener The listener to add.
+	*/
+	public void addChangeListener(Runnable listener)
+	{
+		listeners.add(listener);
+	}
+
+	/**
+	* Remove a listener added with addChangeListener().
+	* @param listener The listener to remove.
+	*/
+	public void removeChangeListener(Runnable listener)
+	{
+		listeners.remove(listener);
+	}
+
+	/**
+	* Fetch the rates from the provider and publish them as a new table if they have changed. Blocks on the provider, so
+	* it is run on the refreshing thread rather than called from the event dispatch thread.
+	* @return True if new rates were published.
+	* @throws IOException If the provider could not fetch the rates. The current table is kept.
+	* @throws IllegalArgumentException If the provider gave a rate which is not greater than zero. The current table is kept.
+	*/
+	public boolean refresh() throws IOException
+	{
+		synchronized (refreshLock)
+		{
+			RateTable current = table;
+			Map<String, Long> rates = new LinkedHashMap<String, Long>();
+			for (String code : current.getCodes())
+				rates.put(code, current.getRate(code));
+			rates.putAll(provider.fetchRates());
+
+			RateTable fetched = new RateTable(current.getVersion() + 1, rates);
+			if (fetched.sameRates(current))
+				return false;
+			table = fetched;
+		}
+		for (Runnable listener : listeners)
+			listener.run();
+		return true;
+	}
+
+	/**
+	* Start refreshing the rates in the background, straight away and then at a fixed delay.
+	* @param periodMillis The time between the end of one refresh and the start of the next, in milliseconds.
+	*/
+	public synchronized void start(long periodMillis)
+	{
+		if (refreshThread != null)
+			return;
+		refreshThread = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+		{
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "currency-rates");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		refreshThread.scheduleWithFixedDelay(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					refresh();
+				}
+				catch (IOException ioException)
+				{
+					//the provider may be unavailable for a while; the rates in use are kept until it is back
+				}
+				catch (IllegalArgumentException iaException)
+				{
+					//the provider gave rates which are not valid; the rates in use are kept
+				}
+			}
+		}, 0, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	* Stop refreshing the rates. The rates in use are kept.
+	*/
+	public synchronized void stop()
+	{
+		if (refreshThread != null)
+			refreshThread.shutdownNow();
+		refreshThread = null;
+	}
+}
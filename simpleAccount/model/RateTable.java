@@ -0,0 +1,121 @@
+package assignment3.simpleAccount.model;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * An immutable table of exchange rates against USD, each scaled by Money.RATE_SCALE. A table is never changed once
+ * built; new rates are published by CurrencyRates as a new table with a higher version, so a table may be read from any
+ * thread without a lock, and a conversion which reads one table sees one consistent set of rates.
+ *
+ * @author dTorrente
+ */
+public final class RateTable {
+
+	/** The code of the currency accounts are held in. Its rate is always Money.RATE_SCALE. */
+	public static final String USD = "USD";
+
+	private final long version;
+	private final String[] codes;
+	private final long[] rates;
+
+	/**
+	* Constructor for a table of rates. The rate of USD is always Money.RATE_SCALE, whatever the rates given.
+	* @param version The version of the table. Each table published by CurrencyRates has a higher version than the last.
+	* @param rates The number of units of each currency per USD, scaled by Money.RATE_SCALE, keyed by currency code.
+	* @throws IllegalArgumentException If a rate is not greater than zero.
+	*/
+	public RateTable(long version, Map<String, Long> rates)
+	{
+		this.version = version;
+		String[] codes = new String[rates.size() + 1];
+		long[] values = new long[codes.length];
+		codes[0] = USD;
+		values[0] = Money.RATE_SCALE;
+		int count = 1;
+		for (Map.Entry<String, Long> rate : rates.entrySet())
+		{
+			if (rate.getKey().equals(USD))
+				continue;
+			if (rate.getValue() <= 0)
+				throw new IllegalArgumentException("An exchange rate must be greater than zero: " + rate.getKey() + " " + rate.getValue());
+			codes[count] = rate.getKey();
+			values[count++] = rate.getValue();
+		}
+		this.codes = Arrays.copyOf(codes, count);
+		this.rates = Arrays.copyOf(values, count);
+	}
+
+	/**
+	* Get the version of the table.
+	* @return The version.
+	*/
+	public long getVersion()
+	{
+		return version;
+	}
+
+	/**
+	* Check whether the table has a rate for a currency.
+	* @param code The currency code, such as "EUR".
+	* @return True if the table has a rate for the currency.
+	*/
+	public boolean hasRate(String code)
+	{
+		return indexOf(code) >= 0;
+	}
+
+	/**
+	* Get the rate of a currency. Only a handful of currencies are held, so they are searched in turn, which takes no
+	* lock and creates no objects.
+	* @param code The currency code, such as "EUR".
+	* @return The number of units of the currency per USD, scaled by Money.RATE_SCALE.
+	* @throws IllegalArgumentException If the table has no rate for the currency.
+	*/
+	public long getRate(String code)
+	{
+		int index = indexOf(code);
+		if (index < 0)
+			throw new IllegalArgumentException("There is no exchange rate for " + code);
+		return rates[index];
+	}
+
+	/**
+	* Get the currency codes the table has rates for.
+	* @return The currency codes, starting with USD.
+	*/
+	public String[] getCodes()
+	{
+		return codes.clone();
+	}
+
+	/**
+	* Check whether another table holds the same rates, whatever its version.
+	* @param other The other table.
+	* @return True if both tables hold the same rate for the same currencies.
+	*/
+	public boolean sameRates(RateTable other)
+	{
+		if (other.codes.length != codes.length)
+			return false;
+		for (int index = 0; index < codes.length; index++)
+			if (other.indexOf(codes[index]) < 0 || other.getRate(codes[index]) != rates[index])
+				return false;
+		return true;
+	}
+
+	/**
+	* Find a currency in the table.
+	* @param code The currency code.
+	* @return The index of the currency, or -1 if it is not held.
+	*/
+	private int indexOf(String code)
+	{
+		for (int index = 0; index < codes.length; index++)
+			if (codes[index].equals(code))
+				return index;
+		return -1;
+	}
+}
@@ -0,0 +1,131 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * 
+ * Stress tests which hammer a single account from many threads at once. They confirm that no deposit is lost and
+ * that concurrent withdrawals never overdraw the account, both for an account holding its own funds and for a view
+ * of an account store.
+ * @author dTorrente
+ *
+ */
+public class AccountConcurrencyTest {
+
+	private static final int THREADS = 16;
+	private static final int OPERATIONS = 20000;
+	
+	/**
+	 * Test method for concurrent deposits. Every thread deposits one cent many times. The final balance must count every deposit.
+	 */
+	@Test
+	public void testConcurrentDepositsAreExact() throws Exception
+	{
+		Account account = new Account ("testFirstName", "testLastName", 5, 0);
+		hammer(account, true);
+		assertEquals("every deposit must be counted", (long) THREADS * OPERATIONS, account.getFunds());
+		
+		Account view = storeAccount(0);
+		hammer(view, true);
+		assertEquals("every deposit to the store must be counted", (long) THREADS * OPERATIONS, view.getFunds());
+	}
+	
+	/**
+	 * Test method for concurrent withdrawals. The threads together try to withdraw far more than the account holds. Exactly as many
+	 * withdrawals as there were cents must succeed and the account must end at zero.
+	 */
+	@Test
+	public void testConcurrentWithdrawalsNeverOverdraw() throws Exception
+	{
+		long funds = OPERATIONS * 3;
+		
+		Account account = new Account ("testFirstName", "testLastName", 5, funds);
+		assertEquals("one withdrawal per cent must succeed", funds, hammer(account, false));
+		assertEquals("account must be empty", 0, account.getFunds());
+		
+		Account view = storeAccount(funds);
+		assertEquals("one withdrawal per cent must succeed from the store", funds, hammer(view, false));
+		assertEquals("store account must be empty", 0, view.getFunds());
+	}
+	
+	/**
+	 * Creates a view of an account held in a store.
+	 * @param funds The funds of the account in cents.
+	 * @return The view.
+	 */
+	private Account storeAccount(long funds) throws AccountDataException
+	{
+		AccountStore store = new AccountStore();
+		return store.view(store.add("testFirstName", "testLastName", 5, funds));
+	}
+	
+	/**
+	 * Starts every thread at once and has each make the same number of one cent deposits or withdrawals.
+	 * @param account The account to change.
+	 * @param deposit True to deposit, false to withdraw.
+	 * @return The number of operations which succeeded.
+	 */
+	private long hammer(final Account account, final boolean deposit) throws Exception
+	{
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		ArrayList<Future<Integer>> results = new ArrayList<Future<Integer>>();
+		try
+		{
+			for (int thread = 0; thread < THREADS; thread++)
+			{
+				results.add(executor.submit(new Callable<Integer>()
+				{
+					public Integer call() throws Exception
+					{
+						start.await();
+						int succeeded = 0;
+						for (int operation = 0; operation < OPERATIONS; operation++)
+						{
+							try
+							{
+								if (deposit)
+									account.depositFunds(1);
+								else
+									account.withdrawFunds(1, Money.RATE_SCALE, true);
+								succeeded++;
+							}
+							catch (AccountDataException adException)
+							{
+								assertTrue("only insufficient funds may be reported", adException.getMessage().startsWith("Insufficient funds"));
+							}
+							assertTrue("funds must never be negative", account.getFunds() >= 0);
+						}
+						return succeeded;
+					}
+				}));
+			}
+			start.countDown();
+			
+			long succeeded = 0;
+			for (Future<Integer> result : results)
+				succeeded += result.get();
+			return succeeded;
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+}
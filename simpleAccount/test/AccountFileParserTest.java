@@ -0,0 +1,126 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import assignment3.simpleAccount.io.AccountFileParser;
+import assignment3.simpleAccount.io.AccountRecordHandler;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountFormatException;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * 
+ * JUnit tests designed to test the account file parser.
+ * @author dTorrente
+ *
+ */
+public class AccountFileParserTest {
+
+	ArrayList<String> records = new ArrayList<String>();
+	
+	/**
+	 * Parses a string as if it were an account file. Each account is recorded in the same form as Account.generateString().
+	 * @param file The contents of the file.
+	 * @return The number of accounts read.
+	 */
+	private int parse(String file) throws IOException, AccountDataException
+	{
+		AccountFileParser parser = new AccountFileParser(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)));
+		return parser.parse(new AccountRecordHandler()
+		{
+			public void accountRecord(String firstName, String lastName, int accountID, long funds)
+			{
+				records.add(firstName + " " + lastName + " " + accountID + " " + Money.toString(funds));
+			}
+		});
+	}
+	
+	/**
+	 * Test method for reading properly formatted accounts. Confirms that blank lines, extra spaces, Windows line endings
+	 * and funds written in scientific notation are accepted, and that funds are read as exact cents.
+	 */
+	@Test
+	public void testParseAccounts() throws IOException, AccountDataException
+	{
+		assertEquals("three accounts must be read", 3, parse("John Smith 12 10.5\r\n\n  Jane\tDoe -7 1.0E7\nJos\u00e9 N\u00fa\u00f1ez 2147483647 0.005"));
+		assertEquals("first account", "John Smith 12 10.50", records.get(0));
+		assertEquals("second account", "Jane Doe -7 10000000.00", records.get(1));
+		assertEquals("third account", "Jos\u00e9 N\u00fa\u00f1ez 2147483647 0.01", records.get(2));
+	}
+	
+	/**
+	 * Test method for malformed accounts. Confirms that the line and column of the problem are reported.
+	 */
+	@Test
+	public void testMalformedLineReportsPosition() throws IOException, AccountDataException
+	{
+		try
+		{
+			parse("John Smith 12 10.5\nJane Doe 1x3 4.0\n");
+			fail("expected AccountFormatException due to a letter in the account ID");
+		}
+		catch(AccountFormatException afException)
+		{
+			assertEquals("problem is on the second line", 2, afException.getLine());
+			assertEquals("problem is at the letter x", 11, afException.getColumn());
+		}
+		
+		try
+		{
+			parse("John Sm1th 12 10.5\n");
+			fail("expected AccountFormatException due to a number in the name");
+		}
+		catch(AccountFormatException afException)
+		{
+			assertEquals("problem is on the first line", 1, afException.getLine());
+			assertEquals("problem is at the number 1", 8, afException.getColumn());
+		}
+		
+		try
+		{
+			parse("John Smith 12\n");
+			fail("expected AccountFormatException due to missing funds");
+		}
+		catch(AccountFormatException afException)
+		{
+			assertEquals("problem is at the end of the line", 14, afException.getColumn());
+		}
+	}
+	
+	/**
+	 * Test method for funds beyond Account.MAX_FUNDS, which must be rejected at the column of the funds however they are written.
+	 */
+	@Test
+	public void testFundsTooLarge() throws IOException, AccountDataException
+	{
+		//funds are read to 18 significant digits, one short of Account.MAX_FUNDS
+		assertEquals("funds just below the largest either way must be read", 2,
+			parse("Max Power 1 46116860184273879.00\nMin Power 2 -4.6116860184273879E16\n"));
+		assertEquals("Max Power 1 46116860184273879.00", records.get(0));
+		assertEquals("Min Power 2 -46116860184273879.00", records.get(1));
+		
+		String[] tooLarge = {"46116860184273880.00", "-46116860184273880", "4.7E16", "92233720368547758.07"};
+		for (String funds : tooLarge)
+		{
+			try
+			{
+				parse("John Smith 12 10.5\nMax Power 1 " + funds + "\n");
+				fail("expected AccountFormatException due to funds of " + funds);
+			}
+			catch(AccountFormatException afException)
+			{
+				assertEquals(funds, 2, afException.getLine());
+				assertEquals(funds, 13, afException.getColumn());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import assignment3.simpleAccount.io.AccountFileWriter;
+import assignment3.simpleAccount.io.FileProgress;
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ *
+ * JUnit tests designed to test writing account files.
+ * @author dTorrente
+ *
+ */
+public class AccountFileWriterTest {
+
+	File file;
+	AccountStore store;
+
+	@Before
+	public void setUp() throws IOException, AccountDataException
+	{
+		file = File.createTempFile("accounts", ".txt");
+		store = new AccountStore();
+		store.add("Ana", "Smith", 7, 1050);
+		store.add("Jos\u00e9", "Garc\u00eda", -3, -7);
+		store.add("Li", "Wong", Integer.MIN_VALUE, 0);
+		store.add("Max", "Power", Integer.MAX_VALUE, Account.MAX_FUNDS);
+	}
+
+	@After
+	public void tearDown()
+	{
+		file.delete();
+	}
+
+	/**
+	 * Test method for each line matching Account.generateString() exactly.
+	 */
+	@Test
+	public void testSameAsGenerateString() throws IOException
+	{
+		AccountFileWriter.write(file, store);
+
+		StringBuilder expected = new StringBuilder();
+		for (int slot = 0; slot < store.size(); slot++)
+			expected.append(store.view(slot).generateString()).append(System.lineSeparator());
+		assertEquals(expected.toString(), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Test method for a save which fails part way. The original file must be left untouched and the temporary file removed.
+	 */
+	@Test
+	public void testOriginalKeptUntilCommit() throws IOException
+	{
+		FileWriter original = new FileWriter(file);
+		original.write("Original Holder 1 1.00\n");
+		original.close();
+
+		AccountFileWriter writer = new AccountFileWriter(file);
+		writer.writeAccount("Ana", "Smith", 7, 1050);
+		writer.close();
+
+		assertEquals("Original Holder 1 1.00\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		assertFalse("the temporary file must be removed", new File(file.getPath() + ".tmp").exists());
+	}
+
+	/**
+	 * Test method for the progress of a save, and for a save cancelled part way, which must leave the original file.
+	 */
+	@Test
+	public void testProgressAndCancel() throws IOException
+	{
+		FileProgress progress = new FileProgress(0);
+		AccountFileWriter.write(file, store, new int[] {0, 1, 2, 3}, progress);
+		byte[] saved = Files.readAllBytes(file.toPath());
+		assertEquals(saved.length, progress.getBytes());
+		assertEquals(4, progress.getRecords());
+
+		FileProgress cancelled = new FileProgress(0);
+		cancelled.cancel();
+		try
+		{
+			AccountFileWriter.write(file, store, new int[] {3, 2, 1, 0}, cancelled);
+			fail("a cancelled save must stop");
+		}
+		catch (InterruptedIOException iioException)
+		{
+			assertEquals(new String(saved, StandardCharsets.UTF_8), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+			assertFalse("the temporary file must be removed", new File(file.getPath() + ".tmp").exists());
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountIdIndex;
+
+/**
+ *
+ * JUnit tests designed to test the index from account IDs to slots.
+ * @author dTorrente
+ *
+ */
+public class AccountIdIndexTest {
+
+	/**
+	 * Test method for adding accounts, including IDs of 0, negative IDs and an ID which is already present.
+	 */
+	@Test
+	public void testPutAndGet()
+	{
+		AccountIdIndex index = new AccountIdIndex();
+		assertTrue(index.putIfAbsent(0, 7));
+		assertTrue(index.putIfAbsent(-1, 8));
+		assertTrue(index.putIfAbsent(Integer.MIN_VALUE, 9));
+		assertFalse("the ID is already present", index.putIfAbsent(0, 10));
+		assertEquals(7, index.get(0));
+		assertEquals(8, index.get(-1));
+		assertEquals(9, index.get(Integer.MIN_VALUE));
+		assertEquals(AccountIdIndex.NOT_FOUND, index.get(1));
+		assertEquals(3, index.size());
+
+		try
+		{
+			index.putIfAbsent(1, -1);
+			fail("a slot can not be negative");
+		}
+		catch (IllegalArgumentException iaException)
+		{
+		}
+	}
+
+	/**
+	 * Test method for removing accounts whose probe sequences wrap around the end of the table, which must move the
+	 * entries after them back so that every one can still be found.
+	 */
+	@Test
+	public void testRemoveWrapsAround()
+	{
+		//four IDs whose home is the last position of a table of 16, so that three of them wrap around to the start
+		int[] lastPosition = findIDs(15, 4);
+		//and one whose home is the first position, which they push along
+		int firstPosition = findIDs(0, 1)[0];
+
+		AccountIdIndex index = new AccountIdIndex(4);
+		for (int id = 0; id < lastPosition.length; id++)
+			assertTrue(index.putIfAbsent(lastPosition[id], id));
+		assertTrue(index.putIfAbsent(firstPosition, 4));
+
+		assertEquals(0, index.remove(lastPosition[0]));
+		assertEquals(AccountIdIndex.NOT_FOUND, index.remove(lastPosition[0]));
+		for (int id = 1; id < lastPosition.length; id++)
+			assertEquals(id, index.get(lastPosition[id]));
+		assertEquals(4, index.get(firstPosition));
+
+		assertEquals(2, index.remove(lastPosition[2]));
+		assertEquals(1, index.get(lastPosition[1]));
+		assertEquals(3, index.get(lastPosition[3]));
+		assertEquals(4, index.get(firstPosition));
+		assertEquals(3, index.size());
+	}
+
+	/**
+	 * Test method for many adds and removes in a small table, checked against a HashMap after every one.
+	 */
+	@Test
+	public void testAgainstHashMap()
+	{
+		Random random = new Random(4);
+		AccountIdIndex index = new AccountIdIndex();
+		Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+		for (int operation = 0; operation < 200000; operation++)
+		{
+			//a narrow range of IDs keeps the table small and full of collisions
+			int accountID = random.nextInt(40) - 20;
+			if (random.nextInt(3) == 0)
+			{
+				Integer removed = expected.remove(accountID);
+				assertEquals(removed == null ? AccountIdIndex.NOT_FOUND : removed.intValue(), index.remove(accountID));
+			}
+			else
+			{
+				boolean absent = !expected.containsKey(accountID);
+				assertEquals(absent, index.putIfAbsent(accountID, operation));
+				if (absent)
+					expected.put(accountID, operation);
+			}
+			assertEquals(expected.size(), index.size());
+			for (int id = -20; id < 20; id++)
+			{
+				Integer slot = expected.get(id);
+				assertEquals(slot == null ? AccountIdIndex.NOT_FOUND : slot.intValue(), index.get(id));
+			}
+		}
+	}
+
+	/**
+	 * Test method for growing the table, which must keep every account, and for clearing it.
+	 */
+	@Test
+	public void testRehash()
+	{
+		AccountIdIndex index = new AccountIdIndex();
+		for (int slot = 0; slot < 100000; slot++)
+			assertTrue(index.putIfAbsent(slot * 3 - 150000, slot));
+		index.ensureCapacity(300000);
+		for (int slot = 0; slot < 100000; slot++)
+			assertEquals(slot, index.get(slot * 3 - 150000));
+		for (int slot = 0; slot < 100000; slot += 2)
+			assertEquals(slot, index.remove(slot * 3 - 150000));
+		for (int slot = 0; slot < 100000; slot++)
+			assertEquals(slot % 2 == 0 ? AccountIdIndex.NOT_FOUND : slot, index.get(slot * 3 - 150000));
+		assertEquals(50000, index.size());
+
+		index.clear();
+		assertEquals(0, index.size());
+		assertEquals(AccountIdIndex.NOT_FOUND, index.get(-149997));
+	}
+
+	/**
+	 * Test method for changing the ID of an account in a store, which must move it in the index.
+	 */
+	@Test
+	public void testChangeAccountID() throws AccountDataException
+	{
+		AccountStore store = new AccountStore();
+		for (int account = 0; account < 100; account++)
+			store.add("First", "Last", account, account);
+
+		store.setAccountID(10, 1000);
+		assertEquals(10, store.find(1000));
+		assertEquals(-1, store.find(10));
+		store.setAccountID(10, 1000);
+		assertEquals(10, store.find(1000));
+
+		try
+		{
+			store.setAccountID(11, 1000);
+			fail("the ID is already in use");
+		}
+		catch (IllegalArgumentException iaException)
+		{
+			assertEquals(11, store.find(11));
+			assertEquals(10, store.find(1000));
+		}
+		try
+		{
+			store.add("First", "Last", 1000, 0);
+			fail("the ID is already in use");
+		}
+		catch (AccountDataException adException)
+		{
+		}
+		assertEquals(100, store.add("First", "Last", 10, 0));
+		assertEquals(100, store.find(10));
+	}
+
+	/**
+	 * Find account IDs whose home position in a table of 16 is the one given. Uses the same mix as AccountIdIndex.
+	 * @param position The home position.
+	 * @param count The number of IDs to find.
+	 * @return The IDs.
+	 */
+	private static int[] findIDs(int position, int count)
+	{
+		int[] found = new int[count];
+		int next = 0;
+		for (int accountID = 1; next < count; accountID++)
+		{
+			int mixed = accountID * 0x9E3779B9;
+			if (((mixed ^ (mixed >>> 16)) & 15) == position)
+				found[next++] = accountID;
+		}
+		return found;
+	}
+}
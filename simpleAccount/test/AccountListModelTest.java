@@ -0,0 +1,99 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountOrder;
+import assignment3.simpleAccount.view.AccountListModel;
+
+/**
+ *
+ * JUnit tests designed to test the comboBox model which reads accounts straight from the account store.
+ * @author dTorrente
+ *
+ */
+public class AccountListModelTest {
+
+	Account placeholder;
+	AccountStore store;
+	AccountListModel model;
+
+	@Before
+	public void setUp() throws AccountDataException
+	{
+		placeholder = new Account("No", "accounts", 0, 0);
+		store = new AccountStore();
+		store.add("Cara", "Jones", 30, 0);
+		store.add("Ann", "Smith", -5, 0);
+		store.add("Bob", "Brown", 12, 0);
+		model = new AccountListModel(placeholder);
+	}
+
+	/**
+	 * Test method for the placeholder being the only row of an empty model.
+	 */
+	@Test
+	public void testEmpty()
+	{
+		assertEquals(1, model.getSize());
+		assertSame(placeholder, model.getElementAt(0));
+		assertSame(placeholder, model.getSelectedItem());
+		assertEquals(0, model.indexOf(placeholder));
+	}
+
+	/**
+	 * Test method for rows listed in order of account ID, with the first selected.
+	 */
+	@Test
+	public void testRowsInOrder()
+	{
+		model.setAccounts(store, AccountOrder.sortedSlots(store));
+		assertEquals(3, model.getSize());
+		assertEquals(-5, model.getElementAt(0).getAccountID());
+		assertEquals(12, model.getElementAt(1).getAccountID());
+		assertEquals(30, model.getElementAt(2).getAccountID());
+		assertEquals(-5, ((Account) model.getSelectedItem()).getAccountID());
+		assertEquals(-1, model.indexOf(placeholder));
+	}
+
+	/**
+	 * Test method for the cached text of rows matching toString(), including rows which share a cache entry.
+	 */
+	@Test
+	public void testLabels() throws AccountDataException
+	{
+		for (int accountID = 100; accountID < 1100; accountID++)
+			store.add("First", "Last", accountID, 0);
+		model.setAccounts(store, AccountOrder.sortedSlots(store));
+		for (int pass = 0; pass < 2; pass++)
+		{
+			for (int row = 0; row < model.getSize(); row++)
+				assertEquals(model.getElementAt(row).toString(), model.getLabel(row));
+		}
+	}
+
+	/**
+	 * Test method for finding the row of an account and inserting an account added to the store.
+	 */
+	@Test
+	public void testIndexOfAndInsert() throws AccountDataException
+	{
+		model.setAccounts(store, AccountOrder.sortedSlots(store));
+		assertEquals("the label of row 1 must be cached before the insert", "12 (Bob Brown)", model.getLabel(1));
+		assertEquals(2, model.indexOf(store.view(store.find(30))));
+
+		store.add("Dan", "Green", 7, 0);
+		model.insertAccount(store.view(store.find(7)));
+		assertEquals(4, model.getSize());
+		assertEquals(1, model.indexOf(store.view(store.find(7))));
+		assertEquals(3, model.indexOf(store.view(store.find(30))));
+		assertEquals("7 (Dan Green)", model.getLabel(1));
+		assertEquals(-1, model.indexOf(new Account("Not", "Listed", 8, 0)));
+	}
+}
@@ -0,0 +1,127 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.util.AccountOrder;
+
+/**
+ *
+ * JUnit tests designed to test keeping accounts sorted by account ID.
+ * @author dTorrente
+ *
+ */
+public class AccountOrderTest {
+
+	/**
+	 * Builds a list of accounts with the given IDs.
+	 * @param accountIDs The account IDs, in list order.
+	 * @return The list of accounts.
+	 */
+	private Vector<Account> accounts(int... accountIDs)
+	{
+		Vector<Account> accounts = new Vector<Account>();
+		for (int accountID : accountIDs)
+			accounts.add(new Account("first", "last", accountID, 0));
+		return accounts;
+	}
+
+	/**
+	 * Test method for sorting a small list, which is sorted with AccountComparator. The extreme account IDs are far enough
+	 * apart that subtracting them overflows.
+	 */
+	@Test
+	public void testSmallSort()
+	{
+		Vector<Account> accounts = accounts(5, Integer.MAX_VALUE, -2, Integer.MIN_VALUE, 9, 0, 3);
+		assertFalse(AccountOrder.isSorted(accounts));
+		AccountOrder.sort(accounts);
+		assertTrue(AccountOrder.isSorted(accounts));
+		assertEquals(Integer.MIN_VALUE, accounts.get(0).getAccountID());
+		assertEquals(-2, accounts.get(1).getAccountID());
+		assertEquals(Integer.MAX_VALUE, accounts.get(6).getAccountID());
+	}
+
+	/**
+	 * Test method for sorting a large list by radix, including the extreme account IDs. The result must match
+	 * the accounts sorted one by one with insert().
+	 */
+	@Test
+	public void testRadixSort()
+	{
+		Random random = new Random(13);
+		Vector<Account> accounts = accounts(Integer.MAX_VALUE, Integer.MIN_VALUE, 0, -1);
+		for (int index = 0; index < 3 * AccountOrder.RADIX_SORT_THRESHOLD; index++)
+			accounts.add(new Account("first", "last", random.nextInt(), 0));
+
+		Vector<Account> inserted = new Vector<Account>();
+		for (Account account : accounts)
+			AccountOrder.insert(inserted, account);
+		AccountOrder.sort(accounts);
+
+		assertEquals(inserted.size(), accounts.size());
+		for (int index = 0; index < accounts.size(); index++)
+			assertSame(inserted.get(index), accounts.get(index));
+		assertEquals(Integer.MIN_VALUE, accounts.firstElement().getAccountID());
+		assertEquals(Integer.MAX_VALUE, accounts.lastElement().getAccountID());
+	}
+
+	/**
+	 * Test method for sorting an ID column in parallel, including the extreme account IDs and repeated IDs. The order
+	 * must match the radix sort's, which keeps equal IDs in their original order.
+	 */
+	@Test
+	public void testParallelSortedOrder()
+	{
+		Random random = new Random(17);
+		int size = AccountOrder.PARALLEL_SORT_THRESHOLD + 5;
+		int[] accountIDs = new int[size];
+		for (int index = 0; index < size; index++)
+			accountIDs[index] = random.nextInt(size / 2) - size / 4;
+		accountIDs[3] = Integer.MAX_VALUE;
+		accountIDs[size - 1] = Integer.MIN_VALUE;
+		int[] unchanged = accountIDs.clone();
+
+		int[] parallel = AccountOrder.parallelSortedOrder(accountIDs, size);
+		assertArrayEquals("the column must not be changed", unchanged, accountIDs);
+		assertEquals(size - 1, parallel[0]);
+		assertEquals(3, parallel[size - 1]);
+		assertArrayEquals(AccountOrder.radixSortedOrder(accountIDs, size), parallel);
+		assertArrayEquals(parallel, AccountOrder.sortedOrder(accountIDs, size));
+	}
+
+	/**
+	 * Test method for a sorted list being left as it is.
+	 */
+	@Test
+	public void testAlreadySorted()
+	{
+		Vector<Account> accounts = accounts(1, 2, 2, 7);
+		Account first = accounts.get(1);
+		assertTrue(AccountOrder.isSorted(accounts));
+		AccountOrder.sort(accounts);
+		assertSame("equal IDs must keep their order", first, accounts.get(1));
+	}
+
+	/**
+	 * Test method for inserting into a sorted list.
+	 */
+	@Test
+	public void testInsert()
+	{
+		Vector<Account> accounts = accounts(1, 4, 8);
+		assertEquals(0, AccountOrder.insert(accounts, new Account("first", "last", 0, 0)));
+		assertEquals(2, AccountOrder.insert(accounts, new Account("first", "last", 3, 0)));
+		assertEquals(5, AccountOrder.insert(accounts, new Account("first", "last", 9, 0)));
+		assertTrue(AccountOrder.isSorted(accounts));
+	}
+}
@@ -0,0 +1,126 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import assignment3.simpleAccount.model.AccountSearchIndex;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountOrder;
+
+/**
+ *
+ * JUnit tests designed to test finding accounts by a prefix of a name or account ID.
+ * @author dTorrente
+ *
+ */
+public class AccountSearchIndexTest {
+
+	AccountStore store;
+	AccountSearchIndex index;
+
+	@Before
+	public void setUp() throws AccountDataException
+	{
+		store = new AccountStore();
+		store.add("Ann", "Smith", 120, 0);
+		store.add("Smitty", "Jones", 12, 0);
+		store.add("Bob", "Smalls", 1299, 0);
+		store.add("Ann", "Anders", -12, 0);
+		store.add("Cara", "Brown", 13, 0);
+		store.add("Sam", "Sam", 2147483647, 0);
+		index = new AccountSearchIndex(store, AccountOrder.sortedSlots(store));
+		assertTrue(index.update());
+	}
+
+	/**
+	 * Finds the IDs of the accounts matching a query.
+	 * @param query The query.
+	 * @return The account IDs, in the order found.
+	 */
+	private int[] search(String query)
+	{
+		int[] slots = index.search(query, 100);
+		int[] accountIDs = new int[slots.length];
+		for (int position = 0; position < slots.length; position++)
+			accountIDs[position] = store.getAccountID(slots[position]);
+		return accountIDs;
+	}
+
+	/**
+	 * Test method for a prefix of first or last names, ignoring case. An account matching through both names is found once.
+	 */
+	@Test
+	public void testNamePrefix()
+	{
+		assertArrayEquals(new int[] {12, 120, 1299}, search("sm"));
+		assertArrayEquals(new int[] {-12, 120}, search("AN"));
+		assertArrayEquals(new int[] {2147483647}, search("sam"));
+		assertArrayEquals(new int[0], search("zed"));
+	}
+
+	/**
+	 * Test method for a prefix of account IDs, including negative IDs and the largest ID.
+	 */
+	@Test
+	public void testIDPrefix()
+	{
+		assertArrayEquals(new int[] {12, 120, 1299}, search("12"));
+		assertArrayEquals(new int[] {12, 13, 120, 1299}, search("1"));
+		assertArrayEquals(new int[] {-12}, search("-1"));
+		assertArrayEquals(new int[] {2147483647}, search("2147483647"));
+		assertArrayEquals(new int[0], search("012"));
+	}
+
+	/**
+	 * Test method for a query of several words, each of which must match.
+	 */
+	@Test
+	public void testSeveralWords()
+	{
+		assertArrayEquals(new int[] {120}, search("ann sm"));
+		assertArrayEquals(new int[] {120}, search("12 ann"));
+		assertArrayEquals(new int[0], search("cara smith"));
+	}
+
+	/**
+	 * Test method for the limit on accounts found and for accounts added after the index was first built.
+	 */
+	@Test
+	public void testLimitAndUpdate() throws AccountDataException
+	{
+		assertEquals(2, index.search("sm", 2).length);
+
+		store.add("Smeagol", "Gollum", 777, 0);
+		assertArrayEquals("accounts added are found by ID before the index is updated", new int[] {777}, search("77"));
+		assertTrue(index.update());
+		assertEquals(7, index.getIndexed());
+		assertArrayEquals(new int[] {12, 120, 777, 1299}, search("sm"));
+	}
+
+	/**
+	 * Test method for an update interrupted before it could index anything.
+	 */
+	@Test
+	public void testInterruptedUpdate() throws AccountDataException
+	{
+		AccountSearchIndex fresh = new AccountSearchIndex(store, AccountOrder.sortedSlots(store));
+		Thread.currentThread().interrupt();
+		try
+		{
+			assertFalse(fresh.update());
+			assertEquals(0, fresh.getIndexed());
+		}
+		finally
+		{
+			Thread.interrupted();
+		}
+		assertTrue(fresh.update());
+		assertArrayEquals(index.search("sm", 100), fresh.search("sm", 100));
+	}
+}
@@ -0,0 +1,174 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountSnapshot;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ *
+ * JUnit tests designed to test writing and mapping account snapshots.
+ * @author dTorrente
+ *
+ */
+public class AccountSnapshotTest {
+
+	File snapshot;
+	AccountStore store;
+
+	/**
+	 * Writes a snapshot of three accounts, two of which share a last name.
+	 */
+	@Before
+	public void setUp() throws IOException, AccountDataException
+	{
+		snapshot = File.createTempFile("accounts", AccountSnapshot.FILE_EXTENSION);
+		store = new AccountStore();
+		store.add("Ana", "Smith", 7, 1050);
+		store.add("Jos\u00e9", "Smith", -3, -7);
+		store.add("Li", "Wong", 12, Account.MAX_FUNDS);
+		AccountSnapshot.write(store, 42, snapshot);
+	}
+
+	@After
+	public void tearDown()
+	{
+		snapshot.delete();
+	}
+
+	/**
+	 * Test method for a snapshot holding exactly what was written.
+	 */
+	@Test
+	public void testRoundTrip() throws IOException, AccountDataException
+	{
+		assertTrue("a snapshot must be recognized", AccountSnapshot.isSnapshot(snapshot));
+		AccountSnapshot opened = AccountSnapshot.open(snapshot);
+		AccountStore mapped = opened.getStore();
+
+		assertEquals("the sequence number must be kept", 42, opened.getSequence());
+		assertEquals("every account must be kept", 3, mapped.size());
+		assertEquals("names are dictionary encoded", 5, mapped.getNameCount());
+		for (int slot = 0; slot < store.size(); slot++)
+		{
+			assertEquals(store.view(slot).generateString(), mapped.view(slot).generateString());
+			assertEquals("the index must be rebuilt", slot, mapped.find(store.getAccountID(slot)));
+		}
+	}
+
+	/**
+	 * Test method for changing a mapped store. Changes must not reach the file until it is saved again.
+	 */
+	@Test
+	public void testChangesAreNotWrittenBack() throws IOException, AccountDataException
+	{
+		AccountStore mapped = AccountSnapshot.open(snapshot).getStore();
+		assertTrue(mapped.compareAndSetCents(0, 1050, 2000));
+		assertFalse("a stale value must not be set", mapped.compareAndSetCents(0, 1050, 3000));
+		mapped.setLastName(1, "Garc\u00eda");
+		assertEquals(2000, mapped.getCents(0));
+		assertEquals("Garc\u00eda", mapped.getLastName(1));
+
+		assertEquals("the file must be unchanged", 1050, AccountSnapshot.open(snapshot).getStore().getCents(0));
+
+		//saving over the mapped file must leave the mapping usable
+		AccountSnapshot.write(mapped, 43, snapshot);
+		assertEquals(2000, mapped.getCents(0));
+		AccountStore reopened = AccountSnapshot.open(snapshot).getStore();
+		assertEquals(2000, reopened.getCents(0));
+		assertEquals("Garc\u00eda", reopened.getLastName(1));
+	}
+
+	/**
+	 * Test method for adding accounts to a mapped store, which copies it onto the heap.
+	 */
+	@Test
+	public void testAddToMappedStore() throws IOException, AccountDataException
+	{
+		AccountStore mapped = AccountSnapshot.open(snapshot).getStore();
+		assertEquals(3, mapped.add("Ana", "Wong", 99, 1));
+		assertEquals(4, mapped.size());
+		assertEquals("existing names must be reused", 5, mapped.getNameCount());
+		assertEquals("Jos\u00e9 Smith -3 -0.07", mapped.view(1).generateString());
+		assertEquals("Ana Wong 99 0.01", mapped.view(3).generateString());
+
+		try
+		{
+			mapped.add("Li", "Wong", 12, 0);
+			fail("a duplicate account ID must be rejected");
+		}
+		catch (AccountDataException adException)
+		{
+			assertEquals("Account ID 12 is already in use.", adException.getMessage());
+		}
+	}
+
+	/**
+	 * Test method for closing a snapshot which is not going to be used, which empties its store.
+	 */
+	@Test
+	public void testClose() throws IOException, AccountDataException
+	{
+		AccountSnapshot opened = AccountSnapshot.open(snapshot);
+		AccountStore mapped = opened.getStore();
+		opened.close();
+		assertEquals(0, mapped.size());
+		assertEquals(-1, mapped.find(7));
+		assertEquals(0, mapped.add("Ana", "Wong", 7, 1));
+		assertEquals("Ana Wong 7 0.01", mapped.view(0).generateString());
+	}
+
+	/**
+	 * Test method for opening a snapshot holding an account with more than Account.MAX_FUNDS, which must be rejected.
+	 */
+	@Test
+	public void testFundsTooLarge() throws IOException, AccountDataException
+	{
+		store.setCents(2, Account.MAX_FUNDS + 1);
+		AccountSnapshot.write(store, 43, snapshot);
+		try
+		{
+			AccountSnapshot.open(snapshot);
+			fail("expected AccountDataException due to funds above the most an account may hold");
+		}
+		catch (AccountDataException adException)
+		{
+			assertEquals("The funds of account ID 12 are too large.", adException.getMessage());
+		}
+	}
+
+	/**
+	 * Test method for opening a file which is not a snapshot.
+	 */
+	@Test
+	public void testTextFileIsNotSnapshot() throws IOException
+	{
+		FileWriter writer = new FileWriter(snapshot);
+		writer.write("Ana Smith 7 10.50\n");
+		writer.close();
+
+		assertFalse(AccountSnapshot.isSnapshot(snapshot));
+		try
+		{
+			AccountSnapshot.open(snapshot);
+			fail("a text file must not open as a snapshot");
+		}
+		catch (AccountDataException adException)
+		{
+			assertTrue(adException.getMessage().endsWith("is not an account snapshot."));
+		}
+	}
+}
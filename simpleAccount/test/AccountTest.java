@@ -9,6 +9,7 @@ import org.junit.Test;
 
 import assignment3.simpleAccount.model.Account;
 import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.Money;
 
 /**
  * 
@@ -29,8 +30,8 @@ public class AccountTest {
 	@Test
 	public void testAccountConstruction() 
 	{
-		account = new Account ("testFirstName", "testLastName", 5, 10);
-		assertEquals("initial funds must be 10", 10, account.getFunds(), 0.00);
+		account = new Account ("testFirstName", "testLastName", 5, 1000);
+		assertEquals("initial funds must be 10.00", 1000, account.getFunds());
 		assertEquals("first name must be testFirstName", "testFirstName", account.getFirstName());
 		assertEquals("first name must be testFirstName", "testLastName", account.getLastName());
 	}
@@ -41,11 +42,11 @@ public class AccountTest {
 	@Test
 	public void testWithdrawFunds() 
 	{
-		account = new Account ("testFirstName", "testLastName", 5, 10);
+		account = new Account ("testFirstName", "testLastName", 5, 1000);
 		try
 		{
-			account.withdrawFunds(5, 1, true);
-			assertEquals("10 minus 5 must equal 5", 5, account.getFunds(), 0.00);
+			account.withdrawFunds(500, Money.RATE_SCALE, true);
+			assertEquals("10.00 minus 5.00 must equal 5.00", 500, account.getFunds());
 		}
 		catch(AccountDataException adException)
 		{
@@ -60,10 +61,10 @@ public class AccountTest {
 	@Test
 	public void testWithdrawFundsException() 
 	{
-		account = new Account ("testFirstName", "testLastName", 5, 10);
+		account = new Account ("testFirstName", "testLastName", 5, 1000);
 		try
 		{
-			account.withdrawFunds(-5, 1, true);
+			account.withdrawFunds(-500, Money.RATE_SCALE, true);
 			fail("expected AccountDateException due to witdrawing negative funds");
 		}
 		catch(AccountDataException adException)
@@ -0,0 +1,123 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import assignment3.simpleAccount.engine.BalanceReport;
+import assignment3.simpleAccount.io.BalanceReportWriter;
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.model.CurrencyRates;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ *
+ * JUnit tests designed to test reporting balances in several currencies.
+ * @author dTorrente
+ *
+ */
+public class BalanceReportTest {
+
+	/**
+	 * Works out a report with a pool of a given size.
+	 * @param store The store to report on.
+	 * @param threads The number of threads.
+	 * @param topCount The number of largest accounts to list.
+	 * @return The report.
+	 */
+	private BalanceReport report(AccountStore store, int threads, int topCount)
+	{
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try
+		{
+			return BalanceReport.compute(store, store.copyCents(), CurrencyRates.DEFAULT_RATES, topCount, pool);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test method for a report split over many ranges, which must match totals added up one account at a time, and must
+	 * be the same whatever the number of threads.
+	 */
+	@Test
+	public void testExactAndSameForAnyThreads() throws AccountDataException
+	{
+		AccountStore store = new AccountStore();
+		Random random = new Random(20);
+		for (int account = 0; account < 150000; account++)
+			store.add("First", "Last", account, random.nextLong() >> (1 + random.nextInt(63)));
+		store.add("Max", "Power", -1, Account.MAX_FUNDS);
+		store.add("Max", "Power", -2, Account.MAX_FUNDS);
+
+		BalanceReport one = report(store, 1, 5);
+		BalanceReport four = report(store, 4, 5);
+		String[] currencies = one.getCurrencies();
+		for (int currency = 0; currency < currencies.length; currency++)
+		{
+			BigInteger expected = BigInteger.ZERO;
+			long rate = CurrencyRates.DEFAULT_RATES.getRate(currencies[currency]);
+			for (int slot = 0; slot < store.size(); slot++)
+				expected = expected.add(BalanceReport.convertExact(store.getCents(slot), rate));
+			assertEquals(currencies[currency], expected, one.getTotal(currency));
+			assertEquals(currencies[currency], expected, four.getTotal(currency));
+			assertArrayEquals(one.getHistogram(currency), four.getHistogram(currency));
+
+			long counted = 0;
+			for (long count : one.getHistogram(currency))
+				counted += count;
+			assertEquals(store.size(), counted);
+		}
+		assertArrayEquals(one.getTopSlots(), four.getTopSlots());
+		assertEquals("equal balances are listed by account ID", -2, store.getAccountID(one.getTopSlots()[0]));
+		assertEquals(-1, store.getAccountID(one.getTopSlots()[1]));
+	}
+
+	/**
+	 * Test method for the CSV and JSON output of a small report.
+	 */
+	@Test
+	public void testOutput() throws Exception
+	{
+		AccountStore store = new AccountStore();
+		store.add("Ann", "Smith", 2, 1000);
+		store.add("Bob", "Jones", 1, -50);
+		store.add("Cara", "Brown", 3, 0);
+		BalanceReport report = report(store, 2, 2);
+		assertEquals(BigInteger.valueOf(Money.toForeign(1000, Money.parseRate("0.94")) + Money.toForeign(-50, Money.parseRate("0.94"))),
+			report.getTotal(1));
+
+		BalanceReportWriter writer = new BalanceReportWriter(report);
+		StringWriter balances = new StringWriter();
+		writer.writeBalancesCsv(balances, new int[] {1, 0, 2});
+		assertEquals("accountID,firstName,lastName,USD,EUR,CNY\n"
+			+ "1,Bob,Jones,-0.50,-0.47,-3.46\n"
+			+ "2,Ann,Smith,10.00,9.40,69.10\n"
+			+ "3,Cara,Brown,0.00,0.00,0.00\n", balances.toString());
+
+		StringWriter summary = new StringWriter();
+		writer.writeSummaryCsv(summary);
+		String[] lines = summary.toString().split("\n");
+		assertEquals("total,USD,,,,3,9.50", lines[1]);
+		assertEquals("histogram,USD,,,negative,1,", lines[2]);
+		assertEquals("top,USD,1,2,,,10.00", lines[2 + BalanceReport.BUCKETS]);
+		assertEquals("top,USD,2,3,,,0.00", lines[3 + BalanceReport.BUCKETS]);
+
+		StringWriter json = new StringWriter();
+		writer.writeJson(json, new int[] {0});
+		String document = json.toString();
+		assertEquals(0, document.indexOf("{\"rateVersion\":0,\"accounts\":3,\"currencies\":[{\"code\":\"USD\",\"rate\":1.0000,\"total\":9.50,"));
+		assertTrue(document.endsWith(",\"balances\":[\n{\"accountID\":2,\"firstName\":\"Ann\",\"lastName\":\"Smith\",\"USD\":10.00,\"EUR\":9.40,\"CNY\":69.10}]}\n"));
+	}
+}
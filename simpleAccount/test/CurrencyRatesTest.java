@@ -0,0 +1,128 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import assignment3.simpleAccount.io.FileRateProvider;
+import assignment3.simpleAccount.model.CurrencyRates;
+import assignment3.simpleAccount.model.RateTable;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ *
+ * JUnit tests designed to test refreshing exchange rates from a file.
+ * @author dTorrente
+ *
+ */
+public class CurrencyRatesTest {
+
+	File file;
+	CurrencyRates rates;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		file = File.createTempFile("rates", ".txt");
+		file.delete();
+		rates = new CurrencyRates(new FileRateProvider(file));
+	}
+
+	@After
+	public void tearDown()
+	{
+		rates.stop();
+		file.delete();
+	}
+
+	/**
+	 * Writes the rates file, making sure it looks changed to the provider.
+	 * @param contents The contents of the file.
+	 */
+	private void write(String contents) throws IOException
+	{
+		long before = file.exists() ? file.lastModified() : 0;
+		FileWriter writer = new FileWriter(file);
+		writer.write(contents);
+		writer.close();
+		file.setLastModified(before + 2000);
+	}
+
+	/**
+	 * Test method for the default rates, used while there is no rates file.
+	 */
+	@Test
+	public void testDefaults() throws IOException
+	{
+		assertFalse(rates.refresh());
+		RateTable table = rates.getTable();
+		assertSame(CurrencyRates.DEFAULT_RATES, table);
+		assertEquals(Money.RATE_SCALE, table.getRate(RateTable.USD));
+		assertEquals(Money.parseRate("0.94"), table.getRate("EUR"));
+		assertEquals(Money.parseRate("6.91"), table.getRate("CNY"));
+	}
+
+	/**
+	 * Test method for new rates read from the file, published as a new version, and for a file which has not changed.
+	 */
+	@Test
+	public void testRefresh() throws IOException
+	{
+		final AtomicInteger changes = new AtomicInteger();
+		rates.addChangeListener(new Runnable()
+		{
+			public void run()
+			{
+				changes.incrementAndGet();
+			}
+		});
+		RateTable before = rates.getTable();
+
+		write("# rates per USD\nEUR 0.95\ngbp=0.79\nUSD 2\n");
+		assertTrue(rates.refresh());
+		RateTable after = rates.getTable();
+		assertEquals(before.getVersion() + 1, after.getVersion());
+		assertEquals(Money.parseRate("0.95"), after.getRate("EUR"));
+		assertEquals(Money.parseRate("0.79"), after.getRate("GBP"));
+		assertEquals("a currency missing from the file keeps its rate", Money.parseRate("6.91"), after.getRate("CNY"));
+		assertEquals("USD always converts to itself", Money.RATE_SCALE, after.getRate(RateTable.USD));
+		assertEquals("a table is never changed once published", Money.parseRate("0.94"), before.getRate("EUR"));
+
+		assertFalse(rates.refresh());
+		assertSame(after, rates.getTable());
+		assertEquals(1, changes.get());
+	}
+
+	/**
+	 * Test method for a rates file holding a rate which is not valid. The rates in use must be kept.
+	 */
+	@Test
+	public void testBadRateKeepsTable() throws IOException
+	{
+		write("EUR 0.95\n");
+		rates.refresh();
+		RateTable good = rates.getTable();
+
+		write("EUR 0\n");
+		try
+		{
+			rates.refresh();
+			fail("a rate of zero must be rejected");
+		}
+		catch (IOException ioException)
+		{
+			assertSame(good, rates.getTable());
+		}
+	}
+}
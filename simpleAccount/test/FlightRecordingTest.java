@@ -0,0 +1,120 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import assignment3.simpleAccount.io.AccountFileWriter;
+import assignment3.simpleAccount.io.FileProgress;
+import assignment3.simpleAccount.io.ParallelAccountLoader;
+import assignment3.simpleAccount.metrics.AccountLoadEvent;
+import assignment3.simpleAccount.metrics.AccountSaveEvent;
+import assignment3.simpleAccount.metrics.FlightRecordingSummary;
+import assignment3.simpleAccount.model.AccountStore;
+
+import jdk.jfr.Recording;
+
+/**
+ *
+ * JUnit tests designed to test recording account file events and summarising them.
+ * @author dTorrente
+ *
+ */
+public class FlightRecordingTest {
+
+	/**
+	 * Test method for a recording of a save, a cancelled save and a load, summarised per phase.
+	 */
+	@Test
+	public void testRecordAndSummarise() throws Exception
+	{
+		AccountStore store = new AccountStore();
+		for (int account = 1; account <= 1000; account++)
+			store.add("First", "Last", account, account * 100L);
+		File file = File.createTempFile("accounts", ".txt");
+		File recordingFile = File.createTempFile("accounts", ".jfr");
+
+		Recording recording = new Recording();
+		try
+		{
+			recording.enable(AccountLoadEvent.class);
+			recording.enable(AccountSaveEvent.class);
+			recording.start();
+
+			AccountFileWriter.write(file, store);
+			FileProgress cancelled = new FileProgress(0);
+			cancelled.cancel();
+			try
+			{
+				AccountFileWriter.write(file, store, new int[] {0, 1}, cancelled);
+				fail("the save was cancelled");
+			}
+			catch (InterruptedIOException iioException)
+			{
+			}
+			new ParallelAccountLoader().load(file, new AccountStore());
+
+			recording.stop();
+			recording.dump(recordingFile.toPath());
+		}
+		finally
+		{
+			recording.close();
+			file.delete();
+		}
+
+		try
+		{
+			FlightRecordingSummary summary = FlightRecordingSummary.read(recordingFile.toPath());
+			FlightRecordingSummary.Phase load = summary.getPhase("AccountLoad");
+			assertEquals(1, load.getDurations().getCount());
+			assertEquals(1000, load.getTotal("records"));
+			assertTrue(load.getTotal("bytes") > 0);
+			assertEquals(load.getTotal("bytes"), summary.getPhase("AccountSave").getTotal("bytes"));
+
+			FlightRecordingSummary.Phase save = summary.getPhase("AccountSave");
+			assertEquals("the cancelled save is recorded too", 2, save.getDurations().getCount());
+			assertEquals(1000, save.getTotal("records"));
+			assertTrue(save.getTotalNanos() > 0);
+			assertNull(summary.getPhase("EditViewNotify"));
+
+			ByteArrayOutputStream table = new ByteArrayOutputStream();
+			summary.print(new PrintStream(table, true, "UTF-8"));
+			String[] lines = new String(table.toByteArray(), StandardCharsets.UTF_8).split("\n");
+			assertEquals(3, lines.length);
+			assertTrue(lines[0].startsWith("phase "));
+			assertTrue(lines[1] + lines[2], (lines[1] + lines[2]).contains("Account File Load "));
+		}
+		finally
+		{
+			recordingFile.delete();
+		}
+	}
+
+	/**
+	 * Test method for a file which is not a recording.
+	 */
+	@Test(expected = IOException.class)
+	public void testNotARecording() throws Exception
+	{
+		File file = File.createTempFile("accounts", ".jfr");
+		try
+		{
+			FlightRecordingSummary.read(file.toPath());
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+}
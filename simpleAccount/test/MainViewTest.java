@@ -0,0 +1,76 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeFalse;
+
+import java.awt.GraphicsEnvironment;
+
+import javax.swing.JComboBox;
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.AccountOrder;
+import assignment3.simpleAccount.view.MainView;
+
+/**
+ *
+ * JUnit tests designed to test the accounts listed by the main view. The main view is a window, so these tests are
+ * skipped when there is no display, such as in a headless build.
+ * @author dTorrente
+ *
+ */
+public class MainViewTest {
+
+	/**
+	 * Test method for an account created for the main view after a file was loaded. Account.notifyMainView() calls
+	 * menuChanged(), which must insert the account into the comboBox in order of account ID.
+	 */
+	@Test
+	public void testAccountInsertedInOrder() throws Exception
+	{
+		assumeFalse("the main view needs a display", GraphicsEnvironment.isHeadless());
+		final int[] accountIDs = new int[5];
+		final int[] count = new int[1];
+		SwingUtilities.invokeAndWait(new Runnable()
+		{
+			public void run()
+			{
+				MainView view = new MainView(null);
+				try
+				{
+					AccountStore store = new AccountStore();
+					store.add("Cara", "Jones", 30, 0);
+					store.add("Ann", "Smith", -5, 0);
+					store.add("Bob", "Brown", 12, 0);
+					view.accountsReplaced(store, AccountOrder.sortedSlots(store));
+
+					store.add("Dan", "Green", 7, 0);
+					new Account("Dan", "Green", 7, 0, view);
+
+					JComboBox<Account> comboBox = view.getAccountComboBox();
+					count[0] = comboBox.getItemCount();
+					for (int row = 0; row < Math.min(count[0], accountIDs.length); row++)
+						accountIDs[row] = comboBox.getItemAt(row).getAccountID();
+				}
+				catch (AccountDataException adException)
+				{
+					throw new IllegalStateException(adException);
+				}
+				finally
+				{
+					view.dispose();
+				}
+			}
+		});
+
+		assertEquals(4, count[0]);
+		assertEquals(-5, accountIDs[0]);
+		assertEquals(7, accountIDs[1]);
+		assertEquals(12, accountIDs[2]);
+		assertEquals(30, accountIDs[3]);
+	}
+}
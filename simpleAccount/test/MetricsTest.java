@@ -0,0 +1,204 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import javax.management.MBeanServer;
+
+import org.junit.Test;
+
+import assignment3.simpleAccount.metrics.LatencyHistogram;
+import assignment3.simpleAccount.metrics.Metrics;
+import assignment3.simpleAccount.metrics.MetricsLog;
+import assignment3.simpleAccount.metrics.OperationTimer;
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.InsufficientFundsException;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ *
+ * JUnit tests designed to test counting and timing operations.
+ * @author dTorrente
+ *
+ */
+public class MetricsTest {
+
+	/**
+	 * Test method for the percentiles of a histogram, which must be within the precision of a bucket of the true values.
+	 */
+	@Test
+	public void testPercentiles()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 100000; value++)
+			histogram.record(value * 1000);
+		histogram.record(-5);
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(100001, snapshot.getCount());
+		assertEquals(100000000L, snapshot.getMax());
+		assertEquals(0, histogram.snapshot().getValueAtPercentile(0));
+		double[] percentiles = {50, 90, 99, 99.9};
+		for (double percentile : percentiles)
+		{
+			long expected = (long) (percentile * 1000 * 1000);
+			long actual = snapshot.getValueAtPercentile(percentile);
+			assertTrue(percentile + ": " + actual, actual >= expected && actual <= expected * 1.04);
+		}
+		assertEquals(100000000L, snapshot.getValueAtPercentile(100));
+		assertEquals(50000500.0 * 100000 / 100001, snapshot.getMean(), 1);
+
+		for (long value = 0; value < 64; value++)
+		{
+			LatencyHistogram small = new LatencyHistogram();
+			small.record(value);
+			assertEquals("values below 64 are exact", value, small.snapshot().getValueAtPercentile(50));
+		}
+	}
+
+	/**
+	 * Test method for recording from several threads at once, which must not lose a call.
+	 */
+	@Test
+	public void testConcurrentRecording() throws InterruptedException
+	{
+		final OperationTimer timer = new OperationTimer("test.concurrent", 1);
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[4];
+		for (int index = 0; index < threads.length; index++)
+		{
+			threads[index] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						start.await();
+					}
+					catch (InterruptedException iException)
+					{
+						return;
+					}
+					for (int call = 0; call < 50000; call++)
+						timer.stop(timer.start(), call % 10 != 0);
+				}
+			});
+			threads[index].start();
+		}
+		start.countDown();
+		for (Thread thread : threads)
+			thread.join();
+
+		assertEquals(200000, timer.getCount());
+		assertEquals(20000, timer.getFailures());
+		assertEquals(200000, timer.getTimedCount());
+	}
+
+	/**
+	 * Test method for a sampled timer, which must count every call exactly, from any thread, and time about one in every
+	 * sample period.
+	 */
+	@Test
+	public void testSampledTimer() throws InterruptedException
+	{
+		final OperationTimer timer = new OperationTimer("test.sampled", 1024);
+		for (int call = 0; call < 64000; call++)
+			timer.stop(timer.start(), call % 1000 != 0);
+		assertEquals(64000, timer.getCount());
+		assertEquals(64, timer.getFailures());
+		long timed = timer.getTimedCount();
+		assertTrue("about one in 1024 is timed: " + timed, timed > 25 && timed < 150);
+
+		Thread thread = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				for (int call = 0; call < 5000; call++)
+					timer.stop(timer.start(), true);
+			}
+		});
+		thread.start();
+		thread.join();
+		assertEquals(69000, timer.getCount());
+	}
+
+	/**
+	 * Test method for the account timers, which must count every deposit and withdrawal, time a sample of them, and
+	 * count every withdrawal refused.
+	 */
+	@Test
+	public void testAccountOperationsCounted() throws AccountDataException
+	{
+		long deposits = Metrics.ACCOUNT_DEPOSIT.getCount();
+		long withdrawals = Metrics.ACCOUNT_WITHDRAW.getCount();
+		long refused = Metrics.ACCOUNT_WITHDRAW.getFailures();
+		long timed = Metrics.ACCOUNT_DEPOSIT.getTimedCount();
+
+		Account account = new Account("Bench", "Mark", 1, 0);
+		for (int call = 0; call < 64000; call++)
+			account.depositFunds(1);
+		for (int call = 0; call < 64000; call++)
+			account.withdrawFunds(1, Money.RATE_SCALE, true);
+		try
+		{
+			account.withdrawFunds(1, Money.RATE_SCALE, true);
+			fail("the account is empty");
+		}
+		catch (InsufficientFundsException ifException)
+		{
+		}
+
+		if (!OperationTimer.ENABLED)
+			return;
+		assertEquals(deposits + 64000, Metrics.ACCOUNT_DEPOSIT.getCount());
+		assertEquals(withdrawals + 64001, Metrics.ACCOUNT_WITHDRAW.getCount());
+		assertEquals(refused + 1, Metrics.ACCOUNT_WITHDRAW.getFailures());
+		long sampled = Metrics.ACCOUNT_DEPOSIT.getTimedCount() - timed;
+		assertTrue("about one in " + Metrics.ACCOUNT_SAMPLE_PERIOD + " is timed: " + sampled, sampled > 25 && sampled < 150);
+	}
+
+	/**
+	 * Test method for the timers shown through JMX and written to the log.
+	 */
+	@Test
+	public void testJmxAndLog() throws Exception
+	{
+		Metrics.register();
+		Metrics.register();
+		Metrics.FILE_LOAD.stop(Metrics.FILE_LOAD.start(), false);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertEquals(Metrics.FILE_LOAD.getCount(), server.getAttribute(Metrics.objectName(Metrics.FILE_LOAD), "Count"));
+		assertTrue((Long) server.getAttribute(Metrics.objectName(Metrics.FILE_LOAD), "Failures") >= 1);
+
+		File file = File.createTempFile("metrics", ".log");
+		try
+		{
+			MetricsLog log = new MetricsLog(file);
+			log.write();
+			Metrics.FILE_LOAD.stop(Metrics.FILE_LOAD.start(), true);
+			log.write();
+			List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+			String last = null;
+			for (String line : lines)
+			{
+				if (line.contains(" file.load "))
+					last = line;
+			}
+			assertTrue(last, last.contains(" calls=" + Metrics.FILE_LOAD.getCount() + " (+1, "));
+			assertTrue(last, last.matches(".* p99=[0-9]+\\.[0-9]{3}us .*"));
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+}
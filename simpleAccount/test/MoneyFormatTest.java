@@ -0,0 +1,120 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+import assignment3.simpleAccount.util.InsufficientFundsException;
+import assignment3.simpleAccount.util.Money;
+import assignment3.simpleAccount.util.MoneyFormat;
+
+/**
+ *
+ * JUnit tests designed to test writing amounts with two decimal places.
+ * @author dTorrente
+ *
+ */
+public class MoneyFormatTest {
+
+	/**
+	 * Test method for both formats against DecimalFormat rounding half up, over every amount a double carries to the
+	 * cent, written into a builder, a char array and a string.
+	 */
+	@Test
+	public void testSameAsDecimalFormat()
+	{
+		check(MoneyFormat.DISPLAY, 0);
+		check(MoneyFormat.PLAIN, 0);
+		Random random = new Random(25);
+		for (int amount = 0; amount < 200000; amount++)
+		{
+			long cents;
+			if (amount < 20000)
+				cents = amount - 10000;
+			else if (amount < 100000)
+				cents = random.nextInt();
+			else
+				cents = random.nextLong() >> (random.nextInt(63 - 51) + 12);
+			check(MoneyFormat.DISPLAY, cents);
+			check(MoneyFormat.PLAIN, cents);
+		}
+		check(MoneyFormat.DISPLAY, (1L << 52) - 1);
+		check(MoneyFormat.DISPLAY, -(1L << 52) + 1);
+	}
+
+	/**
+	 * Test method for amounts too large for a double to carry to the cent, which must still be written exactly.
+	 */
+	@Test
+	public void testLargestAmounts()
+	{
+		assertEquals("92233720368547758.07", MoneyFormat.DISPLAY.format(Long.MAX_VALUE));
+		assertEquals("-92233720368547758.08", MoneyFormat.DISPLAY.format(Long.MIN_VALUE));
+		assertEquals(MoneyFormat.MAX_LENGTH, MoneyFormat.PLAIN.format(Long.MIN_VALUE).length());
+		assertEquals("-92233720368547758.08", Money.toString(Long.MIN_VALUE));
+		assertEquals("10000000000000000.01", MoneyFormat.PLAIN.format(1000000000000000001L));
+		assertEquals("-.07", MoneyFormat.DISPLAY.format(-7));
+		assertEquals("-0.07", MoneyFormat.PLAIN.format(-7));
+	}
+
+	/**
+	 * Test method for writing into buffers which already hold text, or are too small.
+	 */
+	@Test
+	public void testBuffers()
+	{
+		StringBuilder builder = new StringBuilder("funds ");
+		MoneyFormat.DISPLAY.append(builder, 1250).append(" and ");
+		assertEquals("funds 12.50 and .50", MoneyFormat.DISPLAY.append(builder, 50).toString());
+
+		char[] buffer = "xxxxxxxxxx".toCharArray();
+		assertEquals(7, MoneyFormat.PLAIN.format(-1250, buffer, 1));
+		assertEquals("x-12.50xxx", new String(buffer));
+		try
+		{
+			MoneyFormat.PLAIN.format(-1250, buffer, 5);
+			fail("the amount does not fit");
+		}
+		catch (ArrayIndexOutOfBoundsException aioobException)
+		{
+			assertEquals("nothing is written", "x-12.50xxx", new String(buffer));
+		}
+	}
+
+	/**
+	 * Test method for the message of an insufficient funds exception, in dollars and in another currency.
+	 */
+	@Test
+	public void testInsufficientFundsMessage()
+	{
+		InsufficientFundsException exception = new InsufficientFundsException(50, 123456, Money.RATE_SCALE);
+		assertEquals("Insufficient funds: amount to withdraw is .50 greater than available funds 1234.56.", exception.getMessage());
+		assertEquals("Insufficient funds: amount to withdraw is .47 greater than available funds 1160.49.",
+			exception.getMessage(Money.parseRate("0.94")));
+	}
+
+	/**
+	 * Compare a format against DecimalFormat with its pattern rounding half up, the way amounts used to be shown.
+	 * @param format The format.
+	 * @param cents The amount in cents.
+	 */
+	private static void check(MoneyFormat format, long cents)
+	{
+		DecimalFormat decimalFormat = new DecimalFormat(format.toString(), DecimalFormatSymbols.getInstance(Locale.ROOT));
+		decimalFormat.setRoundingMode(RoundingMode.HALF_UP);
+		String expected = decimalFormat.format(cents / 100.0);
+
+		assertEquals(expected, format.format(cents));
+		assertEquals(expected, format.append(new StringBuilder(), cents).toString());
+		char[] buffer = new char[MoneyFormat.MAX_LENGTH + 3];
+		int end = format.format(cents, buffer, 3);
+		assertEquals(expected, new String(buffer, 3, end - 3));
+	}
+}
@@ -0,0 +1,220 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import assignment3.simpleAccount.io.AccountFileParser;
+import assignment3.simpleAccount.io.FileProgress;
+import assignment3.simpleAccount.io.ParallelAccountLoader;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ *
+ * JUnit tests designed to test loading account files in parallel. Chunks are made tiny so that even a small file is
+ * split across many of them.
+ * @author dTorrente
+ *
+ */
+public class ParallelAccountLoaderTest {
+
+	File file;
+	ForkJoinPool pool;
+	ParallelAccountLoader loader;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		file = File.createTempFile("accounts", ".txt");
+		pool = new ForkJoinPool(4);
+		loader = new ParallelAccountLoader(pool, 64);
+	}
+
+	@After
+	public void tearDown()
+	{
+		pool.shutdown();
+		file.delete();
+	}
+
+	/**
+	 * Writes the account file.
+	 * @param contents The contents of the file.
+	 */
+	private void write(String contents) throws IOException
+	{
+		FileWriter writer = new FileWriter(file);
+		writer.write(contents);
+		writer.close();
+	}
+
+	/**
+	 * Builds an account file with blank lines scattered through it.
+	 * @param accounts The number of accounts.
+	 * @return The contents of the file.
+	 */
+	private String accounts(int accounts)
+	{
+		StringBuilder contents = new StringBuilder();
+		for (int account = 1; account <= accounts; account++)
+		{
+			contents.append("first").append((char) ('a' + account % 26)).append(" last").append((char) ('a' + account % 7))
+				.append(' ').append(account).append(' ').append(account * 3).append(".25\n");
+			if (account % 10 == 0)
+				contents.append("\n");
+		}
+		return contents.toString();
+	}
+
+	/**
+	 * Loads the file with the sequential parser.
+	 * @return The message of the error the sequential parser reports.
+	 */
+	private String sequentialError() throws IOException
+	{
+		InputStream input = new FileInputStream(file);
+		try
+		{
+			new AccountFileParser(input).parseInto(new AccountStore());
+			fail("the sequential parser must report an error");
+			return null;
+		}
+		catch (AccountDataException adException)
+		{
+			return adException.getMessage();
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+
+	/**
+	 * Test method for a file split into many chunks holding the same accounts, in the same order, as when read
+	 * sequentially.
+	 */
+	@Test
+	public void testSameAsSequential() throws Exception
+	{
+		write(accounts(500));
+		AccountStore parallel = loader.load(file, new AccountStore());
+		AccountStore sequential = new AccountStore();
+		InputStream input = new FileInputStream(file);
+		new AccountFileParser(input).parseInto(sequential);
+		input.close();
+
+		assertEquals(500, parallel.size());
+		assertEquals(sequential.getNameCount(), parallel.getNameCount());
+		for (int slot = 0; slot < sequential.size(); slot++)
+			assertEquals(sequential.view(slot).generateString(), parallel.view(slot).generateString());
+		assertEquals("the index must cover every chunk", 499, parallel.find(500));
+	}
+
+	/**
+	 * Test method for a format error far into the file. Its line must be that within the whole file.
+	 */
+	@Test
+	public void testFormatErrorLine() throws Exception
+	{
+		write(accounts(300) + "Bad Name1 301 1.00\n" + accounts(20));
+		String expected = sequentialError();
+		assertEquals("Line 331, column 9: last name must contain only letters", expected);
+		try
+		{
+			loader.load(file, new AccountStore());
+			fail("the format error must be reported");
+		}
+		catch (AccountDataException adException)
+		{
+			assertEquals(expected, adException.getMessage());
+		}
+	}
+
+	/**
+	 * Test method for an account ID repeated in a later chunk.
+	 */
+	@Test
+	public void testDuplicateAcrossChunks() throws Exception
+	{
+		write(accounts(300) + "Late Duplicate 7 1.00\n");
+		String expected = sequentialError();
+		try
+		{
+			loader.load(file, new AccountStore());
+			fail("the duplicate must be reported");
+		}
+		catch (AccountDataException adException)
+		{
+			assertEquals(expected, adException.getMessage());
+		}
+	}
+
+	/**
+	 * Test method for a duplicate before a format error. The duplicate comes first in the file, so it is the one reported.
+	 */
+	@Test
+	public void testFirstErrorReported() throws Exception
+	{
+		write(accounts(200) + "Early Duplicate 150 1.00\nBad Line\n" + accounts(5));
+		String expected = sequentialError();
+		try
+		{
+			loader.load(file, new AccountStore());
+			fail("an error must be reported");
+		}
+		catch (AccountDataException adException)
+		{
+			assertEquals(expected, adException.getMessage());
+		}
+	}
+
+	/**
+	 * Test method for the progress of a load, which must count every byte and account of the file however it is split.
+	 */
+	@Test
+	public void testProgress() throws Exception
+	{
+		write(accounts(500));
+		FileProgress progress = new FileProgress(file.length());
+		loader.load(file, new AccountStore(), progress);
+		assertEquals(file.length(), progress.getBytes());
+		assertEquals(500, progress.getRecords());
+
+		FileProgress sequential = new FileProgress(file.length());
+		new ParallelAccountLoader(pool, file.length() + 1).load(file, new AccountStore(), sequential);
+		assertEquals(file.length(), sequential.getBytes());
+		assertEquals(500, sequential.getRecords());
+	}
+
+	/**
+	 * Test method for a load cancelled before it starts reading.
+	 */
+	@Test
+	public void testCancelled() throws Exception
+	{
+		write(accounts(500));
+		FileProgress progress = new FileProgress(file.length());
+		progress.cancel();
+		try
+		{
+			loader.load(file, new AccountStore(), progress);
+			fail("a cancelled load must stop");
+		}
+		catch (InterruptedIOException iioException)
+		{
+			assertEquals(0, progress.getRecords());
+		}
+	}
+}
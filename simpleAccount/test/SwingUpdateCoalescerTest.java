@@ -0,0 +1,117 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import assignment3.simpleAccount.view.SwingUpdateCoalescer;
+
+/**
+ *
+ * JUnit tests designed to test coalescing updates onto the event dispatch thread.
+ * @author dTorrente
+ *
+ */
+public class SwingUpdateCoalescerTest {
+
+	/**
+	 * Waits until everything already posted to the event dispatch thread has run.
+	 */
+	private void drain() throws Exception
+	{
+		SwingUtilities.invokeAndWait(new Runnable()
+		{
+			public void run()
+			{
+			}
+		});
+	}
+
+	/**
+	 * Test method for a burst of requests from several threads, made while the event dispatch thread is busy, running
+	 * the update once and on the event dispatch thread.
+	 */
+	@Test
+	public void testBurstRunsOnce() throws Exception
+	{
+		final AtomicInteger runs = new AtomicInteger();
+		final AtomicInteger offDispatchThread = new AtomicInteger();
+		final Runnable update = new Runnable()
+		{
+			public void run()
+			{
+				runs.incrementAndGet();
+				if (!SwingUtilities.isEventDispatchThread())
+					offDispatchThread.incrementAndGet();
+			}
+		};
+
+		final CountDownLatch release = new CountDownLatch(1);
+		SwingUtilities.invokeLater(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException iException)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+
+		Thread[] threads = new Thread[4];
+		for (int index = 0; index < threads.length; index++)
+		{
+			threads[index] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					for (int request = 0; request < 10000; request++)
+						SwingUpdateCoalescer.request(update);
+				}
+			});
+			threads[index].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		release.countDown();
+		drain();
+
+		assertEquals("40000 requests must run the update once", 1, runs.get());
+		assertEquals(0, offDispatchThread.get());
+	}
+
+	/**
+	 * Test method for a request made while the update is running. It must run again rather than be lost.
+	 */
+	@Test
+	public void testRequestDuringRun() throws Exception
+	{
+		final AtomicInteger runs = new AtomicInteger();
+		Runnable update = new Runnable()
+		{
+			public void run()
+			{
+				if (runs.incrementAndGet() == 1)
+					SwingUpdateCoalescer.request(this);
+			}
+		};
+
+		SwingUpdateCoalescer.request(update);
+		drain();
+		drain();
+		assertEquals(2, runs.get());
+
+		SwingUpdateCoalescer.request(update);
+		drain();
+		assertEquals(3, runs.get());
+	}
+}
@@ -0,0 +1,369 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import assignment3.simpleAccount.engine.ReplaySummary;
+import assignment3.simpleAccount.engine.Transaction;
+import assignment3.simpleAccount.engine.TransactionEngine;
+import assignment3.simpleAccount.engine.TransactionListener;
+import assignment3.simpleAccount.engine.TransactionReplay;
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+import assignment3.simpleAccount.util.InsufficientFundsException;
+import assignment3.simpleAccount.util.Money;
+
+/**
+ * 
+ * JUnit tests designed to test the transaction engine without any views.
+ * @author dTorrente
+ *
+ */
+public class TransactionEngineTest {
+
+	AccountStore store;
+	TransactionEngine engine;
+	ArrayList<String> events;
+	
+	/**
+	 * Creates two accounts holding 10.00 and 5.00 and an engine which records every event.
+	 */
+	@Before
+	public void setUp() throws AccountDataException
+	{
+		store = new AccountStore();
+		store.add("testFirstName", "testLastName", 1, 1000);
+		store.add("otherFirstName", "otherLastName", 2, 500);
+		engine = new TransactionEngine(store);
+		events = new ArrayList<String>();
+		engine.addTransactionListener(new TransactionListener()
+		{
+			public void transactionApplied(Transaction transaction)
+			{
+				events.add("applied " + transaction);
+			}
+			
+			public void transactionRejected(Transaction transaction, AccountDataException reason)
+			{
+				events.add("rejected " + transaction);
+			}
+		});
+	}
+	
+	/**
+	 * Test method for deposits, withdrawals and transfers by account ID. Confirms the balances and that listeners are told.
+	 */
+	@Test
+	public void testApplyTransactions() throws AccountDataException
+	{
+		engine.deposit(1, 250);
+		engine.withdraw(2, 100);
+		engine.transfer(1, 2, 1000);
+		
+		assertEquals("10.00 plus 2.50 minus 10.00 must equal 2.50", 250, store.getCents(store.find(1)));
+		assertEquals("5.00 minus 1.00 plus 10.00 must equal 14.00", 1400, store.getCents(store.find(2)));
+		assertEquals("every transaction must be reported", "[applied DEPOSIT 1 2.50, applied WITHDRAW 2 1.00, applied TRANSFER 1 -> 2 10.00]", events.toString());
+	}
+	
+	/**
+	 * Test method for rejected transactions. Confirms that no balance changes and that listeners are told.
+	 */
+	@Test
+	public void testRejectedTransactions() throws AccountDataException
+	{
+		try
+		{
+			engine.transfer(2, 1, 501);
+			fail("expected InsufficientFundsException due to transferring more than the balance");
+		}
+		catch(InsufficientFundsException ifException)
+		{
+			assertEquals("shortfall must be 0.01", 1, ifException.getShortfall());
+		}
+		
+		try
+		{
+			engine.deposit(3, 100);
+			fail("expected AccountDataException due to an unknown account");
+		}
+		catch(AccountDataException adException)
+		{
+		}
+		
+		assertEquals("balance must be unchanged", 1000, store.getCents(store.find(1)));
+		assertEquals("balance must be unchanged", 500, store.getCents(store.find(2)));
+		assertEquals("every rejection must be reported", 2, events.size());
+	}
+	
+	/**
+	 * Test method for replaying a transaction file on several threads. The withdrawal on line 2 only succeeds if the deposit on
+	 * line 1 is applied first, so it confirms that the transactions of an account keep their order. The withdrawal on line 5
+	 * must be rejected and reported, as must the deposit to an account that does not exist.
+	 */
+	@Test
+	public void testReplay() throws Exception
+	{
+		String file = "1 deposit 5.00\n1 WITHDRAW 15.00\n\n2 withdraw 1.00\n2 withdraw 4.01\n3 deposit 1\n";
+		ReplaySummary summary = new TransactionReplay(engine, 4).replay(new ByteArrayInputStream(file.getBytes(StandardCharsets.US_ASCII)));
+		
+		assertEquals("three transactions must be applied", 3, summary.getApplied());
+		assertEquals("two transactions must be rejected", 2, summary.getRejected().size());
+		assertEquals("rejections are in file order", 5, summary.getRejected().get(0).getLine());
+		assertEquals("unknown accounts are rejected", 6, summary.getRejected().get(1).getLine());
+		assertEquals("10.00 plus 5.00 minus 15.00 must equal 0.00", 0, store.getCents(store.find(1)));
+		assertEquals("5.00 minus 1.00 must equal 4.00", 400, store.getCents(store.find(2)));
+	}
+	
+	/**
+	 * Test method for replaying a file of many transactions over many accounts, on one to eight workers, straight to the
+	 * store and through a listening engine. Most withdrawals only succeed if every earlier transaction of their account
+	 * was applied first, so the balances and rejections must match applying the file in order on one thread.
+	 */
+	@Test
+	public void testReplayKeepsAccountOrder() throws Exception
+	{
+		final int accounts = 1000;
+		Random random = new Random(8);
+		long[] expected = new long[accounts];
+		for (int account = 0; account < accounts; account++)
+			expected[account] = random.nextInt(1000);
+		long[] opening = expected.clone();
+
+		StringBuilder file = new StringBuilder();
+		ArrayList<Integer> expectedRejections = new ArrayList<Integer>();
+		for (int line = 1; line <= 100000; line++)
+		{
+			int account = random.nextInt(accounts + 5);
+			long amount = random.nextInt(2000);
+			boolean deposit = random.nextBoolean();
+			file.append(account * 7 + 3).append(deposit ? " deposit " : " withdraw ").append(Money.toString(amount)).append('\n');
+			if (account >= accounts || (!deposit && amount > expected[account]))
+				expectedRejections.add(line);
+			else
+				expected[account] += deposit ? amount : -amount;
+		}
+		byte[] bytes = file.toString().getBytes(StandardCharsets.US_ASCII);
+
+		int[] workerCounts = {1, 2, 3, 8, 4};
+		for (int run = 0; run < workerCounts.length; run++)
+		{
+			AccountStore replayed = new AccountStore();
+			for (int account = 0; account < accounts; account++)
+				replayed.add("first", "last", account * 7 + 3, opening[account]);
+			TransactionEngine replayEngine = new TransactionEngine(replayed);
+			final AtomicLong told = new AtomicLong();
+			//the last run goes through the engine, as it would with a journal listening
+			boolean listening = run == workerCounts.length - 1;
+			if (listening)
+			{
+				replayEngine.addTransactionListener(new TransactionListener()
+				{
+					public void transactionApplied(Transaction transaction)
+					{
+						told.incrementAndGet();
+					}
+
+					public void transactionRejected(Transaction transaction, AccountDataException reason)
+					{
+						told.incrementAndGet();
+					}
+				});
+			}
+
+			ReplaySummary summary = new TransactionReplay(replayEngine, workerCounts[run]).replay(new ByteArrayInputStream(bytes));
+			String name = workerCounts[run] + " workers" + (listening ? " through the engine" : "");
+			for (int account = 0; account < accounts; account++)
+				assertEquals(name + ": account " + account, expected[account], replayed.getCents(account));
+			assertEquals(name, 100000 - expectedRejections.size(), summary.getApplied());
+			assertEquals(name, expectedRejections.size(), summary.getRejected().size());
+			for (int rejection = 0; rejection < expectedRejections.size(); rejection++)
+				assertEquals(name, expectedRejections.get(rejection).intValue(), summary.getRejected().get(rejection).getLine());
+			assertEquals(name, listening ? 100000 : 0, told.get());
+		}
+	}
+	
+	/**
+	 * Test method for a listener added while a replay is applied straight to the store. Adding it must wait for the
+	 * replay to finish, so the listener is told of none of the replay's transactions and none are applied after it.
+	 */
+	@Test(timeout = 60000)
+	public void testListenerAddedDuringReplay() throws Exception
+	{
+		StringBuilder file = new StringBuilder();
+		for (int line = 0; line < 200000; line++)
+			file.append(line % 2 + 1).append(" deposit 0.01\n");
+		final byte[] bytes = file.toString().getBytes(StandardCharsets.US_ASCII);
+		final TransactionEngine replayEngine = new TransactionEngine(store);
+		Thread replay = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					new TransactionReplay(replayEngine, 2).replay(new ByteArrayInputStream(bytes));
+				}
+				catch (Exception exception)
+				{
+					throw new IllegalStateException(exception);
+				}
+			}
+		});
+		replay.start();
+
+		//once a balance has changed the replay is applying straight to the store, as no listener was registered
+		while (store.getCents(0) == 1000)
+			Thread.yield();
+		final AtomicLong told = new AtomicLong();
+		replayEngine.addTransactionListener(new TransactionListener()
+		{
+			public void transactionApplied(Transaction transaction)
+			{
+				told.incrementAndGet();
+			}
+
+			public void transactionRejected(Transaction transaction, AccountDataException reason)
+			{
+				told.incrementAndGet();
+			}
+		});
+		long[] whenAdded = store.copyCents();
+		replay.join();
+
+		assertEquals("the listener must be added after the replay", 1000 + 100000, whenAdded[0]);
+		assertEquals("the listener must be added after the replay", 500 + 100000, whenAdded[1]);
+		assertEquals(0, told.get());
+	}
+	
+	/**
+	 * Test method for a transfer whose deposit is rejected because it would take the other account above Account.MAX_FUNDS.
+	 * The withdrawal must be given back, so no funds are lost.
+	 */
+	@Test
+	public void testRejectedDepositIsReversed() throws AccountDataException
+	{
+		store.add("fullFirstName", "fullLastName", 3, Account.MAX_FUNDS);
+		try
+		{
+			engine.transfer(1, 3, 1);
+			fail("expected AccountDataException due to a deposit above the most funds an account may hold");
+		}
+		catch(AccountDataException adException)
+		{
+		}
+		
+		assertEquals("the withdrawal must be given back", 1000, store.getCents(store.find(1)));
+		assertEquals("balance must be unchanged", Account.MAX_FUNDS, store.getCents(store.find(3)));
+		assertEquals("[rejected TRANSFER 1 -> 3 0.01]", events.toString());
+	}
+	
+	/**
+	 * Test method for adding an account with more than Account.MAX_FUNDS, which must be rejected so that a transfer can
+	 * always give its withdrawal back.
+	 */
+	@Test
+	public void testFundsAboveMaximumRejected() throws AccountDataException
+	{
+		try
+		{
+			store.add("tooFullFirstName", "tooFullLastName", 3, Account.MAX_FUNDS + 1);
+			fail("expected AccountDataException due to funds above the most an account may hold");
+		}
+		catch(AccountDataException adException)
+		{
+		}
+		assertEquals("the account must not be added", -1, store.find(3));
+		
+		try
+		{
+			store.addAll(2, new int[] {3, 4}, new long[] {Account.MAX_FUNDS, Long.MAX_VALUE}, new int[2], new int[2],
+				new String[] {"name"});
+			fail("expected AccountDataException due to funds above the most an account may hold");
+		}
+		catch(AccountDataException adException)
+		{
+		}
+		assertEquals("the accounts before it must be added", Account.MAX_FUNDS, store.getCents(store.find(3)));
+		assertEquals("the account must not be added", -1, store.find(4));
+	}
+	
+	/**
+	 * Test method for transfers between random accounts from several threads. The total of every balance, taken by
+	 * runExclusively() while the transfers run, must never change, and no account may be overdrawn. Every exclusive
+	 * action must be woken once the transfers it waits for are done, including those which back out to wait for it.
+	 */
+	@Test(timeout = 60000)
+	public void testConcurrentTransfersConserveFunds() throws Exception
+	{
+		final int accounts = 32;
+		for (int account = 3; account <= accounts; account++)
+			store.add("first", "last", account, 1000);
+		final long total = 1000L * (accounts - 1) + 500;
+		final AtomicLong transfers = new AtomicLong();
+		//an engine without the recording listener, whose list is not safe to add to from several threads
+		final TransactionEngine engine = new TransactionEngine(store);
+		
+		Thread[] threads = new Thread[8];
+		for (int index = 0; index < threads.length; index++)
+		{
+			final Random random = new Random(index);
+			threads[index] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					for (int transfer = 0; transfer < 20000; transfer++)
+					{
+						int from = 1 + random.nextInt(accounts);
+						int to = 1 + random.nextInt(accounts);
+						try
+						{
+							engine.transfer(from, to, random.nextInt(300));
+							transfers.incrementAndGet();
+						}
+						catch (AccountDataException adException)
+						{
+							//insufficient funds or the same account twice
+						}
+					}
+				}
+			});
+			threads[index].start();
+		}
+		
+		final long[] sum = new long[1];
+		boolean running = true;
+		while (running)
+		{
+			running = false;
+			for (Thread thread : threads)
+				running |= thread.isAlive();
+			engine.runExclusively(new Runnable()
+			{
+				public void run()
+				{
+					sum[0] = 0;
+					for (int slot = 0; slot < store.size(); slot++)
+						sum[0] += store.getCents(slot);
+				}
+			});
+			assertEquals("funds must never be in flight", total, sum[0]);
+		}
+		for (Thread thread : threads)
+			thread.join();
+		
+		for (int slot = 0; slot < store.size(); slot++)
+			assertTrue("no account may be overdrawn", store.getCents(slot) >= 0);
+		assertTrue(transfers.get() > 0);
+	}
+
+}
@@ -0,0 +1,368 @@
+package assignment3.simpleAccount.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import assignment3.simpleAccount.engine.TransactionEngine;
+import assignment3.simpleAccount.engine.TransactionJournal;
+import assignment3.simpleAccount.model.AccountSnapshot;
+import assignment3.simpleAccount.model.AccountStore;
+import assignment3.simpleAccount.util.AccountDataException;
+
+/**
+ *
+ * JUnit tests designed to test journaling transactions and recovering from the journal.
+ * @author dTorrente
+ *
+ */
+public class TransactionJournalTest {
+
+	File snapshot;
+	TransactionEngine engine;
+	TransactionJournal journal;
+
+	/**
+	 * Makes a snapshot of two accounts the start of a new journal.
+	 */
+	@Before
+	public void setUp() throws IOException, AccountDataException
+	{
+		snapshot = File.createTempFile("accounts", AccountSnapshot.FILE_EXTENSION);
+		AccountStore store = new AccountStore();
+		store.add("testFirstName", "testLastName", 1, 1000);
+		store.add("otherFirstName", "otherLastName", 2, 500);
+		engine = new TransactionEngine(store);
+		journal = TransactionJournal.create(engine, snapshot);
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		journal.close();
+		snapshot.delete();
+		TransactionJournal.journalFileFor(snapshot).delete();
+	}
+
+	/**
+	 * Opens the snapshot and its journal as if the program had just started.
+	 * @return The store recovered from the snapshot and journal.
+	 */
+	private AccountStore reopen() throws IOException, AccountDataException
+	{
+		AccountSnapshot opened = AccountSnapshot.open(snapshot);
+		TransactionEngine recoveredEngine = new TransactionEngine(opened.getStore());
+		TransactionJournal.open(recoveredEngine, snapshot, opened.getSequence()).close();
+		return opened.getStore();
+	}
+
+	/**
+	 * Test method for recovering transactions which were never saved to the snapshot. The journal is left open, as it
+	 * would be if the program had crashed.
+	 */
+	@Test
+	public void testRecovery() throws IOException, AccountDataException
+	{
+		engine.deposit(1, 250);
+		engine.withdraw(2, 100);
+		engine.transfer(1, 2, 50);
+		try
+		{
+			engine.withdraw(2, 100000);
+			fail("insufficient funds must be rejected");
+		}
+		catch (AccountDataException adException)
+		{
+		}
+		journal.sync();
+
+		AccountSnapshot opened = AccountSnapshot.open(snapshot);
+		assertEquals("the snapshot must not hold the transactions", 1000, opened.getStore().getCents(0));
+		TransactionJournal recovered = TransactionJournal.open(new TransactionEngine(opened.getStore()), snapshot, opened.getSequence());
+		recovered.close();
+
+		assertEquals("only applied transactions are journaled", 3, recovered.getRecovered());
+		assertEquals("10.00 plus 2.50 minus 0.50 must equal 12.00", 1200, opened.getStore().getCents(0));
+		assertEquals("5.00 minus 1.00 plus 0.50 must equal 4.50", 450, opened.getStore().getCents(1));
+	}
+
+	/**
+	 * Test method for a checkpoint, after which the snapshot holds every transaction and the journal holds none.
+	 */
+	@Test
+	public void testCompaction() throws IOException, AccountDataException
+	{
+		engine.deposit(1, 250);
+		journal.compact();
+		assertEquals("the checkpoint must empty the journal", 16, TransactionJournal.journalFileFor(snapshot).length());
+		engine.deposit(2, 1);
+		journal.sync();
+
+		AccountSnapshot opened = AccountSnapshot.open(snapshot);
+		assertEquals("the snapshot must include the first deposit", 1250, opened.getStore().getCents(0));
+		assertEquals(1, opened.getSequence());
+
+		AccountStore recovered = reopen();
+		assertEquals(1250, recovered.getCents(0));
+		assertEquals("the second deposit must be recovered once", 501, recovered.getCents(1));
+	}
+
+	/**
+	 * Test method for a journal recovered through an engine of its own and then moved to the engine the accounts are
+	 * used through, as a load does. Only transactions through the second engine are journaled afterwards.
+	 */
+	@Test
+	public void testMoveTo() throws IOException, AccountDataException
+	{
+		engine.deposit(1, 250);
+		journal.sync();
+
+		AccountSnapshot opened = AccountSnapshot.open(snapshot);
+		TransactionEngine recoveryEngine = new TransactionEngine(opened.getStore());
+		TransactionJournal recovered = TransactionJournal.open(recoveryEngine, snapshot, opened.getSequence());
+		TransactionEngine target = new TransactionEngine(opened.getStore());
+		recovered.moveTo(target);
+		recoveryEngine.deposit(2, 7);
+		target.withdraw(1, 50);
+		recovered.close();
+
+		AccountStore reopened = reopen();
+		assertEquals(1200, reopened.getCents(0));
+		assertEquals("the deposit through the first engine must not be journaled", 500, reopened.getCents(1));
+		try
+		{
+			recovered.moveTo(engine);
+			fail("the engine must work on the journal's accounts");
+		}
+		catch (IllegalArgumentException iaException)
+		{
+		}
+	}
+
+	/**
+	 * Test method for saving the accounts to the snapshot again when the snapshot can not be written. The old journal
+	 * must be left untouched, so nothing journaled since the last checkpoint is lost.
+	 */
+	@Test
+	public void testCreateFailureKeepsJournal() throws IOException, AccountDataException
+	{
+		engine.deposit(1, 250);
+		journal.sync();
+		File journalFile = TransactionJournal.journalFileFor(snapshot);
+		byte[] before = Files.readAllBytes(journalFile.toPath());
+
+		//a directory where the snapshot is written before being moved into place stops it being written
+		File blocker = new File(snapshot.getPath() + ".tmp");
+		assertTrue(blocker.mkdir());
+		try
+		{
+			TransactionJournal.create(engine, snapshot);
+			fail("expected IOException as the snapshot can not be written");
+		}
+		catch (IOException ioException)
+		{
+		}
+		finally
+		{
+			blocker.delete();
+		}
+
+		assertArrayEquals("the old journal must be untouched", before, Files.readAllBytes(journalFile.toPath()));
+		assertFalse("the new journal must be removed", new File(journalFile.getPath() + ".new").exists());
+		assertEquals(1250, reopen().getCents(0));
+	}
+
+	/**
+	 * Test method for a crash after a new snapshot was written but before its journal replaced the old one. The records
+	 * of the old journal are all in the new snapshot already, so none of them may be applied again.
+	 */
+	@Test
+	public void testCrashBeforeNewJournal() throws IOException, AccountDataException
+	{
+		engine.deposit(1, 250);
+		journal.sync();
+		File journalFile = TransactionJournal.journalFileFor(snapshot);
+		byte[] oldJournal = Files.readAllBytes(journalFile.toPath());
+		journal.close();
+
+		journal = TransactionJournal.create(engine, snapshot);
+		journal.close();
+		Files.write(journalFile.toPath(), oldJournal);
+
+		AccountStore recovered = reopen();
+		assertEquals("the deposit must not be applied twice", 1250, recovered.getCents(0));
+		assertEquals(500, recovered.getCents(1));
+	}
+
+	/**
+	 * Test method for a record cut short by a crash. It must be dropped without losing the records before it.
+	 */
+	@Test
+	public void testTornRecord() throws IOException, AccountDataException
+	{
+		engine.deposit(1, 250);
+		journal.sync();
+		FileOutputStream output = new FileOutputStream(TransactionJournal.journalFileFor(snapshot), true);
+		output.write(new byte[] {2, 0, 0, 0, 0, 0, 0, 0, 9, 9, 9});
+		output.close();
+
+		AccountStore recovered = reopen();
+		assertEquals(1250, recovered.getCents(0));
+		assertEquals("the damaged record must be removed", 16 + 32, TransactionJournal.journalFileFor(snapshot).length());
+	}
+
+	/**
+	 * Test method for many threads sharing forces of the journal.
+	 */
+	@Test
+	public void testConcurrentTransactions() throws Exception
+	{
+		Thread[] threads = new Thread[8];
+		for (int thread = 0; thread < threads.length; thread++)
+		{
+			threads[thread] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						for (int iterator = 0; iterator < 50; iterator++)
+						{
+							engine.deposit(1, 3);
+							engine.withdraw(2, 1);
+						}
+					}
+					catch (AccountDataException adException)
+					{
+						throw new IllegalStateException(adException);
+					}
+				}
+			});
+			threads[thread].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		journal.sync();
+
+		assertEquals(800, journal.getLastSequence());
+		AccountStore recovered = reopen();
+		assertEquals(1000 + 8 * 50 * 3, recovered.getCents(0));
+		assertEquals(500 - 8 * 50, recovered.getCents(1));
+	}
+
+	/**
+	 * Test method for a withdrawal which only succeeds because a deposit on another thread was applied just before it.
+	 * Its record must follow the deposit's in the journal, or recovery would find the funds insufficient.
+	 */
+	@Test
+	public void testInterleavedTransactions() throws Exception
+	{
+		final int deposits = 20000;
+		final AtomicBoolean depositing = new AtomicBoolean(true);
+		Thread depositor = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					for (int deposit = 0; deposit < deposits; deposit++)
+						engine.deposit(2, 100);
+				}
+				catch (AccountDataException adException)
+				{
+					throw new IllegalStateException(adException);
+				}
+				finally
+				{
+					depositing.set(false);
+				}
+			}
+		});
+		final AtomicLong withdrawn = new AtomicLong();
+		Thread withdrawer = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				//the account starts with 5.00, so all but the first five withdrawals need a deposit made just before
+				while (depositing.get() || withdrawn.get() < deposits + 5)
+				{
+					try
+					{
+						engine.withdraw(2, 100);
+						withdrawn.incrementAndGet();
+					}
+					catch (AccountDataException adException)
+					{
+						if (!depositing.get())
+							return;
+					}
+				}
+			}
+		});
+		depositor.start();
+		withdrawer.start();
+		depositor.join();
+		withdrawer.join();
+		journal.sync();
+
+		long balance = engine.getAccountStore().getCents(1);
+		assertEquals(500 + 100 * (deposits - withdrawn.get()), balance);
+		AccountStore recovered = reopen();
+		assertEquals("every withdrawal must be recovered after the deposit it relied on", balance, recovered.getCents(1));
+		assertEquals(1000, recovered.getCents(0));
+	}
+
+	/**
+	 * Test method for transfers from several threads claiming more sequence numbers than the journal buffers at once.
+	 * Each transfer must be recovered in the order it changed its accounts.
+	 */
+	@Test
+	public void testTransfersWrapRing() throws Exception
+	{
+		final int transfers = 10000;
+		Thread[] threads = new Thread[4];
+		for (int thread = 0; thread < threads.length; thread++)
+		{
+			threads[thread] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						for (int iterator = 0; iterator < transfers; iterator++)
+						{
+							engine.transfer(1, 2, 1);
+							engine.transfer(2, 1, 1);
+						}
+					}
+					catch (AccountDataException adException)
+					{
+						throw new IllegalStateException(adException);
+					}
+				}
+			});
+			threads[thread].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		journal.sync();
+
+		assertEquals(threads.length * transfers * 2, journal.getLastSequence());
+		AccountStore recovered = reopen();
+		assertEquals(1000, recovered.getCents(0));
+		assertEquals(500, recovered.getCents(1));
+	}
+}
@@ -17,11 +17,12 @@ public class AccountComparator  implements Comparator<Account>{
 	*@param acct2 The second account to compare.
 	*@return The value of comparison between the two accounts. If the first account has a higher account 
 	*ID, it will return a positive value. If the second account has a higher account ID, it will return 
-	*a negative value. If they share the same account number, it will return zero.
+	*a negative value. If they share the same account number, it will return zero. IDs are compared rather than
+	*subtracted, as the difference of two IDs far apart overflows an int and reverses the order.
 	*/
 	public int compare(Account acct1, Account acct2)
 	{
-		return acct1.getAccountID() - acct2.getAccountID();
+		return Integer.compare(acct1.getAccountID(), acct2.getAccountID());
 	}
 
 }
@@ -20,5 +20,18 @@ public class AccountDataException extends Exception{
 	{
 		super (exceptionType);
 	}
+	
+	/**
+	* Creates an exception for an expected outcome, such as insufficient funds, which may occur many times during a batch.
+	* Such exceptions do not record a stack trace, as filling it in costs far more than the rest of the operation.
+	* 
+	* @param exceptionType A string which better describes the exception thrown.
+	* @param recordStackTrace If the stack trace should be recorded.
+	* 
+	*/
+	protected AccountDataException (String exceptionType, boolean recordStackTrace)
+	{
+		super (exceptionType, null, false, recordStackTrace);
+	}
 
 }
@@ -0,0 +1,61 @@
+package assignment3.simpleAccount.util;
+
+/**
+ * 
+ * An exception thrown when an account file is not properly formatted. It records the line and column at which
+ * the problem was found so that the user can easily correct the file.
+ * @author dTorrente
+ *
+ */
+public class AccountFormatException extends AccountDataException{
+
+	private static final long serialVersionUID = 4630288140952217263L;
+	
+	private final String problem;
+	private final int line;
+	private final int column;
+
+	/**
+	* Creates a meaningful exception which includes the position of the error within the file.
+	* 
+	* @param problem A string which describes what was wrong with the data.
+	* @param line The line of the file the problem was found on. The first line is 1.
+	* @param column The column of the line the problem was found at. The first column is 1.
+	* 
+	*/
+	public AccountFormatException (String problem, int line, int column)
+	{
+		super ("Line " + line + ", column " + column + ": " + problem);
+		this.problem = problem;
+		this.line = line;
+		this.column = column;
+	}
+	
+	/** 
+	* Get the description of the problem, without its position.
+	* @return The description of what was wrong with the data.
+	*/
+	public String getProblem()
+	{
+		return problem;
+	}
+	
+	/** 
+	* Get the line the problem was found on.
+	* @return The line the problem was found on. The first line is 1.
+	*/
+	public int getLine()
+	{
+		return line;
+	}
+	
+	/** 
+	* Get the column the problem was found at.
+	* @return The column the problem was found at. The first column is 1.
+	*/
+	public int getColumn()
+	{
+		return column;
+	}
+
+}
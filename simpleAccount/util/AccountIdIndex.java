@@ -0,0 +1,225 @@
+package assignment3.simpleAccount.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash index from account IDs to the slots of an AccountStore. Keys and values are held in two parallel int arrays
+ * using open addressing with linear probing, so no Integer objects are created for either lookups or inserts. Any int,
+ * including 0 and negative numbers, may be used as an account ID.
+ *
+ * @author dTorrente
+ */
+public class AccountIdIndex {
+
+	/** The value returned by get() when an account ID is not in the index. */
+	public static final int NOT_FOUND = -1;
+
+	private static final int MINIMUM_CAPACITY = 16;
+	//the largest power of two an int array can hold
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private int[] accountIDs;
+	private int[] slots;
+	private int mask;
+	private int size;
+
+	/**
+	* Default constructor for an empty index.
+	*/
+	public AccountIdIndex()
+	{
+		this(MINIMUM_CAPACITY);
+	}
+
+	/**
+	* Constructor for an empty index which can hold the expected number of accounts without growing.
+	* @param expectedAccounts The number of accounts expected.
+	*/
+	public AccountIdIndex(int expectedAccounts)
+	{
+		allocate(tableSizeFor(expectedAccounts));
+	}
+
+	/**
+	* Get the slot of an account.
+	* @param accountID The ID of the account to find.
+	* @return The slot of the account, or NOT_FOUND if the ID is not in the index.
+	*/
+	public int get(int accountID)
+	{
+		for (int index = hash(accountID); ; index = (index + 1) & mask)
+		{
+			int slot = slots[index];
+			if (slot == NOT_FOUND)
+				return NOT_FOUND;
+			if (accountIDs[index] == accountID)
+				return slot;
+		}
+	}
+
+	/**
+	* Add an account to the index unless its ID is already present.
+	* @param accountID The ID of the account.
+	* @param slot The slot of the account. Must not be negative.
+	* @return If the account was added. False means the ID was already in the index, which was left unchanged.
+	* @throws IllegalStateException If the index is full, which happens only past 2^30 - 1 accounts.
+	*/
+	public boolean putIfAbsent(int accountID, int slot)
+	{
+		if (slot < 0)
+			throw new IllegalArgumentException("Slot must not be negative: " + slot);
+
+		int index = hash(accountID);
+		while (slots[index] != NOT_FOUND)
+		{
+			if (accountIDs[index] == accountID)
+				return false;
+			index = (index + 1) & mask;
+		}
+		//one position is always left empty, so that every probe sequence ends
+		if (size + 1 == mask + 1)
+			throw new IllegalStateException("The index can not hold more than " + mask + " accounts.");
+		accountIDs[index] = accountID;
+		slots[index] = slot;
+
+		//grow once the table is half full to keep probe sequences short, until it can grow no further
+		if (++size > (mask + 1) / 2 && mask + 1 < MAXIMUM_CAPACITY)
+			rehash((mask + 1) * 2);
+		return true;
+	}
+
+	/**
+	* Remove an account from the index.
+	* @param accountID The ID of the account to remove.
+	* @return The slot the account had, or NOT_FOUND if the ID was not in the index.
+	*/
+	public int remove(int accountID)
+	{
+		int index = hash(accountID);
+		while (slots[index] != NOT_FOUND)
+		{
+			if (accountIDs[index] == accountID)
+			{
+				int removed = slots[index];
+				closeGap(index);
+				size--;
+				return removed;
+			}
+			index = (index + 1) & mask;
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	* Grow the index so that it can hold a number of accounts without growing again.
+	* @param expectedAccounts The number of accounts expected.
+	*/
+	public void ensureCapacity(int expectedAccounts)
+	{
+		int capacity = tableSizeFor(expectedAccounts);
+		if (capacity > mask + 1)
+			rehash(capacity);
+	}
+
+	/**
+	* Get the number of accounts in the index.
+	* @return The number of accounts in the index.
+	*/
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	* Remove every account from the index.
+	*/
+	public void clear()
+	{
+		Arrays.fill(slots, NOT_FOUND);
+		size = 0;
+	}
+
+	/**
+	* Shifts later entries of a probe sequence back into a freed position so that get() never stops early.
+	* @param gap The position that was freed.
+	*/
+	private void closeGap(int gap)
+	{
+		int index = gap;
+		while (true)
+		{
+			index = (index + 1) & mask;
+			if (slots[index] == NOT_FOUND)
+				break;
+
+			//an entry may only move back if the gap lies between its home position and where it is now
+			int home = hash(accountIDs[index]);
+			if (((index - home) & mask) >= ((index - gap) & mask))
+			{
+				accountIDs[gap] = accountIDs[index];
+				slots[gap] = slots[index];
+				gap = index;
+			}
+		}
+		slots[gap] = NOT_FOUND;
+	}
+
+	/**
+	* Moves every entry into a table of a new size.
+	* @param capacity The new size of the table. Must be a power of two.
+	*/
+	private void rehash(int capacity)
+	{
+		int[] oldAccountIDs = accountIDs;
+		int[] oldSlots = slots;
+		allocate(capacity);
+		for (int index = 0; index < oldSlots.length; index++)
+		{
+			if (oldSlots[index] != NOT_FOUND)
+			{
+				int target = hash(oldAccountIDs[index]);
+				while (slots[target] != NOT_FOUND)
+					target = (target + 1) & mask;
+				accountIDs[target] = oldAccountIDs[index];
+				slots[target] = oldSlots[index];
+			}
+		}
+	}
+
+	/**
+	* Creates empty tables.
+	* @param capacity The size of the tables. Must be a power of two.
+	*/
+	private void allocate(int capacity)
+	{
+		accountIDs = new int[capacity];
+		slots = new int[capacity];
+		Arrays.fill(slots, NOT_FOUND);
+		mask = capacity - 1;
+	}
+
+	/**
+	* Finds the home position of an account ID. IDs are often sequential, so they are mixed first to spread them
+	* across the table.
+	* @param accountID The account ID.
+	* @return The home position within the table.
+	*/
+	private int hash(int accountID)
+	{
+		int mixed = accountID * 0x9E3779B9;
+		return (mixed ^ (mixed >>> 16)) & mask;
+	}
+
+	/**
+	* Finds a table size that holds the given number of accounts while staying at most half full.
+	* @param expectedAccounts The number of accounts expected.
+	* @return A power of two table size.
+	*/
+	private static int tableSizeFor(int expectedAccounts)
+	{
+		int capacity = MINIMUM_CAPACITY;
+		while (capacity / 2 < expectedAccounts && capacity < MAXIMUM_CAPACITY)
+			capacity *= 2;
+		return capacity;
+	}
+}
@@ -0,0 +1,241 @@
+package assignment3.simpleAccount.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+
+/**
+ * Keeps lists of accounts sorted by account ID. The cheapest way to sort a list is chosen from its size and state:
+ * <ul>
+ * <li>A list which is already sorted, as a file saved by this program is, is recognised in a single pass and left as
+ * it is.</li>
+ * <li>An account added to a sorted list is inserted where a binary search places it, so the list never needs sorting
+ * again.</li>
+ * <li>A small unsorted list is sorted with AccountComparator.</li>
+ * <li>A large unsorted list is sorted without a comparator. The account IDs are copied into an int column, which is
+ * radix sorted together with each account's position, and the list is rebuilt from the positions.</li>
+ * <li>A very large unsorted list, when there are several processors to share the work, has each ID packed with its
+ * position into a long, and the longs are sorted with Arrays.parallelSort().</li>
+ * </ul>
+ *
+ * @author dTorrente
+ */
+public final class AccountOrder {
+
+	/** Lists with fewer accounts than this are sorted with AccountComparator rather than by radix. */
+	public static final int RADIX_SORT_THRESHOLD = 4096;
+
+	/**
+	* Lists with at least this many accounts are sorted in parallel when there are PARALLEL_SORT_PROCESSORS processors.
+	* On a single processor the radix sort of a million IDs takes about a third of the time of sorting packed longs, so
+	* the parallel sort only pays for large lists split between several processors.
+	*/
+	public static final int PARALLEL_SORT_THRESHOLD = 1 << 20;
+
+	/** The processors needed before large lists are sorted in parallel. */
+	public static final int PARALLEL_SORT_PROCESSORS = 4;
+
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX = 1 << RADIX_BITS;
+
+	/**
+	* AccountOrder is a collection of static methods and is not to be created.
+	*/
+	private AccountOrder()
+	{
+	}
+
+	/**
+	* Check whether a list is sorted by account ID.
+	* @param accounts The list to check.
+	* @return True if no account has a lower ID than the one before it.
+	*/
+	public static boolean isSorted(List<Account> accounts)
+	{
+		int size = accounts.size();
+		if (size < 2)
+			return true;
+		int previous = accounts.get(0).getAccountID();
+		for (int index = 1; index < size; index++)
+		{
+			int accountID = accounts.get(index).getAccountID();
+			if (accountID < previous)
+				return false;
+			previous = accountID;
+		}
+		return true;
+	}
+
+	/**
+	* Sort a list by account ID. Accounts with equal IDs keep their order.
+	* @param accounts The list to sort.
+	*/
+	public static void sort(List<Account> accounts)
+	{
+		if (isSorted(accounts))
+			return;
+		if (accounts.size() < RADIX_SORT_THRESHOLD)
+		{
+			accounts.sort(new AccountComparator());
+			return;
+		}
+
+		int size = accounts.size();
+		int[] accountIDs = new int[size];
+		for (int index = 0; index < size; index++)
+			accountIDs[index] = accounts.get(index).getAccountID();
+		int[] order = sortedOrder(accountIDs, size);
+
+		Account[] sorted = new Account[size];
+		for (int index = 0; index < size; index++)
+			sorted[index] = accounts.get(order[index]);
+		for (int index = 0; index < size; index++)
+			accounts.set(index, sorted[index]);
+	}
+
+	/**
+	* Find the order of the accounts of a store by account ID, without creating any account objects. A store whose
+	* accounts were added in order, as they are from a file this program saved, is recognised in a single pass.
+	* @param store The store holding the accounts.
+	* @return The slots of the accounts in order of account ID.
+	*/
+	public static int[] sortedSlots(AccountStore store)
+	{
+		int size = store.size();
+		int[] accountIDs = new int[size];
+		boolean sorted = true;
+		for (int slot = 0; slot < size; slot++)
+		{
+			accountIDs[slot] = store.getAccountID(slot);
+			if (slot > 0 && accountIDs[slot] < accountIDs[slot - 1])
+				sorted = false;
+		}
+		if (!sorted)
+			return sortedOrder(accountIDs, size);
+		for (int slot = 0; slot < size; slot++)
+			accountIDs[slot] = slot;
+		return accountIDs;
+	}
+
+	/**
+	* Find the order which sorts a column of account IDs. Equal IDs keep their order. Columns of at least
+	* PARALLEL_SORT_THRESHOLD IDs are sorted by parallelSortedOrder() when the common pool has a thread for each of
+	* PARALLEL_SORT_PROCESSORS processors, and all others by radixSortedOrder().
+	* @param accountIDs The account IDs. They are not changed.
+	* @param size The number of account IDs to sort, from the start of the column.
+	* @return The positions of the account IDs in sorted order.
+	*/
+	public static int[] sortedOrder(int[] accountIDs, int size)
+	{
+		//the common pool leaves one processor for the thread which submits the sort
+		if (size >= PARALLEL_SORT_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() >= PARALLEL_SORT_PROCESSORS - 1)
+			return parallelSortedOrder(accountIDs, size);
+		return radixSortedOrder(accountIDs, size);
+	}
+
+	/**
+	* Find the order which sorts a column of account IDs, using a least significant digit radix sort of a byte at a
+	* time. Each pass is a stable counting sort, so equal IDs keep their order. A byte which is the same in every ID,
+	* such as the upper bytes when all IDs are small, is not sorted on at all.
+	* @param accountIDs The account IDs. They are not changed.
+	* @param size The number of account IDs to sort, from the start of the column.
+	* @return The positions of the account IDs in sorted order.
+	*/
+	public static int[] radixSortedOrder(int[] accountIDs, int size)
+	{
+		int[][] counts = new int[Integer.SIZE / RADIX_BITS][RADIX];
+		for (int index = 0; index < size; index++)
+		{
+			//flipping the sign bit makes the unsigned order of the bytes the signed order of the IDs
+			int key = accountIDs[index] ^ Integer.MIN_VALUE;
+			for (int digit = 0; digit < counts.length; digit++)
+				counts[digit][key >>> digit * RADIX_BITS & RADIX - 1]++;
+		}
+
+		int[] order = new int[size];
+		for (int index = 0; index < size; index++)
+			order[index] = index;
+		int[] keys = new int[size];
+		for (int index = 0; index < size; index++)
+			keys[index] = accountIDs[index] ^ Integer.MIN_VALUE;
+		int[] nextOrder = new int[size];
+		int[] nextKeys = new int[size];
+
+		for (int digit = 0; digit < counts.length; digit++)
+		{
+			int[] count = counts[digit];
+			int shift = digit * RADIX_BITS;
+			if (size == 0 || count[keys[0] >>> shift & RADIX - 1] == size)
+				continue;
+
+			int start = 0;
+			for (int bucket = 0; bucket < RADIX; bucket++)
+			{
+				int bucketSize = count[bucket];
+				count[bucket] = start;
+				start += bucketSize;
+			}
+			for (int index = 0; index < size; index++)
+			{
+				int key = keys[index];
+				int to = count[key >>> shift & RADIX - 1]++;
+				nextKeys[to] = key;
+				nextOrder[to] = order[index];
+			}
+
+			int[] swap = keys;
+			keys = nextKeys;
+			nextKeys = swap;
+			swap = order;
+			order = nextOrder;
+			nextOrder = swap;
+		}
+		return order;
+	}
+
+	/**
+	* Find the order which sorts a column of account IDs with Arrays.parallelSort(). Each ID is packed into the upper
+	* half of a long and its position into the lower half, so the longs sort by ID and then by position, and equal IDs
+	* keep their order.
+	* @param accountIDs The account IDs. They are not changed.
+	* @param size The number of account IDs to sort, from the start of the column.
+	* @return The positions of the account IDs in sorted order.
+	*/
+	public static int[] parallelSortedOrder(int[] accountIDs, int size)
+	{
+		long[] packed = new long[size];
+		for (int index = 0; index < size; index++)
+			packed[index] = (long) accountIDs[index] << 32 | index;
+		Arrays.parallelSort(packed);
+		int[] order = new int[size];
+		for (int index = 0; index < size; index++)
+			order[index] = (int) packed[index];
+		return order;
+	}
+
+	/**
+	* Add an account to a sorted list, keeping it sorted. The account is placed after any with the same ID.
+	* @param accounts The list, which must be sorted by account ID.
+	* @param account The account to add.
+	* @return The index the account was added at.
+	*/
+	public static int insert(List<Account> accounts, Account account)
+	{
+		int accountID = account.getAccountID();
+		int low = 0;
+		int high = accounts.size();
+		while (low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if (accounts.get(middle).getAccountID() <= accountID)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		accounts.add(low, account);
+		return low;
+	}
+}
@@ -0,0 +1,87 @@
+package assignment3.simpleAccount.util;
+
+/**
+ * 
+ * An exception thrown when a withdrawal is larger than the funds available. It keeps the amounts involved so that the
+ * message can be shown in whichever currency the user is working in. The message is only built when asked for and no
+ * stack trace is recorded, as a batch of transactions may reject many withdrawals.
+ * @author dTorrente
+ *
+ */
+public class InsufficientFundsException extends AccountDataException{
+
+	private static final long serialVersionUID = -2470351939027404925L;
+	
+	private final long shortfall;
+	private final long available;
+	private final long fundMultiplier;
+
+	/**
+	* Creates a meaningful exception which describes by how much the withdrawal failed.
+	* 
+	* @param shortfall The amount in USD cents by which the withdrawal exceeds the available funds.
+	* @param available The funds in USD cents which were available.
+	* @param fundMultiplier The exchange rate, scaled by Money.RATE_SCALE, of the currency to describe the amounts in.
+	* 
+	*/
+	public InsufficientFundsException (long shortfall, long available, long fundMultiplier)
+	{
+		super (null, false);
+		this.shortfall = shortfall;
+		this.available = available;
+		this.fundMultiplier = fundMultiplier;
+	}
+	
+	@Override
+	/** 
+	* Get the message of this exception with the amounts shown in the currency given when it was created.
+	* @return The message.
+	*/
+	public String getMessage()
+	{
+		return describe(shortfall, available, fundMultiplier);
+	}
+	
+	/** 
+	* Get the amount by which the withdrawal exceeded the available funds.
+	* @return The shortfall in USD cents.
+	*/
+	public long getShortfall()
+	{
+		return shortfall;
+	}
+	
+	/** 
+	* Get the funds that were available when the withdrawal was attempted.
+	* @return The available funds in USD cents.
+	*/
+	public long getAvailable()
+	{
+		return available;
+	}
+	
+	/** 
+	* Get the message of this exception with the amounts shown in another currency.
+	* @param fundMultiplier The exchange rate, scaled by Money.RATE_SCALE, of the currency to describe the amounts in.
+	* @return The message.
+	*/
+	public String getMessage(long fundMultiplier)
+	{
+		return describe(shortfall, available, fundMultiplier);
+	}
+	
+	/** 
+	* Builds the message shown to the user.
+	* @param shortfall The shortfall in USD cents.
+	* @param available The available funds in USD cents.
+	* @param fundMultiplier The exchange rate of the currency to describe the amounts in.
+	* @return The message.
+	*/
+	private static String describe(long shortfall, long available, long fundMultiplier)
+	{
+		StringBuilder message = new StringBuilder(96).append("Insufficient funds: amount to withdraw is ");
+		MoneyFormat.DISPLAY.append(message, Money.toForeign(shortfall, fundMultiplier)).append(" greater than available funds ");
+		return MoneyFormat.DISPLAY.append(message, Money.toForeign(available, fundMultiplier)).append('.').toString();
+	}
+
+}
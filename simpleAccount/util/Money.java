@@ -0,0 +1,175 @@
+package assignment3.simpleAccount.util;
+
+/**
+ * Exact arithmetic on amounts of money held as a whole number of cents in a long. Amounts never pass through a float
+ * or double, so no cents are lost however large the balance becomes, and no objects are created on the way.
+ * <p>
+ * Exchange rates are also held as longs, scaled by RATE_SCALE, so a rate of 0.94 is held as 9400. Converting an
+ * amount rounds to the nearest cent with halves rounded away from zero, the same as RoundingMode.HALF_UP.
+ *
+ * @author dTorrente
+ */
+public final class Money {
+
+	/** The scale of an exchange rate. A rate equal to this value converts an amount to itself. */
+	public static final long RATE_SCALE = 10000L;
+
+	private static final int RATE_DECIMALS = 4;
+
+	/**
+	* Money is a collection of static methods and is not to be created.
+	*/
+	private Money()
+	{
+	}
+
+	/**
+	* Parses an amount typed by a user or read from a file, such as "12", "12.5" or "-0.07". Digits beyond the cents
+	* are rounded half up.
+	* @param text The amount to parse.
+	* @return The amount in cents.
+	* @throws NumberFormatException If the text is not a plain decimal number or the amount is too large.
+	*/
+	public static long parse(CharSequence text) throws NumberFormatException
+	{
+		return parseScaled(text, 2, "amount");
+	}
+
+	/**
+	* Parses an exchange rate such as "0.94". Digits beyond the fourth decimal place are rounded half up.
+	* @param text The rate to parse.
+	* @return The rate scaled by RATE_SCALE.
+	* @throws NumberFormatException If the text is not a plain decimal number or is not greater than zero.
+	*/
+	public static long parseRate(CharSequence text) throws NumberFormatException
+	{
+		long rate = parseScaled(text, RATE_DECIMALS, "rate");
+		if (rate <= 0)
+			throw new NumberFormatException("An exchange rate must be greater than zero: " + text);
+		return rate;
+	}
+
+	/**
+	* Converts an amount in USD to another currency.
+	* @param cents The amount in USD cents.
+	* @param rate The number of units of the other currency per USD, scaled by RATE_SCALE.
+	* @return The amount in cents of the other currency, rounded half up.
+	* @throws ArithmeticException If the result does not fit in a long.
+	*/
+	public static long toForeign(long cents, long rate)
+	{
+		//split the amount so that the multiplication can not overflow before the division
+		long whole = cents / RATE_SCALE;
+		long remainder = cents % RATE_SCALE;
+		return Math.addExact(Math.multiplyExact(whole, rate), divideHalfUp(Math.multiplyExact(remainder, rate), RATE_SCALE));
+	}
+
+	/**
+	* Converts an amount in another currency to USD.
+	* @param cents The amount in cents of the other currency.
+	* @param rate The number of units of the other currency per USD, scaled by RATE_SCALE.
+	* @return The amount in USD cents, rounded half up.
+	* @throws ArithmeticException If the result does not fit in a long.
+	*/
+	public static long toUsd(long cents, long rate)
+	{
+		long whole = cents / rate;
+		long remainder = cents % rate;
+		return Math.addExact(Math.multiplyExact(whole, RATE_SCALE), divideHalfUp(Math.multiplyExact(remainder, RATE_SCALE), rate));
+	}
+
+	/**
+	* Writes an amount with exactly two decimal places, such as "12.50" or "-0.07". This is the form used in account files.
+	* MoneyFormat.PLAIN writes the same form into a buffer.
+	* @param cents The amount in cents.
+	* @return The amount as a string.
+	*/
+	public static String toString(long cents)
+	{
+		return MoneyFormat.PLAIN.format(cents);
+	}
+
+	/**
+	* Divides, rounding halves away from zero.
+	* @param dividend The value to divide.
+	* @param divisor The value to divide by. Must be greater than zero.
+	* @return The rounded quotient.
+	*/
+	private static long divideHalfUp(long dividend, long divisor)
+	{
+		long quotient = dividend / divisor;
+		long remainder = dividend % divisor;
+		if (Math.abs(remainder) * 2 >= divisor)
+			quotient += dividend < 0 ? -1 : 1;
+		return quotient;
+	}
+
+	/**
+	* Parses a plain decimal number into a long scaled by a power of ten.
+	* @param text The number to parse.
+	* @param decimals The number of decimal places to keep.
+	* @param what What is being parsed. Used in the error message.
+	* @return The scaled value.
+	* @throws NumberFormatException If the text is not a plain decimal number or does not fit in a long.
+	*/
+	private static long parseScaled(CharSequence text, int decimals, String what) throws NumberFormatException
+	{
+		int length = text.length();
+		int index = 0;
+		boolean negative = false;
+
+		if (index < length && (text.charAt(index) == '-' || text.charAt(index) == '+'))
+		{
+			negative = text.charAt(index) == '-';
+			index++;
+		}
+
+		long value = 0;
+		int fractionDigits = -1;
+		boolean anyDigits = false;
+		boolean roundUp = false;
+		try
+		{
+			for (; index < length; index++)
+			{
+				char next = text.charAt(index);
+				if (next == '.' && fractionDigits < 0)
+				{
+					fractionDigits = 0;
+				}
+				else if (next >= '0' && next <= '9')
+				{
+					anyDigits = true;
+					if (fractionDigits < decimals)
+					{
+						value = Math.addExact(Math.multiplyExact(value, 10), next - '0');
+						if (fractionDigits >= 0)
+							fractionDigits++;
+					}
+					else if (fractionDigits == decimals)
+					{
+						//the first digit past the kept decimals decides the rounding
+						roundUp = next >= '5';
+						fractionDigits++;
+					}
+				}
+				else
+				{
+					throw new NumberFormatException("Not a valid " + what + ": " + text);
+				}
+			}
+			if (!anyDigits)
+				throw new NumberFormatException("Not a valid " + what + ": " + text);
+
+			for (int padding = Math.max(fractionDigits, 0); padding < decimals; padding++)
+				value = Math.multiplyExact(value, 10);
+			if (roundUp)
+				value = Math.addExact(value, 1);
+		}
+		catch (ArithmeticException aException)
+		{
+			throw new NumberFormatException("The " + what + " is too large: " + text);
+		}
+		return negative ? -value : value;
+	}
+}
@@ -0,0 +1,126 @@
+package assignment3.simpleAccount.util;
+
+/**
+ * Writes amounts held in cents with exactly two decimal places, straight into a StringBuilder or char array supplied by
+ * the caller. Nothing is created on the way, so a caller which reuses its buffer formats without allocating. A format
+ * holds no state once created and may be shared by any number of threads, unlike DecimalFormat.
+ * <p>
+ * The cents are written exactly as they are. Rounding happens once, when an amount is converted with
+ * Money.toForeign(), which rounds half up. So for any amount a double can carry to the cent, that is of less than 2^52
+ * cents, the result is the same as DecimalFormat with RoundingMode.HALF_UP formatting cents / 100.0. Larger amounts lose
+ * cents in the double, and only this format still writes them correctly.
+ *
+ * @author dTorrente
+ */
+public final class MoneyFormat {
+
+	/** The form used in account files, such as "12.50", "0.50" or "-0.07". The same as the pattern "0.00". */
+	public static final MoneyFormat PLAIN = new MoneyFormat("0.00", true);
+	/** The form shown in the edit views and messages, such as "12.50", ".50" or "-.07". The same as the pattern "#.00". */
+	public static final MoneyFormat DISPLAY = new MoneyFormat("#.00", false);
+
+	/** The most characters an amount can take: a sign, 17 digits before the point, the point and 2 decimals. */
+	public static final int MAX_LENGTH = 21;
+
+	private final String pattern;
+	private final boolean leadingZero;
+
+	/**
+	* Constructor for a format.
+	* @param pattern The DecimalFormat pattern this format gives the same results as.
+	* @param leadingZero Whether an amount of less than one is written with a 0 before the point.
+	*/
+	private MoneyFormat(String pattern, boolean leadingZero)
+	{
+		this.pattern = pattern;
+		this.leadingZero = leadingZero;
+	}
+
+	/**
+	* Append an amount to a builder.
+	* @param out The builder to append to. Whatever it holds already is left alone.
+	* @param cents The amount in cents.
+	* @return The builder.
+	*/
+	public StringBuilder append(StringBuilder out, long cents)
+	{
+		if (cents < 0)
+			out.append('-');
+		//Long.MIN_VALUE has no positive counterpart, so the magnitude is divided as an unsigned value
+		long magnitude = cents < 0 ? -cents : cents;
+		long whole = Long.divideUnsigned(magnitude, 100);
+		int fraction = (int) Long.remainderUnsigned(magnitude, 100);
+		if (whole != 0 || leadingZero)
+			out.append(whole);
+		return out.append('.').append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+	}
+
+	/**
+	* Write an amount into a char array.
+	* @param cents The amount in cents.
+	* @param buffer The array to write into.
+	* @param offset Where in the array to write the first character. At least MAX_LENGTH characters from here are safe.
+	* @return The index just after the last character written.
+	* @throws ArrayIndexOutOfBoundsException If the amount does not fit in the array, in which case nothing is written.
+	*/
+	public int format(long cents, char[] buffer, int offset)
+	{
+		long magnitude = cents < 0 ? -cents : cents;
+		long whole = Long.divideUnsigned(magnitude, 100);
+		int fraction = (int) Long.remainderUnsigned(magnitude, 100);
+
+		int wholeDigits = whole != 0 || leadingZero ? digits(whole) : 0;
+		int end = offset + (cents < 0 ? 1 : 0) + wholeDigits + 3;
+		if (offset < 0 || end > buffer.length)
+			throw new ArrayIndexOutOfBoundsException("An amount of " + (end - offset) + " characters does not fit at " + offset);
+
+		//written backwards, from the last decimal to the sign
+		int index = end;
+		buffer[--index] = (char) ('0' + fraction % 10);
+		buffer[--index] = (char) ('0' + fraction / 10);
+		buffer[--index] = '.';
+		for (int digit = 0; digit < wholeDigits; digit++)
+		{
+			buffer[--index] = (char) ('0' + whole % 10);
+			whole /= 10;
+		}
+		if (cents < 0)
+			buffer[--index] = '-';
+		return end;
+	}
+
+	/**
+	* Write an amount as a new string. This creates the string and the array it is copied from; use append() or
+	* format() with a buffer which is reused to create nothing at all.
+	* @param cents The amount in cents.
+	* @return The amount as a string.
+	*/
+	public String format(long cents)
+	{
+		char[] buffer = new char[MAX_LENGTH];
+		return new String(buffer, 0, format(cents, buffer, 0));
+	}
+
+	/**
+	* Get the DecimalFormat pattern this format gives the same results as.
+	* @return The pattern, such as "#.00".
+	*/
+	@Override
+	public String toString()
+	{
+		return pattern;
+	}
+
+	/**
+	* Count the decimal digits of a whole number of dollars.
+	* @param whole The number, which is always less than 10^17 as it is at most 2^63 / 100.
+	* @return The number of digits, at least 1.
+	*/
+	private static int digits(long whole)
+	{
+		int count = 1;
+		for (long limit = 10; count < 18 && whole >= limit; limit *= 10)
+			count++;
+		return count;
+	}
+}
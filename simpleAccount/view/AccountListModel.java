@@ -0,0 +1,220 @@
+package assignment3.simpleAccount.view;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
+
+/**
+ * A comboBox model which reads the accounts straight from an account store rather than from a list of accounts. Only
+ * the order of the store's slots by account ID is kept, so replacing the accounts never copies them, and an account
+ * object is only created when a row is actually asked for, such as when it is painted.
+ * <p>
+ * The text shown for a row is built the first time the row is painted and kept in a small direct-mapped cache. A row's
+ * text holds only the account ID and name, which transactions never change, so the cache is only emptied when the
+ * accounts are replaced.
+ * <p>
+ * When no accounts are loaded the model holds a single placeholder account.
+ *
+ * @author dTorrente
+ */
+public class AccountListModel extends AbstractListModel<Account> implements ComboBoxModel<Account> {
+
+	private static final long serialVersionUID = -2735196803453219571L;
+	private static final int LABEL_CACHE_SIZE = 256;
+
+	private final Account placeholder;
+	private AccountStore store;
+	private int[] order;
+	private int size;
+	private Object selectedItem;
+
+	private final String[] labels;
+	private final int[] labelRows;
+
+	/**
+	* Constructor for an empty model.
+	* @param placeholder The account shown while no accounts are loaded.
+	*/
+	public AccountListModel(Account placeholder)
+	{
+		this.placeholder = placeholder;
+		this.labels = new String[LABEL_CACHE_SIZE];
+		this.labelRows = new int[LABEL_CACHE_SIZE];
+		this.selectedItem = placeholder;
+	}
+
+	/**
+	* Show the accounts of a store. The first account is selected.
+	* @param store The store holding the accounts.
+	* @param order The slots of the store in order of account ID. The array is kept, not copied.
+	*/
+	public void setAccounts(AccountStore store, int[] order)
+	{
+		int oldSize = getSize();
+		this.store = store;
+		this.order = order;
+		this.size = order.length;
+		clearLabels();
+		selectedItem = getElementAt(0);
+		fireRowsReplaced(oldSize);
+	}
+
+	/**
+	* Remove every account, leaving only the placeholder.
+	*/
+	public void clear()
+	{
+		int oldSize = getSize();
+		store = null;
+		order = null;
+		size = 0;
+		clearLabels();
+		selectedItem = placeholder;
+		fireRowsReplaced(oldSize);
+	}
+
+	/**
+	* Show an account added to the store since the accounts were set. It is placed in order of account ID.
+	* @param account The account. Accounts which are not in the store are not shown.
+	*/
+	public void insertAccount(Account account)
+	{
+		if (store == null)
+			return;
+		int slot = store.find(account.getAccountID());
+		if (slot < 0)
+			return;
+
+		int row = insertionRow(account.getAccountID());
+		if (size == order.length)
+		{
+			int[] grown = new int[Math.max(16, size + (size >> 1))];
+			System.arraycopy(order, 0, grown, 0, size);
+			order = grown;
+		}
+		System.arraycopy(order, row, order, row + 1, size - row);
+		order[row] = slot;
+		size++;
+		clearLabels();
+		fireIntervalAdded(this, row, row);
+	}
+
+	/**
+	* Get the number of rows.
+	* @return The number of accounts, or one for the placeholder when there are none.
+	*/
+	public int getSize()
+	{
+		return size == 0 ? 1 : size;
+	}
+
+	/**
+	* Get the account shown in a row. A new view of the account is created unless the store already holds one.
+	* @param row The row.
+	* @return The account.
+	*/
+	public Account getElementAt(int row)
+	{
+		if (size == 0)
+			return placeholder;
+		return store.view(order[row]);
+	}
+
+	/**
+	* Get the text shown for a row, the same as the row's account toString(). The text is cached.
+	* @param row The row.
+	* @return The text for the row.
+	*/
+	public String getLabel(int row)
+	{
+		int entry = row & (LABEL_CACHE_SIZE - 1);
+		String label = labels[entry];
+		if (label != null && labelRows[entry] == row)
+			return label;
+		label = getElementAt(row).toString();
+		labels[entry] = label;
+		labelRows[entry] = row;
+		return label;
+	}
+
+	/**
+	* Find the row of an account by a binary search on account ID.
+	* @param item The account to find.
+	* @return The row of the account, or -1 if the model does not show it.
+	*/
+	public int indexOf(Object item)
+	{
+		if (item == placeholder)
+			return size == 0 ? 0 : -1;
+		if (!(item instanceof Account) || size == 0)
+			return -1;
+		int accountID = ((Account) item).getAccountID();
+		int row = insertionRow(accountID) - 1;
+		if (row < 0 || store.getAccountID(order[row]) != accountID)
+			return -1;
+		return row;
+	}
+
+	/**
+	* Set the selected account.
+	* @param item The account to select.
+	*/
+	public void setSelectedItem(Object item)
+	{
+		if (item == null ? selectedItem == null : item.equals(selectedItem))
+			return;
+		selectedItem = item;
+		fireContentsChanged(this, -1, -1);
+	}
+
+	/**
+	* Get the selected account.
+	* @return The selected account.
+	*/
+	public Object getSelectedItem()
+	{
+		return selectedItem;
+	}
+
+	/**
+	* Find the row after every account with an ID no greater than the given one.
+	* @param accountID The account ID.
+	* @return The row.
+	*/
+	private int insertionRow(int accountID)
+	{
+		int low = 0;
+		int high = size;
+		while (low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if (store.getAccountID(order[middle]) <= accountID)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	* Empty the cache of row text.
+	*/
+	private void clearLabels()
+	{
+		for (int entry = 0; entry < LABEL_CACHE_SIZE; entry++)
+			labels[entry] = null;
+	}
+
+	/**
+	* Tell listeners that every row has been replaced.
+	* @param oldSize The number of rows before the change.
+	*/
+	private void fireRowsReplaced(int oldSize)
+	{
+		fireIntervalRemoved(this, 0, oldSize - 1);
+		fireIntervalAdded(this, 0, getSize() - 1);
+		fireContentsChanged(this, -1, -1);
+	}
+}
@@ -0,0 +1,222 @@
+package assignment3.simpleAccount.view;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import assignment3.simpleAccount.model.AccountSearchIndex;
+import assignment3.simpleAccount.model.AccountStore;
+
+/**
+ * A search field which narrows the comboBox of accounts to those matching what has been typed, by name or account ID.
+ * <p>
+ * Queries run on a single search thread rather than the event dispatch thread, so typing never waits on a search. Each
+ * keystroke cancels the search before it, and results are only shown if no newer keystroke has been made since. The
+ * search thread also owns the AccountSearchIndex, which it starts building as soon as accounts are loaded.
+ *
+ * @author dTorrente
+ */
+public class AccountSearchPanel extends JPanel {
+
+	private static final long serialVersionUID = 8857061328468372047L;
+
+	/** The most accounts listed for a query. */
+	public static final int SEARCH_LIMIT = 1000;
+
+	private final AccountListModel accountModel;
+	private final JTextField searchField;
+	private final ExecutorService searchThread;
+
+	private AccountStore store;
+	private int[] order;
+	private AccountSearchIndex searchIndex;
+	private Future<?> pendingSearch;
+	//counts the queries made, so a result which is no longer wanted can be recognised. Only used on the dispatch thread
+	private int generation;
+	private boolean replacing;
+
+	/**
+	* Constructor for the search panel.
+	* @param accountModel The model of the comboBox which shows the accounts found.
+	*/
+	public AccountSearchPanel(AccountListModel accountModel)
+	{
+		super(new BorderLayout());
+		this.accountModel = accountModel;
+		this.searchField = new JTextField();
+		this.searchThread = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "account-search");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		searchField.setToolTipText("Type part of a name or an account ID");
+		searchField.getDocument().addDocumentListener(new SearchHandler());
+		add(new JLabel(" Find: "), BorderLayout.WEST);
+		add(searchField, BorderLayout.CENTER);
+	}
+
+	/**
+	* Search new accounts. The search field is emptied, and the index of the accounts starts building on the search thread.
+	* @param store The store holding the accounts.
+	* @param order The slots of the store in order of account ID.
+	*/
+	public void setAccounts(AccountStore store, int[] order)
+	{
+		cancelSearch();
+		this.store = store;
+		this.order = order;
+		final AccountSearchIndex index = new AccountSearchIndex(store, order);
+		this.searchIndex = index;
+		clearField();
+		pendingSearch = searchThread.submit(new Runnable()
+		{
+			public void run()
+			{
+				index.update();
+			}
+		});
+	}
+
+	/**
+	* Stop searching the accounts, such as when they are unloaded.
+	*/
+	public void clear()
+	{
+		cancelSearch();
+		store = null;
+		order = null;
+		searchIndex = null;
+		clearField();
+	}
+
+	/**
+	* Empty the search field without starting a search.
+	*/
+	private void clearField()
+	{
+		replacing = true;
+		searchField.setText("");
+		searchField.setForeground(UIManager.getColor("TextField.foreground"));
+		replacing = false;
+	}
+
+	/**
+	* Cancel any search in progress and make sure its result is never shown.
+	*/
+	private void cancelSearch()
+	{
+		generation++;
+		if (pendingSearch != null)
+			pendingSearch.cancel(true);
+		pendingSearch = null;
+	}
+
+	/**
+	* Start a search for the text in the search field. An empty field lists every account again straight away.
+	*/
+	private void search()
+	{
+		if (replacing || searchIndex == null)
+			return;
+		cancelSearch();
+
+		final String query = searchField.getText();
+		if (query.trim().isEmpty())
+		{
+			searchField.setForeground(UIManager.getColor("TextField.foreground"));
+			accountModel.setAccounts(store, order);
+			return;
+		}
+
+		final int queryGeneration = generation;
+		final AccountSearchIndex index = searchIndex;
+		final AccountStore searched = store;
+		pendingSearch = searchThread.submit(new Runnable()
+		{
+			public void run()
+			{
+				if (!index.update())
+					return;
+				final int[] found = index.search(query, SEARCH_LIMIT);
+				if (found == null)
+					return;
+				SwingUtilities.invokeLater(new Runnable()
+				{
+					public void run()
+					{
+						showResult(queryGeneration, searched, found);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	* Show the accounts found by a search, unless a newer search has been started since. If nothing was found the
+	* comboBox is left as it was and the query is shown in red.
+	* @param queryGeneration The generation of the search.
+	* @param searched The store which was searched.
+	* @param found The slots of the accounts found.
+	*/
+	private void showResult(int queryGeneration, AccountStore searched, int[] found)
+	{
+		if (queryGeneration != generation || searched != store)
+			return;
+		pendingSearch = null;
+		if (found.length == 0)
+		{
+			searchField.setForeground(Color.RED);
+			return;
+		}
+		searchField.setForeground(UIManager.getColor("TextField.foreground"));
+		accountModel.setAccounts(searched, found);
+	}
+
+	/**
+	* Inner class used to start a search whenever the text of the search field changes.
+	*/
+	private class SearchHandler implements DocumentListener
+	{
+		/**
+		* Called when text is typed into the search field.
+		* @param event The change to the text.
+		*/
+		public void insertUpdate(DocumentEvent event)
+		{
+			search();
+		}
+
+		/**
+		* Called when text is deleted from the search field.
+		* @param event The change to the text.
+		*/
+		public void removeUpdate(DocumentEvent event)
+		{
+			search();
+		}
+
+		/**
+		* Called when attributes of the text change, which does not change the query.
+		* @param event The change to the attributes.
+		*/
+		public void changedUpdate(DocumentEvent event)
+		{
+		}
+	}
+}
@@ -3,8 +3,6 @@ package assignment3.simpleAccount.view;
 import javax.swing.JFrame;
 
 import java.awt.event.ActionListener;
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
 import java.awt.event.ActionEvent;
 import java.awt.BorderLayout;
 import java.awt.GridLayout;
@@ -16,6 +14,10 @@ import javax.swing.JTextField;
 
 import assignment3.simpleAccount.controller.Controller;
 import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.CurrencyRates;
+import assignment3.simpleAccount.model.RateTable;
+import assignment3.simpleAccount.util.Money;
+import assignment3.simpleAccount.util.MoneyFormat;
 
 /** 
  * A class which defines views for specific accounts. These views are not unique and multiple copies can be opened.
@@ -37,11 +39,14 @@ public class EditView extends JFrame{
 	private JPanel buttonPanel;
 	private JPanel editPanel;
 	private JPanel currentFundsPanel;
-	private DecimalFormat decimalFormat;
+	//only used on the event dispatch thread
+	private final StringBuilder fundsText = new StringBuilder(MoneyFormat.MAX_LENGTH);
 	
-	private float fundMultiplier;
+	private CurrencyRates currencyRates;
+	private String currency;
 	
 	public ButtonHandler buttonHandler;
+	private FundsUpdate fundsUpdate;
 	
 	/**
 	* Constructor to create a view used for editing accounts.
@@ -57,31 +62,30 @@ public class EditView extends JFrame{
 		super(accountToEdit.generateStringForEditView() + " " + editMethod);
 		this.setSize(400, 68);
 		this.setResizable(false);
-	
-		decimalFormat = new DecimalFormat("#.00");
-		decimalFormat.setRoundingMode(RoundingMode.HALF_UP);
 		
 		this.accountToEdit = accountToEdit;
 		accountToEdit.addEditModelListener(this);
 		this.controller = controller;
+		this.currencyRates = controller.getCurrencyRates();
 		
 		buttonHandler = new ButtonHandler();
+		fundsUpdate = new FundsUpdate();
 		setButtons();
 		setFundDisplay();
 		if(editMethod.equals("Edit in USD"))
 		{
 			enterFundsLabel.setText("Enter amount in USD: ");
-			setFundMultiplier(1.00f);
+			setCurrency(RateTable.USD);
 		}
 		else if(editMethod.equals("Edit in Euros"))
 		{
 			enterFundsLabel.setText("Enter amount in Euros: ");
-			setFundMultiplier(0.94f);
+			setCurrency("EUR");
 		}
 		else if(editMethod.equals("Edit in Yuan"))
 		{
 			enterFundsLabel.setText("Enter amount in Yuan: ");
-			setFundMultiplier(6.91f);
+			setCurrency("CNY");
 		}
 		
 		updateAvabFundDisplay();
@@ -132,7 +136,7 @@ public class EditView extends JFrame{
 		
 		currentFunds = new JTextField();
 		currentFunds.setEditable(false);
-		currentFunds.setText(Float.toString(accountToEdit.getFunds() * fundMultiplier ));
+		currentFunds.setText(Money.toString(accountToEdit.getFunds()));
 		
 		editPanel.add(enterFundsLabel);
 		editPanel.add(editAmount);
@@ -145,12 +149,12 @@ public class EditView extends JFrame{
 	}
 	
 	/** 
-	* Set the fund multiplier to properly display funds. Note that it does not actually modify the funds.
-	* @param value The multiplier to use in order to properly display funds. 
+	* Set the currency to properly display funds in. Note that it does not actually modify the funds.
+	* @param code The code of the currency, such as "EUR", whose rate is looked up in the current rate table. 
 	*/
-	private void setFundMultiplier(float value)
+	private void setCurrency(String code)
 	{
-		this.fundMultiplier = value;
+		this.currency = code;
 	}
 	
 	/** 
@@ -166,12 +170,30 @@ public class EditView extends JFrame{
 	*/
 	public void updateAvabFundDisplay()
 	{
-		String valueToDisplay;
-		valueToDisplay = decimalFormat.format(accountToEdit.getFunds() * fundMultiplier);
-		currentFunds.setText(valueToDisplay);
+		showFunds();
 		resetEditAmountDisplay();
 	}
 	
+	/** 
+	* Called when the funds of the account (model) or the exchange rates have changed. May be called from any thread, as often as the funds change.
+	* The display is updated on the event dispatch thread, once for any number of changes made since it was last updated.
+	* What the user is typing is left alone.
+	*/
+	public void fundsChanged()
+	{
+		SwingUpdateCoalescer.request(fundsUpdate);
+	}
+	
+	/** 
+	* Shows the current funds of the account, converted to the currency of this view.
+	*/
+	private void showFunds()
+	{
+		fundsText.setLength(0);
+		MoneyFormat.DISPLAY.append(fundsText, Money.toForeign(accountToEdit.getFunds(), getFundMultiplier()));
+		currentFunds.setText(fundsText.toString());
+	}
+	
 	/** 
 	* Gets the account (model) that this view is listening to.
 	* @return The account (model) that this view is listening to. 
@@ -191,12 +213,22 @@ public class EditView extends JFrame{
 	}
 	
 	/** 
-	* Gets the fund multiplier.
-	* @return The fund multiplier. 
+	* Gets the fund multiplier from the current rate table. Takes no lock, so it may be read while the rates are being
+	* refreshed; read it once for each conversion so that every amount in the conversion uses the same rate.
+	* @return The fund multiplier, an exchange rate scaled by Money.RATE_SCALE. 
 	*/
-	public float getFundMultiplier()
+	public long getFundMultiplier()
 	{
-		return this.fundMultiplier;
+		return currencyRates.getTable().getRate(currency);
+	}
+	
+	/** 
+	* Gets the currency this view shows funds in.
+	* @return The currency code, such as "EUR". 
+	*/
+	public String getCurrency()
+	{
+		return this.currency;
 	}
 	
 	/** 
@@ -216,6 +248,21 @@ public class EditView extends JFrame{
 		}
 	}
 	
+	/** 
+	* Inner class which shows the funds of the account when run. Requested through SwingUpdateCoalescer, so it runs on the
+	* event dispatch thread and reads the funds as they are then.
+	*/
+	private class FundsUpdate implements Runnable
+	{
+		/** 
+		* Shows the current funds.
+		*/
+		public void run()
+		{
+			showFunds();
+		}
+	}
+	
 	
 	
 }
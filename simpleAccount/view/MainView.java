@@ -2,22 +2,26 @@ package assignment3.simpleAccount.view;
 
 import javax.swing.JFrame;
 import javax.swing.JComboBox;
-import javax.swing.DefaultComboBoxModel;
 import javax.swing.JButton;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JList;
 
 import javax.swing.JFileChooser;
 import javax.swing.JMenuBar;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
+import javax.swing.JProgressBar;
 
 import java.io.File;
-import java.util.Vector;
 
 import javax.swing.JPanel;
+import javax.swing.plaf.basic.ComboPopup;
 
 import assignment3.simpleAccount.controller.Controller;
+import assignment3.simpleAccount.metrics.AccountListEvent;
 import assignment3.simpleAccount.model.Account;
+import assignment3.simpleAccount.model.AccountStore;
 
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
@@ -25,6 +29,7 @@ import java.awt.event.ActionListener;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
 import java.awt.BorderLayout;
+import java.awt.Component;
 
 /** 
  * A class which defines a view for all accounts to use. This view is used to save accounts, load accounts, and modify them through 
@@ -40,7 +45,6 @@ public class MainView extends JFrame implements WindowListener{
 	private JMenu fileMenu;
 	
 	private Controller controller;
-	private Vector<Account> accounts;
 	
 	private JMenuItem saveFile;
 	private JMenuItem loadFile;
@@ -51,7 +55,12 @@ public class MainView extends JFrame implements WindowListener{
 	private ButtonHandler buttonHandler;
 	private MenuHandler menuHandler;
 	
-	private DefaultComboBoxModel<Account> comboModel; 
+	private AccountListModel comboModel; 
+	private AccountSearchPanel searchPanel;
+	
+	private JPanel progressPanel;
+	private JProgressBar progressBar;
+	private JButton cancelButton;
 	
 	/**
 	* Constructor to create a view used to select accounts as well as how to edit them.
@@ -73,6 +82,7 @@ public class MainView extends JFrame implements WindowListener{
 		setMenuBar();
 		setButtons();
 		setComboBox();
+		setProgressPanel();
 		
 		this.setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
 		addWindowListener(this);
@@ -80,16 +90,76 @@ public class MainView extends JFrame implements WindowListener{
 	}
 	
 	/** 
-	* Set up the comboBox with a list of accounts. Initially has a default account listed. 
+	* Set up the comboBox with a list of accounts. Initially has a default account listed. The default account is also used
+	* as the prototype for the size of every row, so neither the comboBox nor its popup list measure each account. Together
+	* with AccountListModel, only the rows on screen are ever created. A search field above the comboBox narrows it to the
+	* accounts matching what is typed.
 	*/
 	private void setComboBox()
 	{
-		accounts = new Vector<Account>();
-		accounts.add(new Account(this));
-		comboModel = new DefaultComboBoxModel<Account>(accounts);
-		accountList = new JComboBox<Account>( comboModel );
+		Account placeholder = new Account(this);
+		comboModel = new AccountListModel(placeholder);
+		accountList = new AccountComboBox( comboModel );
+		accountList.setRenderer(new AccountRenderer());
+		accountList.setPrototypeDisplayValue(placeholder);
+		Object popup = accountList.getUI().getAccessibleChild(accountList, 0);
+		if (popup instanceof ComboPopup)
+			((ComboPopup) popup).getList().setPrototypeCellValue(placeholder);
+		searchPanel = new AccountSearchPanel(comboModel);
 		
-		this.add(accountList, BorderLayout.NORTH);
+		JPanel accountPanel = new JPanel(new GridLayout(2, 1));
+		accountPanel.add(searchPanel);
+		accountPanel.add(accountList);
+		this.add(accountPanel, BorderLayout.NORTH);
+	}
+	
+	/** 
+	* Set up the progress bar shown while an account file is loaded or saved, with a button to cancel it. Hidden until a
+	* file is loaded or saved.
+	*/
+	private void setProgressPanel()
+	{
+		progressBar = new JProgressBar(0, 1000);
+		progressBar.setStringPainted(true);
+		cancelButton = new JButton("Cancel");
+		cancelButton.addActionListener(new CancelHandler());
+		
+		progressPanel = new JPanel(new BorderLayout());
+		progressPanel.add(progressBar, BorderLayout.CENTER);
+		progressPanel.add(cancelButton, BorderLayout.EAST);
+		progressPanel.setVisible(false);
+		this.add(progressPanel, BorderLayout.CENTER);
+	}
+	
+	/** 
+	* Show the progress of loading or saving an account file. 
+	* @param action What is being done to the file, such as "Loading".
+	* @param bytes The bytes read or written so far.
+	* @param totalBytes The size of the file when done, or zero if it is not known.
+	* @param records The accounts read or written so far.
+	*/
+	public void showProgress(String action, long bytes, long totalBytes, long records)
+	{
+		progressBar.setIndeterminate(totalBytes <= 0);
+		if (totalBytes > 0)
+			progressBar.setValue((int) (Math.min(bytes, totalBytes) * 1000 / totalBytes));
+		progressBar.setString(action + " " + (bytes >> 20) + " MB, " + records + " accounts");
+		if (!progressPanel.isVisible())
+		{
+			cancelButton.setEnabled(true);
+			progressPanel.setVisible(true);
+			this.validate();
+		}
+	}
+	
+	/** 
+	* Hide the progress bar once a file has been loaded or saved. 
+	*/
+	public void hideProgress()
+	{
+		progressBar.setIndeterminate(false);
+		progressPanel.setVisible(false);
+		this.validate();
 	}
 	
 	/** 
@@ -176,20 +246,111 @@ public class MainView extends JFrame implements WindowListener{
 	}
 	
 	/** 
-	* Called when the menu has changed. 
-	* @param account The list of currently loaded accounts. Used to re-populate the comboBox model.
+	* Called when the menu has changed because a single account was added to the loaded accounts. It is inserted in order
+	* of account ID. Reached through Account.notifyMainView() when an account is created for this view, while loading a
+	* file replaces the whole list through accountsReplaced() instead.
+	* @param account The account added. Only accounts held by the loaded account store are shown.
 	*/
 	public void menuChanged(Account account)
 	{
-		if(accountList.getItemCount()==1)
+		AccountListEvent event = new AccountListEvent();
+		event.begin();
+		comboModel.insertAccount(account);
+		recordListEvent(event, "insert");
+	}
+	
+	/** 
+	* Called when the whole list of accounts has been replaced, such as when an account file is loaded. The comboBox reads
+	* the accounts straight from the store, so nothing is copied however many accounts there are.
+	* @param store The store holding the new accounts.
+	* @param order The slots of the store in order of account ID, as given by Controller.organizeAccounts().
+	*/
+	public void accountsReplaced(AccountStore store, int[] order)
+	{
+		AccountListEvent event = new AccountListEvent();
+		event.begin();
+		comboModel.setAccounts(store, order);
+		searchPanel.setAccounts(store, order);
+		recordListEvent(event, "replace");
+	}
+	
+	/** 
+	* Record a change to the list of accounts to Java Flight Recorder, if it is running.
+	* @param event The event, begun before the change.
+	* @param change What the change was: "replace", "insert" or "clear".
+	*/
+	private void recordListEvent(AccountListEvent event, String change)
+	{
+		event.end();
+		if (event.shouldCommit())
 		{
-			if(accountList.getItemAt(0).getAccountID() == 0)
-				accountList.removeItemAt(0);
+			event.change = change;
+			event.accounts = comboModel.getSize();
+			event.commit();
+		}
+	}
+	
+	/** 
+	* Inner class for the comboBox of accounts. JComboBox finds the selected account by comparing it with every row in turn,
+	* which would create an account object for each row, so the row is found with a binary search of the model instead.
+	*/
+	private static class AccountComboBox extends JComboBox<Account>
+	{
+		private static final long serialVersionUID = 5203671538128190423L;
+		
+		private AccountListModel accountModel;
+		
+		/** 
+		* Constructor for the comboBox.
+		* @param accountModel The model of the accounts to list.
+		*/
+		public AccountComboBox(AccountListModel accountModel)
+		{
+			super(accountModel);
+			this.accountModel = accountModel;
+		}
+		
+		/** 
+		* Get the row of the selected account.
+		* @return The row, or -1 if no account is selected.
+		*/
+		public int getSelectedIndex()
+		{
+			return accountModel.indexOf(getSelectedItem());
+		}
+		
+		/** 
+		* Select an account, provided the model lists it.
+		* @param item The account to select.
+		*/
+		public void setSelectedItem(Object item)
+		{
+			if (item == null || accountModel.indexOf(item) >= 0)
+				accountModel.setSelectedItem(item);
+		}
+	}
+	
+	/** 
+	* Inner class used to render the rows of the comboBox with the text cached by AccountListModel.
+	*/
+	private class AccountRenderer extends DefaultListCellRenderer
+	{
+		private static final long serialVersionUID = -6128443075893126337L;
+		
+		/** 
+		* Render a row.
+		* @param list The list being rendered.
+		* @param value The account of the row.
+		* @param index The row, or -1 for the selected account shown in the comboBox itself.
+		* @param isSelected Whether the row is selected.
+		* @param cellHasFocus Whether the row has the focus.
+		* @return The component which paints the row.
+		*/
+		public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus)
+		{
+			Object text = index >= 0 && index < comboModel.getSize() ? comboModel.getLabel(index) : value;
+			return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
 		}
-		accounts.add(account);
-		controller.organizeAccounts(accounts);
-		accountList.setModel( new DefaultComboBoxModel<Account>(accounts));
-		accountList.setSelectedIndex(0);
 	}
 	
 	/** 
@@ -209,6 +370,23 @@ public class MainView extends JFrame implements WindowListener{
 		
 	}
 	
+	/** 
+	* Inner class used to handle the button which cancels loading or saving a file.
+	*/
+	private class CancelHandler implements ActionListener
+	{
+		/** 
+		* Handles the cancel button. The load or save stops the next time it reads or writes, and the progress bar is
+		* hidden once it has.
+		* @param event The event to handle.
+		*/
+		public void actionPerformed (ActionEvent event)
+		{
+			cancelButton.setEnabled(false);
+			controller.cancelFileTask();
+		}
+	}
+	
 	/** 
 	* Inner class used to handle the menu on the mainView.
 	*/
@@ -259,7 +437,11 @@ public class MainView extends JFrame implements WindowListener{
 	*/
 	public void notifyOfRemoval()
 	{
-		accounts.clear();
+		AccountListEvent event = new AccountListEvent();
+		event.begin();
+		searchPanel.clear();
+		comboModel.clear();
+		recordListEvent(event, "clear");
 	}
 
 	/** 
@@ -277,11 +459,8 @@ public class MainView extends JFrame implements WindowListener{
 	*/
 	public void resetComboBox()
 	{
-		accounts.clear();
-		accounts.add(new Account(this));
-		controller.organizeAccounts(accounts);
-		accountList.setModel( new DefaultComboBoxModel<Account>(accounts));
-		accountList.setSelectedIndex(0);
+		searchPanel.clear();
+		comboModel.clear();
 	}
 	
 	/** 
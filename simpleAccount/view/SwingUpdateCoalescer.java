@@ -0,0 +1,63 @@
+package assignment3.simpleAccount.view;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs updates of Swing components on the event dispatch thread, however many times and from whichever threads they
+ * are requested. A requested update is only marked as pending. The first request after a flush schedules a single
+ * flush with SwingUtilities.invokeLater(), and the flush runs each pending update once. A burst of any number of
+ * requests between two flushes therefore costs one repaint per component rather than one per request.
+ * <p>
+ * Requesting an update which is already pending costs a single hash lookup, and no lock is ever taken.
+ *
+ * @author dTorrente
+ */
+public final class SwingUpdateCoalescer {
+
+	private static final Set<Runnable> PENDING = ConcurrentHashMap.newKeySet();
+	private static final AtomicBoolean FLUSH_SCHEDULED = new AtomicBoolean();
+	private static final Runnable FLUSH = new Runnable()
+	{
+		public void run()
+		{
+			flush();
+		}
+	};
+
+	/**
+	* SwingUpdateCoalescer is a collection of static methods and is not to be created.
+	*/
+	private SwingUpdateCoalescer()
+	{
+	}
+
+	/**
+	* Request that an update be run on the event dispatch thread. May be called from any thread. An update already
+	* pending is not added again, so it runs once however many times it was requested before the flush.
+	* @param update The update to run. It should read the latest state when it runs rather than capture it when requested.
+	*/
+	public static void request(Runnable update)
+	{
+		if (PENDING.add(update) && FLUSH_SCHEDULED.compareAndSet(false, true))
+			SwingUtilities.invokeLater(FLUSH);
+	}
+
+	/**
+	* Run every pending update. An update is removed before it runs, so a request made while it runs is kept for the next
+	* flush rather than lost.
+	*/
+	private static void flush()
+	{
+		//cleared first, so a request made during the flush schedules another flush if this one misses it
+		FLUSH_SCHEDULED.set(false);
+		for (Runnable update : PENDING)
+		{
+			PENDING.remove(update);
+			update.run();
+		}
+	}
+}